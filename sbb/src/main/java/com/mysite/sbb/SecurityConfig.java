@@ -3,6 +3,7 @@ package com.mysite.sbb;
 import com.mysite.sbb.user.CustomOAuth2UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.security.servlet.PathRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -27,9 +28,21 @@ public class SecurityConfig {
     // ✅ local에서도 SecurityConfig는 생성되므로, OAuth2 관련 빈을 “필요할 때만” 꺼내도록 변경
     private final ObjectProvider<CustomOAuth2UserService> customOAuth2UserServiceProvider;
 
+    // KIS 시뮬레이터를 켠 경우에만 /kis-sim/** 공개 + CSRF 제외 (prod 체인에 기본으로 열어두지 않음)
+    @Value("${kis.simulator.enabled:false}")
+    private boolean simulatorEnabled;
+
     private void common(HttpSecurity http) throws Exception {
     	System.out.println(">>> SecurityConfig.common() applied");
 
+        // anyRequest() 보다 먼저 등록되도록 맨 앞에서
+        if (simulatorEnabled) {
+            http.authorizeHttpRequests(auth -> auth
+                    .requestMatchers(new AntPathRequestMatcher("/kis-sim/**")).permitAll());
+            http.csrf(csrf -> csrf
+                    .ignoringRequestMatchers(new AntPathRequestMatcher("/kis-sim/**")));
+        }
+
         http.authorizeHttpRequests(auth -> auth
                 .requestMatchers(PathRequest.toStaticResources().atCommonLocations()).permitAll()
                 .requestMatchers(
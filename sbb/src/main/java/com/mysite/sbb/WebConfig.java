@@ -3,6 +3,7 @@ package com.mysite.sbb;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.servlet.config.annotation.*;
 
@@ -18,6 +19,23 @@ public class WebConfig implements WebMvcConfigurer {
         return builder.build();
     }
 
+    /**
+     * Open Session In View (spring.jpa.open-in-view=false 대신 여기서 등록)
+     * - 화면(Thymeleaf)은 지연 로딩 때문에 그대로 유지
+     * - /api/stocks/** 는 제외: 요약(Mono)/SSE처럼 비동기로 오래 열려 있는 요청이 끝날 때까지
+     *   DB 커넥션을 붙잡아 풀(prod 3개)이 바닥나기 때문. 여기 응답은 DTO/캐시된 마스터라 지연 로딩 없음
+     */
+    @Bean
+    public OpenEntityManagerInViewInterceptor openEntityManagerInViewInterceptor() {
+        return new OpenEntityManagerInViewInterceptor();
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addWebRequestInterceptor(openEntityManagerInViewInterceptor())
+                .excludePathPatterns("/api/stocks/**");
+    }
+
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
         // /uploads/** -> file:///C:/upload/** 매핑
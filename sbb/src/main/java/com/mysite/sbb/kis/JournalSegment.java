@@ -0,0 +1,200 @@
+package com.mysite.sbb.kis;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 틱 저널 세그먼트 파일 1개 (memory-mapped, 고정 크기 레코드).
+ *
+ * 레코드 128 bytes = KisTickCodec 레이아웃(112) + 예약(16)
+ * - 0번 receivedAtMillis는 0이면 빈 슬롯, 마지막에 release로 기록 → 커밋 마커
+ */
+final class JournalSegment {
+
+    static final int RECORD_SIZE = 128;
+
+    // 종목별로 N건마다 한 번씩 sparse index에 기록
+    static final int INDEX_INTERVAL = 32;
+
+    private static final VarHandle LONGS =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final Path path;
+    private final int day;          // yyyyMMdd (KST)
+    private final int capacity;     // 레코드 수
+    private final MappedByteBuffer buf;
+
+    // 다음에 예약할 슬롯
+    private final AtomicInteger next = new AtomicInteger();
+
+    // 종목별 sparse index
+    private final Map<String, CodeIndex> index = new ConcurrentHashMap<>();
+
+    private JournalSegment(Path path, int day, int capacity, MappedByteBuffer buf) {
+        this.path = path;
+        this.day = day;
+        this.capacity = capacity;
+        this.buf = buf;
+        this.buf.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /** 새 세그먼트 생성 (파일 크기를 미리 잡고 매핑). 매핑은 파일을 닫아도 유지됨 */
+    static JournalSegment create(Path path, int day, int capacity) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(path.toFile(), "rw")) {
+            long size = (long) capacity * RECORD_SIZE;
+            raf.setLength(size);
+            FileChannel ch = raf.getChannel();
+            MappedByteBuffer mb = ch.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            return new JournalSegment(path, day, capacity, mb);
+        }
+    }
+
+    /** 기존 세그먼트를 읽기 전용으로 열고 sparse index 재구성 */
+    static JournalSegment open(Path path, int day) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(path.toFile(), "r")) {
+            long size = raf.length();
+            FileChannel ch = raf.getChannel();
+            MappedByteBuffer mb = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            JournalSegment seg = new JournalSegment(path, day, (int) (size / RECORD_SIZE), mb);
+            seg.rebuildIndex();
+            return seg;
+        }
+    }
+
+    Path path() { return path; }
+    int day() { return day; }
+
+    /** @return 예약된 슬롯, 가득 찼으면 -1 */
+    int reserve() {
+        int slot = next.getAndIncrement();
+        return slot < capacity ? slot : -1;
+    }
+
+    /** 현재까지 예약된(쓰는 중 포함) 슬롯 수 */
+    int reserved() {
+        return Math.min(next.get(), capacity);
+    }
+
+    void write(int slot, KisTick t) {
+        int off = slot * RECORD_SIZE;
+        KisTickCodec.writeBody(buf, off, t);
+
+        // 커밋 마커는 마지막에 release로 기록 (읽는 쪽은 acquire로 확인)
+        long recv = t.getReceivedAtMillis();
+        LONGS.setRelease(buf, off, recv == 0 ? 1L : recv);
+
+        indexFor(t.getCode()).add(t.getExchangeTimeMillis(), slot);
+    }
+
+    /** @return 커밋된 레코드면 true */
+    boolean read(int slot, KisTick into) {
+        int off = slot * RECORD_SIZE;
+        long recv = (long) LONGS.getAcquire(buf, off);
+        if (recv == 0) return false;
+
+        into.reset();
+        into.setReceivedAtMillis(recv);
+        KisTickCodec.readBody(buf, off, KisTickCodec.unpackCode(buf.getLong(off + KisTickCodec.OFF_CODE)), into);
+        return true;
+    }
+
+    long codeAt(int slot) {
+        return buf.getLong(slot * RECORD_SIZE + KisTickCodec.OFF_CODE);
+    }
+
+    long exchangeTimeAt(int slot) {
+        return buf.getLong(slot * RECORD_SIZE + KisTickCodec.OFF_EXCHANGE_TIME);
+    }
+
+    /**
+     * 해당 종목의 [from, to] 구간 스캔 범위 {시작 슬롯, 끝 슬롯(exclusive)}. 종목이 없으면 null
+     */
+    int[] scanRange(String code, long fromMillis, long toMillis) {
+        CodeIndex ci = index.get(code);
+        if (ci == null) return null;
+        return ci.range(fromMillis, toMillis, reserved());
+    }
+
+    void force() {
+        buf.force();
+    }
+
+    private CodeIndex indexFor(String code) {
+        CodeIndex ci = index.get(code);
+        if (ci == null) {
+            ci = index.computeIfAbsent(code, c -> new CodeIndex());
+        }
+        return ci;
+    }
+
+    private void rebuildIndex() {
+        Map<Long, String> codes = new HashMap<>();
+        int slot = 0;
+        for (; slot < capacity; slot++) {
+            if ((long) LONGS.getAcquire(buf, slot * RECORD_SIZE) == 0) break;
+            String code = codes.computeIfAbsent(codeAt(slot), KisTickCodec::unpackCode);
+            indexFor(code).add(exchangeTimeAt(slot), slot);
+        }
+        next.set(slot);
+    }
+
+    /**
+     * 종목별 sparse index: INDEX_INTERVAL건마다 (체결시각, 슬롯) 한 쌍
+     */
+    private static final class CodeIndex {
+        private long[] times = new long[16];
+        private int[] slots = new int[16];
+        private int size;
+        private long count;
+        private int lastSlot = -1;
+
+        synchronized void add(long time, int slot) {
+            lastSlot = Math.max(lastSlot, slot);
+            if (count++ % INDEX_INTERVAL != 0) return;
+
+            if (size == times.length) {
+                times = Arrays.copyOf(times, size * 2);
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            times[size] = time;
+            slots[size] = slot;
+            size++;
+        }
+
+        synchronized int[] range(long fromMillis, long toMillis, int reserved) {
+            if (size == 0) return null;
+
+            // from 이하인 마지막 샘플부터 시작
+            int i = upperBound(fromMillis) - 1;
+            int start = i >= 0 ? slots[i] : slots[0];
+
+            // to를 넘는 첫 샘플에서 끝 (없으면 이 종목의 마지막 기록까지)
+            int j = upperBound(toMillis);
+            int end = j < size ? slots[j] : Math.min(reserved, lastSlot + 1);
+
+            return start < end ? new int[] {start, end} : null;
+        }
+
+        // times[i] > t 인 첫 인덱스 (체결시각은 종목 내에서 비감소)
+        private int upperBound(long t) {
+            int lo = 0, hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (times[mid] <= t) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+    }
+}
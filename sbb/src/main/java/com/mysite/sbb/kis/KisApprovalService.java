@@ -1,15 +1,40 @@
 package com.mysite.sbb.kis;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
 
+/**
+ * KIS 인증값 (WS approval_key, REST access_token).
+ * - 읽기는 AtomicReference 한 번 (락 없음). 만료 전이면 그대로 반환
+ * - 발급 후 만료 refresh-ahead-sec 전(± jitter)에 kis-token-refresh 스레드가 미리 재발급 → 평소엔 요청 스레드가 발급을 기다릴 일 없음
+ * - 재발급은 종류별로 동시에 하나만 (진행 중인 CompletableFuture를 같이 씀). 실패하면 기존 값 유지하고 retry-sec 뒤 재시도
+ * - 값이 없거나 이미 만료된 경우(기동 직후/재발급 계속 실패)에만 호출 스레드가 진행 중인 발급을 기다림
+ * - kis.token.shared=true면 KisCredentialStore(Redis)를 먼저 봄: 다른 노드/이전 기동이 발급한 유효 값이 있으면 KIS 호출 없이 사용,
+ *   발급은 분산 잠금을 잡은 노드 하나만 (KIS 발급 제한에 재배포/롤링 재시작이 걸리지 않게)
+ */
 @Slf4j
 @Service
 public class KisApprovalService {
@@ -25,51 +50,94 @@ public class KisApprovalService {
     @Value("${kis.approval-base-url}")
     private String approvalBaseUrl;
 
-    // ===== WS approval_key 캐시 =====
-    private final AtomicReference<String> cachedApprovalKey = new AtomicReference<>();
-    private volatile Instant approvalExpiresAt = Instant.EPOCH;
+    // approval_key는 만료 시각을 안 내려줌 → 보수적으로 23시간
+    @Value("${kis.token.approval-ttl-sec:82800}")
+    private long approvalTtlSec;
+
+    // 만료 이만큼 전에 미리 재발급 (여러 노드/두 종류가 한꺼번에 몰리지 않게 ± jitter)
+    @Value("${kis.token.refresh-ahead-sec:1800}")
+    private long refreshAheadSec;
+
+    @Value("${kis.token.refresh-jitter-sec:300}")
+    private long refreshJitterSec;
+
+    // 재발급 실패 시 재시도 간격 (KIS 토큰 발급은 분당 1회 제한)
+    @Value("${kis.token.retry-sec:60}")
+    private long retrySec;
+
+    // 값이 없을 때 호출 스레드가 발급을 기다리는 최대 시간 / 발급 요청 자체의 타임아웃
+    // (공유 저장소면 다른 노드가 잠금을 쥔 동안은 잠금 유효 시간만큼은 기다림)
+    @Value("${kis.token.wait-ms:10000}")
+    private long waitMs;
+
+    /** 발급된 값. expiresAt(만료 1분 전)까지 사용 */
+    private record Credential(String value, Instant expiresAt) {
+        boolean usable(Instant now) {
+            return now.isBefore(expiresAt);
+        }
+    }
 
-    // ===== REST access_token 캐시 =====
-    private final AtomicReference<String> cachedAccessToken = new AtomicReference<>();
-    private volatile Instant tokenExpiresAt = Instant.EPOCH;
+    // 다른 노드가 발급 중일 때 Redis를 다시 보는 간격
+    private static final long LOCK_POLL_MS = 500;
 
-    public KisApprovalService(WebClient.Builder builder) {
+    private final Slot approval;
+    private final Slot access;
+
+    // kis.token.shared=true일 때만 (없으면 노드별 메모리)
+    private final KisCredentialStore store;
+
+    private final ScheduledExecutorService refreshExec = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "kis-token-refresh");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public KisApprovalService(WebClient.Builder builder, MeterRegistry meterRegistry,
+                              ObjectProvider<KisCredentialStore> storeProvider) {
         this.webClient = builder.build();
+        this.store = storeProvider.getIfAvailable();
+        this.approval = new Slot("approval", this::issueApprovalKey, meterRegistry);
+        this.access = new Slot("access", this::issueAccessToken, meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExec.shutdownNow();
+    }
+
+    private static Counter refreshCounter(MeterRegistry registry, String kind, String result) {
+        return Counter.builder("kis.token.refresh").tag("kind", kind).tag("result", result)
+                .description("KIS 인증값 발급/공유 저장소 적용 수").register(registry);
     }
 
     // ✅ WebSocket용 approval_key
-    public synchronized String getApprovalKey() {
-        if (cachedApprovalKey.get() != null && Instant.now().isBefore(approvalExpiresAt)) {
-            return cachedApprovalKey.get();
-        }
+    public String getApprovalKey() {
+        return approval.get();
+    }
 
+    // ✅ REST용 access_token
+    public String getAccessToken() {
+        return access.get();
+    }
+
+    private Mono<Credential> issueApprovalKey() {
         Map<String, String> body = Map.of(
                 "grant_type", "client_credentials",
                 "appkey", appKey,
                 "secretkey", appSecret
         );
 
-        var res = webClient.post()
+        return webClient.post()
                 .uri(approvalBaseUrl + "/oauth2/Approval")
                 .contentType(MediaType.APPLICATION_JSON)
                 .bodyValue(body)
                 .retrieve()
                 .bodyToMono(Map.class)
-                .block();
-
-        String approvalKey = (String) res.get("approval_key");
-        cachedApprovalKey.set(approvalKey);
-
-        approvalExpiresAt = Instant.now().plusSeconds(23 * 60 * 60);
-        return approvalKey;
+                .map(res -> new Credential((String) res.get("approval_key"),
+                        Instant.now().plusSeconds(approvalTtlSec)));
     }
 
-    // ✅ REST용 access_token
-    public synchronized String getAccessToken() {
-        if (cachedAccessToken.get() != null && Instant.now().isBefore(tokenExpiresAt)) {
-            return cachedAccessToken.get();
-        }
-
+    private Mono<Credential> issueAccessToken() {
         // 일반적으로 tokenP 엔드포인트 사용
         Map<String, String> body = Map.of(
                 "grant_type", "client_credentials",
@@ -77,7 +145,7 @@ public class KisApprovalService {
                 "appsecret", appSecret
         );
 
-        var res = webClient.post()
+        return webClient.post()
         	    .uri(approvalBaseUrl + "/oauth2/tokenP")
         	    .contentType(MediaType.APPLICATION_JSON)
         	    .bodyValue(body)
@@ -86,30 +154,193 @@ public class KisApprovalService {
         	        clientResponse -> clientResponse.bodyToMono(String.class)
         	            .flatMap(errBody -> {
         	                log.error("[KIS][TOKEN] status={}, body={}", clientResponse.statusCode(), errBody);
-        	                return reactor.core.publisher.Mono.error(new RuntimeException("KIS token error"));
+        	                return Mono.error(new RuntimeException("KIS token error"));
         	            })
         	    )
         	    .bodyToMono(Map.class)
-        	    .block();
+        	    .map(res -> {
+        	        // expires_in(초)이 내려오는 경우가 많음 → 있으면 그걸로, 없으면 보수적으로 50분
+        	        Object expiresInObj = res.get("expires_in");
+        	        long expiresIn = 50 * 60;
+        	        if (expiresInObj != null) {
+        	            try {
+        	                expiresIn = Long.parseLong(expiresInObj.toString());
+        	            } catch (Exception ignore) {}
+        	        }
+        	        // 만료 1분 전까지만 사용
+        	        return new Credential((String) res.get("access_token"),
+        	                Instant.now().plusSeconds(Math.max(60, expiresIn - 60)));
+        	    });
+    }
+
+    /**
+     * 인증값 한 종류. current는 읽기 전용 스냅샷, inFlight는 진행 중인 발급 (최대 1개), next는 예약된 재발급 (최대 1개)
+     */
+    private final class Slot {
+
+        private final String kind;
+        private final Supplier<Mono<Credential>> issuer;
+        private final AtomicReference<Credential> current = new AtomicReference<>();
+        private final AtomicReference<CompletableFuture<Credential>> inFlight = new AtomicReference<>();
+        private final AtomicReference<ScheduledFuture<?>> next = new AtomicReference<>();
+
+        private final Counter issued;
+        private final Counter adopted;
+        private final Counter failed;
 
-        String token = (String) res.get("access_token");
-        cachedAccessToken.set(token);
+        Slot(String kind, Supplier<Mono<Credential>> issuer, MeterRegistry meterRegistry) {
+            this.kind = kind;
+            this.issuer = issuer;
+            this.issued = refreshCounter(meterRegistry, kind, "success");
+            this.adopted = refreshCounter(meterRegistry, kind, "shared");
+            this.failed = refreshCounter(meterRegistry, kind, "failure");
+        }
+
+        String get() {
+            Credential c = current.get();
+            if (c != null && c.usable(Instant.now())) return c.value();
 
-        // expires_in(초)이 내려오는 경우가 많음 → 있으면 그걸로, 없으면 보수적으로 50분
-        Object expiresInObj = res.get("expires_in");
-        long expiresIn = 50 * 60;
-        if (expiresInObj != null) {
+            // 값이 없거나 만료: 진행 중인 발급을 같이 기다림 (타임아웃은 복사본에만, 공유 future는 건드리지 않음)
             try {
-                expiresIn = Long.parseLong(expiresInObj.toString());
-            } catch (Exception ignore) {}
+                return refresh().copy().orTimeout(callerWaitMs(), TimeUnit.MILLISECONDS).join().value();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException re) throw re;
+                throw new RuntimeException("KIS " + kind + " issue failed", e.getCause());
+            }
         }
 
-        // 만료 1분 전 갱신
-        tokenExpiresAt = Instant.now().plusSeconds(Math.max(60, expiresIn - 60));
-        return token;
-    }
+        /**
+         * 진행 중인 발급이 있으면 그것을, 없으면 새로 시작.
+         * 공유 저장소가 있으면 Redis(블로킹)를 거치므로 kis-token-refresh 스레드에서
+         */
+        CompletableFuture<Credential> refresh() {
+            while (true) {
+                CompletableFuture<Credential> running = inFlight.get();
+                if (running != null) return running;
+
+                CompletableFuture<Credential> mine = new CompletableFuture<>();
+                if (!inFlight.compareAndSet(null, mine)) continue;
+
+                if (store == null) {
+                    issueLocal(mine);
+                } else {
+                    submit(() -> refreshShared(mine), mine);
+                }
+                return mine;
+            }
+        }
+
+        // KIS 직접 발급 (논블로킹)
+        private void issueLocal(CompletableFuture<Credential> mine) {
+            issuer.get().subscribe(c -> done(mine, c, true), t -> fail(mine, t));
+        }
+
+        /**
+         * Redis에 더 새 값이 있으면 그대로 씀 (KIS 호출 없음).
+         * 없으면 잠금을 잡은 노드 하나만 발급해서 저장, 나머지는 잠시 뒤 Redis를 다시 봄
+         */
+        private void refreshShared(CompletableFuture<Credential> mine) {
+            boolean locked = false;
+            try {
+                Credential shared = newerShared();
+                if (shared != null) {
+                    done(mine, shared, false);
+                    return;
+                }
+                if (!store.tryLock(kind)) {
+                    refreshExec.schedule(() -> refreshShared(mine), LOCK_POLL_MS, TimeUnit.MILLISECONDS);
+                    return;
+                }
+                locked = true;
+                // 잠금 직전에 다른 노드가 저장했을 수 있음
+                shared = newerShared();
+                if (shared != null) {
+                    done(mine, shared, false);
+                    return;
+                }
+            } catch (Exception e) {
+                // Redis 장애: 이 노드만이라도 발급
+                if (locked) store.unlock(kind);
+                log.warn("[KIS][TOKEN] {} shared store failed, issuing locally. msg={}", kind, e.getMessage());
+                issueLocal(mine);
+                return;
+            }
+
+            try {
+                // 잠금이 발급 도중 만료되면 다른 노드도 발급하므로 잠금 유효 시간 안에서 끊음
+                Credential c = issuer.get().block(Duration.ofMillis(Math.min(waitMs, store.lockMs())));
+                try {
+                    store.save(kind, new KisCredentialStore.Shared(c.value(), c.expiresAt().toEpochMilli()));
+                } catch (Exception e) {
+                    log.warn("[KIS][TOKEN] {} save to shared store failed. msg={}", kind, e.getMessage());
+                }
+                done(mine, c, true);
+            } catch (Exception e) {
+                fail(mine, e);
+            } finally {
+                store.unlock(kind);
+            }
+        }
+
+        // 다른 노드가 잠금을 쥐고 발급 중이면 잠금이 풀리거나 만료될 때까지 걸릴 수 있으므로 wait-ms보다 짧게 포기하지 않음
+        private long callerWaitMs() {
+            return store == null ? waitMs : Math.max(waitMs, store.lockMs() + LOCK_POLL_MS);
+        }
 
-    // ✅ KisRestClient에서 헤더 세팅할 때 필요하면 getter로 제공
-    public String getAppKey() { return appKey; }
-    public String getAppSecret() { return appSecret; }
+        // Redis 값이 쓸 수 있고 지금 들고 있는 것보다 새로우면
+        private Credential newerShared() {
+            KisCredentialStore.Shared s = store.load(kind);
+            if (s == null) return null;
+            Credential c = new Credential(s.value(), Instant.ofEpochMilli(s.expiresAtMillis()));
+            if (!c.usable(Instant.now())) return null;
+            Credential local = current.get();
+            return local == null || c.expiresAt().isAfter(local.expiresAt()) ? c : null;
+        }
+
+        private void done(CompletableFuture<Credential> mine, Credential c, boolean issuedHere) {
+            current.set(c);
+            inFlight.set(null);
+            (issuedHere ? issued : adopted).increment();
+            scheduleNext(c);
+            log.info("[KIS][TOKEN] {} {}. expiresAt={}", kind, issuedHere ? "issued" : "loaded from shared store", c.expiresAt());
+            mine.complete(c);
+        }
+
+        private void fail(CompletableFuture<Credential> mine, Throwable t) {
+            inFlight.set(null);
+            failed.increment();
+            log.warn("[KIS][TOKEN] {} issue failed, retry in {}s. msg={}", kind, retrySec, t.getMessage());
+            schedule(Duration.ofSeconds(retrySec));
+            mine.completeExceptionally(t);
+        }
+
+        private void submit(Runnable task, CompletableFuture<Credential> mine) {
+            try {
+                refreshExec.execute(task);
+            } catch (RejectedExecutionException e) {
+                inFlight.set(null);
+                mine.completeExceptionally(e);
+            }
+        }
+
+        // 만료 refresh-ahead 전 ± jitter (수명이 짧으면 수명의 절반 시점)
+        private void scheduleNext(Credential c) {
+            long lifeMs = Duration.between(Instant.now(), c.expiresAt()).toMillis();
+            long aheadMs = Math.min(refreshAheadSec * 1000, lifeMs / 2);
+            long jitterMs = Math.min(refreshJitterSec * 1000, aheadMs / 2);
+            long jitter = jitterMs > 0 ? ThreadLocalRandom.current().nextLong(-jitterMs, jitterMs + 1) : 0;
+            schedule(Duration.ofMillis(Math.max(1000, lifeMs - aheadMs + jitter)));
+        }
+
+        // 예약은 하나만 유지 (이전 예약은 취소)
+        private void schedule(Duration delay) {
+            try {
+                ScheduledFuture<?> prev = next.getAndSet(
+                        refreshExec.schedule(this::refresh, delay.toMillis(), TimeUnit.MILLISECONDS));
+                if (prev != null) prev.cancel(false);
+            } catch (RejectedExecutionException e) {
+                // 종료 중
+            }
+        }
+    }
 }
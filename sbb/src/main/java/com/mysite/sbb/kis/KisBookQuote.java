@@ -0,0 +1,73 @@
+package com.mysite.sbb.kis;
+
+import java.util.Arrays;
+
+/**
+ * H0STASP0(실시간 호가) 1건. 10단계 매도/매수 호가와 잔량을 primitive 배열로 보관하는 재사용 객체.
+ * - 디코더가 프레임마다 같은 인스턴스를 덮어쓰므로 리스너는 onQuote 안에서만 읽을 것 (보관은 copyFrom)
+ * - level 0이 최우선 호가
+ */
+public final class KisBookQuote {
+
+    public static final int LEVELS = 10;
+
+    private String code;
+    private int quoteTime;          // 영업 시간 HHMMSS
+    private long receivedAtMillis;
+
+    final long[] askPrice = new long[LEVELS];
+    final long[] bidPrice = new long[LEVELS];
+    final long[] askQty = new long[LEVELS];
+    final long[] bidQty = new long[LEVELS];
+
+    private long totalAskQty;
+    private long totalBidQty;
+
+    void reset() {
+        code = null;
+        quoteTime = 0;
+        receivedAtMillis = 0;
+        Arrays.fill(askPrice, 0);
+        Arrays.fill(bidPrice, 0);
+        Arrays.fill(askQty, 0);
+        Arrays.fill(bidQty, 0);
+        totalAskQty = 0;
+        totalBidQty = 0;
+    }
+
+    public void copyFrom(KisBookQuote o) {
+        code = o.code;
+        quoteTime = o.quoteTime;
+        receivedAtMillis = o.receivedAtMillis;
+        System.arraycopy(o.askPrice, 0, askPrice, 0, LEVELS);
+        System.arraycopy(o.bidPrice, 0, bidPrice, 0, LEVELS);
+        System.arraycopy(o.askQty, 0, askQty, 0, LEVELS);
+        System.arraycopy(o.bidQty, 0, bidQty, 0, LEVELS);
+        totalAskQty = o.totalAskQty;
+        totalBidQty = o.totalBidQty;
+    }
+
+    // ---- getters ----
+    public String getCode() { return code; }
+    public int getQuoteTime() { return quoteTime; }
+    public long getReceivedAtMillis() { return receivedAtMillis; }
+    public long getAskPrice(int level) { return askPrice[level]; }
+    public long getBidPrice(int level) { return bidPrice[level]; }
+    public long getAskQty(int level) { return askQty[level]; }
+    public long getBidQty(int level) { return bidQty[level]; }
+    public long getTotalAskQty() { return totalAskQty; }
+    public long getTotalBidQty() { return totalBidQty; }
+
+    // ---- setters (디코더 전용) ----
+    void setCode(String code) { this.code = code; }
+    void setQuoteTime(int quoteTime) { this.quoteTime = quoteTime; }
+    void setReceivedAtMillis(long receivedAtMillis) { this.receivedAtMillis = receivedAtMillis; }
+    void setTotalAskQty(long totalAskQty) { this.totalAskQty = totalAskQty; }
+    void setTotalBidQty(long totalBidQty) { this.totalBidQty = totalBidQty; }
+
+    @Override
+    public String toString() {
+        return "KisBookQuote[code=" + code + ", time=" + quoteTime
+                + ", ask1=" + askPrice[0] + "x" + askQty[0] + ", bid1=" + bidPrice[0] + "x" + bidQty[0] + "]";
+    }
+}
@@ -0,0 +1,410 @@
+package com.mysite.sbb.kis;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
+
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PongMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.websocket.ContainerProvider;
+import jakarta.websocket.WebSocketContainer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * KIS 실시간 WebSocket 세션 1개 (연결 풀의 샤드 하나).
+ * - 이 연결에 배치된 등록(tr_id + tr_key)만 등록/재등록
+ * - 연결이 끊기면 자기 등록만 백오프 재연결 + 재구독
+ * - 끊겼다 다시 붙으면 체결 등록 종목과 끊긴 시각을 gapSink로 알림 (끊긴 동안의 틱 백필용)
+ */
+@Slf4j
+final class KisConnection {
+
+    private static final int RECONNECT_DELAY_MAX_SEC = 60;
+
+    private final int index;
+    private final String kisWsUrl;
+    private final KisApprovalService approvalService;
+    private final ScheduledExecutorService reconnectExec;
+    private final Consumer<KisTick> tickSink;
+    private final Consumer<KisBookQuote> bookSink;
+    private final ObjLongConsumer<List<String>> gapSink;
+    private final ObjectMapper om = new ObjectMapper();
+
+    private volatile WebSocketSession kisSession;
+
+    // 이 연결에 등록된 tr_id + 종목 (재구독 대상)
+    private final Set<KisSubscription> subscriptions = ConcurrentHashMap.newKeySet();
+
+    // connect 중복 방지
+    private final AtomicBoolean connecting = new AtomicBoolean(false);
+
+    // false면 재연결하지 않음 (클러스터 리더에서 내려왔을 때)
+    private volatile boolean active = true;
+
+    // 재연결 백오프
+    private volatile int reconnectDelaySec = 1;
+
+    // 연결이 끊긴 시각 (재연결 성공 전까지 유지, 0이면 끊긴 적 없음)
+    private volatile long disconnectedAtMillis;
+
+    KisConnection(int index, String kisWsUrl, KisApprovalService approvalService,
+                  ScheduledExecutorService reconnectExec,
+                  Consumer<KisTick> tickSink, Consumer<KisBookQuote> bookSink,
+                  ObjLongConsumer<List<String>> gapSink) {
+        this.index = index;
+        this.kisWsUrl = kisWsUrl;
+        this.approvalService = approvalService;
+        this.reconnectExec = reconnectExec;
+        this.tickSink = tickSink;
+        this.bookSink = bookSink;
+        this.gapSink = gapSink;
+    }
+
+    int index() {
+        return index;
+    }
+
+    Set<KisSubscription> subscriptions() {
+        return subscriptions;
+    }
+
+    boolean isConnected() {
+        return kisSession != null && kisSession.isOpen();
+    }
+
+    /**
+     * 등록. 연결 전이면 연결 후 resubscribeAll에서 전송됨
+     */
+    void subscribe(KisSubscription sub) throws Exception {
+        if (!subscriptions.add(sub)) return;
+        active = true;
+
+        if (isConnected()) {
+            sendSubscribe(sub);
+            log.info("[KIS#{}] subscribe sent. sub={}", index, sub);
+        } else {
+            ensureConnected();
+        }
+    }
+
+    void unsubscribe(KisSubscription sub) throws Exception {
+        if (!subscriptions.remove(sub)) return;
+
+        if (isConnected()) {
+            sendUnsubscribe(sub);
+            log.info("[KIS#{}] unsubscribe sent. sub={}", index, sub);
+        }
+    }
+
+    /**
+     * 여러 등록을 한 번에 반영. 연결돼 있으면 제어 메시지를 한 묶음으로 연속 전송
+     * (KIS는 메시지당 tr_key 1개라 메시지 수는 같고, 세션 락/승인키 조회를 묶음당 한 번만 함)
+     */
+    void subscribeAll(List<KisSubscription> subs) {
+        List<KisSubscription> added = new ArrayList<>(subs.size());
+        for (KisSubscription sub : subs) {
+            if (subscriptions.add(sub)) added.add(sub);
+        }
+        if (added.isEmpty()) return;
+        active = true;
+
+        if (isConnected()) {
+            sendControls("1", added);
+            log.info("[KIS#{}] subscribe sent. subs={}", index, added);
+        } else {
+            ensureConnected();
+        }
+    }
+
+    void unsubscribeAll(List<KisSubscription> subs) {
+        List<KisSubscription> removed = new ArrayList<>(subs.size());
+        for (KisSubscription sub : subs) {
+            if (subscriptions.remove(sub)) removed.add(sub);
+        }
+        if (removed.isEmpty() || !isConnected()) return;
+
+        sendControls("2", removed);
+        log.info("[KIS#{}] unsubscribe sent. subs={}", index, removed);
+    }
+
+    void ensureConnected() {
+        if (!active || isConnected()) return;
+
+        // 동시에 여러 요청이 들어와도 connect는 한 번만
+        if (!connecting.compareAndSet(false, true)) return;
+
+        reconnectExec.execute(() -> {
+            try {
+                connect();
+                reconnectDelaySec = 1; // 성공하면 백오프 리셋
+
+                // 재연결되면 재구독
+                resubscribeAll();
+                notifyGap();
+
+            } catch (Exception e) {
+                log.error("[KIS#{}] connect failed", index, e);
+                scheduleReconnectWithBackoff();
+            } finally {
+                connecting.set(false);
+            }
+        });
+    }
+
+    void scheduleReconnect(int delaySec) {
+        reconnectExec.schedule(() -> {
+            // 이미 연결되어 있으면 스킵
+            if (isConnected()) return;
+            ensureConnected();
+        }, delaySec, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 등록을 비우고 연결 종료 (재연결 안 함). 다음 subscribe에서 다시 연결
+     */
+    void disconnect() {
+        active = false;
+        subscriptions.clear();
+        disconnectedAtMillis = 0;
+
+        WebSocketSession session = kisSession;
+        kisSession = null;
+        if (session != null) {
+            try { session.close(CloseStatus.NORMAL); } catch (Exception ignore) {}
+            log.info("[KIS#{}] disconnected", index);
+        }
+    }
+
+    private void scheduleReconnectWithBackoff() {
+        scheduleReconnect(reconnectDelaySec);
+        reconnectDelaySec = Math.min(reconnectDelaySec * 2, RECONNECT_DELAY_MAX_SEC);
+    }
+
+    private synchronized void connect() throws Exception {
+        // 이미 연결되어 있으면 스킵
+        if (isConnected()) return;
+
+        WebSocketContainer container = ContainerProvider.getWebSocketContainer();
+        container.setDefaultMaxTextMessageBufferSize(1024 * 1024);   // 1MB (필요시 2~4MB로 올려도 됨)
+        container.setDefaultMaxBinaryMessageBufferSize(1024 * 1024);
+
+        StandardWebSocketClient client = new StandardWebSocketClient(container);
+
+        ListenableFuture<WebSocketSession> future =
+                client.doHandshake(new KisHandler(), kisWsUrl);
+
+        kisSession = future.get(10, TimeUnit.SECONDS); // 타임아웃
+        log.info("[KIS#{}] connected. sessionId={}", index, kisSession.getId());
+    }
+
+    private void resubscribeAll() {
+        if (!isConnected()) return;
+
+        // 서버가 재시작/연결끊김/세션 교체되면 기존 구독이 날아가므로 재구독
+        List<KisSubscription> subs = List.copyOf(subscriptions);
+        if (subs.isEmpty()) return;
+        sendControls("1", subs);
+        log.info("[KIS#{}] resubscribe sent. subs={}", index, subs);
+    }
+
+    /**
+     * 세션 종료/전송 오류 콜백에서 호출.
+     * 이미 교체된 옛 세션의 늦은 콜백이면 현재 세션과 끊긴 시각은 그대로 둠 (새 세션을 지우면 재연결만 한 번 더 일어남)
+     */
+    void sessionClosed(WebSocketSession session) {
+        // 세션 무효화
+        try { session.close(); } catch (Exception ignore) {}
+        if (session != kisSession) {
+            log.debug("[KIS#{}] stale session callback ignored. sessionId={}", index, session.getId());
+            return;
+        }
+        kisSession = null;
+        markDisconnected();
+
+        // 재연결 예약 (disconnect()로 닫은 경우 제외)
+        if (active) scheduleReconnectWithBackoff();
+    }
+
+    private void markDisconnected() {
+        // 재연결 실패가 반복돼도 처음 끊긴 시각을 유지
+        if (active && disconnectedAtMillis == 0) disconnectedAtMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * 끊겼다가 다시 붙었으면 체결 등록 종목의 공백 구간을 알림 (호가는 스냅샷이라 백필 대상 아님)
+     */
+    private void notifyGap() {
+        long since = disconnectedAtMillis;
+        if (since == 0 || !isConnected()) return;
+        disconnectedAtMillis = 0;
+
+        List<String> codes = new ArrayList<>();
+        for (KisSubscription sub : subscriptions) {
+            if (!sub.isBook()) codes.add(sub.code());
+        }
+        if (codes.isEmpty()) return;
+
+        log.info("[KIS#{}] reconnected after {}ms. codes={}", index, System.currentTimeMillis() - since, codes.size());
+        try {
+            gapSink.accept(codes, since);
+        } catch (Exception e) {
+            log.warn("[KIS#{}] gap sink error", index, e);
+        }
+    }
+
+    private void sendSubscribe(KisSubscription sub) throws Exception {
+        sendControl("1", sub);
+    }
+
+    private void sendUnsubscribe(KisSubscription sub) throws Exception {
+        sendControl("2", sub);
+    }
+
+    /**
+     * 같은 tr_type 제어 메시지 묶음 전송. 실패한 등록은 로그만 남김 (등록은 재연결 시 resubscribeAll로 복구)
+     */
+    private void sendControls(String trType, List<KisSubscription> subs) {
+        WebSocketSession session = kisSession;
+        if (session == null || !session.isOpen()) return;
+
+        String approvalKey;
+        try {
+            approvalKey = approvalService.getApprovalKey();
+        } catch (Exception e) {
+            log.error("[KIS#{}] approval key failed. trType={}, subs={}", index, trType, subs, e);
+            return;
+        }
+
+        // 같은 세션에 대한 동시 sendMessage 방지 (묶음 단위로 한 번만 잡음)
+        synchronized (session) {
+            for (KisSubscription sub : subs) {
+                try {
+                    session.sendMessage(new TextMessage(controlMessage(approvalKey, trType, sub)));
+                } catch (Exception e) {
+                    log.error("[KIS#{}] control send failed. trType={}, sub={}", index, trType, sub, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param trType "1" 등록, "2" 해지
+     */
+    private void sendControl(String trType, KisSubscription sub) throws Exception {
+        WebSocketSession session = kisSession;
+        if (session == null || !session.isOpen()) throw new IllegalStateException("KIS session not connected");
+
+        String approvalKey = approvalService.getApprovalKey();
+
+        // 같은 세션에 대한 동시 sendMessage 방지
+        synchronized (session) {
+            session.sendMessage(new TextMessage(controlMessage(approvalKey, trType, sub)));
+        }
+    }
+
+    private String controlMessage(String approvalKey, String trType, KisSubscription sub) throws Exception {
+        Map<String, Object> msg = Map.of(
+                "header", Map.of(
+                        "approval_key", approvalKey,
+                        "custtype", "P",
+                        "tr_type", trType,
+                        "content-type", "utf-8"
+                ),
+                "body", Map.of(
+                        "input", Map.of(
+                                "tr_id", sub.trId(),
+                                "tr_key", sub.code()
+                        )
+                )
+        );
+
+        return om.writeValueAsString(msg);
+    }
+
+    private class KisHandler extends TextWebSocketHandler {
+
+        // 세션(리더 스레드)마다 디코더/틱 객체 하나씩 재사용
+        private final KisTickDecoder tickDecoder = new KisTickDecoder();
+
+        @Override
+        public void afterConnectionEstablished(WebSocketSession session) {
+            log.info("[KIS#{}] afterConnectionEstablished. sessionId={}", index, session.getId());
+        }
+
+        @Override
+        public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+            log.warn("[KIS#{}] connection closed. code={}, reason={}", index, status.getCode(), status.getReason());
+            sessionClosed(session);
+        }
+
+        @Override
+        public void handleTransportError(WebSocketSession session, Throwable exception) {
+            log.error("[KIS#{}] transport error", index, exception);
+            sessionClosed(session);
+        }
+
+        @Override
+        protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+            String payload = message.getPayload();
+
+            // 1) JSON 메시지 처리
+            if (payload.startsWith("{")) {
+                handleJsonControlMessage(session, payload);
+                return;
+            }
+
+            // 2) 실시간 데이터 메시지 (H0STCNT0 / H0STASP0 외 tr_id는 디코더가 0건으로 돌려줌)
+            if (payload.startsWith("0|")) {
+                tickDecoder.decode(payload, tickSink, bookSink);
+            }
+        }
+
+        private void handleJsonControlMessage(WebSocketSession session, String payload) throws Exception {
+            JsonNode root = om.readTree(payload);
+            String trId = root.path("header").path("tr_id").asText();
+
+            if ("PINGPONG".equals(trId)) {
+                // 서버가 pingpong 주면 pong으로 응답
+                synchronized (session) {
+                    session.sendMessage(new PongMessage(ByteBuffer.wrap(payload.getBytes(StandardCharsets.UTF_8))));
+                }
+                return;
+            }
+
+            String rtCd = root.path("body").path("rt_cd").asText();
+            String msg1 = root.path("body").path("msg1").asText();
+            String msgCd = root.path("body").path("msg_cd").asText();
+
+            // rt_cd="1"이면 에러인 경우가 많음
+            if ("1".equals(rtCd)) {
+                log.warn("[KIS#{}][CONTROL][ERR] tr_id={}, msg_cd={}, msg1={}", index, trId, msgCd, msg1);
+
+                // 승인키 만료/구독 실패류면 재연결 트리거(안전빵)
+                // msg_cd / msg1 기준으로 더 정교하게 분기해도 됨
+                kisSession = null;
+                markDisconnected();
+                scheduleReconnect(1);
+            } else {
+                log.info("[KIS#{}][CONTROL] tr_id={}, msg_cd={}, msg1={}", index, trId, msgCd, msg1);
+            }
+        }
+    }
+}
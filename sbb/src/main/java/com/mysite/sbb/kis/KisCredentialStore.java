@@ -0,0 +1,90 @@
+package com.mysite.sbb.kis;
+
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * KIS 인증값(approval_key/access_token)을 Redis에 공유 (kis.token.shared=true).
+ * - kis:cred:{appkey 해시}:{kind} = "만료ms|값", 만료 시각에 맞춰 PX → 재기동/새 노드는 여기서 읽어 KIS 발급 없이 시작
+ * - 발급은 kis:cred:{appkey 해시}:{kind}:lock (SET NX PX) 을 잡은 노드 하나만. 놓을 때는 자기 값일 때만 DEL
+ * - 같은 Redis를 쓰는 다른 앱키와 섞이지 않게 키에 앱키 해시를 넣음 (앱키 자체는 안 남김)
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "kis.token.shared", havingValue = "true")
+public class KisCredentialStore {
+
+    static final String KEY_PREFIX = "kis:cred:";
+
+    private static final DefaultRedisScript<Long> RELEASE = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    // 발급 중 잠금 유효 시간 (잡은 노드가 죽어도 이 뒤엔 다른 노드가 발급)
+    @Value("${kis.token.lock-ms:15000}")
+    private long lockMs;
+
+    private final StringRedisTemplate redis;
+    private final String keyBase;
+    private final String owner;
+
+    record Shared(String value, long expiresAtMillis) {}
+
+    public KisCredentialStore(StringRedisTemplate redis, @Value("${kis.app-key}") String appKey) throws Exception {
+        this.redis = redis;
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(appKey.getBytes(StandardCharsets.UTF_8));
+        this.keyBase = KEY_PREFIX + HexFormat.of().formatHex(digest, 0, 8) + ":";
+        this.owner = InetAddress.getLocalHost().getHostName() + "-" + UUID.randomUUID();
+    }
+
+    /** 저장된 값 (없거나 형식이 깨졌으면 null) */
+    Shared load(String kind) {
+        String raw = redis.opsForValue().get(keyBase + kind);
+        if (raw == null) return null;
+        String[] parts = raw.split("\\|", 2);
+        if (parts.length != 2) return null;
+        try {
+            return new Shared(parts[1], Long.parseLong(parts[0]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    void save(String kind, Shared c) {
+        long ttl = c.expiresAtMillis() - System.currentTimeMillis();
+        if (ttl <= 0) return;
+        redis.opsForValue().set(keyBase + kind, c.expiresAtMillis() + "|" + c.value(),
+                Duration.ofMillis(ttl));
+    }
+
+    long lockMs() {
+        return lockMs;
+    }
+
+    boolean tryLock(String kind) {
+        return Boolean.TRUE.equals(redis.opsForValue()
+                .setIfAbsent(keyBase + kind + ":lock", owner, Duration.ofMillis(lockMs)));
+    }
+
+    void unlock(String kind) {
+        try {
+            redis.execute(RELEASE, List.of(keyBase + kind + ":lock"), owner);
+        } catch (Exception e) {
+            // 못 지워도 lock-ms 뒤 만료
+            log.warn("[KIS][TOKEN] unlock failed. kind={}, msg={}", kind, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,465 @@
+package com.mysite.sbb.kis;
+
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 여러 앱 인스턴스가 KIS 실시간 피드 하나를 공유 (kis.cluster.enabled=true).
+ * - 리더 선출: SET kis:feed:leader NX PX lease, 리더는 heartbeat마다 자기 값일 때만 PEXPIRE로 갱신
+ * - 리더만 KIS 연결을 열고, 디코딩한 체결/호가를 KisTickCodec 레코드로 묶어 Redis pub/sub(kis:feed:ticks)으로 발행
+ * - 모든 노드는 자기 브라우저 구독(체결/호가)을 kis:feed:interest:{node}에 올리고, 리더는 전체 합집합으로 KIS 배치
+ * - 리더가 죽으면 lease 만료 후 다른 노드가 리더가 되어 합집합 기준으로 다시 연결 (자동 failover)
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "kis.cluster.enabled", havingValue = "true")
+public class KisFeedCluster {
+
+    static final String LEADER_KEY = "kis:feed:leader";
+    static final String NODES_KEY = "kis:feed:nodes";
+    static final String INTEREST_PREFIX = "kis:feed:interest:";
+    static final String INTEREST_CHANNEL = "kis:feed:interest";
+    static final String TICK_CHANNEL = "kis:feed:ticks";
+
+    private static final byte[] TICK_CHANNEL_BYTES = TICK_CHANNEL.getBytes(StandardCharsets.UTF_8);
+
+    // 메시지 헤더: 발행 노드 태그(long) + 레코드 수(int) + 레코드 종류(int)
+    private static final int HEADER_SIZE = 16;
+    private static final int MAX_BATCH = 512;
+
+    private static final int KIND_TRADE = 0;
+    private static final int KIND_BOOK = 1;
+
+    private static final DefaultRedisScript<Long> RENEW = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end",
+            Long.class);
+
+    private static final DefaultRedisScript<Long> RELEASE = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    @Value("${kis.cluster.node-id:}")
+    private String nodeId;
+
+    // 리더 lease / 노드 관심 종목 유효 시간
+    @Value("${kis.cluster.lease-ms:10000}")
+    private long leaseMs;
+
+    @Value("${kis.cluster.heartbeat-ms:2000}")
+    private long heartbeatMs;
+
+    // 리더의 틱 묶음 발행 주기
+    @Value("${kis.cluster.publish-batch-ms:5}")
+    private long publishBatchMs;
+
+    private final StringRedisTemplate redis;
+    private final RedisConnectionFactory connectionFactory;
+    private final KisRealtimeClient realtimeClient;
+    private final MeterRegistry meterRegistry;
+
+    // 자기가 발행한 메시지를 거르기 위한 태그
+    private final long nodeTag = UUID.randomUUID().getMostSignificantBits();
+
+    private volatile boolean leader;
+    private volatile long lastRenewedAt;
+
+    // 발행 버퍼 (종류별)
+    private final Batch trades = new Batch(KIND_TRADE, KisTickCodec.RECORD_SIZE);
+    private final Batch books = new Batch(KIND_BOOK, KisTickCodec.BOOK_RECORD_SIZE);
+
+    // drain한 메시지 (버퍼 락 안에서 넣으므로 넣은 순서 = 레코드 순서). 꺼내서 PUBLISH하는 건 kis-cluster-publish 스레드만
+    private final ConcurrentLinkedQueue<byte[]> outbox = new ConcurrentLinkedQueue<>();
+
+    // 수신 (kis-feed-recv 단일 스레드)
+    private final KisTick inTick = new KisTick();
+    private final KisBookQuote inBook = new KisBookQuote();
+    private final Map<Long, String> inCodes = new HashMap<>();
+
+    private final AtomicBoolean heartbeatPending = new AtomicBoolean();
+
+    private Counter publishedCounter;
+    private Counter receivedCounter;
+
+    private RedisMessageListenerContainer container;
+
+    // heartbeat/리더 선출/배치 조정 (Redis 왕복 여러 번)
+    private final ScheduledExecutorService clusterExec =
+            Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "kis-cluster");
+                t.setDaemon(true);
+                return t;
+            });
+
+    // publish-batch-ms 주기 flush + 가득 찬 묶음 발행 전용 (PUBLISH는 전부 이 스레드 하나에서 → 팔로워가 보는 순서 보장)
+    // heartbeat가 길어져도 틱 발행이 밀리지 않게 분리
+    private final ScheduledExecutorService publishExec =
+            Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "kis-cluster-publish");
+                t.setDaemon(true);
+                return t;
+            });
+
+    private final ExecutorService recvExec =
+            Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "kis-feed-recv");
+                t.setDaemon(true);
+                return t;
+            });
+
+    public KisFeedCluster(StringRedisTemplate redis, RedisConnectionFactory connectionFactory,
+                          KisRealtimeClient realtimeClient, MeterRegistry meterRegistry) {
+        this.redis = redis;
+        this.connectionFactory = connectionFactory;
+        this.realtimeClient = realtimeClient;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() throws Exception {
+        if (nodeId == null || nodeId.isBlank()) {
+            nodeId = InetAddress.getLocalHost().getHostName() + "-" + Long.toHexString(nodeTag & 0xFFFFFFL);
+        }
+
+        publishedCounter = Counter.builder("kis.cluster.ticks.published")
+                .description("리더가 Redis로 발행한 틱 수")
+                .register(meterRegistry);
+        receivedCounter = Counter.builder("kis.cluster.ticks.received")
+                .description("다른 노드(리더)에서 받은 틱 수")
+                .register(meterRegistry);
+        Gauge.builder("kis.cluster.leader", () -> leader ? 1 : 0)
+                .description("이 노드가 KIS 피드 리더인지")
+                .register(meterRegistry);
+
+        // 순서 보장을 위해 리스너는 단일 스레드에서 실행
+        container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.setTaskExecutor(recvExec);
+        container.addMessageListener(this::onTicks, new ChannelTopic(TICK_CHANNEL));
+        container.addMessageListener((message, pattern) -> {
+            if (leader) requestHeartbeat();
+        }, new ChannelTopic(INTEREST_CHANNEL));
+        container.afterPropertiesSet();
+        container.start();
+
+        realtimeClient.setFeedPublisher(this::publish);
+        realtimeClient.setBookPublisher(this::publishBook);
+        realtimeClient.setInterestListener(this::onLocalInterestChanged);
+
+        clusterExec.scheduleWithFixedDelay(this::heartbeat, 0, heartbeatMs, TimeUnit.MILLISECONDS);
+        publishExec.scheduleAtFixedRate(this::flush, publishBatchMs, publishBatchMs, TimeUnit.MILLISECONDS);
+        log.info("[CLUSTER] started. nodeId={}, leaseMs={}", nodeId, leaseMs);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        clusterExec.shutdownNow();
+        publishExec.shutdownNow();
+        try {
+            if (leader) {
+                // 바로 다른 노드가 이어받도록 lease 반납
+                redis.execute(RELEASE, List.of(LEADER_KEY), nodeId);
+                realtimeClient.releaseAll();
+            }
+            redis.opsForZSet().remove(NODES_KEY, nodeId);
+            redis.delete(INTEREST_PREFIX + nodeId);
+        } catch (Exception e) {
+            log.warn("[CLUSTER] shutdown cleanup failed", e);
+        }
+        try {
+            container.stop();
+            container.destroy();
+        } catch (Exception ignore) {}
+        recvExec.shutdownNow();
+    }
+
+    public boolean isLeader() {
+        return leader;
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 노드 관심 종목 공유 + 리더 선출/갱신 + (리더면) KIS 배치 조정
+     */
+    private void heartbeat() {
+        heartbeatPending.set(false);
+        long now = System.currentTimeMillis();
+        try {
+            Set<KisSubscription> local = realtimeClient.localSubscriptions();
+            redis.opsForValue().set(INTEREST_PREFIX + nodeId, joinKeys(local), Duration.ofMillis(leaseMs));
+            redis.opsForZSet().add(NODES_KEY, nodeId, now);
+
+            boolean nowLeader;
+            if (leader) {
+                Long renewed = redis.execute(RENEW, List.of(LEADER_KEY), nodeId, Long.toString(leaseMs));
+                nowLeader = renewed != null && renewed == 1L;
+            } else {
+                nowLeader = Boolean.TRUE.equals(
+                        redis.opsForValue().setIfAbsent(LEADER_KEY, nodeId, Duration.ofMillis(leaseMs)));
+            }
+            if (nowLeader) lastRenewedAt = now;
+
+            if (nowLeader && !leader) {
+                leader = true;
+                log.info("[CLUSTER] became leader. nodeId={}", nodeId);
+            } else if (!nowLeader && leader) {
+                stepDown("lease lost");
+            }
+
+            if (leader) {
+                realtimeClient.reconcile(clusterInterest(now, local));
+            }
+        } catch (Exception e) {
+            log.warn("[CLUSTER] heartbeat failed", e);
+
+            // Redis에 닿지 않으면 lease가 남아 있는지 알 수 없으므로 만료 시점에 스스로 내려옴 (이중 리더 방지)
+            if (leader && now - lastRenewedAt >= leaseMs) {
+                stepDown("lease expired while redis unreachable");
+            }
+        }
+    }
+
+    private void stepDown(String reason) {
+        leader = false;
+        realtimeClient.releaseAll();
+        log.warn("[CLUSTER] stepped down. nodeId={}, reason={}", nodeId, reason);
+    }
+
+    /**
+     * 살아 있는 노드들의 관심 등록 합집합
+     */
+    private Set<KisSubscription> clusterInterest(long now, Set<KisSubscription> local) {
+        redis.opsForZSet().removeRangeByScore(NODES_KEY, 0, now - leaseMs);
+        Set<String> nodes = redis.opsForZSet().range(NODES_KEY, 0, -1);
+
+        Set<KisSubscription> union = new HashSet<>(local);
+        if (nodes == null || nodes.isEmpty()) return union;
+
+        List<String> keys = nodes.stream().map(n -> INTEREST_PREFIX + n).toList();
+        List<String> values = redis.opsForValue().multiGet(keys);
+        if (values == null) return union;
+
+        for (String v : values) {
+            if (v == null || v.isEmpty()) continue;
+            for (String key : v.split(",")) {
+                union.add(KisSubscription.parse(key));
+            }
+        }
+        return union;
+    }
+
+    private static String joinKeys(Set<KisSubscription> subs) {
+        StringBuilder sb = new StringBuilder();
+        for (KisSubscription sub : subs) {
+            if (sb.length() > 0) sb.append(',');
+            sb.append(sub.key());
+        }
+        return sb.toString();
+    }
+
+    private void onLocalInterestChanged() {
+        requestHeartbeat();
+        if (!leader) {
+            // 리더가 다음 heartbeat를 기다리지 않고 바로 배치를 조정하도록 알림
+            clusterExec.execute(() -> {
+                try {
+                    redis.convertAndSend(INTEREST_CHANNEL, nodeId);
+                } catch (Exception e) {
+                    log.warn("[CLUSTER] interest notify failed", e);
+                }
+            });
+        }
+    }
+
+    private void requestHeartbeat() {
+        if (heartbeatPending.compareAndSet(false, true)) {
+            clusterExec.execute(this::heartbeat);
+        }
+    }
+
+    /**
+     * 리더의 KIS 리더 스레드에서 호출. 버퍼에 레코드만 추가.
+     * 묶음이 차면 outbox로 넘기고 발행은 kis-cluster-publish 스레드에 맡김 (Redis PUBLISH를 수신 스레드에서 기다리지 않음)
+     */
+    private void publish(KisTick tick) {
+        if (!leader) return;
+
+        boolean full = false;
+        synchronized (trades) {
+            if (trades.count == MAX_BATCH) full = drainTo(trades);
+
+            int off = trades.nextOffset();
+            trades.buf.putLong(off + KisTickCodec.OFF_RECEIVED_AT, tick.getReceivedAtMillis());
+            KisTickCodec.writeBody(trades.buf, off, tick);
+        }
+        if (full) sendSoon();
+    }
+
+    private void publishBook(KisBookQuote quote) {
+        if (!leader) return;
+
+        boolean full = false;
+        synchronized (books) {
+            if (books.count == MAX_BATCH) full = drainTo(books);
+            KisTickCodec.writeBook(books.buf, books.nextOffset(), quote);
+        }
+        if (full) sendSoon();
+    }
+
+    /**
+     * kis-cluster-publish 스레드
+     */
+    private void flush() {
+        synchronized (trades) {
+            drainTo(trades);
+        }
+        synchronized (books) {
+            drainTo(books);
+        }
+        sendOutbox();
+    }
+
+    // batch 락 안에서
+    private boolean drainTo(Batch batch) {
+        byte[] msg = batch.drain();
+        if (msg == null) return false;
+        outbox.add(msg);
+        return true;
+    }
+
+    private void sendSoon() {
+        try {
+            publishExec.execute(this::sendOutbox);
+        } catch (RejectedExecutionException e) {
+            // 종료 중
+        }
+    }
+
+    // kis-cluster-publish 스레드에서만
+    private void sendOutbox() {
+        byte[] msg;
+        while ((msg = outbox.poll()) != null) send(msg);
+    }
+
+    private void send(byte[] msg) {
+        try {
+            redis.execute((RedisCallback<Long>) c -> c.publish(TICK_CHANNEL_BYTES, msg));
+        } catch (Exception e) {
+            log.warn("[CLUSTER] tick publish failed. bytes={}", msg.length, e);
+        }
+    }
+
+    /**
+     * kis-feed-recv 스레드. 다른 노드(리더)가 보낸 틱을 로컬 리스너에 전달
+     */
+    private void onTicks(Message message, byte[] pattern) {
+        ByteBuffer in = ByteBuffer.wrap(message.getBody()).order(ByteOrder.LITTLE_ENDIAN);
+        if (in.remaining() < HEADER_SIZE || in.getLong(0) == nodeTag) return;
+
+        int count = in.getInt(8);
+        if (in.getInt(12) == KIND_BOOK) {
+            onBooks(in, count);
+            return;
+        }
+
+        long recvNanos = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            int off = HEADER_SIZE + i * KisTickCodec.RECORD_SIZE;
+            if (off + KisTickCodec.RECORD_SIZE > in.limit()) break;
+
+            long packed = in.getLong(off + KisTickCodec.OFF_CODE);
+            String code = inCodes.computeIfAbsent(packed, KisTickCodec::unpackCode);
+
+            inTick.reset();
+            inTick.setReceivedAtMillis(in.getLong(off + KisTickCodec.OFF_RECEIVED_AT));
+            inTick.setReceivedAtNanos(recvNanos);  // nanoTime은 노드 간 비교 불가 → 이 노드 수신 시각부터
+            KisTickCodec.readBody(in, off, code, inTick);
+            realtimeClient.dispatchRemote(inTick);
+        }
+        receivedCounter.increment(count);
+    }
+
+    private void onBooks(ByteBuffer in, int count) {
+        for (int i = 0; i < count; i++) {
+            int off = HEADER_SIZE + i * KisTickCodec.BOOK_RECORD_SIZE;
+            if (off + KisTickCodec.BOOK_RECORD_SIZE > in.limit()) break;
+
+            String code = inCodes.computeIfAbsent(KisTickCodec.bookCodeAt(in, off), KisTickCodec::unpackCode);
+
+            inBook.reset();
+            KisTickCodec.readBook(in, off, code, inBook);
+            realtimeClient.dispatchRemoteBook(inBook);
+        }
+        receivedCounter.increment(count);
+    }
+
+    /**
+     * 종류별 발행 버퍼 (자기 자신을 락으로 사용)
+     */
+    private final class Batch {
+        final int kind;
+        final int recordSize;
+        final ByteBuffer buf;
+        int count;
+
+        Batch(int kind, int recordSize) {
+            this.kind = kind;
+            this.recordSize = recordSize;
+            this.buf = ByteBuffer.allocate(HEADER_SIZE + MAX_BATCH * recordSize).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        /** 다음 레코드 위치를 예약 */
+        int nextOffset() {
+            return HEADER_SIZE + (count++) * recordSize;
+        }
+
+        /** 락 안에서 호출. 쌓인 레코드를 메시지로 만들고 비움 */
+        byte[] drain() {
+            if (count == 0) return null;
+            buf.putLong(0, nodeTag);
+            buf.putInt(8, count);
+            buf.putInt(12, kind);
+            byte[] msg = Arrays.copyOf(buf.array(), HEADER_SIZE + count * recordSize);
+            publishedCounter.increment(count);
+            count = 0;
+            return msg;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.mysite.sbb.kis;
+
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * KIS 재연결 후 끊긴 구간의 체결을 REST 당일 분봉으로 메움.
+ * - 재연결된 연결의 체결 종목마다 공백 구간(마지막 체결 ~ 재연결)을 큐에 넣음. 같은 종목은 구간을 합쳐 한 건
+ * - kis-backfill 스레드가 rate-per-sec 속도로 REST 1회씩 호출 (연결 여러 개가 한꺼번에 재연결돼도 호출 속도는 일정)
+ * - 한 번에 30분씩 과거로 페이지를 넘기며, 구간 시작에 닿거나 max-pages면 끝
+ * - 받은 분봉은 KisRealtimeClient.applyBackfill로 last-value/봉 집계에 멱등 병합
+ *
+ * 클러스터 모드에서는 KIS 연결을 가진 리더만 백필함 (팔로워 봉은 그대로)
+ */
+@Slf4j
+@Component
+public class KisGapBackfiller {
+
+    private static final ZoneId KST = ZoneId.of("Asia/Seoul");
+    private static final long MINUTE_MILLIS = 60_000;
+
+    // 같은 종목 REST 실패 허용 횟수 (넘으면 그 공백은 포기)
+    private static final int MAX_FAILURES = 3;
+
+    @Value("${kis.backfill.enabled:true}")
+    private boolean enabled;
+
+    // 백필 REST 호출 속도 상한 (KIS 초당 한도 자체는 KisRestLimiter가 다른 조회와 함께 관리)
+    @Value("${kis.backfill.rate-per-sec:2}")
+    private double ratePerSec;
+
+    // 종목당 최대 페이지 수 (페이지당 분봉 30개)
+    @Value("${kis.backfill.max-pages:8}")
+    private int maxPages;
+
+    // 이보다 짧은 공백은 무시
+    @Value("${kis.backfill.min-gap-ms:1000}")
+    private long minGapMs;
+
+    private final KisRealtimeClient realtimeClient;
+    private final KisRestClient restClient;
+    private final MeterRegistry meterRegistry;
+
+    // 종목 → 남은 백필 작업 (입력 순서대로 처리, this 락)
+    private final Map<String, Job> pending = new LinkedHashMap<>();
+
+    private Counter requestsOk;
+    private Counter requestsFailed;
+    private Counter barsMerged;
+
+    private final ScheduledExecutorService backfillExec =
+            Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "kis-backfill");
+                t.setDaemon(true);
+                return t;
+            });
+
+    public KisGapBackfiller(KisRealtimeClient realtimeClient, KisRestClient restClient, MeterRegistry meterRegistry) {
+        this.realtimeClient = realtimeClient;
+        this.restClient = restClient;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) return;
+
+        requestsOk = Counter.builder("kis.backfill.requests").tag("result", "ok")
+                .description("공백 백필 REST 호출 수").register(meterRegistry);
+        requestsFailed = Counter.builder("kis.backfill.requests").tag("result", "error")
+                .description("공백 백필 REST 호출 수").register(meterRegistry);
+        barsMerged = Counter.builder("kis.backfill.bars")
+                .description("백필로 병합한 분봉 수").register(meterRegistry);
+        Gauge.builder("kis.backfill.pending", this, KisGapBackfiller::pendingCount)
+                .description("백필 대기 종목 수").register(meterRegistry);
+
+        long intervalMs = Math.max(1, (long) (1000 / Math.max(0.01, ratePerSec)));
+        backfillExec.scheduleWithFixedDelay(this::step, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+
+        realtimeClient.setGapListener(this::onGap);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        backfillExec.shutdownNow();
+    }
+
+    public synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * kis-reconnect 스레드에서 호출. 이미 대기 중인 종목이면 구간만 넓힘
+     */
+    private void onGap(String code, long fromMillis, long toMillis) {
+        if (toMillis - fromMillis < minGapMs) return;
+
+        synchronized (this) {
+            Job job = pending.get(code);
+            if (job == null) {
+                pending.put(code, new Job(code, fromMillis, toMillis));
+            } else {
+                job.fromMillis = Math.min(job.fromMillis, fromMillis);
+                // 진행 중이던 작업도 새 구간 끝부터 다시 내려감 (이미 받은 분봉은 병합이 멱등이라 무해)
+                job.cursorMillis = Math.max(job.cursorMillis, toMillis);
+            }
+        }
+    }
+
+    /**
+     * 호출당 REST 1회 (fixed delay로 속도 제한)
+     */
+    private void step() {
+        Job job;
+        long cursor, fromBucket;
+        synchronized (this) {
+            Iterator<Job> it = pending.values().iterator();
+            if (!it.hasNext()) return;
+            job = it.next();
+            cursor = job.cursorMillis;
+            fromBucket = Math.floorDiv(job.fromMillis, MINUTE_MILLIS) * MINUTE_MILLIS;
+        }
+
+        try {
+            LocalTime to = Instant.ofEpochMilli(cursor).atZone(KST).toLocalTime();
+            List<KisMinuteBar> page = restClient.getMinuteBars(job.code, to, KisRestLimiter.Priority.BACKFILL);
+            requestsOk.increment();
+
+            List<KisMinuteBar> bars = new ArrayList<>(page.size());
+            for (KisMinuteBar bar : page) {
+                if (bar.startMillis() >= fromBucket && bar.startMillis() <= cursor) bars.add(bar);
+            }
+
+            if (!bars.isEmpty()) {
+                realtimeClient.applyBackfill(job.code, bars);
+                barsMerged.increment(bars.size());
+            }
+
+            boolean done;
+            synchronized (this) {
+                long oldest = page.isEmpty() ? Long.MIN_VALUE : page.get(0).startMillis();
+                job.pages++;
+                job.failures = 0;
+                if (job.cursorMillis != cursor) {
+                    // 그 사이 같은 종목이 또 재연결됨: 새 구간 끝부터 다시
+                    done = false;
+                } else {
+                    done = page.isEmpty() || oldest <= fromBucket || job.pages >= maxPages;
+                    if (done) pending.remove(job.code);
+                    else job.cursorMillis = oldest - 1;
+                }
+            }
+            if (done) {
+                log.info("[KIS-BACKFILL] done. code={}, pages={}, gap={}~{}", job.code, job.pages,
+                        Instant.ofEpochMilli(job.fromMillis), Instant.ofEpochMilli(job.toMillis));
+            }
+
+        } catch (KisRateLimitedException e) {
+            // KIS를 호출하지도 않음 (화면 조회에 밀림): 실패로 세지 않고 뒤로
+            synchronized (this) {
+                if (pending.remove(job.code, job)) pending.put(job.code, job);
+            }
+            log.debug("[KIS-BACKFILL] rate limited, retry later. code={}", job.code);
+
+        } catch (Exception e) {
+            requestsFailed.increment();
+            synchronized (this) {
+                pending.remove(job.code);
+                if (++job.failures < MAX_FAILURES) {
+                    // 뒤로 보내서 다른 종목 먼저
+                    pending.put(job.code, job);
+                    log.warn("[KIS-BACKFILL] request failed, retry later. code={}, failures={}", job.code, job.failures, e);
+                } else {
+                    log.error("[KIS-BACKFILL] giving up. code={}, gap={}~{}", job.code,
+                            Instant.ofEpochMilli(job.fromMillis), Instant.ofEpochMilli(job.toMillis), e);
+                }
+            }
+        }
+    }
+
+    /** 필드는 KisGapBackfiller 락 안에서만 변경 */
+    private static final class Job {
+        final String code;
+        final long toMillis;
+        long fromMillis;
+        long cursorMillis;
+        int pages;
+        int failures;
+
+        Job(String code, long fromMillis, long toMillis) {
+            this.code = code;
+            this.fromMillis = fromMillis;
+            this.toMillis = toMillis;
+            this.cursorMillis = toMillis;
+        }
+    }
+}
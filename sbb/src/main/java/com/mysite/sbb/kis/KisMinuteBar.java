@@ -0,0 +1,7 @@
+package com.mysite.sbb.kis;
+
+/**
+ * KIS 당일 분봉 1개 (주식당일분봉조회). startMillis = 분 시작 epoch millis
+ */
+public record KisMinuteBar(long startMillis, long open, long high, long low, long close, long volume) {
+}
@@ -0,0 +1,16 @@
+package com.mysite.sbb.kis;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * KIS REST 호출 한도 대기열이 가득 찼거나 대기 시간을 넘김 (KIS를 호출하지 않고 거절)
+ */
+@ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE, reason = "KIS rate limited")
+public class KisRateLimitedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public KisRateLimitedException(String message) {
+        super(message);
+    }
+}
@@ -1,28 +1,22 @@
 package com.mysite.sbb.kis;
 
-import java.nio.ByteBuffer;
-
-import java.nio.charset.StandardCharsets;
-import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicBoolean;
-import jakarta.websocket.ContainerProvider;
-import jakarta.websocket.WebSocketContainer;
-
+import java.util.function.Consumer;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.util.concurrent.ListenableFuture;
-import org.springframework.web.socket.*;
-import org.springframework.web.socket.client.standard.StandardWebSocketClient;
-import org.springframework.web.socket.handler.TextWebSocketHandler;
-
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
@@ -32,21 +26,82 @@ public class KisRealtimeClient {
     @Value("${kis.ws-url}")
     private String kisWsUrl;
 
+    // KIS 세션 수 (세션당 등록 가능한 tr_key 수 제한이 있어 여러 개로 샤딩)
+    @Value("${kis.ws.connections:3}")
+    private int connectionCount;
+
+    // 세션 하나에 등록할 최대 종목 수
+    @Value("${kis.ws.max-codes-per-connection:40}")
+    private int maxCodesPerConnection;
+
+    // 연결 간 종목 수 차이가 이 값을 넘으면 리밸런싱
+    @Value("${kis.ws.rebalance-threshold:5}")
+    private int rebalanceThreshold;
+
+    // 구독 중이 아닌 종목의 last-value를 유효하다고 볼 최대 경과 시간
+    @Value("${kis.lvc.max-age-ms:60000}")
+    private long lvcMaxAgeMs;
+
+    // 클러스터 모드: KIS 연결은 리더 노드만 열고, 나머지는 KisFeedCluster가 Redis로 받은 틱만 전달
+    @Value("${kis.cluster.enabled:false}")
+    private boolean clustered;
+
+    // 틱 fan-out 소비 스레드 수 (종목 해시 샤딩, 0이면 KIS 수신 스레드에서 바로 전달)
+    @Value("${kis.dispatch.shards:2}")
+    private int dispatchShards;
+
+    // 샤드당 링 슬롯 수
+    @Value("${kis.dispatch.ring-size:8192}")
+    private int dispatchRingSize;
+
+    // 마지막 구독자가 떠난 뒤 KIS 해지를 미루는 시간 (그 안에 다시 구독하면 해지/재등록 없음)
+    @Value("${kis.subscription.grace-ms:5000}")
+    private long subscriptionGraceMs;
+
+    // 등록/해지 요청을 모아서 반영하는 주기
+    @Value("${kis.subscription.batch-ms:50}")
+    private long subscriptionBatchMs;
+
     private final KisApprovalService approvalService;
-    private final ObjectMapper om = new ObjectMapper();
+    private final MeterRegistry meterRegistry;
+    private final TickLatencyRecorder latencyRecorder;
+
+    // 디코딩 → 리스너 전달 사이 링 버퍼 (init에서 생성)
+    private TickDispatcher dispatcher;
 
-    private volatile WebSocketSession kisSession;
+    // 등록별 참조 카운트 + 해지 유예 (init에서 생성)
+    private KisSubscriptionManager subscriptionManager;
 
     // 코드별 콜백
     private final Map<String, Set<StockPriceListener>> listeners = new ConcurrentHashMap<>();
 
-    // 중복 구독 방지 + 재구독 대상
-    private final Set<String> subscribed = ConcurrentHashMap.newKeySet();
+    // 코드별 호가(H0STASP0) 콜백
+    private final Map<String, Set<OrderBookListener>> bookListeners = new ConcurrentHashMap<>();
+
+    // 코드별 마지막 체결 (last-value cache). 디코더 틱을 복사해 보관
+    private final Map<String, KisTick> lastValues = new ConcurrentHashMap<>();
+
+    // 종목과 무관하게 모든 틱을 받는 내부 소비자 (저널 등)
+    private final List<StockPriceListener> tickSinks = new CopyOnWriteArrayList<>();
+
+    // 재연결 후 REST로 메운 분봉을 받는 내부 소비자 (봉 집계 등)
+    private final List<BackfillListener> backfillSinks = new CopyOnWriteArrayList<>();
 
-    // connect 중복 방지
-    private final AtomicBoolean connecting = new AtomicBoolean(false);
+    // KIS 연결 풀
+    private final List<KisConnection> connections = new ArrayList<>();
 
-    // 재연결 전용 단일 스레드
+    // 등록(tr_id + 종목) → 연결 배치 (sticky: 구독 중에는 같은 연결 유지)
+    private final Map<KisSubscription, KisConnection> placement = new ConcurrentHashMap<>();
+
+    // 클러스터 모드 훅 (KisFeedCluster가 설정)
+    private volatile Runnable interestListener = () -> {};
+    private volatile Consumer<KisTick> feedPublisher = tick -> {};
+    private volatile Consumer<KisBookQuote> bookPublisher = quote -> {};
+
+    // 재연결 공백 구간 훅 (KisGapBackfiller가 설정)
+    private volatile GapListener gapListener = (code, fromMillis, toMillis) -> {};
+
+    // 재연결/리밸런싱 전용 단일 스레드
     private final ScheduledExecutorService reconnectExec =
             Executors.newSingleThreadScheduledExecutor(r -> {
                 Thread t = new Thread(r, "kis-reconnect");
@@ -54,291 +109,502 @@ public class KisRealtimeClient {
                 return t;
             });
 
-    // 재연결 백오프
-    private volatile int reconnectDelaySec = 1;
-    private static final int RECONNECT_DELAY_MAX_SEC = 60;
-
-    public KisRealtimeClient(KisApprovalService approvalService) {
+    public KisRealtimeClient(KisApprovalService approvalService, MeterRegistry meterRegistry,
+                             TickLatencyRecorder latencyRecorder) {
         this.approvalService = approvalService;
+        this.meterRegistry = meterRegistry;
+        this.latencyRecorder = latencyRecorder;
     }
 
     @PostConstruct
     public void init() {
-        // 앱 시작 시 미리 연결 시도 (선택)
-        // 실패해도 subscribe 때 다시 연결됨
-        scheduleReconnect(0);
+        subscriptionManager = new KisSubscriptionManager(reconnectExec, subscriptionGraceMs, subscriptionBatchMs,
+                this::applySubscriptions);
+
+        dispatcher = new TickDispatcher("kis-dispatch", dispatchShards, dispatchRingSize, this::dispatch);
+        dispatcher.start();
+
+        Gauge.builder("kis.dispatch.backlog", dispatcher, TickDispatcher::backlog)
+                .description("링 버퍼에서 리스너 전달을 기다리는 틱 수")
+                .register(meterRegistry);
+        FunctionCounter.builder("kis.dispatch.producer.waits", dispatcher, TickDispatcher::producerWaits)
+                .description("링이 가득 차 KIS 수신 스레드가 기다린 횟수")
+                .register(meterRegistry);
+
+        for (int i = 0; i < Math.max(1, connectionCount); i++) {
+            connections.add(new KisConnection(i, kisWsUrl, approvalService, reconnectExec,
+                    this::onFeedTick, this::onFeedBook, this::onReconnected));
+        }
+
+        // 클러스터 모드에서는 리더가 된 뒤 종목 배치 시 연결
+        if (clustered) return;
+
+        // 앱 시작 시 첫 연결만 미리 연결 시도 (선택)
+        // 나머지 연결은 종목이 배치될 때 연결됨
+        connections.get(0).scheduleReconnect(0);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.stop(1000);
     }
 
     /**
      * code 예: "005930"
-     * listener: 현재가(String)
+     * listener: 체결 틱(KisTick)
      */
-    public void subscribe(String code, StockPriceListener listener) throws Exception {
+    public void subscribe(String code, StockPriceListener listener) {
+        addListener(listeners, KisSubscription.trade(code), listener);
+    }
 
-        // 1) code의 리스너 집합을 만들고 등록
-        Set<StockPriceListener> set =
-                listeners.computeIfAbsent(code, k -> ConcurrentHashMap.newKeySet());
+    public void unsubscribe(String code, StockPriceListener listener) {
+        removeListener(listeners, KisSubscription.trade(code), listener);
+    }
 
-        boolean firstListenerForThisCode = set.isEmpty();
-        set.add(listener);
+    /**
+     * 10단계 호가(H0STASP0) 구독. 체결 구독과 별개로 KIS 등록 1건을 차지함
+     */
+    public void subscribeBook(String code, OrderBookListener listener) {
+        addListener(bookListeners, KisSubscription.book(code), listener);
+    }
 
-        // 2) 재연결 대비 subscribed에는 code를 유지
-        subscribed.add(code);
+    public void unsubscribeBook(String code, OrderBookListener listener) {
+        removeListener(bookListeners, KisSubscription.book(code), listener);
+    }
 
-        // 3) 연결 보장
-        ensureConnected();
+    /**
+     * 리스너 집합 변경은 map.compute 안에서 원자적으로 하고, 실제로 늘었을 때만 참조 카운트 증가.
+     * KIS 등록은 subscriptionManager가 batch-ms 뒤 묶어서 반영
+     */
+    private <L> void addListener(Map<String, Set<L>> map, KisSubscription sub, L listener) {
+        boolean[] added = {false};
+        map.compute(sub.code(), (k, set) -> {
+            if (set == null) set = ConcurrentHashMap.newKeySet();
+            added[0] = set.add(listener);
+            return set;
+        });
+        if (added[0]) subscriptionManager.acquire(sub);
+    }
 
-        // 4) “이번 코드에 대한 첫 구독자”일 때만 KIS로 subscribe 전송
-        if (firstListenerForThisCode) {
-            sendSubscribe(code);
-            log.info("[KIS] subscribe sent. code={}", code);
-        }
+    private <L> void removeListener(Map<String, Set<L>> map, KisSubscription sub, L listener) {
+        boolean[] removed = {false};
+        map.computeIfPresent(sub.code(), (k, set) -> {
+            removed[0] = set.remove(listener);
+            return set.isEmpty() ? null : set;
+        });
+        // 마지막 리스너여도 바로 해지하지 않음 (grace-ms 유예)
+        if (removed[0]) subscriptionManager.release(sub);
     }
 
+    /**
+     * 이 노드가 유지하려는 등록 (체결 + 호가, 해지 유예 중 포함)
+     */
+    Set<KisSubscription> localSubscriptions() {
+        return subscriptionManager.wanted();
+    }
 
-    public void unsubscribe(String code, StockPriceListener listener) throws Exception {
+    /**
+     * subscriptionManager flush (kis-reconnect 스레드). 연결별로 묶어 해지 먼저, 등록 나중에 전송
+     */
+    private Set<KisSubscription> applySubscriptions(List<KisSubscription> toPlace, List<KisSubscription> toRelease) {
+        // 클러스터 모드: 배치는 리더가 전체 노드 관심 기준으로 결정
+        if (clustered) {
+            interestListener.run();
+            return Set.of();
+        }
 
-        Set<StockPriceListener> set = listeners.get(code);
-        if (set == null) return;
+        Map<KisConnection, List<KisSubscription>> unsubs = new HashMap<>();
+        Map<KisConnection, List<KisSubscription>> subs = new HashMap<>();
+        Set<KisSubscription> failed = new HashSet<>();
 
-        set.remove(listener);
+        synchronized (placement) {
+            for (KisSubscription sub : toRelease) {
+                KisConnection conn = placement.remove(sub);
+                if (conn != null) unsubs.computeIfAbsent(conn, c -> new ArrayList<>()).add(sub);
+            }
+            for (KisSubscription sub : toPlace) {
+                if (placement.containsKey(sub)) continue;  // 유예 중 재구독: 그대로 유지
+                KisConnection conn = leastLoaded();
+                if (conn == null) {
+                    failed.add(sub);
+                    continue;
+                }
+                placement.put(sub, conn);
+                subs.computeIfAbsent(conn, c -> new ArrayList<>()).add(sub);
+            }
+        }
 
-        // 리스너가 더 이상 없다면 KIS 구독 해지
-        if (set.isEmpty()) {
-            listeners.remove(code);
+        if (!failed.isEmpty()) {
+            // 조용히 실패하지 않도록 명시적으로 에러 (매니저가 잠시 뒤 재시도)
+            log.error("[KIS] registration capacity exhausted. subs={}, connections={}, maxPerConnection={}",
+                    failed, connections.size(), maxCodesPerConnection);
+        }
 
-            subscribed.remove(code);
+        unsubs.forEach(KisConnection::unsubscribeAll);
+        subs.forEach(KisConnection::subscribeAll);
 
-            if (isConnected()) {
-                sendUnsubscribe(code);
-                log.info("[KIS] unsubscribe sent. code={}", code);
-            }
-        }
+        // 해지로 연결 간 편차가 커졌으면 리밸런싱
+        if (!unsubs.isEmpty()) rebalance();
+        return failed;
     }
 
+    // ===== 클러스터 모드 (KisFeedCluster 전용) =====
 
-    private boolean isConnected() {
-        return kisSession != null && kisSession.isOpen();
+    void setInterestListener(Runnable interestListener) {
+        this.interestListener = interestListener;
     }
 
-    private void ensureConnected() {
-        if (isConnected()) return;
+    void setFeedPublisher(Consumer<KisTick> feedPublisher) {
+        this.feedPublisher = feedPublisher;
+    }
 
-        // 동시에 여러 요청이 들어와도 connect는 한 번만
-        if (!connecting.compareAndSet(false, true)) return;
+    void setBookPublisher(Consumer<KisBookQuote> bookPublisher) {
+        this.bookPublisher = bookPublisher;
+    }
 
-        reconnectExec.execute(() -> {
+    /**
+     * 리더: KIS 배치를 desired 등록 집합에 맞춤
+     */
+    void reconcile(Set<KisSubscription> desired) {
+        for (KisSubscription sub : List.copyOf(placement.keySet())) {
+            if (desired.contains(sub)) continue;
             try {
-                connect();
-                reconnectDelaySec = 1; // 성공하면 백오프 리셋
-
-                // 재연결되면 재구독
-                resubscribeAll();
-
+                release(sub);
             } catch (Exception e) {
-                log.error("[KIS] connect failed", e);
-                scheduleReconnect(reconnectDelaySec);
-                reconnectDelaySec = Math.min(reconnectDelaySec * 2, RECONNECT_DELAY_MAX_SEC);
-            } finally {
-                connecting.set(false);
+                log.warn("[KIS] release failed. sub={}", sub, e);
             }
-        });
+        }
+        for (KisSubscription sub : desired) {
+            if (placement.containsKey(sub)) continue;
+            try {
+                place(sub);
+            } catch (Exception e) {
+                log.warn("[KIS] place failed. sub={}", sub, e);
+            }
+        }
+    }
+
+    /**
+     * 리더에서 내려옴: 배치를 비우고 KIS 연결 종료
+     */
+    void releaseAll() {
+        synchronized (placement) {
+            placement.clear();
+        }
+        for (KisConnection c : connections) {
+            c.disconnect();
+        }
+    }
+
+    /**
+     * 팔로워: 리더가 Redis로 보낸 틱을 로컬 리스너에 전달
+     */
+    void dispatchRemote(KisTick tick) {
+        dispatcher.publish(tick);
     }
 
-    private void scheduleReconnect(int delaySec) {
-        reconnectExec.schedule(() -> {
-            // 이미 연결되어 있으면 스킵
-            if (isConnected()) return;
-            ensureConnected();
-        }, delaySec, TimeUnit.SECONDS);
+    void dispatchRemoteBook(KisBookQuote quote) {
+        dispatchBook(quote);
+    }
+
+    /**
+     * 등록을 연결에 배치. 이미 배치돼 있으면 그대로(sticky), 아니면 가장 한가한 연결로
+     */
+    private void place(KisSubscription sub) throws Exception {
+        KisConnection conn;
+        synchronized (placement) {
+            if (placement.containsKey(sub)) return;
+
+            conn = leastLoaded();
+            if (conn == null) {
+                // 조용히 실패하지 않도록 명시적으로 에러
+                log.error("[KIS] registration capacity exhausted. sub={}, connections={}, maxPerConnection={}",
+                        sub, connections.size(), maxCodesPerConnection);
+                throw new IllegalStateException("KIS realtime capacity exhausted");
+            }
+            placement.put(sub, conn);
+        }
+        conn.subscribe(sub);
     }
 
-    private synchronized void connect() throws Exception {
-        // 이미 연결되어 있으면 스킵
-        if (isConnected()) return;
+    private void release(KisSubscription sub) throws Exception {
+        KisConnection conn;
+        synchronized (placement) {
+            conn = placement.remove(sub);
+        }
+        if (conn == null) return;
 
-        WebSocketContainer container = ContainerProvider.getWebSocketContainer();
-        container.setDefaultMaxTextMessageBufferSize(1024 * 1024);   // 1MB (필요시 2~4MB로 올려도 됨)
-        container.setDefaultMaxBinaryMessageBufferSize(1024 * 1024);
+        conn.unsubscribe(sub);
 
-        StandardWebSocketClient client = new StandardWebSocketClient(container);
+        // 구독 해지로 연결 간 편차가 커졌으면 비동기 리밸런싱
+        reconnectExec.execute(this::rebalance);
+    }
 
-        ListenableFuture<WebSocketSession> future =
-                client.doHandshake(new KisHandler(), kisWsUrl);
+    // placement 락 안에서 호출
+    private KisConnection leastLoaded() {
+        int[] loads = placedLoads();
+        KisConnection best = null;
+        for (KisConnection c : connections) {
+            int load = loads[c.index()];
+            if (load >= maxCodesPerConnection) continue;
+            if (best == null || load < loads[best.index()]) best = c;
+        }
+        return best;
+    }
 
-        kisSession = future.get(10, TimeUnit.SECONDS); // 타임아웃
-        log.info("[KIS] connected. sessionId={}", kisSession.getId());
+    // placement 락 안에서 호출. 연결별 배치된 등록 수
+    private int[] placedLoads() {
+        int[] loads = new int[connections.size()];
+        for (KisConnection c : placement.values()) loads[c.index()]++;
+        return loads;
     }
 
-    private void resubscribeAll() {
-        if (!isConnected()) return;
+    /**
+     * 가장 많이 가진 연결에서 가장 적게 가진 연결로 등록을 옮김.
+     * 이동 중 중복 체결이 생기지 않도록 기존 연결에서 먼저 해지 후 새 연결에 등록
+     */
+    private void rebalance() {
+        while (true) {
+            KisSubscription sub;
+            KisConnection from;
+            KisConnection to;
+
+            synchronized (placement) {
+                int[] loads = placedLoads();
+                from = null;
+                to = null;
+                for (KisConnection c : connections) {
+                    if (from == null || loads[c.index()] > loads[from.index()]) from = c;
+                    if (to == null || loads[c.index()] < loads[to.index()]) to = c;
+                }
+                if (from == null || from == to || loads[from.index()] - loads[to.index()] <= rebalanceThreshold) return;
+
+                sub = null;
+                for (Map.Entry<KisSubscription, KisConnection> e : placement.entrySet()) {
+                    if (e.getValue() == from) {
+                        sub = e.getKey();
+                        break;
+                    }
+                }
+                if (sub == null) return;
+                placement.put(sub, to);
+            }
 
-        // 서버가 재시작/연결끊김/세션 교체되면 기존 구독이 날아가므로 재구독
-        for (String code : subscribed) {
             try {
-                sendSubscribe(code);
-                log.info("[KIS] resubscribe sent. code={}", code);
+                from.unsubscribe(sub);
+                to.subscribe(sub);
+                log.info("[KIS] rebalanced sub={} from #{} to #{}", sub, from.index(), to.index());
             } catch (Exception e) {
-                log.error("[KIS] resubscribe failed. code={}", code, e);
+                log.warn("[KIS] rebalance failed. sub={}", sub, e);
+                return;
             }
         }
     }
 
-    private void sendSubscribe(String code) throws Exception {
-        if (!isConnected()) throw new IllegalStateException("KIS session not connected");
-
-        String approvalKey = approvalService.getApprovalKey();
+    /**
+     * 구독 종목 전체의 틱을 받는 소비자 등록 (KIS 구독 자체는 늘리지 않음)
+     */
+    public void addTickSink(StockPriceListener sink) {
+        tickSinks.add(sink);
+    }
 
-        Map<String, Object> msg = Map.of(
-                "header", Map.of(
-                        "approval_key", approvalKey,
-                        "custtype", "P",
-                        "tr_type", "1",
-                        "content-type", "utf-8"
-                ),
-                "body", Map.of(
-                        "input", Map.of(
-                                "tr_id", "H0STCNT0",
-                                "tr_key", code
-                        )
-                )
-        );
+    public void addBackfillSink(BackfillListener sink) {
+        backfillSinks.add(sink);
+    }
 
-        kisSession.sendMessage(new TextMessage(om.writeValueAsString(msg)));
+    void setGapListener(GapListener gapListener) {
+        this.gapListener = gapListener;
     }
 
-    private void sendUnsubscribe(String code) throws Exception {
-        if (!isConnected()) throw new IllegalStateException("KIS session not connected");
+    /**
+     * KIS 연결 재연결 (kis-reconnect 스레드). 종목별 공백 = 마지막으로 받은 체결 ~ 지금
+     * (그 종목 틱을 받은 적 없으면 끊긴 시각부터)
+     */
+    private void onReconnected(List<String> codes, long disconnectedAtMillis) {
+        long now = System.currentTimeMillis();
+        for (String code : codes) {
+            long from = disconnectedAtMillis;
+            KisTick last = lastValues.get(code);
+            if (last != null) {
+                synchronized (last) {
+                    long t = last.getExchangeTimeMillis() > 0 ? last.getExchangeTimeMillis() : last.getReceivedAtMillis();
+                    if (t > 0 && t < from) from = t;
+                }
+            }
+            gapListener.onGap(code, from, now);
+        }
+    }
 
-        String approvalKey = approvalService.getApprovalKey();
+    /**
+     * REST 분봉(오래된 순)으로 공백 구간을 메움. 같은 분봉을 여러 번 넣어도 결과가 같음 (멱등)
+     * - last-value: 마지막 분봉이 마지막 체결보다 뒤일 때만 현재가/시각 갱신, 고가/저가는 넓히기만
+     * - 봉 집계 등은 backfill sink에서 각자 병합
+     */
+    void applyBackfill(String code, List<KisMinuteBar> bars) {
+        if (bars.isEmpty()) return;
 
-        Map<String, Object> msg = Map.of(
-                "header", Map.of(
-                        "approval_key", approvalKey,
-                        "custtype", "P",
-                        "tr_type", "2",
-                        "content-type", "utf-8"
-                ),
-                "body", Map.of(
-                        "input", Map.of(
-                                "tr_id", "H0STCNT0",
-                                "tr_key", code
-                        )
-                )
-        );
+        KisTick last = lastValues.get(code);
+        if (last != null) {
+            synchronized (last) {
+                mergeLastValue(last, bars);
+            }
+        }
 
-        kisSession.sendMessage(new TextMessage(om.writeValueAsString(msg)));
+        for (BackfillListener sink : backfillSinks) {
+            try {
+                sink.onBackfill(code, bars);
+            } catch (Exception e) {
+                log.warn("[KIS] backfill sink error. code={}", code, e);
+            }
+        }
     }
 
-    private class KisHandler extends TextWebSocketHandler {
-
-        @Override
-        public void afterConnectionEstablished(WebSocketSession session) {
-            log.info("[KIS] afterConnectionEstablished. sessionId={}", session.getId());
+    private static void mergeLastValue(KisTick last, List<KisMinuteBar> bars) {
+        long high = last.getHigh(), low = last.getLow();
+        for (KisMinuteBar bar : bars) {
+            if (bar.high() > high) high = bar.high();
+            if (bar.low() > 0 && (low == 0 || bar.low() < low)) low = bar.low();
         }
+        last.setHigh(high);
+        last.setLow(low);
+
+        KisMinuteBar newest = bars.get(bars.size() - 1);
+        if (newest.close() <= 0 || last.getExchangeTimeMillis() >= newest.startMillis()) return;
+
+        long prevClose = last.getPrevClose();
+        long change = newest.close() - prevClose;
+        last.setPrice(newest.close());
+        last.setChange(change);
+        last.setChangeRateBp(prevClose > 0 ? change * 10_000 / prevClose : 0);
+        last.setChangeSign(change > 0 ? '2' : change < 0 ? '5' : '3');
+        last.setExchangeTimeMillis(newest.startMillis());
+        last.setTradeTime(hhmmss(newest.startMillis()));
+        last.setReceivedAtMillis(System.currentTimeMillis());
+        last.setReceivedAtNanos(0);
+        last.setVolume(0);
+    }
 
-        @Override
-        public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
-            log.warn("[KIS] connection closed. code={}, reason={}", status.getCode(), status.getReason());
+    /** epoch millis → KST HHMMSS */
+    private static int hhmmss(long epochMillis) {
+        long sec = Math.floorMod(epochMillis / 1000 + 9 * 60 * 60, 24 * 60 * 60);
+        return (int) (sec / 3600 * 10000 + sec / 60 % 60 * 100 + sec % 60);
+    }
 
-            // 세션 무효화
-            try { session.close(); } catch (Exception ignore) {}
-            kisSession = null;
+    /**
+     * 마지막 체결 스냅샷 (복사본). 없거나 오래됐으면 null
+     * - 현재 구독 중이고 KIS 연결이 살아 있으면 마지막 틱이 곧 현재가이므로 경과 시간과 무관하게 유효
+     */
+    public KisTick snapshot(String code) {
+        KisTick last = lastValues.get(code);
+        if (last == null) return null;
 
-            // 재연결 예약
-            scheduleReconnect(reconnectDelaySec);
-            reconnectDelaySec = Math.min(reconnectDelaySec * 2, RECONNECT_DELAY_MAX_SEC);
+        KisTick copy = new KisTick();
+        synchronized (last) {
+            copy.copyFrom(last);
         }
 
-        @Override
-        public void handleTransportError(WebSocketSession session, Throwable exception) {
-            log.error("[KIS] transport error", exception);
-
-            // 세션 무효화
-            try { session.close(); } catch (Exception ignore) {}
-            kisSession = null;
-
-            // 재연결 예약
-            scheduleReconnect(reconnectDelaySec);
-            reconnectDelaySec = Math.min(reconnectDelaySec * 2, RECONNECT_DELAY_MAX_SEC);
+        KisConnection conn = placement.get(KisSubscription.trade(code));
+        boolean live = conn != null && conn.isConnected();
+        if (!live && System.currentTimeMillis() - copy.getReceivedAtMillis() > lvcMaxAgeMs) {
+            return null;
         }
+        return copy;
+    }
 
-        @Override
-        protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
-            String payload = message.getPayload();
+    /**
+     * KIS 연결에서 디코딩된 틱 (리더 또는 단일 노드)
+     */
+    private void onFeedTick(KisTick tick) {
+        feedPublisher.accept(tick);
+        dispatcher.publish(tick);
+    }
 
-            // 1) JSON 메시지 처리
-            if (payload.startsWith("{")) {
-                handleJsonControlMessage(session, payload);
-                return;
-            }
+    /**
+     * KIS 연결에서 디코딩된 호가 (리더 또는 단일 노드)
+     */
+    private void onFeedBook(KisBookQuote quote) {
+        dispatchBook(quote);
+        bookPublisher.accept(quote);
+    }
 
-            // 2) 실시간 데이터 메시지
-            if (payload.startsWith("0|")) {
-                handleRealtimeData(payload);
-                return;
+    private void dispatchBook(KisBookQuote quote) {
+        Set<OrderBookListener> set = bookListeners.get(quote.getCode());
+        if (set == null || set.isEmpty()) return;
+
+        for (OrderBookListener listener : set) {
+            try {
+                listener.onQuote(quote);
+            } catch (Exception e) {
+                log.warn("[KIS] book listener error. code={}", quote.getCode(), e);
             }
         }
+    }
 
-        private void handleJsonControlMessage(WebSocketSession session, String payload) throws Exception {
-            JsonNode root = om.readTree(payload);
-            String trId = root.path("header").path("tr_id").asText();
+    /**
+     * kis-dispatch 샤드 스레드에서 호출 (shards=0이면 수신 스레드). 같은 종목은 항상 같은 스레드
+     */
+    private void dispatch(KisTick tick) {
+        String code = tick.getCode();
+        latencyRecorder.recordDispatch(tick);
+
+        // last-value cache 갱신 (리스너 유무와 무관)
+        KisTick last = lastValues.get(code);
+        if (last == null) {
+            last = lastValues.computeIfAbsent(code, c -> new KisTick());
+        }
+        synchronized (last) {
+            last.copyFrom(tick);
+        }
 
-            if ("PINGPONG".equals(trId)) {
-                // 서버가 pingpong 주면 pong으로 응답
-                session.sendMessage(new PongMessage(ByteBuffer.wrap(payload.getBytes(StandardCharsets.UTF_8))));
-                return;
+        for (StockPriceListener sink : tickSinks) {
+            try {
+                sink.onTick(tick);
+            } catch (Exception e) {
+                log.warn("[KIS] tick sink error. code={}", code, e);
             }
+        }
 
-            String rtCd = root.path("body").path("rt_cd").asText();
-            String msg1 = root.path("body").path("msg1").asText();
-            String msgCd = root.path("body").path("msg_cd").asText();
-
-            // rt_cd="1"이면 에러인 경우가 많음
-            if ("1".equals(rtCd)) {
-                log.warn("[KIS][CONTROL][ERR] tr_id={}, msg_cd={}, msg1={}", trId, msgCd, msg1);
+        // ✅ 변경: code -> Set<Listener>
+        Set<StockPriceListener> set = listeners.get(code);
+        if (set == null || set.isEmpty()) return;
 
-                // 승인키 만료/구독 실패류면 재연결 트리거(안전빵)
-                // msg_cd / msg1 기준으로 더 정교하게 분기해도 됨
-                kisSession = null;
-                scheduleReconnect(1);
-            } else {
-                log.info("[KIS][CONTROL] tr_id={}, msg_cd={}, msg1={}", trId, msgCd, msg1);
+        for (StockPriceListener listener : set) {
+            try {
+                listener.onTick(tick);
+            } catch (Exception e) {
+                // 한 리스너가 죽어도 나머지에게는 계속 전달
+                log.warn("[KIS] listener error. code={}", code, e);
             }
         }
+    }
 
-        private void handleRealtimeData(String payload) {
-            String[] parts = payload.split("\\|", -1);
-            if (parts.length < 4) return;
-
-            String trId = parts[1];
-            if (!"H0STCNT0".equals(trId)) return;
-
-            String data = parts[3];
-            String[] v = data.split("\\^", -1);
-            if (v.length <= 2) return;
-
-            String code = v[0];
-            String currentPrice = v[2];
-
-            // ✅ 변경: code -> Set<Listener>
-            Set<StockPriceListener> set = listeners.get(code);
-            if (set == null || set.isEmpty()) return;
+    /**
+     * tick은 디스패처 링 슬롯(또는 디코더)이 재사용하는 객체이므로 onTick 안에서만 사용할 것
+     * (보관이 필요하면 KisTick.copyFrom으로 복사)
+     */
+    @FunctionalInterface
+    public interface StockPriceListener {
+        void onTick(KisTick tick);
+    }
 
-            for (StockPriceListener listener : set) {
-                try {
-                    listener.onPrice(currentPrice);
-                } catch (Exception e) {
-                    // 한 리스너가 죽어도 나머지에게는 계속 전달
-                    log.warn("[KIS] listener error. code={}", code, e);
-                }
-            }
-        }
+    /**
+     * bars는 오래된 순 분봉. 같은 구간이 여러 번 올 수 있으므로 멱등하게 병합할 것
+     */
+    @FunctionalInterface
+    public interface BackfillListener {
+        void onBackfill(String code, List<KisMinuteBar> bars);
+    }
 
+    @FunctionalInterface
+    interface GapListener {
+        void onGap(String code, long fromMillis, long toMillis);
     }
 
+    /**
+     * quote는 디코더가 재사용하는 객체이므로 onQuote 안에서만 사용할 것
+     */
     @FunctionalInterface
-    public interface StockPriceListener {
-        void onPrice(String price);
+    public interface OrderBookListener {
+        void onQuote(KisBookQuote quote);
     }
 }
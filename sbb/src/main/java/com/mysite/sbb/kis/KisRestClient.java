@@ -1,20 +1,48 @@
 package com.mysite.sbb.kis;
 
+import java.net.URI;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.extern.slf4j.Slf4j;
 
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * KIS REST 조회. 전용 Reactor Netty 커넥션 풀(kis-rest) 위의 WebClient라 호출 스레드를 잡지 않음 (Mono 반환).
+ * - 연결/응답 타임아웃, 풀 크기·대기 한도, 유휴 연결 정리는 kis.rest.* 설정
+ * - 모든 호출은 KisRestLimiter 허가를 받은 뒤 나감
+ */
 @Slf4j
 @Component
 public class KisRestClient {
 
+    private static final ZoneId KST = ZoneId.of("Asia/Seoul");
+    private static final DateTimeFormatter HHMMSS = DateTimeFormatter.ofPattern("HHmmss");
+    private static final DateTimeFormatter YYYYMMDD = DateTimeFormatter.BASIC_ISO_DATE;
+
     @Value("${kis.rest.base-url}")
     private String baseUrl;
 
@@ -25,46 +53,112 @@ public class KisRestClient {
     private String appSecret;
 
     private final KisApprovalService approvalService;
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final KisRestLimiter limiter;
+    private final ConnectionProvider connectionProvider;
+    private final WebClient webClient;
     private final ObjectMapper om = new ObjectMapper();
 
-    public KisRestClient(KisApprovalService approvalService) {
+    public KisRestClient(KisApprovalService approvalService, KisRestLimiter limiter, WebClient.Builder builder,
+                         @Value("${kis.rest.pool.max-connections:20}") int maxConnections,
+                         @Value("${kis.rest.pool.pending-acquire-timeout-ms:2000}") long pendingAcquireTimeoutMs,
+                         @Value("${kis.rest.pool.max-idle-ms:30000}") long maxIdleMs,
+                         @Value("${kis.rest.connect-timeout-ms:2000}") int connectTimeoutMs,
+                         @Value("${kis.rest.read-timeout-ms:5000}") long readTimeoutMs) {
         this.approvalService = approvalService;
+        this.limiter = limiter;
+
+        // KIS 쪽이 유휴 keep-alive를 먼저 끊으므로 max-idle 전에 정리 (끊긴 연결 재사용으로 인한 실패 방지)
+        this.connectionProvider = ConnectionProvider.builder("kis-rest")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(maxConnections * 4)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMs))
+                .maxIdleTime(Duration.ofMillis(maxIdleMs))
+                .evictInBackground(Duration.ofMillis(Math.max(1000, maxIdleMs / 2)))
+                .metrics(true)
+                .build();
+
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .responseTimeout(Duration.ofMillis(readTimeoutMs));
+
+        this.webClient = builder.clone()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
     }
 
-    public StockSummary getStockSummary(String code) {
+    @PreDestroy
+    public void shutdown() {
+        connectionProvider.disposeLater().block(Duration.ofSeconds(5));
+    }
 
-        String url = baseUrl + "/uapi/domestic-stock/v1/quotations/inquire-price";
+    /**
+     * 현재가/전일 종가 (FHKST01010100). 화면 조회라 INTERACTIVE. 대기열이 차면 KisRateLimitedException(503)
+     */
+    public Mono<StockSummary> stockSummary(String code) {
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.set("appkey", appKey);
-        headers.set("appsecret", appSecret);
-        headers.set("authorization", "Bearer " + approvalService.getAccessToken());
-        headers.set("tr_id", "FHKST01010100");
-
-        String finalUrl = UriComponentsBuilder.fromHttpUrl(url)
+        String finalUrl = UriComponentsBuilder.fromHttpUrl(baseUrl + "/uapi/domestic-stock/v1/quotations/inquire-price")
                 .queryParam("fid_cond_mrkt_div_code", "J")
                 .queryParam("fid_input_iscd", code)
                 .toUriString();
 
-        HttpEntity<Void> entity = new HttpEntity<>(headers);
+        return limiter.acquireAsync(KisRestLimiter.Priority.INTERACTIVE)
+                .then(Mono.defer(() -> {
+                    log.info("[KIS-REST] GET {}", finalUrl);
+                    return get(finalUrl, "FHKST01010100");
+                }))
+                .map(this::parseSummary);
+    }
 
-        log.info("[KIS-REST] GET {}", finalUrl);
+    /**
+     * 당일 분봉 조회 (FHKST03010200). to 시각 이하 최근 30개 분봉, 오래된 순.
+     * 당일 데이터만 주므로 date가 오늘이 아닌 행은 버림
+     */
+    public Mono<List<KisMinuteBar>> minuteBars(String code, LocalTime to, KisRestLimiter.Priority priority) {
+
+        String finalUrl = UriComponentsBuilder.fromHttpUrl(baseUrl + "/uapi/domestic-stock/v1/quotations/inquire-time-itemchartprice")
+                .queryParam("FID_ETC_CLS_CODE", "")
+                .queryParam("FID_COND_MRKT_DIV_CODE", "J")
+                .queryParam("FID_INPUT_ISCD", code)
+                .queryParam("FID_INPUT_HOUR_1", to.format(HHMMSS))
+                .queryParam("FID_PW_DATA_INCU_YN", "N")
+                .toUriString();
 
-        try {
-            ResponseEntity<String> response =
-                    restTemplate.exchange(finalUrl, HttpMethod.GET, entity, String.class);
+        return limiter.acquireAsync(priority)
+                .then(Mono.defer(() -> {
+                    log.debug("[KIS-REST] GET {}", finalUrl);
+                    return get(finalUrl, "FHKST03010200");
+                }))
+                .map(this::parseMinuteBars);
+    }
 
-            if (!response.getStatusCode().is2xxSuccessful()) {
-                throw new RuntimeException("KIS REST non-2xx: " + response.getStatusCode());
-            }
+    /**
+     * minuteBars 블로킹 버전 (백필 스레드용)
+     */
+    public List<KisMinuteBar> getMinuteBars(String code, LocalTime to, KisRestLimiter.Priority priority) {
+        return minuteBars(code, to, priority).block();
+    }
 
-            String body = response.getBody();
-            if (body == null || body.isBlank()) {
-                throw new RuntimeException("KIS REST empty body");
-            }
+    private Mono<String> get(String url, String trId) {
+        return webClient.get()
+                .uri(URI.create(url))
+                .headers(h -> h.addAll(headers(trId)))
+                .retrieve()
+                .bodyToMono(String.class)
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("KIS REST empty body")))
+                .onErrorMap(WebClientResponseException.class, e -> {
+                    // 4xx/5xx가 났을 때 응답 바디를 같이 로그로 남겨주면 디버깅이 쉬움
+                    log.error("[KIS-REST] HTTP error status={} body={}", e.getStatusCode().value(), safeBody(e.getResponseBodyAsString()));
+                    return new RuntimeException("KIS REST HTTP error: " + e.getStatusCode().value(), e);
+                })
+                .onErrorMap(WebClientRequestException.class, e -> {
+                    // 연결 실패/응답 타임아웃/풀 대기 초과
+                    log.warn("[KIS-REST] I/O error. url={}, msg={}", url, e.getMessage());
+                    return new RuntimeException("KIS REST I/O error", e);
+                });
+    }
 
+    private StockSummary parseSummary(String body) {
+        try {
             JsonNode root = om.readTree(body);
 
             // (선택) KIS 응답에 에러 구조가 있을 수도 있어서 메시지 후보를 뽑아둠
@@ -80,10 +174,8 @@ public class KisRestClient {
 
             return new StockSummary(prevClose, current);
 
-        } catch (RestClientResponseException e) {
-            // 4xx/5xx가 났을 때 응답 바디를 같이 로그로 남겨주면 디버깅이 쉬움
-            log.error("[KIS-REST] HTTP error status={} body={}", e.getRawStatusCode(), safeBody(e.getResponseBodyAsString()));
-            throw new RuntimeException("KIS REST HTTP error: " + e.getRawStatusCode(), e);
+        } catch (RuntimeException e) {
+            throw e;
 
         } catch (Exception e) {
             log.error("[KIS-REST] parse/unknown error", e);
@@ -91,6 +183,53 @@ public class KisRestClient {
         }
     }
 
+    private List<KisMinuteBar> parseMinuteBars(String body) {
+        try {
+            JsonNode root = om.readTree(body);
+            if (!"0".equals(root.path("rt_cd").asText("0"))) {
+                throw new RuntimeException("KIS REST error. msg=" + root.path("msg1").asText(""));
+            }
+
+            // output2: 최신 분봉부터 내려옴
+            JsonNode rows = root.path("output2");
+            String today = LocalDate.now(KST).format(YYYYMMDD);
+            List<KisMinuteBar> bars = new ArrayList<>(rows.size());
+            for (int i = rows.size() - 1; i >= 0; i--) {
+                JsonNode row = rows.get(i);
+                String date = row.path("stck_bsop_date").asText("");
+                String hour = row.path("stck_cntg_hour").asText("");
+                if (!today.equals(date) || hour.length() != 6) continue;
+
+                long start = LocalDateTime.of(LocalDate.parse(date, YYYYMMDD), LocalTime.parse(hour, HHMMSS))
+                        .atZone(KST).toInstant().toEpochMilli();
+                bars.add(new KisMinuteBar(start,
+                        row.path("stck_oprc").asLong(),
+                        row.path("stck_hgpr").asLong(),
+                        row.path("stck_lwpr").asLong(),
+                        row.path("stck_prpr").asLong(),
+                        row.path("cntg_vol").asLong()));
+            }
+            return bars;
+
+        } catch (RuntimeException e) {
+            throw e;
+
+        } catch (Exception e) {
+            throw new RuntimeException("KIS minute bars parse failed", e);
+        }
+    }
+
+    private HttpHeaders headers(String trId) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("appkey", appKey);
+        headers.set("appsecret", appSecret);
+        headers.set("authorization", "Bearer " + approvalService.getAccessToken());
+        headers.set("tr_id", trId);
+        headers.set("custtype", "P");
+        return headers;
+    }
+
     private String safeBody(String s) {
         if (s == null) return "";
         return s.length() > 500 ? s.substring(0, 500) + "..." : s;
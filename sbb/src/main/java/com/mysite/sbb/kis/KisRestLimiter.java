@@ -0,0 +1,308 @@
+package com.mysite.sbb.kis;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * 모든 KIS REST 호출(KisRestClient)의 초당 호출 한도.
+ * - 토큰 버킷 (rate-per-sec, burst) 하나를 앱 전체가 공유
+ * - 호출 스레드는 우선순위별 대기열(크기 제한)에 줄을 서고, kis-rest-limiter 스레드가 토큰이 생길 때마다
+ *   가장 높은 우선순위의 맨 앞 대기자에게 허가를 줌 (INTERACTIVE > BACKFILL > BATCH, 같은 등급은 FIFO)
+ * - 대기열이 가득 차거나 max-wait을 넘기면 KIS를 호출하지 않고 KisRateLimitedException
+ * - cluster=true면 Redis 초 단위 카운터(INCR)로 노드 전체 합계도 rate-per-sec 이하로 맞춤 (Redis 장애 시 노드 한도만)
+ *
+ * 인증(oauth2/tokenP, Approval)은 별도 한도라 여기 포함하지 않음
+ */
+@Slf4j
+@Component
+public class KisRestLimiter {
+
+    public enum Priority { INTERACTIVE, BACKFILL, BATCH }
+
+    static final String CLUSTER_KEY_PREFIX = "kis:rest:rl:";
+
+    // 현재 초 창의 호출 수 +1 (창 키는 2초 뒤 만료)
+    private static final DefaultRedisScript<Long> INCR_WINDOW = new DefaultRedisScript<>(
+            "local n = redis.call('incr', KEYS[1]) if n == 1 then redis.call('pexpire', KEYS[1], 2000) end return n",
+            Long.class);
+
+    @Value("${kis.rest.limiter.rate-per-sec:15}")
+    private double ratePerSec;
+
+    @Value("${kis.rest.limiter.burst:5}")
+    private int burst;
+
+    // 우선순위:대기열 크기:최대 대기 ms
+    @Value("${kis.rest.limiter.classes:INTERACTIVE:50:2000,BACKFILL:20:30000,BATCH:100:60000}")
+    private String classesSpec;
+
+    @Value("${kis.rest.limiter.cluster:false}")
+    private boolean cluster;
+
+    private final ObjectProvider<StringRedisTemplate> redisProvider;
+    private final MeterRegistry meterRegistry;
+
+    // 아래 필드는 this 락
+    private final Map<Priority, ArrayDeque<Waiter>> queues = new EnumMap<>(Priority.class);
+    private double tokens;
+    private long refilledAtNanos;
+
+    private final Map<Priority, Integer> capacity = new EnumMap<>(Priority.class);
+    private final Map<Priority, Long> maxWaitMs = new EnumMap<>(Priority.class);
+    private final Map<Priority, Timer> waitTimers = new EnumMap<>(Priority.class);
+    private final Map<Priority, Counter> queueFull = new EnumMap<>(Priority.class);
+    private final Map<Priority, Counter> timedOut = new EnumMap<>(Priority.class);
+
+    private StringRedisTemplate redis;
+    private volatile long redisRetryAtMillis;
+
+    private Thread dispatcher;
+
+    /** complete(true) = 허가, complete(false) = 시간 초과/호출 쪽이 포기. 먼저 complete한 쪽이 이김 */
+    private static final class Waiter extends CompletableFuture<Boolean> {
+        final long enqueuedNanos = System.nanoTime();
+    }
+
+    public KisRestLimiter(ObjectProvider<StringRedisTemplate> redisProvider, MeterRegistry meterRegistry) {
+        this.redisProvider = redisProvider;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        for (Priority p : Priority.values()) {
+            queues.put(p, new ArrayDeque<>());
+            capacity.put(p, 50);
+            maxWaitMs.put(p, 10_000L);
+        }
+        for (String part : classesSpec.split(",")) {
+            String[] kv = part.trim().split(":");
+            if (kv.length != 3) continue;
+            Priority p = Priority.valueOf(kv[0].trim());
+            capacity.put(p, Integer.parseInt(kv[1].trim()));
+            maxWaitMs.put(p, Long.parseLong(kv[2].trim()));
+        }
+
+        for (Priority p : Priority.values()) {
+            String tag = p.name().toLowerCase();
+            waitTimers.put(p, Timer.builder("kis.rest.limiter.wait").tag("priority", tag)
+                    .description("KIS REST 호출 허가까지 대기 시간")
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry));
+            queueFull.put(p, Counter.builder("kis.rest.limiter.rejected").tag("priority", tag).tag("reason", "queue_full")
+                    .description("한도 대기열에서 거절된 KIS REST 호출 수").register(meterRegistry));
+            timedOut.put(p, Counter.builder("kis.rest.limiter.rejected").tag("priority", tag).tag("reason", "timeout")
+                    .description("한도 대기열에서 거절된 KIS REST 호출 수").register(meterRegistry));
+            Gauge.builder("kis.rest.limiter.queued", this, l -> l.queued(p)).tag("priority", tag)
+                    .description("KIS REST 호출 허가 대기 수").register(meterRegistry);
+        }
+
+        if (cluster) {
+            redis = redisProvider.getIfAvailable();
+            if (redis == null) log.warn("[KIS-LIMIT] cluster=true but no Redis. node limit only");
+        }
+
+        tokens = Math.max(1, burst);
+        refilledAtNanos = System.nanoTime();
+
+        dispatcher = new Thread(this::dispatch, "kis-rest-limiter");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        log.info("[KIS-LIMIT] started. ratePerSec={}, burst={}, classes={}, cluster={}",
+                ratePerSec, burst, classesSpec, redis != null);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (dispatcher != null) dispatcher.interrupt();
+    }
+
+    /**
+     * 허가가 날 때까지 대기. 대기열 초과/max-wait 초과면 KisRateLimitedException
+     */
+    public void acquire(Priority priority) {
+        Waiter w = enqueue(priority);
+        boolean granted;
+        try {
+            granted = w.get();
+        } catch (InterruptedException e) {
+            abandon(priority, w);
+            Thread.currentThread().interrupt();
+            throw new KisRateLimitedException("KIS REST wait interrupted");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+        granted(priority, w, granted);
+    }
+
+    /**
+     * acquire의 논블로킹 버전. 허가가 나면 완료 (boundedElastic 스레드에서 이어짐:
+     * 디스패처 스레드가 요청 조립/토큰 발급을 떠안지 않게). 구독 취소 시 대기열에서 빠짐
+     */
+    public Mono<Void> acquireAsync(Priority priority) {
+        return Mono.defer(() -> {
+            Waiter w = enqueue(priority);
+            return Mono.fromFuture(w, true)
+                    .doOnCancel(() -> abandon(priority, w))
+                    .publishOn(Schedulers.boundedElastic())
+                    .doOnNext(granted -> granted(priority, w, granted))
+                    .then();
+        });
+    }
+
+    private Waiter enqueue(Priority priority) {
+        Waiter w = new Waiter();
+        synchronized (this) {
+            ArrayDeque<Waiter> q = queues.get(priority);
+            if (q.size() >= capacity.get(priority)) {
+                queueFull.get(priority).increment();
+                throw new KisRateLimitedException("KIS REST queue full. priority=" + priority);
+            }
+            q.addLast(w);
+            notifyAll();
+        }
+        // max-wait 안에 허가가 안 나면 false로 완료 (디스패처의 complete(true)와 먼저 된 쪽이 이김)
+        w.completeOnTimeout(false, maxWaitMs.get(priority), TimeUnit.MILLISECONDS);
+        return w;
+    }
+
+    private void granted(Priority priority, Waiter w, boolean granted) {
+        if (!granted) {
+            synchronized (this) {
+                queues.get(priority).remove(w);
+            }
+            timedOut.get(priority).increment();
+            throw new KisRateLimitedException("KIS REST wait timeout. priority=" + priority);
+        }
+        waitTimers.get(priority).record(System.nanoTime() - w.enqueuedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void abandon(Priority priority, Waiter w) {
+        if (!w.complete(false)) return;
+        synchronized (this) {
+            queues.get(priority).remove(w);
+        }
+    }
+
+    public synchronized int queued(Priority priority) {
+        return queues.get(priority).size();
+    }
+
+    /**
+     * kis-rest-limiter 스레드: 대기자 있음 → 토큰 확보 → (클러스터) 초 창 확보 → 최우선 대기자에게 허가
+     */
+    private void dispatch() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                synchronized (this) {
+                    while (isEmpty()) wait();
+                }
+                takeLocalToken();
+                takeClusterSlot();
+
+                boolean granted = false;
+                while (!granted) {
+                    Waiter w;
+                    synchronized (this) {
+                        w = pollHighest();
+                        if (w == null) {
+                            // 그 사이 전부 포기: 토큰은 돌려놓음
+                            tokens = Math.min(tokens + 1, Math.max(1, burst));
+                            break;
+                        }
+                    }
+                    granted = w.complete(true);
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                log.warn("[KIS-LIMIT] dispatch error", e);
+            }
+        }
+    }
+
+    // this 락 안에서
+    private boolean isEmpty() {
+        for (ArrayDeque<Waiter> q : queues.values()) {
+            if (!q.isEmpty()) return false;
+        }
+        return true;
+    }
+
+    // this 락 안에서. EnumMap 순서 = 우선순위
+    private Waiter pollHighest() {
+        for (ArrayDeque<Waiter> q : queues.values()) {
+            Waiter w = q.pollFirst();
+            if (w != null) return w;
+        }
+        return null;
+    }
+
+    private void takeLocalToken() throws InterruptedException {
+        while (true) {
+            long sleepNanos;
+            synchronized (this) {
+                long now = System.nanoTime();
+                tokens = Math.min(Math.max(1, burst), tokens + (now - refilledAtNanos) * ratePerSec / 1e9);
+                refilledAtNanos = now;
+                if (tokens >= 1) {
+                    tokens -= 1;
+                    return;
+                }
+                sleepNanos = (long) ((1 - tokens) * 1e9 / ratePerSec);
+            }
+            LockSupport.parkNanos(sleepNanos);
+            if (Thread.interrupted()) throw new InterruptedException();
+        }
+    }
+
+    /**
+     * 노드 전체 초당 호출 수. 이번 초가 찼으면 다음 초까지 대기
+     */
+    private void takeClusterSlot() throws InterruptedException {
+        if (redis == null) return;
+        long limit = Math.max(1, (long) Math.floor(ratePerSec));
+
+        while (true) {
+            long now = System.currentTimeMillis();
+            if (now < redisRetryAtMillis) return;
+
+            long second = now / 1000;
+            Long n;
+            try {
+                n = redis.execute(INCR_WINDOW, List.of(CLUSTER_KEY_PREFIX + second));
+            } catch (Exception e) {
+                // Redis가 안 되면 잠시 노드 한도만 적용
+                redisRetryAtMillis = now + Duration.ofSeconds(10).toMillis();
+                log.warn("[KIS-LIMIT] redis window failed, node limit only for 10s. msg={}", e.getMessage());
+                return;
+            }
+            if (n != null && n <= limit) return;
+
+            Thread.sleep(Math.max(1, (second + 1) * 1000 - now));
+        }
+    }
+}
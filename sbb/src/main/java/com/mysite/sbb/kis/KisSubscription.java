@@ -0,0 +1,36 @@
+package com.mysite.sbb.kis;
+
+/**
+ * KIS 실시간 등록 단위 (tr_id + tr_key). 세션당 등록 수 제한도 이 단위로 계산됨
+ */
+record KisSubscription(String trId, String code) {
+
+    static KisSubscription trade(String code) {
+        return new KisSubscription(KisTickDecoder.TR_ID, code);
+    }
+
+    static KisSubscription book(String code) {
+        return new KisSubscription(KisTickDecoder.BOOK_TR_ID, code);
+    }
+
+    boolean isBook() {
+        return KisTickDecoder.BOOK_TR_ID.equals(trId);
+    }
+
+    /**
+     * 노드 간 공유용 문자열. 체결은 종목코드 그대로, 호가는 "H0STASP0:005930"
+     */
+    String key() {
+        return isBook() ? trId + ":" + code : code;
+    }
+
+    static KisSubscription parse(String key) {
+        int i = key.indexOf(':');
+        return i < 0 ? trade(key) : new KisSubscription(key.substring(0, i), key.substring(i + 1));
+    }
+
+    @Override
+    public String toString() {
+        return trId + "/" + code;
+    }
+}
@@ -0,0 +1,206 @@
+package com.mysite.sbb.kis;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * KIS 등록 참조 카운트 + 해지 유예 + 묶음 반영.
+ * - acquire/release는 등록별 카운트만 원자적으로 바꾸고 바로 리턴 (KIS 전송 없음)
+ * - 0↔1 경계를 넘은 등록만 dirty로 모아 batch-ms 뒤 한 번에 반영 (kis-reconnect 스레드)
+ * - 카운트가 0이 돼도 grace-ms 동안은 등록 유지 → 종목을 빠르게 오가도 해지/재등록이 나가지 않음
+ * - 반영 시점의 카운트만 보므로 등록→해지→등록이 한 묶음 안에 있으면 KIS로는 아무것도 안 나감
+ */
+@Slf4j
+final class KisSubscriptionManager {
+
+    // 배치 실패(용량 초과 등) 후 재시도 간격
+    private static final long RETRY_MS = 5_000;
+
+    @FunctionalInterface
+    interface Applier {
+        /**
+         * @param toPlace   카운트 > 0 인 등록 (이미 배치돼 있으면 무시해야 함)
+         * @param toRelease 유예가 끝난 카운트 0 등록
+         * @return 배치에 실패한 등록 (RETRY_MS 뒤 다시 시도)
+         */
+        Set<KisSubscription> apply(List<KisSubscription> toPlace, List<KisSubscription> toRelease);
+    }
+
+    private final ScheduledExecutorService exec;
+    private final long graceMs;
+    private final long batchMs;
+    private final Applier applier;
+
+    private final Map<KisSubscription, Entry> entries = new ConcurrentHashMap<>();
+    private final Set<KisSubscription> dirty = ConcurrentHashMap.newKeySet();
+    // 예약된 flush 중 가장 이른 시각 (nanoTime, 없으면 MAX). 더 이른 반영이 필요하면 타이머를 하나 더 걸어서
+    // 유예/재시도용 긴 타이머 뒤에 새 등록이 묶이지 않게 함
+    private final AtomicLong nextFlushNanos = new AtomicLong(Long.MAX_VALUE);
+
+    KisSubscriptionManager(ScheduledExecutorService exec, long graceMs, long batchMs, Applier applier) {
+        this.exec = exec;
+        this.graceMs = Math.max(0, graceMs);
+        this.batchMs = Math.max(1, batchMs);
+        this.applier = applier;
+    }
+
+    void acquire(KisSubscription sub) {
+        boolean[] first = {false};
+        entries.compute(sub, (k, cur) -> {
+            if (cur == null) cur = new Entry();
+            first[0] = ++cur.refs == 1;
+            return cur;
+        });
+        // 0 → 1: 새 등록이거나 유예 중인 해지 취소
+        if (first[0]) markDirty(sub, batchMs);
+    }
+
+    void release(KisSubscription sub) {
+        boolean[] last = {false};
+        entries.computeIfPresent(sub, (k, cur) -> {
+            if (cur.refs > 0 && --cur.refs == 0) {
+                cur.zeroSinceNanos = System.nanoTime();
+                last[0] = true;
+            }
+            return cur;
+        });
+        if (last[0]) markDirty(sub, batchMs);
+    }
+
+    /**
+     * 이 노드가 유지하려는 등록 (카운트 > 0 + 해지 유예 중)
+     */
+    Set<KisSubscription> wanted() {
+        return new HashSet<>(entries.keySet());
+    }
+
+    private void markDirty(KisSubscription sub, long delayMs) {
+        dirty.add(sub);
+        scheduleFlush(delayMs);
+    }
+
+    /**
+     * delayMs 뒤 flush. 이미 그보다 이른 flush가 예약돼 있으면 그대로 둠
+     */
+    private void scheduleFlush(long delayMs) {
+        long at = System.nanoTime() + delayMs * 1_000_000;
+        while (true) {
+            long cur = nextFlushNanos.get();
+            if (cur - at <= 0) return;
+            if (nextFlushNanos.compareAndSet(cur, at)) {
+                exec.schedule(() -> flush(at), delayMs, TimeUnit.MILLISECONDS);
+                return;
+            }
+        }
+    }
+
+    // exec 스레드 (단일)에서만 실행
+    private void flush(long scheduledAt) {
+        // 이 타이머가 가장 이른 예약이었으면 비움. 아니면 더 늦은(또는 이른) 다른 예약이 아직 남아 있음
+        nextFlushNanos.compareAndSet(scheduledAt, Long.MAX_VALUE);
+
+        List<KisSubscription> toPlace = new ArrayList<>();
+        List<KisSubscription> toRelease = new ArrayList<>();
+        Map<KisSubscription, Entry> releasedEntries = new HashMap<>();
+        long now = System.nanoTime();
+        long nextDelayMs = Long.MAX_VALUE;
+
+        for (KisSubscription sub : List.copyOf(dirty)) {
+            dirty.remove(sub);
+
+            Entry[] released = {null};
+            long[] remainingMs = {-1};
+            Entry e = entries.computeIfPresent(sub, (k, cur) -> {
+                if (cur.refs > 0) return cur;
+                long elapsedMs = (now - cur.zeroSinceNanos) / 1_000_000;
+                if (elapsedMs >= graceMs) {
+                    if (now < cur.retryAtNanos) {
+                        remainingMs[0] = Math.max(1, (cur.retryAtNanos - now) / 1_000_000);
+                        return cur;
+                    }
+                    released[0] = cur;
+                    return null;
+                }
+                remainingMs[0] = graceMs - elapsedMs;
+                return cur;
+            });
+
+            if (released[0] != null) {
+                toRelease.add(sub);
+                releasedEntries.put(sub, released[0]);
+            } else if (e == null) {
+                // 이미 해지된 등록
+            } else if (remainingMs[0] < 0) {
+                // 카운트 > 0
+                if (now >= e.retryAtNanos) toPlace.add(sub);
+                else {
+                    dirty.add(sub);
+                    nextDelayMs = Math.min(nextDelayMs, Math.max(1, (e.retryAtNanos - now) / 1_000_000));
+                }
+            } else {
+                // 유예 중 (또는 해지 재시도 대기): 끝날 때 다시 확인
+                dirty.add(sub);
+                nextDelayMs = Math.min(nextDelayMs, remainingMs[0]);
+            }
+        }
+
+        if (!toPlace.isEmpty() || !toRelease.isEmpty()) {
+            try {
+                Set<KisSubscription> failed = applier.apply(toPlace, toRelease);
+                long retryAt = System.nanoTime() + RETRY_MS * 1_000_000;
+                for (KisSubscription sub : failed) {
+                    Entry e = entries.get(sub);
+                    if (e == null) continue;
+                    e.retryAtNanos = retryAt;
+                    dirty.add(sub);
+                    nextDelayMs = Math.min(nextDelayMs, RETRY_MS);
+                }
+            } catch (Exception ex) {
+                log.error("[KIS] subscription flush failed, retry in {}ms. place={}, release={}",
+                        RETRY_MS, toPlace, toRelease, ex);
+                restore(toPlace, releasedEntries);
+                nextDelayMs = Math.min(nextDelayMs, RETRY_MS);
+            }
+        }
+
+        if (nextDelayMs != Long.MAX_VALUE) scheduleFlush(nextDelayMs);
+    }
+
+    /**
+     * apply가 통째로 실패: 이번 묶음을 다시 dirty로. 해지하려던 등록은 KIS에 아직 살아 있으므로 entries에 되돌림
+     * (그 사이 다시 acquire됐으면 새 엔트리를 그대로 씀)
+     */
+    private void restore(List<KisSubscription> toPlace, Map<KisSubscription, Entry> releasedEntries) {
+        long retryAt = System.nanoTime() + RETRY_MS * 1_000_000;
+        for (KisSubscription sub : toPlace) {
+            Entry e = entries.get(sub);
+            if (e != null) e.retryAtNanos = retryAt;
+            dirty.add(sub);
+        }
+        releasedEntries.forEach((sub, old) -> {
+            entries.compute(sub, (k, cur) -> {
+                Entry e = cur != null ? cur : old;
+                e.retryAtNanos = retryAt;
+                return e;
+            });
+            dirty.add(sub);
+        });
+    }
+
+    /** refs/zeroSinceNanos는 entries.compute 안에서만 변경 */
+    private static final class Entry {
+        volatile int refs;
+        long zeroSinceNanos;
+        volatile long retryAtNanos;
+    }
+}
@@ -0,0 +1,119 @@
+package com.mysite.sbb.kis;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.mysite.sbb.kis.KisRestClient.StockSummary;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * KisRestClient.getStockSummary 앞단 캐시 (종목 페이지가 탭마다 30초 폴링).
+ * - ttl-ms 안: 캐시 값 그대로
+ * - ttl-ms ~ ttl-ms + stale-ms: 캐시 값을 바로 주고 뒤에서 1회 갱신 (stale-while-revalidate)
+ * - 그 이후/처음: KIS 호출. 같은 종목 동시 요청은 진행 중인 호출 하나(CompletableFuture)를 같이 기다림 (singleflight)
+ * - 갱신 실패 시 stale 값은 그대로 두고 다음 요청에서 다시 시도
+ * - KIS 호출은 KisRestClient의 Mono라 대기 중에도 스레드를 잡지 않음
+ */
+@Slf4j
+@Component
+public class KisSummaryCache {
+
+    @Value("${kis.summary.ttl-ms:5000}")
+    private long ttlMs;
+
+    @Value("${kis.summary.stale-ms:25000}")
+    private long staleMs;
+
+    // 캐시가 없을 때 KIS 응답을 기다리는 최대 시간 (한도 대기 + 응답 타임아웃을 합친 상한)
+    @Value("${kis.summary.wait-ms:10000}")
+    private long waitMs;
+
+    // 임의 코드로 캐시가 무한히 커지지 않게 (종목 수보다 넉넉히)
+    private static final int MAX_ENTRIES = 10_000;
+
+    private final KisRestClient restClient;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<StockSummary>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter staleHits;
+    private final Counter misses;
+    private final Counter coalesced;
+    private final Counter upstreamCalls;
+
+    private record Entry(StockSummary summary, long fetchedAtMillis) {}
+
+    public KisSummaryCache(KisRestClient restClient, MeterRegistry meterRegistry) {
+        this.restClient = restClient;
+        this.hits = lookups(meterRegistry, "hit");
+        this.staleHits = lookups(meterRegistry, "stale");
+        this.misses = lookups(meterRegistry, "miss");
+        this.coalesced = lookups(meterRegistry, "coalesced");
+        this.upstreamCalls = Counter.builder("kis.summary.upstream")
+                .description("요약 조회 KIS REST 호출 수")
+                .register(meterRegistry);
+    }
+
+    private static Counter lookups(MeterRegistry registry, String result) {
+        return Counter.builder("kis.summary.lookups").tag("result", result)
+                .description("요약 조회 캐시 결과").register(registry);
+    }
+
+    public Mono<StockSummary> get(String code) {
+        long now = System.currentTimeMillis();
+        Entry e = entries.get(code);
+        if (e != null) {
+            long age = now - e.fetchedAtMillis();
+            if (age < ttlMs) {
+                hits.increment();
+                return Mono.just(e.summary());
+            }
+            if (age < ttlMs + staleMs) {
+                staleHits.increment();
+                fetch(code);
+                return Mono.just(e.summary());
+            }
+        }
+
+        misses.increment();
+        // 공유 future라 구독 취소(클라이언트 끊김)가 다른 대기자의 호출까지 취소하면 안 됨
+        return Mono.fromFuture(fetch(code), true)
+                .timeout(Duration.ofMillis(waitMs),
+                        Mono.error(() -> new RuntimeException("KIS summary timeout. code=" + code)));
+    }
+
+    /**
+     * 진행 중인 호출이 있으면 그것을, 없으면 새로 시작
+     */
+    private CompletableFuture<StockSummary> fetch(String code) {
+        CompletableFuture<StockSummary> mine = new CompletableFuture<>();
+        CompletableFuture<StockSummary> running = inFlight.putIfAbsent(code, mine);
+        if (running != null) {
+            coalesced.increment();
+            return running;
+        }
+
+        upstreamCalls.increment();
+        restClient.stockSummary(code)
+                .doFinally(signal -> inFlight.remove(code, mine))
+                .subscribe(summary -> {
+                    if (entries.size() >= MAX_ENTRIES) entries.clear();
+                    entries.put(code, new Entry(summary, System.currentTimeMillis()));
+                    mine.complete(summary);
+                }, t -> {
+                    log.warn("[KIS-SUMMARY] fetch failed. code={}, msg={}", code, t.getMessage());
+                    mine.completeExceptionally(t);
+                });
+        return mine;
+    }
+}
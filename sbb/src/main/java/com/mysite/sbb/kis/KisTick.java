@@ -0,0 +1,114 @@
+package com.mysite.sbb.kis;
+
+/**
+ * H0STCNT0(실시간 체결가) 1건을 primitive 필드로 담는 재사용 객체.
+ * - 디코더가 프레임마다 같은 인스턴스를 덮어쓰므로, 리스너는 onTick 안에서만 읽고
+ *   보관이 필요하면 copyFrom()으로 자기 인스턴스에 복사해야 함
+ * - 가격/수량은 원 단위 정수, 등락률은 bp(0.01%) 단위
+ */
+public final class KisTick {
+
+    private String code;            // 유가증권 단축 종목코드 (인턴된 문자열)
+    private int tradeTime;          // 체결 시간 HHMMSS
+    private long exchangeTimeMillis; // 체결 시간(KST)을 epoch millis로 환산
+    private long receivedAtMillis;  // 프레임 수신 시각
+    private long receivedAtNanos;   // 프레임 수신 System.nanoTime() (같은 JVM 안 구간 지연 측정용, 저널/클러스터로는 안 넘어감)
+
+    private long price;             // 현재가
+    private char changeSign;        // 전일 대비 부호 (1:상한 2:상승 3:보합 4:하한 5:하락)
+    private long change;            // 전일 대비 (부호 포함)
+    private long changeRateBp;      // 전일 대비율 (bp)
+
+    private long open;
+    private long high;
+    private long low;
+
+    private long askPrice;          // 매도호가1
+    private long bidPrice;          // 매수호가1
+
+    private long volume;            // 체결 거래량
+    private long accumulatedVolume; // 누적 거래량
+
+    void reset() {
+        code = null;
+        tradeTime = 0;
+        exchangeTimeMillis = 0;
+        receivedAtMillis = 0;
+        receivedAtNanos = 0;
+        price = 0;
+        changeSign = '3';
+        change = 0;
+        changeRateBp = 0;
+        open = 0;
+        high = 0;
+        low = 0;
+        askPrice = 0;
+        bidPrice = 0;
+        volume = 0;
+        accumulatedVolume = 0;
+    }
+
+    public void copyFrom(KisTick o) {
+        code = o.code;
+        tradeTime = o.tradeTime;
+        exchangeTimeMillis = o.exchangeTimeMillis;
+        receivedAtMillis = o.receivedAtMillis;
+        receivedAtNanos = o.receivedAtNanos;
+        price = o.price;
+        changeSign = o.changeSign;
+        change = o.change;
+        changeRateBp = o.changeRateBp;
+        open = o.open;
+        high = o.high;
+        low = o.low;
+        askPrice = o.askPrice;
+        bidPrice = o.bidPrice;
+        volume = o.volume;
+        accumulatedVolume = o.accumulatedVolume;
+    }
+
+    // ---- getters ----
+    public String getCode() { return code; }
+    public int getTradeTime() { return tradeTime; }
+    public long getExchangeTimeMillis() { return exchangeTimeMillis; }
+    public long getReceivedAtMillis() { return receivedAtMillis; }
+    public long getReceivedAtNanos() { return receivedAtNanos; }
+    public long getPrice() { return price; }
+    public char getChangeSign() { return changeSign; }
+    public long getChange() { return change; }
+    public long getChangeRateBp() { return changeRateBp; }
+    public long getOpen() { return open; }
+    public long getHigh() { return high; }
+    public long getLow() { return low; }
+    public long getAskPrice() { return askPrice; }
+    public long getBidPrice() { return bidPrice; }
+    public long getVolume() { return volume; }
+    public long getAccumulatedVolume() { return accumulatedVolume; }
+
+    /** 전일 종가 = 현재가 - 전일 대비 */
+    public long getPrevClose() { return price - change; }
+
+    // ---- setters (디코더 전용) ----
+    void setCode(String code) { this.code = code; }
+    void setTradeTime(int tradeTime) { this.tradeTime = tradeTime; }
+    void setExchangeTimeMillis(long exchangeTimeMillis) { this.exchangeTimeMillis = exchangeTimeMillis; }
+    void setReceivedAtMillis(long receivedAtMillis) { this.receivedAtMillis = receivedAtMillis; }
+    void setReceivedAtNanos(long receivedAtNanos) { this.receivedAtNanos = receivedAtNanos; }
+    void setPrice(long price) { this.price = price; }
+    void setChangeSign(char changeSign) { this.changeSign = changeSign; }
+    void setChange(long change) { this.change = change; }
+    void setChangeRateBp(long changeRateBp) { this.changeRateBp = changeRateBp; }
+    void setOpen(long open) { this.open = open; }
+    void setHigh(long high) { this.high = high; }
+    void setLow(long low) { this.low = low; }
+    void setAskPrice(long askPrice) { this.askPrice = askPrice; }
+    void setBidPrice(long bidPrice) { this.bidPrice = bidPrice; }
+    void setVolume(long volume) { this.volume = volume; }
+    void setAccumulatedVolume(long accumulatedVolume) { this.accumulatedVolume = accumulatedVolume; }
+
+    @Override
+    public String toString() {
+        return "KisTick[code=" + code + ", time=" + tradeTime + ", price=" + price
+                + ", change=" + change + ", vol=" + volume + "]";
+    }
+}
@@ -0,0 +1,130 @@
+package com.mysite.sbb.kis;
+
+import java.nio.ByteBuffer;
+
+/**
+ * KisTick 고정 길이 바이너리 레이아웃 (저널 세그먼트 / 노드 간 틱 전송 공용, little endian 버퍼 기준).
+ *
+ *   0 receivedAtMillis (저널에서는 커밋 마커로 따로 기록)
+ *   8 exchangeTimeMillis
+ *  16 code (ASCII 최대 8자 packed)
+ *  24 price / 32 change / 40 changeRateBp / 48 open / 56 high / 64 low
+ *  72 askPrice / 80 bidPrice / 88 volume / 96 accumulatedVolume
+ * 104 tradeTime(int) / 108 changeSign(char)
+ */
+final class KisTickCodec {
+
+    /** 필드가 차지하는 길이 (8바이트 정렬) */
+    static final int RECORD_SIZE = 112;
+
+    static final int OFF_RECEIVED_AT = 0;
+    static final int OFF_EXCHANGE_TIME = 8;
+    static final int OFF_CODE = 16;
+
+    private KisTickCodec() {}
+
+    /** receivedAt(0)을 제외한 필드 기록 */
+    static void writeBody(ByteBuffer buf, int off, KisTick t) {
+        buf.putLong(off + OFF_EXCHANGE_TIME, t.getExchangeTimeMillis());
+        buf.putLong(off + OFF_CODE, packCode(t.getCode()));
+        buf.putLong(off + 24, t.getPrice());
+        buf.putLong(off + 32, t.getChange());
+        buf.putLong(off + 40, t.getChangeRateBp());
+        buf.putLong(off + 48, t.getOpen());
+        buf.putLong(off + 56, t.getHigh());
+        buf.putLong(off + 64, t.getLow());
+        buf.putLong(off + 72, t.getAskPrice());
+        buf.putLong(off + 80, t.getBidPrice());
+        buf.putLong(off + 88, t.getVolume());
+        buf.putLong(off + 96, t.getAccumulatedVolume());
+        buf.putInt(off + 104, t.getTradeTime());
+        buf.putChar(off + 108, t.getChangeSign());
+    }
+
+    /**
+     * receivedAt(0)을 제외한 필드 읽기. into.reset() 후 호출
+     * @param code 이미 풀어 둔 종목코드 (인턴된 문자열 재사용용)
+     */
+    static void readBody(ByteBuffer buf, int off, String code, KisTick into) {
+        into.setExchangeTimeMillis(buf.getLong(off + OFF_EXCHANGE_TIME));
+        into.setCode(code);
+        into.setPrice(buf.getLong(off + 24));
+        into.setChange(buf.getLong(off + 32));
+        into.setChangeRateBp(buf.getLong(off + 40));
+        into.setOpen(buf.getLong(off + 48));
+        into.setHigh(buf.getLong(off + 56));
+        into.setLow(buf.getLong(off + 64));
+        into.setAskPrice(buf.getLong(off + 72));
+        into.setBidPrice(buf.getLong(off + 80));
+        into.setVolume(buf.getLong(off + 88));
+        into.setAccumulatedVolume(buf.getLong(off + 96));
+        into.setTradeTime(buf.getInt(off + 104));
+        into.setChangeSign(buf.getChar(off + 108));
+    }
+
+    // ===== H0STASP0 호가 레코드 (노드 간 전송용) =====
+    //   0 receivedAtMillis / 8 code / 16 quoteTime(int) / 24 totalAskQty / 32 totalBidQty
+    //  40 askPrice[10] / 120 bidPrice[10] / 200 askQty[10] / 280 bidQty[10]
+
+    static final int BOOK_RECORD_SIZE = 360;
+
+    private static final int OFF_BOOK_CODE = 8;
+    private static final int OFF_BOOK_LEVELS = 40;
+    private static final int LEVEL_BLOCK = KisBookQuote.LEVELS * 8;
+
+    static void writeBook(ByteBuffer buf, int off, KisBookQuote q) {
+        buf.putLong(off, q.getReceivedAtMillis());
+        buf.putLong(off + OFF_BOOK_CODE, packCode(q.getCode()));
+        buf.putInt(off + 16, q.getQuoteTime());
+        buf.putLong(off + 24, q.getTotalAskQty());
+        buf.putLong(off + 32, q.getTotalBidQty());
+        int p = off + OFF_BOOK_LEVELS;
+        for (int i = 0; i < KisBookQuote.LEVELS; i++) {
+            buf.putLong(p + i * 8, q.askPrice[i]);
+            buf.putLong(p + LEVEL_BLOCK + i * 8, q.bidPrice[i]);
+            buf.putLong(p + 2 * LEVEL_BLOCK + i * 8, q.askQty[i]);
+            buf.putLong(p + 3 * LEVEL_BLOCK + i * 8, q.bidQty[i]);
+        }
+    }
+
+    static long bookCodeAt(ByteBuffer buf, int off) {
+        return buf.getLong(off + OFF_BOOK_CODE);
+    }
+
+    /** into.reset() 후 호출 */
+    static void readBook(ByteBuffer buf, int off, String code, KisBookQuote into) {
+        into.setReceivedAtMillis(buf.getLong(off));
+        into.setCode(code);
+        into.setQuoteTime(buf.getInt(off + 16));
+        into.setTotalAskQty(buf.getLong(off + 24));
+        into.setTotalBidQty(buf.getLong(off + 32));
+        int p = off + OFF_BOOK_LEVELS;
+        for (int i = 0; i < KisBookQuote.LEVELS; i++) {
+            into.askPrice[i] = buf.getLong(p + i * 8);
+            into.bidPrice[i] = buf.getLong(p + LEVEL_BLOCK + i * 8);
+            into.askQty[i] = buf.getLong(p + 2 * LEVEL_BLOCK + i * 8);
+            into.bidQty[i] = buf.getLong(p + 3 * LEVEL_BLOCK + i * 8);
+        }
+    }
+
+    static long packCode(String code) {
+        long packed = 0;
+        if (code == null) return 0;
+        int n = Math.min(8, code.length());
+        for (int i = 0; i < n; i++) {
+            packed |= ((long) (code.charAt(i) & 0xFF)) << (8 * i);
+        }
+        return packed;
+    }
+
+    static String unpackCode(long packed) {
+        char[] cs = new char[8];
+        int n = 0;
+        for (; n < 8; n++) {
+            int c = (int) ((packed >>> (8 * n)) & 0xFF);
+            if (c == 0) break;
+            cs[n] = (char) c;
+        }
+        return new String(cs, 0, n);
+    }
+}
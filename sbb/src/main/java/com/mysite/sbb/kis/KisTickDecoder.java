@@ -0,0 +1,279 @@
+package com.mysite.sbb.kis;
+
+import java.util.function.Consumer;
+
+/**
+ * KIS 실시간 데이터 프레임("0|H0STCNT0|003|rec1^...^rec2^...^rec3^...") 디코더.
+ * - split(정규식) 없이 프레임을 한 번만 훑으면서 필드를 바로 primitive로 변환
+ * - 레코드 수(parts[2])만큼 KisTick(H0STCNT0) / KisBookQuote(H0STASP0)를 채워 sink로 넘김 (인스턴스 재사용)
+ * - 종목코드는 내부 인턴 테이블로 재사용하므로 정상 상태에서는 틱당 할당이 없음
+ *
+ * 스레드 안전하지 않음: KIS 세션(리더 스레드)마다 하나씩 사용.
+ */
+final class KisTickDecoder {
+
+    static final String TR_ID = "H0STCNT0";
+    static final String BOOK_TR_ID = "H0STASP0";
+
+    /** H0STCNT0 레코드 1건의 필드 수 */
+    static final int FIELD_COUNT = 46;
+
+    /** H0STASP0 레코드 1건의 필드 수 */
+    static final int BOOK_FIELD_COUNT = 59;
+
+    // H0STCNT0 필드 인덱스
+    private static final int F_CODE = 0;
+    private static final int F_TIME = 1;
+    private static final int F_PRICE = 2;
+    private static final int F_SIGN = 3;
+    private static final int F_CHANGE = 4;
+    private static final int F_CHANGE_RATE = 5;
+    private static final int F_OPEN = 7;
+    private static final int F_HIGH = 8;
+    private static final int F_LOW = 9;
+    private static final int F_ASK1 = 10;
+    private static final int F_BID1 = 11;
+    private static final int F_VOLUME = 12;
+    private static final int F_ACC_VOLUME = 13;
+
+    // H0STASP0 필드 인덱스 (호가 10단계씩 연속)
+    private static final int B_CODE = 0;
+    private static final int B_TIME = 1;
+    private static final int B_ASK_PRICE = 3;
+    private static final int B_BID_PRICE = 13;
+    private static final int B_ASK_QTY = 23;
+    private static final int B_BID_QTY = 33;
+    private static final int B_TOTAL_ASK_QTY = 43;
+    private static final int B_TOTAL_BID_QTY = 44;
+
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+    private static final long KST_OFFSET_MILLIS = 9L * 60 * 60 * 1000;
+
+    private final KisTick tick = new KisTick();
+    private final KisBookQuote book = new KisBookQuote();
+
+    // 종목코드 인턴 테이블 (open addressing, 크기는 2의 거듭제곱)
+    private String[] codes = new String[256];
+    private int codeCount;
+
+    /**
+     * @return 디코딩해서 sink로 넘긴 레코드 수 (지원하지 않는 tr_id거나 깨진 프레임이면 0)
+     */
+    int decode(String payload, Consumer<KisTick> tickSink, Consumer<KisBookQuote> bookSink) {
+        int p1 = payload.indexOf('|');
+        if (p1 < 0) return 0;
+        int p2 = payload.indexOf('|', p1 + 1);
+        if (p2 < 0) return 0;
+        int p3 = payload.indexOf('|', p2 + 1);
+        if (p3 < 0) return 0;
+
+        // 레코드 수 (파싱 실패 시 1건으로 간주)
+        int count = (int) parseLong(payload, p2 + 1, p3);
+        if (count <= 0) count = 1;
+
+        // tr_id 확인
+        if (isTrId(payload, p1, p2, TR_ID)) return decodeTrades(payload, p3 + 1, count, tickSink);
+        if (isTrId(payload, p1, p2, BOOK_TR_ID)) return decodeBooks(payload, p3 + 1, count, bookSink);
+        return 0;
+    }
+
+    private static boolean isTrId(String payload, int p1, int p2, String trId) {
+        return p2 - p1 - 1 == trId.length() && payload.regionMatches(p1 + 1, trId, 0, trId.length());
+    }
+
+    private int decodeTrades(String payload, int pos, int count, Consumer<KisTick> sink) {
+        int len = payload.length();
+        long now = System.currentTimeMillis();
+        long nowNanos = System.nanoTime();
+        long kstMidnight = Math.floorDiv(now + KST_OFFSET_MILLIS, DAY_MILLIS) * DAY_MILLIS - KST_OFFSET_MILLIS;
+
+        int emitted = 0;
+
+        for (int r = 0; r < count && pos <= len; r++) {
+            tick.reset();
+            tick.setReceivedAtMillis(now);
+            tick.setReceivedAtNanos(nowNanos);
+
+            int f = 0;
+            for (; f < FIELD_COUNT && pos <= len; f++) {
+                int end = payload.indexOf('^', pos);
+                if (end < 0) end = len;
+                applyField(payload, f, pos, end, kstMidnight);
+                pos = end + 1;
+            }
+
+            // 코드/현재가까지는 있어야 유효한 체결로 봄
+            if (f <= F_PRICE || tick.getCode() == null) break;
+
+            sink.accept(tick);
+            emitted++;
+        }
+        return emitted;
+    }
+
+    private int decodeBooks(String payload, int pos, int count, Consumer<KisBookQuote> sink) {
+        int len = payload.length();
+        long now = System.currentTimeMillis();
+        int emitted = 0;
+
+        for (int r = 0; r < count && pos <= len; r++) {
+            book.reset();
+            book.setReceivedAtMillis(now);
+
+            int f = 0;
+            for (; f < BOOK_FIELD_COUNT && pos <= len; f++) {
+                int end = payload.indexOf('^', pos);
+                if (end < 0) end = len;
+                applyBookField(payload, f, pos, end);
+                pos = end + 1;
+            }
+
+            // 10단계 잔량까지는 있어야 유효한 호가로 봄
+            if (f <= B_BID_QTY + KisBookQuote.LEVELS - 1 || book.getCode() == null) break;
+
+            sink.accept(book);
+            emitted++;
+        }
+        return emitted;
+    }
+
+    private void applyBookField(String s, int field, int start, int end) {
+        if (field >= B_ASK_PRICE && field < B_TOTAL_ASK_QTY) {
+            long v = parseLong(s, start, end);
+            int block = (field - B_ASK_PRICE) / KisBookQuote.LEVELS;
+            int level = (field - B_ASK_PRICE) % KisBookQuote.LEVELS;
+            switch (block) {
+                case 0 -> book.askPrice[level] = v;
+                case 1 -> book.bidPrice[level] = v;
+                case 2 -> book.askQty[level] = v;
+                default -> book.bidQty[level] = v;
+            }
+            return;
+        }
+        switch (field) {
+            case B_CODE -> book.setCode(intern(s, start, end));
+            case B_TIME -> book.setQuoteTime((int) parseLong(s, start, end));
+            case B_TOTAL_ASK_QTY -> book.setTotalAskQty(parseLong(s, start, end));
+            case B_TOTAL_BID_QTY -> book.setTotalBidQty(parseLong(s, start, end));
+            default -> { /* 사용하지 않는 필드 */ }
+        }
+    }
+
+    private void applyField(String s, int field, int start, int end, long kstMidnight) {
+        switch (field) {
+            case F_CODE -> tick.setCode(intern(s, start, end));
+            case F_TIME -> {
+                int hhmmss = (int) parseLong(s, start, end);
+                tick.setTradeTime(hhmmss);
+                long secOfDay = (hhmmss / 10000) * 3600L + ((hhmmss / 100) % 100) * 60L + (hhmmss % 100);
+                tick.setExchangeTimeMillis(kstMidnight + secOfDay * 1000);
+            }
+            case F_PRICE -> tick.setPrice(parseLong(s, start, end));
+            case F_SIGN -> {
+                if (end > start) tick.setChangeSign(s.charAt(start));
+            }
+            case F_CHANGE -> tick.setChange(parseLong(s, start, end));
+            case F_CHANGE_RATE -> tick.setChangeRateBp(parseFixed2(s, start, end));
+            case F_OPEN -> tick.setOpen(parseLong(s, start, end));
+            case F_HIGH -> tick.setHigh(parseLong(s, start, end));
+            case F_LOW -> tick.setLow(parseLong(s, start, end));
+            case F_ASK1 -> tick.setAskPrice(parseLong(s, start, end));
+            case F_BID1 -> tick.setBidPrice(parseLong(s, start, end));
+            case F_VOLUME -> tick.setVolume(parseLong(s, start, end));
+            case F_ACC_VOLUME -> tick.setAccumulatedVolume(parseLong(s, start, end));
+            default -> { /* 사용하지 않는 필드 */ }
+        }
+    }
+
+    /**
+     * [start, end) 구간의 부호 있는 정수. 숫자가 아닌 문자를 만나면 거기서 멈춤 (예외/할당 없음)
+     */
+    static long parseLong(CharSequence s, int start, int end) {
+        int i = start;
+        boolean neg = false;
+        if (i < end) {
+            char c = s.charAt(i);
+            if (c == '-') { neg = true; i++; }
+            else if (c == '+') { i++; }
+        }
+        long v = 0;
+        for (; i < end; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') break;
+            v = v * 10 + (c - '0');
+        }
+        return neg ? -v : v;
+    }
+
+    /**
+     * "-0.70" 같은 소수 둘째 자리 값을 100배 정수로 (-70)
+     */
+    static long parseFixed2(CharSequence s, int start, int end) {
+        int i = start;
+        boolean neg = false;
+        if (i < end) {
+            char c = s.charAt(i);
+            if (c == '-') { neg = true; i++; }
+            else if (c == '+') { i++; }
+        }
+        long v = 0;
+        int frac = -1; // 소수점 이후 자릿수 (-1이면 소수점 전)
+        for (; i < end; i++) {
+            char c = s.charAt(i);
+            if (c == '.') {
+                if (frac >= 0) break;
+                frac = 0;
+                continue;
+            }
+            if (c < '0' || c > '9') break;
+            if (frac >= 2) continue; // 셋째 자리 이하는 버림
+            v = v * 10 + (c - '0');
+            if (frac >= 0) frac++;
+        }
+        int scale = frac < 0 ? 2 : 2 - frac;
+        for (int k = 0; k < scale; k++) v *= 10;
+        return neg ? -v : v;
+    }
+
+    /**
+     * 프레임 안의 종목코드 구간을 이미 만든 String으로 치환.
+     * 처음 보는 코드일 때만 substring 할당.
+     */
+    private String intern(String s, int start, int end) {
+        int n = end - start;
+        if (n <= 0) return null;
+
+        int h = 0;
+        for (int i = start; i < end; i++) h = 31 * h + s.charAt(i);
+
+        int mask = codes.length - 1;
+        int idx = mix(h) & mask;
+        while (true) {
+            String c = codes[idx];
+            if (c == null) break;
+            if (c.length() == n && s.regionMatches(start, c, 0, n)) return c;
+            idx = (idx + 1) & mask;
+        }
+
+        String created = s.substring(start, end);
+        codes[idx] = created;
+        if (++codeCount * 2 > codes.length) grow();
+        return created;
+    }
+
+    private void grow() {
+        String[] old = codes;
+        codes = new String[old.length * 2];
+        int mask = codes.length - 1;
+        for (String c : old) {
+            if (c == null) continue;
+            int idx = mix(c.hashCode()) & mask;
+            while (codes[idx] != null) idx = (idx + 1) & mask;
+            codes[idx] = c;
+        }
+    }
+
+    private static int mix(int h) {
+        return h ^ (h >>> 16);
+    }
+}
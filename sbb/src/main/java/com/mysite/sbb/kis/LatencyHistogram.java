@@ -0,0 +1,113 @@
+package com.mysite.sbb.kis;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HDR 방식 log-linear 지연 히스토그램 (마이크로초 단위, 상대 오차 약 6%).
+ * - 2의 거듭제곱 구간마다 16개 하위 버킷 → 버킷 512개로 0µs ~ 약 4.7시간 표현
+ * - record()는 버킷 인덱스 계산 + 원자적 증가 1번 (락/할당 없음)
+ * - 창(window) 2개를 번갈아 써서 최근 1~2 창 구간의 분위수를 보여줌 (rotate는 주기 스레드가 호출)
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 4;
+    private static final int SUB = 1 << SUB_BITS;
+    private static final int MAX_SHIFT = 30;
+    static final int BUCKETS = 2 * SUB + MAX_SHIFT * SUB;
+
+    private volatile Window current = new Window();
+    private volatile Window previous = new Window();
+
+    public void record(long micros) {
+        Window w = current;
+        w.counts.incrementAndGet(bucketOf(micros));
+        if (micros > w.max.get()) w.max.accumulateAndGet(micros, Math::max);
+    }
+
+    /**
+     * 이전 창을 비워 현재 창으로 쓰고, 현재 창은 이전 창이 됨
+     */
+    void rotate() {
+        Window old = previous;
+        old.clear();
+        previous = current;
+        current = old;
+    }
+
+    /** 최근 두 창의 스냅샷 */
+    public Snapshot snapshot() {
+        long[] merged = new long[BUCKETS];
+        Window a = current, b = previous;
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            merged[i] = a.counts.get(i) + (long) b.counts.get(i);
+            total += merged[i];
+        }
+        return new Snapshot(merged, total, Math.max(a.max.get(), b.max.get()));
+    }
+
+    static int bucketOf(long v) {
+        if (v < 0) v = 0;
+        if (v < 2 * SUB) return (int) v;
+
+        int exp = 63 - Long.numberOfLeadingZeros(v);
+        int shift = exp - SUB_BITS;
+        if (shift > MAX_SHIFT) return BUCKETS - 1;
+
+        int sub = (int) (v >>> shift) - SUB;
+        return 2 * SUB + (shift - 1) * SUB + sub;
+    }
+
+    /** 버킷이 나타내는 구간의 최댓값 */
+    static long upperBound(int bucket) {
+        if (bucket < 2 * SUB) return bucket;
+        int shift = (bucket - 2 * SUB) / SUB + 1;
+        int sub = (bucket - 2 * SUB) % SUB;
+        return ((long) (sub + SUB) << shift) + (1L << shift) - 1;
+    }
+
+    private static final class Window {
+        final AtomicIntegerArray counts = new AtomicIntegerArray(BUCKETS);
+        final AtomicLong max = new AtomicLong();
+
+        void clear() {
+            for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+            max.set(0);
+        }
+    }
+
+    /**
+     * 조회 시점 복사본. 분위수는 버킷 상한값 (ms, 소수)
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long total;
+        private final long maxMicros;
+
+        Snapshot(long[] counts, long total, long maxMicros) {
+            this.counts = counts;
+            this.total = total;
+            this.maxMicros = maxMicros;
+        }
+
+        public long count() {
+            return total;
+        }
+
+        public double percentileMs(double p) {
+            if (total == 0) return 0;
+            long target = Math.max(1, (long) Math.ceil(p * total));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= target) return Math.min(upperBound(i), maxMicros) / 1000.0;
+            }
+            return maxMicros / 1000.0;
+        }
+
+        public double maxMs() {
+            return maxMicros / 1000.0;
+        }
+    }
+}
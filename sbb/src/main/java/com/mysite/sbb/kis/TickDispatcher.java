@@ -0,0 +1,235 @@
+package com.mysite.sbb.kis;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 디코더 스레드 → 리스너 fan-out 사이의 lock-free 링 버퍼 (Disruptor 방식).
+ * - 종목코드 해시로 샤드를 고르고, 샤드마다 미리 할당한 KisTick 슬롯 링 + 소비 스레드 1개
+ *   → 같은 종목은 항상 같은 스레드에서 순서대로 처리, 종목이 다르면 여러 코어에서 병렬 처리
+ * - 생산자(KIS 연결별 수신 스레드, 클러스터 수신 스레드)는 CAS로 슬롯을 예약하고 복사만 한 뒤 바로 리턴
+ * - 링이 가득 차면 생산자가 잠깐 대기 (틱을 버리지 않음), 대기 횟수는 producerWaits()
+ * - 종료: 생산자는 publish 동안 inFlight에 들어가 있고, closed를 본 뒤엔 호출 스레드에서 직접 처리.
+ *   소비 스레드는 closed && inFlight==0 을 본 뒤 남은 슬롯을 다 비우고 나서야 끝남
+ *   → 예약만 하고 못 쓴 슬롯(가득 찬 링에서 무한 대기)이나 처리 안 된 틱이 남지 않음
+ * - shards=0 이면 링 없이 호출 스레드에서 바로 처리 (기존 동작)
+ */
+@Slf4j
+public final class TickDispatcher {
+
+    // 소비 스레드가 한 번에 처리할 최대 슬롯 수 (생산자에게 빈 슬롯을 자주 돌려줌)
+    private static final int MAX_BATCH = 256;
+
+    // 빈 링에서 바쁜 대기 → yield → park 순으로 물러남
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 100;
+    private static final long PARK_NANOS = 1_000_000;
+
+    private final String name;
+    private final Consumer<KisTick> handler;
+    private final Shard[] shards;
+
+    /**
+     * @param shards   소비 스레드 수 (0이면 호출 스레드에서 바로 처리)
+     * @param ringSize 샤드당 슬롯 수 (2의 거듭제곱으로 올림)
+     * @param handler  소비 스레드에서 호출. 넘기는 KisTick은 링 슬롯이므로 호출 안에서만 사용할 것
+     */
+    public TickDispatcher(String name, int shards, int ringSize, Consumer<KisTick> handler) {
+        this.name = name;
+        this.handler = handler;
+        this.shards = new Shard[Math.max(0, shards)];
+
+        int capacity = Integer.highestOneBit(Math.max(2, ringSize) - 1) << 1;
+        for (int i = 0; i < this.shards.length; i++) {
+            this.shards[i] = new Shard(name + "-" + i, capacity);
+        }
+    }
+
+    public void start() {
+        for (Shard s : shards) s.thread.start();
+        if (shards.length > 0) {
+            log.info("[DISPATCH] {} started. shards={}, ringSize={}", name, shards.length, shards[0].slots.length);
+        }
+    }
+
+    /**
+     * 새 틱을 링에 받지 않게 닫고, 남은 틱을 처리할 때까지 최대 timeoutMs 기다림
+     * (시간을 넘겨도 소비 스레드는 남은 슬롯을 다 비운 뒤 끝남)
+     */
+    public void stop(long timeoutMs) {
+        long deadline = System.nanoTime() + timeoutMs * 1_000_000;
+        for (Shard s : shards) {
+            s.closed = true;
+            LockSupport.unpark(s.thread);
+        }
+        for (Shard s : shards) {
+            long remainingMs = (deadline - System.nanoTime()) / 1_000_000;
+            if (remainingMs <= 0) break;
+            try {
+                s.thread.join(remainingMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * 틱을 종목 샤드 링에 복사. tick은 바로 재사용해도 됨
+     */
+    public void publish(KisTick tick) {
+        if (shards.length == 0) {
+            handler.accept(tick);
+            return;
+        }
+        shards[Math.floorMod(tick.getCode().hashCode(), shards.length)].publish(tick);
+    }
+
+    /** 전체 샤드에서 아직 처리되지 않은 틱 수 */
+    public long backlog() {
+        long sum = 0;
+        for (Shard s : shards) sum += s.backlog();
+        return sum;
+    }
+
+    /** 링이 가득 차 생산자가 기다린 횟수 */
+    public long producerWaits() {
+        long sum = 0;
+        for (Shard s : shards) sum += s.producerWaits.get();
+        return sum;
+    }
+
+    private final class Shard implements Runnable {
+
+        final KisTick[] slots;
+        final int mask;
+
+        // 마지막으로 예약된 시퀀스 (생산자 CAS)
+        final AtomicLong claimed = new AtomicLong(-1);
+
+        // 슬롯별 발행 완료 시퀀스 (slot = seq & mask). 값이 seq와 같으면 읽어도 됨
+        final AtomicLongArray published;
+
+        // 소비 스레드가 처리를 끝낸 마지막 시퀀스
+        final AtomicLong consumed = new AtomicLong(-1);
+
+        final AtomicLong producerWaits = new AtomicLong();
+        final Thread thread;
+
+        // publish 진행 중인 생산자 수. closed와 함께 종료 시점을 맞춤 (둘 다 volatile → 한쪽은 반드시 상대를 봄)
+        final AtomicInteger inFlight = new AtomicInteger();
+
+        volatile boolean closed;
+        volatile boolean sleeping;
+
+        Shard(String threadName, int capacity) {
+            this.slots = new KisTick[capacity];
+            this.mask = capacity - 1;
+            this.published = new AtomicLongArray(capacity);
+            for (int i = 0; i < capacity; i++) {
+                slots[i] = new KisTick();
+                published.set(i, -1);
+            }
+            this.thread = new Thread(this, threadName);
+            this.thread.setDaemon(true);
+        }
+
+        void publish(KisTick tick) {
+            inFlight.incrementAndGet();
+            try {
+                // 닫힌 뒤 들어온 틱은 호출 스레드에서 처리
+                if (closed) {
+                    handler.accept(tick);
+                    return;
+                }
+
+                long seq = claimed.incrementAndGet();
+
+                // 한 바퀴 전 슬롯을 소비 스레드가 아직 처리 중이면 대기
+                // (inFlight > 0 인 동안 소비 스레드는 끝나지 않으므로 여기서 영원히 멈추지 않음)
+                long wrapPoint = seq - slots.length;
+                if (wrapPoint > consumed.get()) {
+                    producerWaits.incrementAndGet();
+                    int tries = 0;
+                    while (wrapPoint > consumed.get()) {
+                        if (++tries < SPIN_TRIES) Thread.onSpinWait();
+                        else Thread.yield();
+                    }
+                }
+
+                int idx = (int) (seq & mask);
+                slots[idx].copyFrom(tick);
+                published.set(idx, seq);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+
+            if (sleeping || closed) LockSupport.unpark(thread);
+        }
+
+        long backlog() {
+            return claimed.get() - consumed.get();
+        }
+
+        @Override
+        public void run() {
+            long next = 0;
+            int idle = 0;
+
+            while (true) {
+                // closed를 먼저 보고 inFlight==0 이면, 이후 생산자는 모두 closed를 보고 링을 건너뜀
+                boolean last = closed && inFlight.get() == 0;
+
+                long hi = drain(next);
+                if (hi >= next) {
+                    next = hi + 1;
+                    idle = 0;
+                    continue;
+                }
+                // 마지막 확인 뒤 비어 있으면 종료 (그 전에 발행된 틱은 위에서 다 처리됨)
+                if (last) return;
+                idle = backOff(next, idle);
+            }
+        }
+
+        /**
+         * 연속으로 발행된 구간 [next, hi] 를 처리하고 hi 반환 (없으면 next - 1)
+         */
+        private long drain(long next) {
+            long hi = next - 1;
+            while (hi - next + 1 < MAX_BATCH && published.get((int) ((hi + 1) & mask)) == hi + 1) {
+                hi++;
+            }
+            for (long s = next; s <= hi; s++) {
+                try {
+                    handler.accept(slots[(int) (s & mask)]);
+                } catch (Exception e) {
+                    log.warn("[DISPATCH] handler error. shard={}", thread.getName(), e);
+                }
+            }
+            if (hi >= next) consumed.lazySet(hi);
+            return hi;
+        }
+
+        private int backOff(long next, int idle) {
+            if (idle < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else if (idle < SPIN_TRIES + YIELD_TRIES) {
+                Thread.yield();
+            } else {
+                // sleeping 기록 후 한 번 더 확인 → 그 사이 발행된 틱의 unpark를 놓치지 않음
+                sleeping = true;
+                if (published.get((int) (next & mask)) != next && !closed) {
+                    LockSupport.parkNanos(this, PARK_NANOS);
+                }
+                sleeping = false;
+            }
+            return idle + 1;
+        }
+    }
+}
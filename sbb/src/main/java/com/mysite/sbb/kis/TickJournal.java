@@ -0,0 +1,305 @@
+package com.mysite.sbb.kis;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 실시간 체결 틱 append-only 저널.
+ * - 일자별 memory-mapped 세그먼트 파일에 고정 크기(128B) 레코드로 기록
+ * - 틱 스레드는 슬롯 예약(CAS) + mmap put만 수행 → 할당/블로킹 I/O 없음
+ * - 파일 생성/매핑, 일자 롤링, force는 tick-journal 스레드가 미리 처리 (예비 세그먼트)
+ * - replay(code, from, to)는 세그먼트별 종목 sparse index로 시작 위치를 찾아 스캔
+ */
+@Slf4j
+@Component
+public class TickJournal {
+
+    private static final ZoneId KST = ZoneId.of("Asia/Seoul");
+    private static final Pattern SEGMENT_NAME = Pattern.compile("ticks-(\\d{8})-(\\d{5})\\.dat");
+
+    // 읽기 전용으로 열어둘 과거 세그먼트 수
+    private static final int OPEN_SEGMENT_CACHE = 8;
+
+    @Value("${kis.journal.enabled:false}")
+    private boolean enabled;
+
+    @Value("${kis.journal.dir:./data/journal}")
+    private String dir;
+
+    // 세그먼트당 레코드 수 (기본 200만건 = 256MB)
+    @Value("${kis.journal.segment-records:2000000}")
+    private int segmentRecords;
+
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicReference<JournalSegment> current = new AtomicReference<>();
+    private final AtomicReference<JournalSegment> spare = new AtomicReference<>();
+
+    // 이번 실행에서 쓴 세그먼트 (replay 시 다시 열지 않음)
+    private final Map<Path, JournalSegment> written = new LinkedHashMap<>();
+
+    // 과거 세그먼트 읽기 캐시 (LRU)
+    private final Map<Path, JournalSegment> readCache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, JournalSegment> eldest) {
+            return size() > OPEN_SEGMENT_CACHE;
+        }
+    };
+
+    private final Object rollLock = new Object();
+    private int nextSeq;
+
+    private Counter recordsCounter;
+    private Counter droppedCounter;
+
+    private final ScheduledExecutorService journalExec =
+            Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "tick-journal");
+                t.setDaemon(true);
+                return t;
+            });
+
+    public TickJournal(MeterRegistry meterRegistry, KisRealtimeClient realtimeClient) {
+        this.meterRegistry = meterRegistry;
+        realtimeClient.addTickSink(this::append);
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        recordsCounter = Counter.builder("kis.journal.records")
+                .description("저널에 기록된 틱 수")
+                .register(meterRegistry);
+        droppedCounter = Counter.builder("kis.journal.dropped")
+                .description("세그먼트 준비가 안 돼 기록하지 못한 틱 수")
+                .register(meterRegistry);
+
+        if (!enabled) return;
+
+        Files.createDirectories(Paths.get(dir));
+        nextSeq = maxExistingSeq() + 1;
+
+        // 첫 세그먼트는 동기로 준비, 이후 롤링/force는 백그라운드
+        maintain();
+        journalExec.scheduleWithFixedDelay(this::maintain, 1, 1, TimeUnit.SECONDS);
+        log.info("[JOURNAL] enabled. dir={}, segmentRecords={}", dir, segmentRecords);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        journalExec.shutdownNow();
+        JournalSegment seg = current.get();
+        if (seg != null) seg.force();
+    }
+
+    /**
+     * 틱 스레드에서 호출. 빈 슬롯이 없고 예비 세그먼트도 없으면 버림 (절대 대기하지 않음)
+     */
+    private void append(KisTick tick) {
+        if (!enabled) return;
+
+        JournalSegment seg = current.get();
+        if (seg == null) {
+            droppedCounter.increment();
+            return;
+        }
+
+        int slot = seg.reserve();
+        if (slot < 0) {
+            seg = rollFull(seg);
+            slot = seg == null ? -1 : seg.reserve();
+            if (slot < 0) {
+                droppedCounter.increment();
+                return;
+            }
+        }
+
+        seg.write(slot, tick);
+        recordsCounter.increment();
+    }
+
+    /**
+     * 가득 찬 세그먼트를 미리 만들어 둔 예비 세그먼트로 교체 (파일 I/O 없음)
+     */
+    private JournalSegment rollFull(JournalSegment full) {
+        synchronized (rollLock) {
+            JournalSegment cur = current.get();
+            if (cur != full) return cur;
+
+            JournalSegment next = spare.getAndSet(null);
+            if (next == null) return null;
+
+            current.set(next);
+            journalExec.execute(this::maintain);
+            return next;
+        }
+    }
+
+    /**
+     * 일자 롤링 + 예비 세그먼트 준비 + 주기적 force (tick-journal 스레드)
+     */
+    private void maintain() {
+        try {
+            int today = today();
+
+            // 1) 날짜가 바뀌었거나 아직 세그먼트가 없으면 새 세그먼트로 교체
+            JournalSegment cur = current.get();
+            if (cur == null || cur.day() != today) {
+                JournalSegment next = spare.get();
+                if (next == null || next.day() != today || !spare.compareAndSet(next, null)) {
+                    next = createSegment(today);
+                }
+                synchronized (rollLock) {
+                    current.set(next);
+                }
+                if (cur != null) cur.force();
+            }
+
+            // 2) 예비 세그먼트 준비
+            JournalSegment s = spare.get();
+            if (s == null || s.day() != today) {
+                spare.set(createSegment(today));
+            }
+
+            // 3) 페이지 캐시 → 디스크
+            JournalSegment active = current.get();
+            if (active != null) active.force();
+
+        } catch (Exception e) {
+            log.error("[JOURNAL] maintain failed", e);
+        }
+    }
+
+    private JournalSegment createSegment(int day) throws IOException {
+        Path path = Paths.get(dir, String.format("ticks-%08d-%05d.dat", day, nextSeq++));
+        JournalSegment seg = JournalSegment.create(path, day, segmentRecords);
+        synchronized (written) {
+            written.put(path, seg);
+        }
+        log.info("[JOURNAL] segment created. path={}", path);
+        return seg;
+    }
+
+    /**
+     * 종목의 [fromMillis, toMillis] (체결시각 기준) 틱을 기록 순서대로 재생.
+     * consumer에 넘기는 KisTick은 재사용 객체
+     *
+     * @return 재생한 틱 수
+     */
+    public long replay(String code, long fromMillis, long toMillis, Consumer<KisTick> consumer) throws IOException {
+        if (!enabled) return 0;
+
+        long packed = KisTickCodec.packCode(code);
+        KisTick t = new KisTick();
+        long count = 0;
+
+        for (JournalSegment seg : segmentsBetween(fromMillis, toMillis)) {
+            int[] range = seg.scanRange(code, fromMillis, toMillis);
+            if (range == null) continue;
+
+            for (int slot = range[0]; slot < range[1]; slot++) {
+                if (seg.codeAt(slot) != packed) continue;
+
+                long ts = seg.exchangeTimeAt(slot);
+                if (ts < fromMillis || ts > toMillis) continue;
+
+                if (seg.read(slot, t)) {
+                    consumer.accept(t);
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 기간에 걸친 세그먼트 (파일명 순 = 기록 순)
+     */
+    private List<JournalSegment> segmentsBetween(long fromMillis, long toMillis) throws IOException {
+        // 자정 부근 틱이 전날 세그먼트에 있을 수 있어 하루 앞부터 확인
+        int fromDay = dayOf(fromMillis - 24L * 60 * 60 * 1000);
+        int toDay = dayOf(toMillis);
+
+        List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(Paths.get(dir), "ticks-*.dat")) {
+            for (Path p : ds) {
+                Matcher m = SEGMENT_NAME.matcher(p.getFileName().toString());
+                if (!m.matches()) continue;
+                int day = Integer.parseInt(m.group(1));
+                if (day >= fromDay && day <= toDay) paths.add(p);
+            }
+        }
+        paths.sort(null);
+
+        List<JournalSegment> segs = new ArrayList<>();
+        for (Path p : paths) {
+            JournalSegment seg;
+            synchronized (written) {
+                seg = written.get(p);
+            }
+            if (seg == null) {
+                synchronized (readCache) {
+                    seg = readCache.get(p);
+                    if (seg == null) {
+                        Matcher m = SEGMENT_NAME.matcher(p.getFileName().toString());
+                        int day = m.matches() ? Integer.parseInt(m.group(1)) : 0;
+                        seg = JournalSegment.open(p, day);
+                        readCache.put(p, seg);
+                    }
+                }
+            }
+            segs.add(seg);
+        }
+        return segs;
+    }
+
+    private int maxExistingSeq() throws IOException {
+        int max = 0;
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(Paths.get(dir), "ticks-*.dat")) {
+            for (Path p : ds) {
+                Matcher m = SEGMENT_NAME.matcher(p.getFileName().toString());
+                if (m.matches()) {
+                    max = Math.max(max, Integer.parseInt(m.group(2)));
+                }
+            }
+        }
+        return max;
+    }
+
+    private static int today() {
+        return toDay(LocalDate.now(KST));
+    }
+
+    private static int dayOf(long epochMillis) {
+        return toDay(Instant.ofEpochMilli(epochMillis).atZone(KST).toLocalDate());
+    }
+
+    private static int toDay(LocalDate d) {
+        return d.getYear() * 10000 + d.getMonthValue() * 100 + d.getDayOfMonth();
+    }
+}
@@ -0,0 +1,101 @@
+package com.mysite.sbb.kis;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+/**
+ * 틱 지연 조회 (/actuator/ticklatency)
+ * - GET /actuator/ticklatency                : 구간별 전체 분위수 + 종목/세션 p99 상위
+ * - GET /actuator/ticklatency/code/005930    : 종목별
+ * - GET /actuator/ticklatency/session/{id}   : 세션별
+ */
+@Component
+@Endpoint(id = "ticklatency")
+public class TickLatencyEndpoint {
+
+    private static final int TOP = 20;
+
+    private final TickLatencyRecorder recorder;
+
+    public TickLatencyEndpoint(TickLatencyRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @ReadOperation
+    public Map<String, Object> summary() {
+        Map<String, Object> stages = new LinkedHashMap<>();
+        for (TickLatencyRecorder.Stage stage : TickLatencyRecorder.Stage.values()) {
+            stages.put(stage.label(), describe(recorder.global(stage)));
+        }
+
+        List<Map<String, Object>> codes = new ArrayList<>();
+        for (String code : recorder.codes()) {
+            LatencyHistogram h = recorder.code(code, TickLatencyRecorder.Stage.EXCHANGE_TO_SEND);
+            if (h != null) codes.add(withKey("code", code, h));
+        }
+        List<Map<String, Object>> sessions = new ArrayList<>();
+        for (String id : recorder.sessions()) {
+            LatencyHistogram h = recorder.session(id);
+            if (h != null) sessions.add(withKey("session", id, h));
+        }
+
+        Map<String, Object> res = new LinkedHashMap<>();
+        res.put("windowSec", recorder.windowSec());
+        res.put("stages", stages);
+        res.put("slowestCodes", top(codes));      // exchange_to_send 기준
+        res.put("slowestSessions", top(sessions)); // receive_to_send 기준
+        return res;
+    }
+
+    /**
+     * @param scope code | session
+     */
+    @ReadOperation
+    public Map<String, Object> detail(@Selector String scope, @Selector String key) {
+        Map<String, Object> res = new LinkedHashMap<>();
+        if ("code".equals(scope)) {
+            res.put("code", key);
+            for (TickLatencyRecorder.Stage stage : List.of(TickLatencyRecorder.Stage.RECEIVE_TO_SEND,
+                    TickLatencyRecorder.Stage.EXCHANGE_TO_SEND)) {
+                LatencyHistogram h = recorder.code(key, stage);
+                if (h != null) res.put(stage.label(), describe(h));
+            }
+        } else if ("session".equals(scope)) {
+            res.put("session", key);
+            LatencyHistogram h = recorder.session(key);
+            if (h != null) res.put(TickLatencyRecorder.Stage.RECEIVE_TO_SEND.label(), describe(h));
+        }
+        return res;
+    }
+
+    private static Map<String, Object> withKey(String name, String key, LatencyHistogram h) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put(name, key);
+        m.putAll(describe(h));
+        return m;
+    }
+
+    private static List<Map<String, Object>> top(List<Map<String, Object>> rows) {
+        rows.sort(Comparator.comparingDouble((Map<String, Object> m) -> (Double) m.get("p99Ms")).reversed());
+        return rows.size() > TOP ? rows.subList(0, TOP) : rows;
+    }
+
+    private static Map<String, Object> describe(LatencyHistogram h) {
+        LatencyHistogram.Snapshot s = h.snapshot();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("count", s.count());
+        m.put("p50Ms", s.percentileMs(0.5));
+        m.put("p99Ms", s.percentileMs(0.99));
+        m.put("p999Ms", s.percentileMs(0.999));
+        m.put("maxMs", s.maxMs());
+        return m;
+    }
+}
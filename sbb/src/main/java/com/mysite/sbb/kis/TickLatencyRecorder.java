@@ -0,0 +1,182 @@
+package com.mysite.sbb.kis;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * 체결 틱 구간별 지연 기록 (거래소 체결 → KIS 수신 → 리스너 전달 → 브라우저 송신).
+ *
+ * 구간 (Stage)
+ * - EXCHANGE_TO_RECEIVE : 체결시각(H0STCNT0, 초 단위) → 프레임 수신 (벽시계, 체결시각 해상도 때문에 최대 1초 오차)
+ * - RECEIVE_TO_DISPATCH : 프레임 수신 → 디스패처 소비 스레드 (nanoTime)
+ * - RECEIVE_TO_SEND     : 프레임 수신 → 세션 sendMessage 완료 (nanoTime, conflation 대기 포함)
+ * - EXCHANGE_TO_SEND    : 체결시각 → 세션 sendMessage 완료 (벽시계, 사용자가 보는 시세의 나이 = SLO)
+ *
+ * 전체 구간은 항상, 종목별(RECEIVE_TO_SEND/EXCHANGE_TO_SEND)과 세션별(RECEIVE_TO_SEND)은 요청 시 생성.
+ * 히스토그램은 window-sec마다 창을 돌려 최근 1~2 창 분위수를 보여줌
+ */
+@Component
+public class TickLatencyRecorder {
+
+    public enum Stage {
+        EXCHANGE_TO_RECEIVE, RECEIVE_TO_DISPATCH, RECEIVE_TO_SEND, EXCHANGE_TO_SEND;
+
+        public String label() {
+            return name().toLowerCase();
+        }
+    }
+
+    private static final Stage[] STAGES = Stage.values();
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+
+    @Value("${stock.latency.window-sec:60}")
+    private long windowSec;
+
+    @Value("${stock.latency.per-code:true}")
+    private boolean perCode;
+
+    @Value("${stock.latency.per-session:true}")
+    private boolean perSession;
+
+    private final MeterRegistry meterRegistry;
+
+    private final LatencyHistogram[] global = new LatencyHistogram[STAGES.length];
+    private final Map<String, CodeLatency> codes = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> sessions = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService windowExec =
+            Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "latency-window");
+                t.setDaemon(true);
+                return t;
+            });
+
+    public TickLatencyRecorder(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        for (int i = 0; i < STAGES.length; i++) {
+            global[i] = new LatencyHistogram();
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        windowExec.scheduleAtFixedRate(this::rotate, windowSec, windowSec, TimeUnit.SECONDS);
+
+        for (Stage stage : STAGES) {
+            for (double q : QUANTILES) {
+                Gauge.builder("stock.latency", this, r -> r.global(stage).snapshot().percentileMs(q))
+                        .description("틱 구간 지연 분위수 (ms, 최근 창)")
+                        .tag("stage", stage.label())
+                        .tag("quantile", Double.toString(q))
+                        .register(meterRegistry);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        windowExec.shutdownNow();
+    }
+
+    /**
+     * 디스패처 소비 스레드에서 호출 (틱당 1회)
+     */
+    void recordDispatch(KisTick tick) {
+        long exchange = tick.getExchangeTimeMillis();
+        if (exchange > 0) {
+            global[Stage.EXCHANGE_TO_RECEIVE.ordinal()].record((tick.getReceivedAtMillis() - exchange) * 1000);
+        }
+        if (tick.getReceivedAtNanos() != 0) {
+            global[Stage.RECEIVE_TO_DISPATCH.ordinal()].record((System.nanoTime() - tick.getReceivedAtNanos()) / 1000);
+        }
+    }
+
+    /**
+     * 송신 스레드에서 sendMessage 완료 직후 호출
+     *
+     * @param receivedAtNanos    틱 수신 nanoTime (0이면 구간 생략)
+     * @param exchangeTimeMillis 체결시각 epoch millis (0이면 구간 생략)
+     */
+    public void recordSend(String code, String sessionId, long receivedAtNanos, long exchangeTimeMillis) {
+        CodeLatency cl = perCode && code != null ? codeLatency(code) : null;
+
+        if (receivedAtNanos != 0) {
+            long micros = (System.nanoTime() - receivedAtNanos) / 1000;
+            global[Stage.RECEIVE_TO_SEND.ordinal()].record(micros);
+            if (cl != null) cl.receiveToSend.record(micros);
+            if (perSession && sessionId != null) {
+                LatencyHistogram h = sessions.get(sessionId);
+                if (h == null) h = sessions.computeIfAbsent(sessionId, id -> new LatencyHistogram());
+                h.record(micros);
+            }
+        }
+        if (exchangeTimeMillis > 0) {
+            long micros = (System.currentTimeMillis() - exchangeTimeMillis) * 1000;
+            global[Stage.EXCHANGE_TO_SEND.ordinal()].record(micros);
+            if (cl != null) cl.exchangeToSend.record(micros);
+        }
+    }
+
+    public void removeSession(String sessionId) {
+        sessions.remove(sessionId);
+    }
+
+    public LatencyHistogram global(Stage stage) {
+        return global[stage.ordinal()];
+    }
+
+    /** 종목별 {RECEIVE_TO_SEND, EXCHANGE_TO_SEND}. 기록된 적 없으면 null */
+    public LatencyHistogram code(String code, Stage stage) {
+        CodeLatency cl = codes.get(code);
+        if (cl == null) return null;
+        return stage == Stage.EXCHANGE_TO_SEND ? cl.exchangeToSend : cl.receiveToSend;
+    }
+
+    /** 세션별 RECEIVE_TO_SEND. 없으면 null */
+    public LatencyHistogram session(String sessionId) {
+        return sessions.get(sessionId);
+    }
+
+    public Iterable<String> codes() {
+        return codes.keySet();
+    }
+
+    public Iterable<String> sessions() {
+        return sessions.keySet();
+    }
+
+    public long windowSec() {
+        return windowSec;
+    }
+
+    private CodeLatency codeLatency(String code) {
+        CodeLatency cl = codes.get(code);
+        if (cl == null) cl = codes.computeIfAbsent(code, c -> new CodeLatency());
+        return cl;
+    }
+
+    private void rotate() {
+        for (LatencyHistogram h : global) h.rotate();
+        for (CodeLatency cl : codes.values()) {
+            cl.receiveToSend.rotate();
+            cl.exchangeToSend.rotate();
+        }
+        for (LatencyHistogram h : sessions.values()) h.rotate();
+    }
+
+    private static final class CodeLatency {
+        final LatencyHistogram receiveToSend = new LatencyHistogram();
+        final LatencyHistogram exchangeToSend = new LatencyHistogram();
+    }
+}
@@ -0,0 +1,104 @@
+package com.mysite.sbb.kis.sim;
+
+/**
+ * 시뮬레이터용 H0STCNT0/H0STASP0 레코드 인코더 (KisTickDecoder의 역방향).
+ * - 레코드 1건 = 46개(체결) / 59개(호가) 필드를 '^'로 연결, 여러 레코드도 '^'로 이어 붙임
+ * - 디코더가 읽지 않는 필드는 "0"으로 채움
+ */
+final class KisFrameWriter {
+
+    static final String TR_ID = "H0STCNT0";
+    static final int FIELD_COUNT = 46;
+
+    static final String BOOK_TR_ID = "H0STASP0";
+    static final int BOOK_FIELD_COUNT = 59;
+    static final int BOOK_LEVELS = 10;
+
+    // 한 프레임에 담을 수 있는 최대 레코드 수 (건수 필드가 3자리)
+    static final int MAX_RECORDS = 999;
+
+    private KisFrameWriter() {}
+
+    /** "0|H0STCNT0|003|" */
+    static void appendHeader(StringBuilder sb, int records) {
+        appendHeader(sb, TR_ID, records);
+    }
+
+    static void appendHeader(StringBuilder sb, String trId, int records) {
+        sb.append("0|").append(trId).append('|');
+        if (records < 100) sb.append('0');
+        if (records < 10) sb.append('0');
+        sb.append(records).append('|');
+    }
+
+    static void appendRecord(StringBuilder sb, String code, int hhmmss,
+                             long price, char sign, long change, long rateBp,
+                             long open, long high, long low, long ask, long bid,
+                             long volume, long accVolume) {
+        sb.append(code).append('^');                    // 0 종목코드
+        appendTime(sb, hhmmss); sb.append('^');         // 1 체결시간
+        sb.append(price).append('^');                   // 2 현재가
+        sb.append(sign).append('^');                    // 3 전일대비부호
+        sb.append(change).append('^');                  // 4 전일대비
+        appendBp(sb, rateBp); sb.append('^');           // 5 전일대비율
+        sb.append(price).append('^');                   // 6 가중평균가
+        sb.append(open).append('^');                    // 7 시가
+        sb.append(high).append('^');                    // 8 고가
+        sb.append(low).append('^');                     // 9 저가
+        sb.append(ask).append('^');                     // 10 매도호가1
+        sb.append(bid).append('^');                     // 11 매수호가1
+        sb.append(volume).append('^');                  // 12 체결거래량
+        sb.append(accVolume).append('^');               // 13 누적거래량
+        sb.append(accVolume * price);                   // 14 누적거래대금
+        for (int f = 15; f < FIELD_COUNT; f++) {
+            sb.append("^0");
+        }
+    }
+
+    /**
+     * 10단계 호가 1건. 배열은 level 0이 최우선 호가
+     */
+    static void appendBookRecord(StringBuilder sb, String code, int hhmmss,
+                                 long[] askPrice, long[] bidPrice, long[] askQty, long[] bidQty) {
+        long totalAsk = 0, totalBid = 0;
+        sb.append(code).append('^');                    // 0 종목코드
+        appendTime(sb, hhmmss); sb.append('^');         // 1 영업시간
+        sb.append('0');                                 // 2 시간구분코드
+        for (int i = 0; i < BOOK_LEVELS; i++) sb.append('^').append(askPrice[i]);   // 3~12 매도호가
+        for (int i = 0; i < BOOK_LEVELS; i++) sb.append('^').append(bidPrice[i]);   // 13~22 매수호가
+        for (int i = 0; i < BOOK_LEVELS; i++) {                                     // 23~32 매도잔량
+            sb.append('^').append(askQty[i]);
+            totalAsk += askQty[i];
+        }
+        for (int i = 0; i < BOOK_LEVELS; i++) {                                     // 33~42 매수잔량
+            sb.append('^').append(bidQty[i]);
+            totalBid += bidQty[i];
+        }
+        sb.append('^').append(totalAsk);                // 43 총매도잔량
+        sb.append('^').append(totalBid);                // 44 총매수잔량
+        for (int f = 45; f < BOOK_FIELD_COUNT; f++) {
+            sb.append("^0");
+        }
+    }
+
+    private static void appendTime(StringBuilder sb, int hhmmss) {
+        if (hhmmss < 100000) sb.append('0');
+        if (hhmmss < 10000) sb.append('0');
+        if (hhmmss < 1000) sb.append('0');
+        if (hhmmss < 100) sb.append('0');
+        if (hhmmss < 10) sb.append('0');
+        sb.append(hhmmss);
+    }
+
+    /** bp 정수를 "-0.70" 형태로 */
+    private static void appendBp(StringBuilder sb, long bp) {
+        if (bp < 0) {
+            sb.append('-');
+            bp = -bp;
+        }
+        long frac = bp % 100;
+        sb.append(bp / 100).append('.');
+        if (frac < 10) sb.append('0');
+        sb.append(frac);
+    }
+}
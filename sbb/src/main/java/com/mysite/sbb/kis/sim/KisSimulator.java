@@ -0,0 +1,364 @@
+package com.mysite.sbb.kis.sim;
+
+import java.io.IOException;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mysite.sbb.kis.KisTick;
+import com.mysite.sbb.kis.TickJournal;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 로컬 KIS 실시간 서버 시뮬레이터 (/kis-sim/ws).
+ * - approval_key 검증 + tr_type 1/2 등록/해지 JSON 응답, 주기적 PINGPONG
+ * - 등록된 종목마다 초당 N건의 H0STCNT0 틱을 batch-ms 단위로 묶어 "0|H0STCNT0|NNN|..." 프레임 전송
+ * - H0STASP0(호가) 등록 종목은 초당 M건의 10단계 호가를 같은 방식으로 전송
+ * - source=journal 이면 TickJournal에 기록된 틱을 재생 (없는 종목은 합성)
+ * - outage(): 모든 세션을 끊고 잠시 새 연결을 거부. 그동안 틱은 계속 생성 (분봉에만 쌓임) → 재연결 백필 확인용
+ *
+ * kis.simulator.enabled=true 일 때만 등록. 앱을 여기에 붙이려면 sim 프로필 사용
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "kis.simulator.enabled", havingValue = "true")
+public class KisSimulator extends TextWebSocketHandler {
+
+    private static final ZoneId KST = ZoneId.of("Asia/Seoul");
+    private static final DateTimeFormatter PING_TIME = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+    // 종목당 초당 체결 수
+    @Value("${kis.simulator.ticks-per-second:5}")
+    private double ticksPerSecond;
+
+    // 종목당 초당 호가 수
+    @Value("${kis.simulator.books-per-second:10}")
+    private double booksPerSecond;
+
+    // 프레임 묶음 주기
+    @Value("${kis.simulator.batch-ms:50}")
+    private long batchMs;
+
+    @Value("${kis.simulator.pingpong-sec:10}")
+    private long pingpongSec;
+
+    // random | journal
+    @Value("${kis.simulator.source:random}")
+    private String source;
+
+    // journal 재생 구간 (epoch millis, 0이면 최근 24시간)
+    @Value("${kis.simulator.replay-from:0}")
+    private long replayFrom;
+
+    @Value("${kis.simulator.replay-to:0}")
+    private long replayTo;
+
+    private final TickJournal tickJournal;
+    private final ObjectMapper om = new ObjectMapper();
+
+    // 발급한 approval_key
+    private final Set<String> approvalKeys = ConcurrentHashMap.newKeySet();
+
+    private final Map<String, SimSymbol> symbols = new ConcurrentHashMap<>();
+    // 세션별 등록 (체결은 종목코드, 호가는 "H0STASP0:종목코드")
+    private final Map<WebSocketSession, Set<String>> sessionToCodes = new ConcurrentHashMap<>();
+
+    // 장애 흉내: 이 시각까지 연결 거부, 그동안 틱을 계속 만들 종목 (kis-sim 스레드에서 비움)
+    private volatile long outageUntilMillis;
+    private final Set<SimSymbol> outageSymbols = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong framesSent = new AtomicLong();
+    private final AtomicLong recordsSent = new AtomicLong();
+
+    private final ScheduledExecutorService simExec =
+            Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "kis-sim");
+                t.setDaemon(true);
+                return t;
+            });
+
+    // kis-sim 스레드 전용
+    private final StringBuilder frame = new StringBuilder(16 * 1024);
+
+    public KisSimulator(TickJournal tickJournal) {
+        this.tickJournal = tickJournal;
+    }
+
+    @PostConstruct
+    public void start() {
+        simExec.scheduleAtFixedRate(this::emit, batchMs, batchMs, TimeUnit.MILLISECONDS);
+        simExec.scheduleAtFixedRate(this::pingpong, pingpongSec, pingpongSec, TimeUnit.SECONDS);
+        log.info("[KIS-SIM] started. ticksPerSecond={}, batchMs={}, source={}", ticksPerSecond, batchMs, source);
+    }
+
+    @PreDestroy
+    public void stop() {
+        simExec.shutdownNow();
+    }
+
+    /** /kis-sim/oauth2/Approval */
+    String issueApprovalKey() {
+        String key = "sim-" + UUID.randomUUID();
+        approvalKeys.add(key);
+        return key;
+    }
+
+    /**
+     * 스웜이 수신한 틱(code, volume=일련번호)의 시뮬레이터 송신 시각 (nanoTime). 모르면 -1
+     */
+    public long emittedAt(String code, long seq) {
+        SimSymbol s = symbols.get(code);
+        return s == null ? -1 : s.emittedAt(seq);
+    }
+
+    SimSymbol symbol(String code) {
+        return symbols.computeIfAbsent(code, this::newSymbol);
+    }
+
+    /**
+     * 모든 세션을 끊고 millis 동안 새 연결을 거부 (구독 중이던 종목은 그동안에도 틱 생성)
+     */
+    void outage(long millis) {
+        for (SimSymbol s : symbols.values()) {
+            if (!s.sessions.isEmpty()) outageSymbols.add(s);
+        }
+        outageUntilMillis = System.currentTimeMillis() + millis;
+        for (WebSocketSession session : sessionToCodes.keySet()) {
+            try {
+                session.close(CloseStatus.SERVICE_RESTARTED);
+            } catch (IOException ignore) {}
+        }
+        log.info("[KIS-SIM] outage started. millis={}, symbols={}", millis, outageSymbols.size());
+    }
+
+    Map<String, Object> stats() {
+        int subscribed = 0, books = 0;
+        for (SimSymbol s : symbols.values()) {
+            if (!s.sessions.isEmpty()) subscribed++;
+            if (!s.bookSessions.isEmpty()) books++;
+        }
+        return Map.of(
+                "sessions", sessionToCodes.size(),
+                "subscribedCodes", subscribed,
+                "subscribedBooks", books,
+                "framesSent", framesSent.get(),
+                "recordsSent", recordsSent.get(),
+                "ticksPerSecond", ticksPerSecond,
+                "source", source
+        );
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws IOException {
+        if (System.currentTimeMillis() < outageUntilMillis) {
+            session.close(CloseStatus.SERVICE_OVERLOAD);
+            return;
+        }
+        sessionToCodes.put(session, ConcurrentHashMap.newKeySet());
+        log.info("[KIS-SIM] connected. sessionId={}", session.getId());
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        Set<String> codes = sessionToCodes.remove(session);
+        if (codes == null) return;
+        for (String key : codes) {
+            boolean book = key.startsWith(KisFrameWriter.BOOK_TR_ID + ":");
+            SimSymbol s = symbols.get(book ? key.substring(KisFrameWriter.BOOK_TR_ID.length() + 1) : key);
+            if (s != null) (book ? s.bookSessions : s.sessions).remove(session);
+        }
+    }
+
+    /**
+     * {"header":{"approval_key":..,"tr_type":"1"},"body":{"input":{"tr_id":"H0STCNT0","tr_key":"005930"}}}
+     */
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+        JsonNode root = om.readTree(message.getPayload());
+        JsonNode header = root.path("header");
+        JsonNode input = root.path("body").path("input");
+
+        String trId = input.path("tr_id").asText();
+        String trKey = input.path("tr_key").asText();
+
+        if (!approvalKeys.contains(header.path("approval_key").asText())) {
+            reply(session, trId, trKey, "1", "OPSP0011", "invalid approval : NOT FOUND");
+            return;
+        }
+        boolean book = KisFrameWriter.BOOK_TR_ID.equals(trId);
+        if (!book && !KisFrameWriter.TR_ID.equals(trId)) {
+            reply(session, trId, trKey, "1", "OPSP0007", "invalid tr_id");
+            return;
+        }
+        if (trKey.isBlank()) {
+            reply(session, trId, trKey, "1", "OPSP0008", "invalid tr_key");
+            return;
+        }
+
+        Set<String> codes = sessionToCodes.get(session);
+        if (codes == null) return;
+
+        String key = book ? trId + ":" + trKey : trKey;
+        if ("1".equals(header.path("tr_type").asText())) {
+            codes.add(key);
+            SimSymbol s = symbols.computeIfAbsent(trKey, this::newSymbol);
+            (book ? s.bookSessions : s.sessions).add(session);
+            reply(session, trId, trKey, "0", "OPSP0000", "SUBSCRIBE SUCCESS");
+        } else {
+            codes.remove(key);
+            SimSymbol s = symbols.get(trKey);
+            if (s != null) (book ? s.bookSessions : s.sessions).remove(session);
+            reply(session, trId, trKey, "0", "OPSP0002", "UNSUBSCRIBE SUCCESS");
+        }
+    }
+
+    private SimSymbol newSymbol(String code) {
+        List<KisTick> recorded = null;
+        if ("journal".equalsIgnoreCase(source)) {
+            long to = replayTo > 0 ? replayTo : System.currentTimeMillis();
+            long from = replayFrom > 0 ? replayFrom : to - 24L * 60 * 60 * 1000;
+            List<KisTick> ticks = new ArrayList<>();
+            try {
+                tickJournal.replay(code, from, to, t -> {
+                    KisTick copy = new KisTick();
+                    copy.copyFrom(t);
+                    ticks.add(copy);
+                });
+            } catch (IOException e) {
+                log.warn("[KIS-SIM] journal replay failed. code={}", code, e);
+            }
+            if (ticks.isEmpty()) {
+                log.info("[KIS-SIM] no journal ticks, using synthetic. code={}", code);
+            }
+            recorded = ticks;
+        }
+        return new SimSymbol(code, recorded);
+    }
+
+    /**
+     * 종목별로 이번 배치 틱을 한 프레임에 묶어, 그 종목을 등록한 세션 전체에 같은 메시지 전송
+     */
+    private void emit() {
+        try {
+            int hhmmss = hhmmss(LocalTime.now(KST));
+            long nowMillis = System.currentTimeMillis();
+            double perBatch = ticksPerSecond * batchMs / 1000.0;
+            double booksPerBatch = booksPerSecond * batchMs / 1000.0;
+
+            if (!outageSymbols.isEmpty()) {
+                if (nowMillis < outageUntilMillis) {
+                    // 보낼 곳은 없지만 장은 계속 움직임
+                    for (SimSymbol s : outageSymbols) {
+                        int n = s.due(perBatch);
+                        frame.setLength(0);
+                        for (int i = 0; i < n; i++) s.next(frame, hhmmss, System.nanoTime(), nowMillis);
+                    }
+                    return;
+                }
+                outageSymbols.clear();
+            }
+
+            for (SimSymbol s : symbols.values()) {
+                if (!s.bookSessions.isEmpty()) emitBooks(s, hhmmss, booksPerBatch);
+                if (s.sessions.isEmpty()) continue;
+
+                int n = s.due(perBatch);
+                if (n == 0) continue;
+
+                frame.setLength(0);
+                KisFrameWriter.appendHeader(frame, n);
+                long now = System.nanoTime();
+                for (int i = 0; i < n; i++) {
+                    if (i > 0) frame.append('^');
+                    s.next(frame, hhmmss, now, nowMillis);
+                }
+
+                TextMessage msg = new TextMessage(frame.toString());
+                for (WebSocketSession session : s.sessions) {
+                    if (send(session, msg)) framesSent.incrementAndGet();
+                }
+                recordsSent.addAndGet(n);
+            }
+        } catch (Exception e) {
+            log.error("[KIS-SIM] emit failed", e);
+        }
+    }
+
+    private void emitBooks(SimSymbol s, int hhmmss, double booksPerBatch) {
+        int n = s.bookDue(booksPerBatch);
+        if (n == 0) return;
+
+        frame.setLength(0);
+        KisFrameWriter.appendHeader(frame, KisFrameWriter.BOOK_TR_ID, n);
+        for (int i = 0; i < n; i++) {
+            if (i > 0) frame.append('^');
+            s.nextBook(frame, hhmmss);
+        }
+
+        TextMessage msg = new TextMessage(frame.toString());
+        for (WebSocketSession session : s.bookSessions) {
+            if (send(session, msg)) framesSent.incrementAndGet();
+        }
+        recordsSent.addAndGet(n);
+    }
+
+    private void pingpong() {
+        String ping = "{\"header\":{\"tr_id\":\"PINGPONG\",\"datetime\":\""
+                + ZonedDateTime.now(KST).format(PING_TIME) + "\"}}";
+        TextMessage msg = new TextMessage(ping);
+        for (WebSocketSession session : sessionToCodes.keySet()) {
+            send(session, msg);
+        }
+    }
+
+    private void reply(WebSocketSession session, String trId, String trKey,
+                       String rtCd, String msgCd, String msg1) throws IOException {
+        Map<String, Object> res = Map.of(
+                "header", Map.of("tr_id", trId, "tr_key", trKey, "encrypt", "N"),
+                "body", Map.of("rt_cd", rtCd, "msg_cd", msgCd, "msg1", msg1)
+        );
+        send(session, new TextMessage(om.writeValueAsString(res)));
+    }
+
+    private boolean send(WebSocketSession session, TextMessage msg) {
+        if (!session.isOpen()) return false;
+        try {
+            // 같은 세션에 대한 동시 sendMessage 방지
+            synchronized (session) {
+                session.sendMessage(msg);
+            }
+            return true;
+        } catch (Exception e) {
+            log.warn("[KIS-SIM] send failed. sessionId={}", session.getId(), e);
+            return false;
+        }
+    }
+
+    private static int hhmmss(LocalTime t) {
+        return t.getHour() * 10000 + t.getMinute() * 100 + t.getSecond();
+    }
+}
@@ -0,0 +1,22 @@
+package com.mysite.sbb.kis.sim;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+@Configuration
+@ConditionalOnProperty(name = "kis.simulator.enabled", havingValue = "true")
+public class KisSimulatorConfig implements WebSocketConfigurer {
+
+    private final KisSimulator simulator;
+
+    public KisSimulatorConfig(KisSimulator simulator) {
+        this.simulator = simulator;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(simulator, "/kis-sim/ws");
+    }
+}
@@ -0,0 +1,140 @@
+package com.mysite.sbb.kis.sim;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 시뮬레이터 인증/시세 REST 엔드포인트(KIS 호환) + 스웜 제어
+ */
+@RestController
+@RequestMapping("/kis-sim")
+@ConditionalOnProperty(name = "kis.simulator.enabled", havingValue = "true")
+public class KisSimulatorController {
+
+    private static final ZoneId KST = ZoneId.of("Asia/Seoul");
+    private static final DateTimeFormatter HHMMSS = DateTimeFormatter.ofPattern("HHmmss");
+
+    private final KisSimulator simulator;
+    private final StockWsSwarm swarm;
+
+    public KisSimulatorController(KisSimulator simulator, StockWsSwarm swarm) {
+        this.simulator = simulator;
+        this.swarm = swarm;
+    }
+
+    // 👉 KIS /oauth2/Approval 호환 (요청 본문은 검사하지 않음)
+    @PostMapping("/oauth2/Approval")
+    public Map<String, Object> approval() {
+        return Map.of("approval_key", simulator.issueApprovalKey());
+    }
+
+    // 👉 KIS /oauth2/tokenP 호환
+    @PostMapping("/oauth2/tokenP")
+    public Map<String, Object> token() {
+        return Map.of(
+                "access_token", "sim-token-" + System.currentTimeMillis(),
+                "token_type", "Bearer",
+                "expires_in", 86400
+        );
+    }
+
+    // 👉 KIS 주식현재가 시세 호환 (FHKST01010100)
+    @GetMapping("/uapi/domestic-stock/v1/quotations/inquire-price")
+    public Map<String, Object> inquirePrice(@RequestParam("fid_input_iscd") String code) {
+        SimSymbol s = simulator.symbol(code);
+        return Map.of(
+                "rt_cd", "0",
+                "msg1", "정상처리 되었습니다.",
+                "output", Map.of(
+                        "stck_prpr", String.valueOf(s.lastPrice()),
+                        "stck_sdpr", String.valueOf(s.prevClose())
+                )
+        );
+    }
+
+    // 👉 KIS 주식당일분봉조회 호환 (FHKST03010200): FID_INPUT_HOUR_1 이하 최근 30개, 최신 순
+    @GetMapping("/uapi/domestic-stock/v1/quotations/inquire-time-itemchartprice")
+    public Map<String, Object> inquireMinuteChart(@RequestParam("FID_INPUT_ISCD") String code,
+                                                  @RequestParam("FID_INPUT_HOUR_1") String hour) {
+        SimSymbol s = simulator.symbol(code);
+        long to = ZonedDateTime.of(LocalDate.now(KST), LocalTime.parse(hour, HHMMSS), KST).toInstant().toEpochMilli();
+
+        List<Map<String, String>> rows = new ArrayList<>();
+        for (long[] bar : s.minuteBars(to, 30)) {
+            ZonedDateTime t = Instant.ofEpochMilli(bar[0]).atZone(KST);
+            Map<String, String> row = new LinkedHashMap<>();
+            row.put("stck_bsop_date", t.toLocalDate().format(DateTimeFormatter.BASIC_ISO_DATE));
+            row.put("stck_cntg_hour", t.format(HHMMSS));
+            row.put("stck_oprc", String.valueOf(bar[1]));
+            row.put("stck_hgpr", String.valueOf(bar[2]));
+            row.put("stck_lwpr", String.valueOf(bar[3]));
+            row.put("stck_prpr", String.valueOf(bar[4]));
+            row.put("cntg_vol", String.valueOf(bar[5]));
+            rows.add(row);
+        }
+        return Map.of(
+                "rt_cd", "0",
+                "msg1", "정상처리 되었습니다.",
+                "output1", Map.of("stck_prpr", String.valueOf(s.lastPrice())),
+                "output2", rows
+        );
+    }
+
+    /**
+     * 👉 KIS 장애 흉내: 세션을 모두 끊고 sec초 동안 재연결 거부 (틱은 계속 생성 → 재연결 후 백필 확인)
+     * POST /kis-sim/outage?sec=5
+     */
+    @PostMapping("/outage")
+    public Map<String, Object> outage(@RequestParam(value = "sec", defaultValue = "5") long sec) {
+        simulator.outage(sec * 1000);
+        return simulator.stats();
+    }
+
+    /**
+     * 👉 스웜 시작
+     * POST /kis-sim/swarm/start?sessions=200&codes=005930,000660,035420&codesPerSession=2&tier=realtime&batch=true
+     */
+    @PostMapping("/swarm/start")
+    public Map<String, Object> startSwarm(@RequestParam(value = "sessions", defaultValue = "10") int sessions,
+                                          @RequestParam("codes") String codes,
+                                          @RequestParam(value = "codesPerSession", defaultValue = "1") int codesPerSession,
+                                          @RequestParam(value = "tier", required = false) String tier,
+                                          @RequestParam(value = "batch", defaultValue = "false") boolean batch) throws Exception {
+        List<String> list = Arrays.stream(codes.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .toList();
+        swarm.start(sessions, list, codesPerSession, tier, batch);
+        return swarm.stats();
+    }
+
+    @PostMapping("/swarm/stop")
+    public Map<String, Object> stopSwarm() {
+        swarm.stop();
+        return swarm.stats();
+    }
+
+    @GetMapping("/stats")
+    public Map<String, Object> stats() {
+        return Map.of(
+                "simulator", simulator.stats(),
+                "swarm", swarm.stats()
+        );
+    }
+}
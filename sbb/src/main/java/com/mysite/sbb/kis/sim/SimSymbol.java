@@ -0,0 +1,235 @@
+package com.mysite.sbb.kis.sim;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.web.socket.WebSocketSession;
+
+import com.mysite.sbb.kis.KisTick;
+
+/**
+ * 시뮬레이터 종목 1개의 상태.
+ * - 합성 모드: 전일 종가 기준 호가 단위 랜덤워크 (상/하한 ±30%)
+ * - 재생 모드: 저널에서 읽은 틱을 기록 순서대로 반복
+ * - 체결량(volume)은 종목별 일련번호로 내보내고, 일련번호별 송신 시각을 링에 기록 → 스웜이 지연 측정에 사용
+ * - 호가는 현재가 위아래로 10단계, 잔량은 매번 일부 레벨만 흔듦
+ * - 낸 틱으로 당일 분봉도 쌓음 (REST 분봉 조회 응답용, 거래량 = 틱 volume 합)
+ *
+ * 상태 변경은 kis-sim 스레드에서만 (emit 링 조회만 다른 스레드)
+ */
+final class SimSymbol {
+
+    private static final int RING = 4096;
+    private static final int RING_MASK = RING - 1;
+
+    // 보관할 분봉 수 (정규장 + 여유)
+    private static final int MINUTES = 480;
+    private static final long MINUTE_MILLIS = 60_000;
+
+    final String code;
+
+    // 이 종목을 등록한 시뮬레이터 세션
+    final Set<WebSocketSession> sessions = ConcurrentHashMap.newKeySet();
+
+    // 이 종목 호가(H0STASP0)를 등록한 세션
+    final Set<WebSocketSession> bookSessions = ConcurrentHashMap.newKeySet();
+
+    private final long prevClose;
+    private long price;
+    private long open;
+    private long high;
+    private long low;
+    private long accVolume;
+    private long seq;
+
+    // 초당 틱 수 × 경과 시간 누적 (소수점 이하는 다음 배치로 이월)
+    private double credit;
+    private double bookCredit;
+
+    // 호가 레벨 (kis-sim 스레드 전용)
+    private final long[] askPrice = new long[KisFrameWriter.BOOK_LEVELS];
+    private final long[] bidPrice = new long[KisFrameWriter.BOOK_LEVELS];
+    private final long[] askQty = new long[KisFrameWriter.BOOK_LEVELS];
+    private final long[] bidQty = new long[KisFrameWriter.BOOK_LEVELS];
+
+    // 재생 모드용 (없으면 합성)
+    private final List<KisTick> recorded;
+    private int replayPos;
+
+    // 분봉 링 (this 락: kis-sim 스레드가 쓰고 REST 스레드가 읽음)
+    private final long[] minuteStart = new long[MINUTES];
+    private final long[] minuteOpen = new long[MINUTES];
+    private final long[] minuteHigh = new long[MINUTES];
+    private final long[] minuteLow = new long[MINUTES];
+    private final long[] minuteClose = new long[MINUTES];
+    private final long[] minuteVolume = new long[MINUTES];
+    private int minuteHead = -1;
+    private int minuteSize;
+
+    // seq → 송신 System.nanoTime()
+    private final AtomicLongArray emitSeq = new AtomicLongArray(RING);
+    private final AtomicLongArray emitNanos = new AtomicLongArray(RING);
+
+    SimSymbol(String code, List<KisTick> recorded) {
+        this.code = code;
+        this.recorded = recorded == null || recorded.isEmpty() ? null : recorded;
+
+        // 종목코드로 정해지는 고정 전일 종가 (5,000 ~ 300,000원)
+        long base = 5_000L + Math.floorMod(code.hashCode(), 60) * 5_000L;
+        this.prevClose = this.recorded != null ? this.recorded.get(0).getPrevClose() : base;
+        this.price = prevClose;
+        this.open = prevClose;
+        this.high = prevClose;
+        this.low = prevClose;
+    }
+
+    /** 이번 배치에 낼 틱 수 */
+    int due(double ticks) {
+        credit += ticks;
+        int n = (int) credit;
+        credit -= n;
+        return Math.min(n, KisFrameWriter.MAX_RECORDS);
+    }
+
+    /** 이번 배치에 낼 호가 수 */
+    int bookDue(double quotes) {
+        bookCredit += quotes;
+        int n = (int) bookCredit;
+        bookCredit -= n;
+        return Math.min(n, KisFrameWriter.MAX_RECORDS);
+    }
+
+    /**
+     * 현재가 기준 호가 1건을 레코드로 기록. 가격대가 그대로면 잔량만 일부 레벨에서 바뀜
+     */
+    void nextBook(StringBuilder sb, int hhmmss) {
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+
+        long ask = price + tickSize(price);
+        boolean moved = askPrice[0] != ask;
+        long a = ask, b = price;
+        for (int i = 0; i < KisFrameWriter.BOOK_LEVELS; i++) {
+            askPrice[i] = a;
+            bidPrice[i] = b;
+            a += tickSize(a);
+            b = Math.max(0, b - tickSize(Math.max(1, b - 1)));
+
+            if (moved || askQty[i] == 0 || r.nextInt(4) == 0) askQty[i] = 1 + r.nextInt(5_000);
+            if (moved || bidQty[i] == 0 || r.nextInt(4) == 0) bidQty[i] = 1 + r.nextInt(5_000);
+        }
+        KisFrameWriter.appendBookRecord(sb, code, hhmmss, askPrice, bidPrice, askQty, bidQty);
+    }
+
+    /**
+     * 다음 틱 1건을 레코드로 기록
+     */
+    void next(StringBuilder sb, int hhmmss, long nowNanos, long nowMillis) {
+        long s = ++seq;
+        int slot = (int) (s & RING_MASK);
+        emitSeq.set(slot, 0);       // 쓰는 동안 무효화 (seqlock)
+        emitNanos.set(slot, nowNanos);
+        emitSeq.set(slot, s);
+
+        if (recorded != null) {
+            KisTick t = recorded.get(replayPos);
+            replayPos = (replayPos + 1) % recorded.size();
+            accVolume += t.getVolume();
+            recordMinute(nowMillis, t.getPrice(), s);
+            KisFrameWriter.appendRecord(sb, code, hhmmss,
+                    t.getPrice(), t.getChangeSign(), t.getChange(), t.getChangeRateBp(),
+                    t.getOpen(), t.getHigh(), t.getLow(), t.getAskPrice(), t.getBidPrice(),
+                    s, accVolume);
+            return;
+        }
+
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        long tick = tickSize(price);
+        long nextPrice = price + (r.nextInt(3) - 1) * tick;
+        long upper = prevClose * 13 / 10;
+        long lower = prevClose * 7 / 10;
+        price = Math.max(lower, Math.min(upper, nextPrice));
+        high = Math.max(high, price);
+        low = Math.min(low, price);
+        accVolume += 1 + r.nextInt(100);
+
+        long change = price - prevClose;
+        long rateBp = change * 10_000 / prevClose;
+        recordMinute(nowMillis, price, s);
+        char sign = price >= upper ? '1' : price <= lower ? '4' : change > 0 ? '2' : change < 0 ? '5' : '3';
+
+        KisFrameWriter.appendRecord(sb, code, hhmmss,
+                price, sign, change, rateBp, open, high, low,
+                price + tickSize(price), price, s, accVolume);
+    }
+
+    private synchronized void recordMinute(long nowMillis, long px, long qty) {
+        long bucket = Math.floorDiv(nowMillis, MINUTE_MILLIS) * MINUTE_MILLIS;
+        if (minuteSize == 0 || minuteStart[minuteHead] != bucket) {
+            minuteHead = (minuteHead + 1) % MINUTES;
+            if (minuteSize < MINUTES) minuteSize++;
+            minuteStart[minuteHead] = bucket;
+            minuteOpen[minuteHead] = px;
+            minuteHigh[minuteHead] = px;
+            minuteLow[minuteHead] = px;
+            minuteVolume[minuteHead] = 0;
+        }
+        minuteHigh[minuteHead] = Math.max(minuteHigh[minuteHead], px);
+        minuteLow[minuteHead] = Math.min(minuteLow[minuteHead], px);
+        minuteClose[minuteHead] = px;
+        minuteVolume[minuteHead] += qty;
+    }
+
+    /**
+     * toMillis가 속한 분 이하 분봉, 최신 순 최대 limit개. 행 = {start, open, high, low, close, volume}
+     */
+    synchronized List<long[]> minuteBars(long toMillis, int limit) {
+        List<long[]> out = new ArrayList<>(limit);
+        int i = minuteHead;
+        for (int k = 0; k < minuteSize && out.size() < limit; k++) {
+            if (minuteStart[i] <= toMillis) {
+                out.add(new long[]{minuteStart[i], minuteOpen[i], minuteHigh[i], minuteLow[i],
+                        minuteClose[i], minuteVolume[i]});
+            }
+            i = i == 0 ? MINUTES - 1 : i - 1;
+        }
+        return out;
+    }
+
+    /** 마지막 체결가 (체결 전이면 전일 종가) */
+    synchronized long lastPrice() {
+        return minuteSize == 0 ? prevClose : minuteClose[minuteHead];
+    }
+
+    long prevClose() {
+        return prevClose;
+    }
+
+    /**
+     * 일련번호 seq 틱의 송신 시각. 링에서 밀려났으면 -1
+     */
+    long emittedAt(long s) {
+        int slot = (int) (s & RING_MASK);
+        if (emitSeq.get(slot) != s) return -1;
+        long nanos = emitNanos.get(slot);
+        return emitSeq.get(slot) == s ? nanos : -1;
+    }
+
+    long emitted() {
+        return seq;
+    }
+
+    /** KRX 호가 단위 */
+    static long tickSize(long price) {
+        if (price < 2_000) return 1;
+        if (price < 5_000) return 5;
+        if (price < 20_000) return 10;
+        if (price < 50_000) return 50;
+        if (price < 200_000) return 100;
+        if (price < 500_000) return 500;
+        return 1_000;
+    }
+}
@@ -0,0 +1,225 @@
+package com.mysite.sbb.kis.sim;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * /ws/stock 클라이언트 스웜 (부하 생성기).
+ * - N개 세션을 열어 각각 종목 목록을 SUBSCRIBE 하고 수신 프레임 수/지연을 집계
+ * - 지연 = 수신 시각 - 시뮬레이터 송신 시각 (PRICE 프레임의 volume = 시뮬레이터 일련번호)
+ *   같은 JVM의 nanoTime 기준이라 시뮬레이터 → KIS 클라이언트 → conflation → 송신 큐 → 수신 전 구간이 포함됨
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "kis.simulator.enabled", havingValue = "true")
+public class StockWsSwarm {
+
+    private final KisSimulator simulator;
+    private final Environment env;
+    private final MeterRegistry meterRegistry;
+
+    private final List<WebSocketSession> sessions = new ArrayList<>();
+
+    private final AtomicLong messages = new AtomicLong();
+    private final AtomicLong payloadBytes = new AtomicLong();
+    private final AtomicLong frames = new AtomicLong();
+    private final AtomicLong priceFrames = new AtomicLong();
+    private final AtomicLong unmatched = new AtomicLong();
+    private volatile long startedAtNanos;
+
+    private Counter framesCounter;
+    private Timer latency;
+
+    public StockWsSwarm(KisSimulator simulator, Environment env, MeterRegistry meterRegistry) {
+        this.simulator = simulator;
+        this.env = env;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @param sessions        열 세션 수
+     * @param codes           구독 후보 종목
+     * @param codesPerSession 세션당 구독 종목 수 (후보를 라운드로빈으로 배정)
+     * @param tier            conflation 티어 (null이면 기본)
+     * @param batch           ?batch=1 로 접속 (BATCH 프레임은 풀어서 집계)
+     */
+    public synchronized void start(int sessions, List<String> codes, int codesPerSession, String tier, boolean batch)
+            throws Exception {
+        if (codes.isEmpty()) throw new IllegalArgumentException("codes is required");
+        stop();
+        resetMeters();
+
+        String port = env.getProperty("local.server.port", env.getProperty("server.port", "8080"));
+        String url = "ws://localhost:" + port + "/ws/stock?batch=" + (batch ? 1 : 0)
+                + (tier == null || tier.isBlank() ? "" : "&tier=" + tier);
+
+        StandardWebSocketClient client = new StandardWebSocketClient();
+        SwarmHandler handler = new SwarmHandler();
+
+        startedAtNanos = System.nanoTime();
+        int perSession = Math.max(1, Math.min(codesPerSession, codes.size()));
+        for (int i = 0; i < sessions; i++) {
+            WebSocketSession session = client.execute(handler, url).get(10, TimeUnit.SECONDS);
+            this.sessions.add(session);
+
+            StringBuilder sb = new StringBuilder("{\"type\":\"SUBSCRIBE\",\"codes\":[");
+            for (int k = 0; k < perSession; k++) {
+                if (k > 0) sb.append(',');
+                sb.append('"').append(codes.get((i + k) % codes.size())).append('"');
+            }
+            sb.append("]}");
+            synchronized (session) {
+                session.sendMessage(new TextMessage(sb.toString()));
+            }
+        }
+        log.info("[SWARM] started. sessions={}, codesPerSession={}, url={}", sessions, perSession, url);
+    }
+
+    public synchronized void stop() {
+        for (WebSocketSession s : sessions) {
+            try { s.close(CloseStatus.NORMAL); } catch (Exception ignore) {}
+        }
+        if (!sessions.isEmpty()) log.info("[SWARM] stopped. sessions={}", sessions.size());
+        sessions.clear();
+    }
+
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        int open = 0;
+        for (WebSocketSession s : sessions) {
+            if (s.isOpen()) open++;
+        }
+        double elapsedSec = startedAtNanos == 0 ? 0 : (System.nanoTime() - startedAtNanos) / 1e9;
+
+        m.put("sessions", sessions.size());
+        m.put("openSessions", open);
+        m.put("messages", messages.get());
+        m.put("payloadBytes", payloadBytes.get());
+        m.put("frames", frames.get());
+        m.put("priceFrames", priceFrames.get());
+        m.put("framesPerSec", elapsedSec > 0 ? Math.round(frames.get() / elapsedSec) : 0);
+        m.put("unmatchedLatency", unmatched.get());
+
+        if (latency != null) {
+            HistogramSnapshot snap = latency.takeSnapshot();
+            Map<String, Object> lat = new LinkedHashMap<>();
+            lat.put("count", snap.count());
+            lat.put("meanMs", snap.mean(TimeUnit.MILLISECONDS));
+            lat.put("maxMs", snap.max(TimeUnit.MILLISECONDS));
+            for (ValueAtPercentile p : snap.percentileValues()) {
+                lat.put("p" + trimPercent(p.percentile()) + "Ms", p.value(TimeUnit.MILLISECONDS));
+            }
+            m.put("latency", lat);
+        }
+        return m;
+    }
+
+    private void resetMeters() {
+        messages.set(0);
+        payloadBytes.set(0);
+        frames.set(0);
+        priceFrames.set(0);
+        unmatched.set(0);
+        if (framesCounter != null) meterRegistry.remove(framesCounter);
+        if (latency != null) meterRegistry.remove(latency);
+
+        framesCounter = Counter.builder("kis.sim.swarm.frames")
+                .description("스웜이 수신한 프레임 수")
+                .register(meterRegistry);
+        latency = Timer.builder("kis.sim.swarm.latency")
+                .description("시뮬레이터 송신 → 스웜 수신 지연")
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .register(meterRegistry);
+    }
+
+    private static String trimPercent(double p) {
+        String s = Double.toString(p * 100);
+        return s.endsWith(".0") ? s.substring(0, s.length() - 2) : s.replace('.', '_');
+    }
+
+    private class SwarmHandler extends TextWebSocketHandler {
+
+        @Override
+        protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+            long now = System.nanoTime();
+            messages.incrementAndGet();
+            // 압축 전 크기 (permessage-deflate는 클라이언트가 제안하지 않으므로 전송량과 같음)
+            payloadBytes.addAndGet(message.getPayloadLength());
+
+            String p = message.getPayload();
+            if (!p.startsWith(BATCH_PREFIX)) {
+                onFrame(p, now);
+                return;
+            }
+            // 원소는 중첩 객체가 없는 프레임이라 "},{" 로 나눔 (PRICE/CANDLE 필드에는 중괄호가 없음)
+            int start = BATCH_PREFIX.length();
+            int end = p.length() - 2;
+            while (start < end) {
+                int next = p.indexOf("},{", start);
+                int stop = next < 0 ? end : next + 1;
+                onFrame(p.substring(start, stop), now);
+                start = stop + 1;
+            }
+        }
+
+        private void onFrame(String p, long now) {
+            frames.incrementAndGet();
+            framesCounter.increment();
+
+            if (!p.startsWith("{\"type\":\"PRICE\"")) return;
+            priceFrames.incrementAndGet();
+
+            // ObjectMapper 없이 code / volume만 추출
+            String code = stringField(p, "\"code\":\"");
+            long seq = longField(p, "\"volume\":");
+            long sentAt = code == null || seq <= 0 ? -1 : simulator.emittedAt(code, seq);
+            if (sentAt < 0) {
+                unmatched.incrementAndGet();
+                return;
+            }
+            latency.record(now - sentAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static final String BATCH_PREFIX = "{\"type\":\"BATCH\",\"frames\":[";
+
+    private static String stringField(String s, String key) {
+        int i = s.indexOf(key);
+        if (i < 0) return null;
+        int start = i + key.length();
+        int end = s.indexOf('"', start);
+        return end < 0 ? null : s.substring(start, end);
+    }
+
+    private static long longField(String s, String key) {
+        int i = s.indexOf(key);
+        if (i < 0) return -1;
+        long v = 0;
+        for (int k = i + key.length(); k < s.length(); k++) {
+            char c = s.charAt(k);
+            if (c < '0' || c > '9') break;
+            v = v * 10 + (c - '0');
+        }
+        return v;
+    }
+}
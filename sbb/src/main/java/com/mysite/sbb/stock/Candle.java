@@ -0,0 +1,7 @@
+package com.mysite.sbb.stock;
+
+/**
+ * OHLCV 봉 1개 (REST 응답용). t = 봉 시작 epoch millis
+ */
+public record Candle(long t, long o, long h, long l, long c, long v) {
+}
@@ -0,0 +1,228 @@
+package com.mysite.sbb.stock;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.mysite.sbb.kis.KisMinuteBar;
+import com.mysite.sbb.kis.KisRealtimeClient;
+import com.mysite.sbb.kis.KisTick;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 실시간 틱 → 1s/1m/5m/1d OHLCV 봉 증분 집계.
+ * - 종목별로 봉 단위마다 CandleSeries 링 버퍼 하나 (primitive 배열, 틱당 할당 없음)
+ * - 봉이 바뀐 종목만 dirty 큐에 넣고, push-ms 주기로 최신 봉을 BarListener에 전달 (WS CANDLE 프레임)
+ * - 봉 시각은 체결시각(exchangeTime) 기준, 없으면 수신 시각
+ * - KIS 재연결 후 REST 분봉 백필은 1m/5m/1d 봉에 멱등 병합 (1s 봉은 메울 수 없음)
+ */
+@Slf4j
+@Component
+public class CandleAggregator {
+
+    private static final CandleInterval[] INTERVALS = CandleInterval.values();
+
+    @FunctionalInterface
+    public interface BarListener {
+        /** bar(T,O,H,L,C,V)는 flush 스레드가 재사용하는 배열이므로 호출 안에서만 사용할 것 */
+        void onBar(String code, CandleInterval interval, long[] bar);
+    }
+
+    // 봉 갱신 push 주기
+    @Value("${stock.candles.push-ms:1000}")
+    private long pushMs;
+
+    private final Map<String, CodeCandles> candles = new ConcurrentHashMap<>();
+    private final Queue<CodeCandles> dirty = new ConcurrentLinkedQueue<>();
+
+    private volatile BarListener listener = (code, interval, bar) -> {};
+
+    // candle-push 스레드 전용
+    private final long[][] scratch = new long[INTERVALS.length][CandleSeries.BAR_FIELDS];
+
+    private final ScheduledExecutorService pushExec =
+            Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "candle-push");
+                t.setDaemon(true);
+                return t;
+            });
+
+    public CandleAggregator(KisRealtimeClient realtimeClient) {
+        realtimeClient.addTickSink(this::onTick);
+        realtimeClient.addBackfillSink(this::onBackfill);
+    }
+
+    @PostConstruct
+    public void init() {
+        pushExec.scheduleAtFixedRate(this::flush, pushMs, pushMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pushExec.shutdownNow();
+    }
+
+    public void setBarListener(BarListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 최근 limit개 봉 (오래된 순). 집계된 적 없는 종목이면 빈 목록
+     */
+    public List<Candle> candles(String code, CandleInterval interval, int limit) {
+        CodeCandles cc = candles.get(code);
+        if (cc == null) return List.of();
+        synchronized (cc) {
+            return cc.series[interval.ordinal()].recent(limit);
+        }
+    }
+
+    /**
+     * KIS 리더 스레드에서 호출
+     */
+    private void onTick(KisTick tick) {
+        String code = tick.getCode();
+        CodeCandles cc = candles.get(code);
+        if (cc == null) {
+            cc = candles.computeIfAbsent(code, CodeCandles::new);
+        }
+
+        long ts = tick.getExchangeTimeMillis() > 0 ? tick.getExchangeTimeMillis() : tick.getReceivedAtMillis();
+        long price = tick.getPrice();
+        long qty = tick.getVolume();
+
+        synchronized (cc) {
+            for (int i = 0; i < INTERVALS.length; i++) {
+                if (cc.series[i].update(ts, price, qty)) cc.dirtyMask |= 1 << i;
+            }
+        }
+
+        if (cc.queued.compareAndSet(false, true)) {
+            dirty.add(cc);
+        }
+    }
+
+    /**
+     * REST 분봉 백필 (kis-backfill 스레드, bars는 오래된 순)
+     * - 1분봉 거래량은 max(실시간, REST): 모자란 만큼(add)만 더하고 같은 양을 5분봉/일봉에도 더함
+     *   → 같은 분봉이 다시 와도 add=0 이라 멱등. 고가/저가는 넓히기만
+     * - 끝난 분봉은 REST 시가/종가가 확정값이므로 덮어씀. 진행 중인 분은 실시간 값 유지
+     *   (링에 없으면 곧 들어올 실시간 틱과 거래량이 겹치므로 건너뜀)
+     * - 5분봉/일봉: 봉의 첫 분이 백필에 있으면 시가, 실시간 최신 분봉 이후까지 메웠으면 종가를 덮어씀
+     */
+    private void onBackfill(String code, List<KisMinuteBar> bars) {
+        CodeCandles cc = candles.computeIfAbsent(code, CodeCandles::new);
+        long currentMinute = CandleInterval.M1.bucketStart(System.currentTimeMillis());
+        int mask = 0;
+
+        synchronized (cc) {
+            CandleSeries m1 = cc.series[CandleInterval.M1.ordinal()];
+            long liveLatest = m1.latestStart();
+            long[] adds = new long[bars.size()];
+            for (int b = 0; b < bars.size(); b++) {
+                KisMinuteBar bar = bars.get(b);
+                long existing = m1.volumeAt(CandleInterval.M1.bucketStart(bar.startMillis()));
+                if (existing < 0 && bar.startMillis() >= currentMinute) {
+                    adds[b] = -1;
+                    continue;
+                }
+                adds[b] = Math.max(0, bar.volume() - Math.max(0, existing));
+            }
+
+            for (int i = 0; i < INTERVALS.length; i++) {
+                if (INTERVALS[i] == CandleInterval.S1) continue;
+                if (mergeBars(cc.series[i], INTERVALS[i], bars, adds, currentMinute, liveLatest)) mask |= 1 << i;
+            }
+            cc.dirtyMask |= mask;
+        }
+
+        if (mask != 0 && cc.queued.compareAndSet(false, true)) {
+            dirty.add(cc);
+        }
+    }
+
+    /**
+     * 분봉을 interval 봉 단위로 묶어(시가=첫 분봉, 종가=마지막 분봉) 봉마다 한 번씩 병합. cc 락 안에서 호출
+     */
+    private static boolean mergeBars(CandleSeries series, CandleInterval interval, List<KisMinuteBar> bars,
+                                     long[] adds, long currentMinute, long liveLatest) {
+        boolean changed = false;
+        int b = 0;
+        while (b < bars.size()) {
+            if (adds[b] < 0) {
+                b++;
+                continue;
+            }
+            KisMinuteBar first = bars.get(b);
+            long bucket = interval.bucketStart(first.startMillis());
+            long high = first.high(), low = first.low(), close = first.close(), add = 0;
+            long lastMinute = first.startMillis();
+            for (; b < bars.size() && interval.bucketStart(bars.get(b).startMillis()) == bucket; b++) {
+                if (adds[b] < 0) continue;
+                KisMinuteBar bar = bars.get(b);
+                high = Math.max(high, bar.high());
+                low = Math.min(low, bar.low());
+                close = bar.close();
+                add += adds[b];
+                lastMinute = bar.startMillis();
+            }
+            boolean complete = lastMinute < currentMinute;
+            boolean setOpen = first.startMillis() == bucket && first.startMillis() < currentMinute;
+            // 1분봉은 끝났으면 확정, 큰 봉은 그 뒤 실시간 분봉이 없을 때만
+            boolean setClose = complete && (interval == CandleInterval.M1 || lastMinute >= liveLatest);
+            changed |= series.merge(bucket, first.open(), high, low, close, add, setOpen, setClose);
+        }
+        return changed;
+    }
+
+    private void flush() {
+        try {
+            CodeCandles cc;
+            while ((cc = dirty.poll()) != null) {
+                cc.queued.set(false);
+
+                int mask;
+                synchronized (cc) {
+                    mask = cc.dirtyMask;
+                    cc.dirtyMask = 0;
+                    for (int i = 0; i < INTERVALS.length; i++) {
+                        if ((mask & (1 << i)) != 0) cc.series[i].latest(scratch[i]);
+                    }
+                }
+
+                for (int i = 0; i < INTERVALS.length; i++) {
+                    if ((mask & (1 << i)) != 0) listener.onBar(cc.code, INTERVALS[i], scratch[i]);
+                }
+            }
+        } catch (Exception e) {
+            // 예외가 나가면 scheduleAtFixedRate가 멈추므로 여기서 끊음
+            log.warn("[CANDLE] flush error", e);
+        }
+    }
+
+    private static final class CodeCandles {
+        final String code;
+        final CandleSeries[] series = new CandleSeries[INTERVALS.length];
+        final AtomicBoolean queued = new AtomicBoolean();
+        int dirtyMask;  // this 락 안에서만 접근
+
+        CodeCandles(String code) {
+            this.code = code;
+            for (int i = 0; i < INTERVALS.length; i++) {
+                series[i] = new CandleSeries(INTERVALS[i]);
+            }
+        }
+    }
+}
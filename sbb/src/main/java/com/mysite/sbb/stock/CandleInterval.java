@@ -0,0 +1,42 @@
+package com.mysite.sbb.stock;
+
+/**
+ * 캔들 봉 단위. 봉 시작 시각은 KST 기준으로 정렬 (일봉 = KST 자정)
+ */
+public enum CandleInterval {
+
+    S1("1s", 1_000L, 600),          // 10분
+    M1("1m", 60_000L, 480),         // 8시간 (정규장 + 여유)
+    M5("5m", 300_000L, 288),        // 24시간
+    D1("1d", 86_400_000L, 250);     // 약 1년 (거래일)
+
+    private static final long KST_OFFSET_MILLIS = 9L * 60 * 60 * 1000;
+
+    private final String label;
+    private final long millis;
+    private final int capacity;     // 종목별로 보관할 봉 수
+
+    CandleInterval(String label, long millis, int capacity) {
+        this.label = label;
+        this.millis = millis;
+        this.capacity = capacity;
+    }
+
+    public String label() { return label; }
+    public long millis() { return millis; }
+    int capacity() { return capacity; }
+
+    /** epoch millis가 속한 봉의 시작 시각 */
+    public long bucketStart(long epochMillis) {
+        return Math.floorDiv(epochMillis + KST_OFFSET_MILLIS, millis) * millis - KST_OFFSET_MILLIS;
+    }
+
+    /** "1m" → M1, 모르면 null */
+    public static CandleInterval of(String label) {
+        if (label == null) return null;
+        for (CandleInterval i : values()) {
+            if (i.label.equalsIgnoreCase(label.trim())) return i;
+        }
+        return null;
+    }
+}
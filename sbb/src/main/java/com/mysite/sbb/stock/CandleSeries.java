@@ -0,0 +1,196 @@
+package com.mysite.sbb.stock;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 종목 1개 × 봉 단위 1개의 OHLCV 링 버퍼 (컬럼별 long 배열).
+ * - 새 봉은 가장 오래된 봉 자리를 덮어씀 → 틱당 할당 없음
+ * - 늦게 도착한 틱은 링 안에 해당 봉이 있으면 고가/저가/거래량만 반영 (종가는 최신 봉만)
+ * - REST 백필 봉은 merge()로 링 중간에도 끼워 넣음 (드묾, 뒤쪽 봉을 한 칸씩 밀어냄)
+ *
+ * 스레드 안전하지 않음: CandleAggregator가 종목 단위로 동기화
+ */
+final class CandleSeries {
+
+    // bar[] 스크래치 인덱스
+    static final int T = 0, O = 1, H = 2, L = 3, C = 4, V = 5;
+    static final int BAR_FIELDS = 6;
+
+    private final CandleInterval interval;
+    private final int capacity;
+
+    private final long[] start;
+    private final long[] open;
+    private final long[] high;
+    private final long[] low;
+    private final long[] close;
+    private final long[] volume;
+
+    private int head = -1;  // 최신 봉 위치
+    private int size;
+
+    CandleSeries(CandleInterval interval) {
+        this.interval = interval;
+        this.capacity = interval.capacity();
+        this.start = new long[capacity];
+        this.open = new long[capacity];
+        this.high = new long[capacity];
+        this.low = new long[capacity];
+        this.close = new long[capacity];
+        this.volume = new long[capacity];
+    }
+
+    /**
+     * @return 봉이 바뀌었으면 true (링 밖의 오래된 틱이면 false)
+     */
+    boolean update(long epochMillis, long price, long qty) {
+        long bucket = interval.bucketStart(epochMillis);
+
+        if (size == 0 || bucket > start[head]) {
+            head = (head + 1) % capacity;
+            start[head] = bucket;
+            open[head] = price;
+            high[head] = price;
+            low[head] = price;
+            close[head] = price;
+            volume[head] = qty;
+            if (size < capacity) size++;
+            return true;
+        }
+
+        int i = head;
+        for (int k = 0; k < size; k++) {
+            long s = start[i];
+            if (s == bucket) {
+                if (price > high[i]) high[i] = price;
+                if (price < low[i]) low[i] = price;
+                if (i == head) close[i] = price;
+                volume[i] += qty;
+                return true;
+            }
+            if (s < bucket) return false;   // 틱이 없던 구간의 늦은 틱
+            i = i == 0 ? capacity - 1 : i - 1;
+        }
+        return false;
+    }
+
+    /** bucketStart 봉의 거래량. 링에 없으면 -1 */
+    long volumeAt(long bucketStart) {
+        int i = find(bucketStart);
+        return i < 0 ? -1 : volume[i];
+    }
+
+    /** 최신 봉의 시작 시각. 봉이 없으면 -1 */
+    long latestStart() {
+        return size == 0 ? -1 : start[head];
+    }
+
+    /**
+     * 백필 봉 병합. 있는 봉은 고가/저가를 넓히고 거래량에 addVolume을 더함.
+     * 시가/종가는 setOpen/setClose일 때만 덮어씀 (아니면 실시간 값 유지). 없는 봉은 그 자리에 새로 끼워 넣음
+     *
+     * @return 봉이 바뀌었으면 true (링보다 오래된 봉이면 false)
+     */
+    boolean merge(long epochMillis, long o, long h, long l, long c, long addVolume,
+                  boolean setOpen, boolean setClose) {
+        long bucket = interval.bucketStart(epochMillis);
+
+        // 새 봉 위치 = 논리 인덱스 pos (0 = 가장 오래된 봉)
+        int pos = size;
+        for (int k = size - 1; k >= 0; k--) {
+            int i = physical(k);
+            if (start[i] == bucket) {
+                boolean changed = addVolume != 0 || h > high[i] || l < low[i]
+                        || (setOpen && open[i] != o) || (setClose && close[i] != c);
+                if (h > high[i]) high[i] = h;
+                if (l < low[i]) low[i] = l;
+                if (setOpen) open[i] = o;
+                if (setClose) close[i] = c;
+                volume[i] += addVolume;
+                return changed;
+            }
+            if (start[i] < bucket) break;
+            pos = k;
+        }
+
+        if (pos == size) {
+            // 가장 최신 봉 뒤 (실시간 틱이 아직 없는 구간)
+            head = (head + 1) % capacity;
+            set(head, bucket, o, h, l, c, addVolume);
+            if (size < capacity) size++;
+            return true;
+        }
+
+        if (size == capacity) {
+            // 가장 오래된 봉을 버리고 pos 앞쪽 봉을 한 칸씩 당김
+            if (pos == 0) return false;
+            for (int k = 1; k < pos; k++) move(physical(k), physical(k - 1));
+            set(physical(pos - 1), bucket, o, h, l, c, addVolume);
+            return true;
+        }
+
+        // pos 이후 봉을 한 칸씩 뒤로 밀고 head 전진
+        head = (head + 1) % capacity;
+        size++;
+        for (int k = size - 1; k > pos; k--) move(physical(k - 1), physical(k));
+        set(physical(pos), bucket, o, h, l, c, addVolume);
+        return true;
+    }
+
+    /** 최신 봉을 bar[T..V]에 복사. 봉이 없으면 false */
+    boolean latest(long[] bar) {
+        if (size == 0) return false;
+        copy(head, bar);
+        return true;
+    }
+
+    /** 최근 limit개 봉 (오래된 순) */
+    List<Candle> recent(int limit) {
+        int n = Math.min(limit, size);
+        List<Candle> out = new ArrayList<>(n);
+        int i = Math.floorMod(head - n + 1, capacity);
+        for (int k = 0; k < n; k++) {
+            out.add(new Candle(start[i], open[i], high[i], low[i], close[i], volume[i]));
+            i = (i + 1) % capacity;
+        }
+        return out;
+    }
+
+    private int find(long bucketStart) {
+        int i = head;
+        for (int k = 0; k < size; k++) {
+            if (start[i] == bucketStart) return i;
+            if (start[i] < bucketStart) return -1;
+            i = i == 0 ? capacity - 1 : i - 1;
+        }
+        return -1;
+    }
+
+    /** 논리 인덱스(0 = 가장 오래된 봉) → 배열 위치 */
+    private int physical(int k) {
+        return Math.floorMod(head - size + 1 + k, capacity);
+    }
+
+    private void move(int from, int to) {
+        set(to, start[from], open[from], high[from], low[from], close[from], volume[from]);
+    }
+
+    private void set(int i, long t, long o, long h, long l, long c, long v) {
+        start[i] = t;
+        open[i] = o;
+        high[i] = h;
+        low[i] = l;
+        close[i] = c;
+        volume[i] = v;
+    }
+
+    private void copy(int i, long[] bar) {
+        bar[T] = start[i];
+        bar[O] = open[i];
+        bar[H] = high[i];
+        bar[L] = low[i];
+        bar[C] = close[i];
+        bar[V] = volume[i];
+    }
+}
@@ -0,0 +1,164 @@
+package com.mysite.sbb.stock;
+
+import java.util.Arrays;
+
+/**
+ * id(0부터 붙인 int) → long 키 최대 힙 + id별 힙 위치 인덱스.
+ * - set(키 변경/삽입)과 remove는 O(log n), 키가 그대로면 O(1). 틱당 할당 없음
+ * - top(n)은 힙을 위에서부터 best-first로 훑어 O(n log n) (전체 정렬 없음)
+ * - 키가 같으면 id가 작은 쪽이 위 (순위가 흔들리지 않게)
+ *
+ * 스레드 안전하지 않음: MoversBoard가 락으로 보호
+ */
+final class IndexedHeap {
+
+    private int[] heap = new int[64];   // 힙 위치 → id
+    private int[] pos = new int[64];    // id → 힙 위치 (-1 = 없음)
+    private long[] key = new long[64];  // id → 키
+    private int size;
+
+    // top() 후보 힙 (힙 위치를 담음)
+    private int[] cand = new int[16];
+
+    IndexedHeap() {
+        Arrays.fill(pos, -1);
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(int id) {
+        return id < pos.length && pos[id] >= 0;
+    }
+
+    void set(int id, long k) {
+        ensureId(id);
+        int p = pos[id];
+        if (p < 0) {
+            if (size == heap.length) heap = Arrays.copyOf(heap, size * 2);
+            key[id] = k;
+            heap[size] = id;
+            pos[id] = size;
+            siftUp(size++);
+            return;
+        }
+        long old = key[id];
+        if (old == k) return;
+        key[id] = k;
+        if (k > old) siftUp(p);
+        else siftDown(p);
+    }
+
+    void remove(int id) {
+        if (!contains(id)) return;
+        int p = pos[id];
+        int last = heap[--size];
+        pos[id] = -1;
+        if (p == size) return;
+
+        heap[p] = last;
+        pos[last] = p;
+        siftUp(p);
+        siftDown(pos[last]);
+    }
+
+    /**
+     * 키가 큰 순서로 최대 n개 id를 out에 채움
+     *
+     * @return 채운 개수
+     */
+    int top(int n, int[] out) {
+        int limit = Math.min(n, Math.min(size, out.length));
+        if (limit == 0) return 0;
+        if (cand.length < limit * 2 + 2) cand = new int[limit * 2 + 2];
+
+        // 후보 = 아직 안 꺼낸 노드 중 부모가 이미 꺼내진 노드. 그중 최대가 다음 순위
+        int candSize = 0;
+        cand[candSize++] = 0;
+        int count = 0;
+        while (count < limit) {
+            int best = cand[0];
+            cand[0] = cand[--candSize];
+            candSiftDown(0, candSize);
+
+            out[count++] = heap[best];
+            for (int c = 2 * best + 1; c <= 2 * best + 2 && c < size; c++) {
+                cand[candSize] = c;
+                candSiftUp(candSize++);
+            }
+        }
+        return count;
+    }
+
+    long keyOf(int id) {
+        return key[id];
+    }
+
+    // a가 b보다 위면 true
+    private boolean above(int a, int b) {
+        return key[a] > key[b] || (key[a] == key[b] && a < b);
+    }
+
+    private void siftUp(int p) {
+        int id = heap[p];
+        while (p > 0) {
+            int parent = (p - 1) >>> 1;
+            if (!above(id, heap[parent])) break;
+            heap[p] = heap[parent];
+            pos[heap[p]] = p;
+            p = parent;
+        }
+        heap[p] = id;
+        pos[id] = p;
+    }
+
+    private void siftDown(int p) {
+        int id = heap[p];
+        while (true) {
+            int c = 2 * p + 1;
+            if (c >= size) break;
+            if (c + 1 < size && above(heap[c + 1], heap[c])) c++;
+            if (!above(heap[c], id)) break;
+            heap[p] = heap[c];
+            pos[heap[p]] = p;
+            p = c;
+        }
+        heap[p] = id;
+        pos[id] = p;
+    }
+
+    private void candSiftUp(int i) {
+        int v = cand[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!above(heap[v], heap[cand[parent]])) break;
+            cand[i] = cand[parent];
+            i = parent;
+        }
+        cand[i] = v;
+    }
+
+    private void candSiftDown(int i, int n) {
+        if (n == 0) return;
+        int v = cand[i];
+        while (true) {
+            int c = 2 * i + 1;
+            if (c >= n) break;
+            if (c + 1 < n && above(heap[cand[c + 1]], heap[cand[c]])) c++;
+            if (!above(heap[cand[c]], heap[v])) break;
+            cand[i] = cand[c];
+            i = c;
+        }
+        cand[i] = v;
+    }
+
+    private void ensureId(int id) {
+        if (id < pos.length) return;
+        int len = Math.max(id + 1, pos.length * 2);
+        int old = pos.length;
+        pos = Arrays.copyOf(pos, len);
+        Arrays.fill(pos, old, len, -1);
+        key = Arrays.copyOf(key, len);
+    }
+}
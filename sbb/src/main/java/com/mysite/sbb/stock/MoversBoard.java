@@ -0,0 +1,228 @@
+package com.mysite.sbb.stock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.mysite.sbb.kis.KisRealtimeClient;
+import com.mysite.sbb.kis.KisTick;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 시장 상승률/하락률/거래량 상위 종목 (랜딩 페이지 위젯).
+ * - 틱이 들어오는 모든 종목(사용자 구독 + background-codes 상시 구독)이 대상
+ * - 틱마다 종목 id의 키만 IndexedHeap 3개(등락률 ↑, 등락률 ↓, 누적 거래량)에서 O(log n) 갱신. 정렬 재계산 없음
+ * - 조회/푸시 때만 top(n)으로 상위 n개를 꺼냄. 종목명은 stock_master에서 조회해 캐시
+ * - push-ms마다 바뀐 게 있으면 MoversListener로 전달 (WS MOVERS 프레임)
+ */
+@Slf4j
+@Component
+public class MoversBoard {
+
+    @FunctionalInterface
+    public interface MoversListener {
+        void onMovers(Movers movers);
+    }
+
+    public record Mover(String code, String name, long price, long changeRateBp, long volume) {}
+
+    public record Movers(long version, List<Mover> gainers, List<Mover> losers, List<Mover> volume) {}
+
+    // 사용자 구독이 없어도 순위에 넣을 종목 (콤마 구분)
+    @Value("${stock.movers.background-codes:}")
+    private List<String> backgroundCodes;
+
+    // 순위당 종목 수 (WS push 기준, REST는 요청 limit)
+    @Value("${stock.movers.size:10}")
+    private int size;
+
+    @Value("${stock.movers.push-ms:1000}")
+    private long pushMs;
+
+    private final KisRealtimeClient kisClient;
+    private final StockMasterService stockMasterService;
+
+    // 종목코드 → id (id는 배열 인덱스, 한 번 붙으면 유지)
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final Map<String, String> names = new ConcurrentHashMap<>();
+
+    // 아래 필드는 this 락 안에서만
+    private String[] codes = new String[64];
+    private long[] price = new long[64];
+    private long[] rateBp = new long[64];
+    private long[] volume = new long[64];
+    private final IndexedHeap gainers = new IndexedHeap();
+    private final IndexedHeap losers = new IndexedHeap();
+    private final IndexedHeap volumeLeaders = new IndexedHeap();
+    private long version;
+
+    private volatile MoversListener listener = movers -> {};
+    private long pushedVersion = -1;    // movers-push 스레드 전용
+    private volatile Movers pushed;     // movers-push 스레드가 씀
+
+    // 상시 구독용 리스너 (순위는 tick sink로 받으므로 하는 일 없음)
+    private final KisRealtimeClient.StockPriceListener backgroundListener = tick -> {};
+
+    private final ScheduledExecutorService pushExec =
+            Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "movers-push");
+                t.setDaemon(true);
+                return t;
+            });
+
+    public MoversBoard(KisRealtimeClient kisClient, StockMasterService stockMasterService) {
+        this.kisClient = kisClient;
+        this.stockMasterService = stockMasterService;
+        kisClient.addTickSink(this::onTick);
+    }
+
+    @PostConstruct
+    public void init() {
+        for (String code : backgroundCodes) {
+            if (!code.isBlank()) kisClient.subscribe(code.trim(), backgroundListener);
+        }
+        pushExec.scheduleAtFixedRate(this::push, pushMs, pushMs, TimeUnit.MILLISECONDS);
+        log.info("[MOVERS] started. backgroundCodes={}, size={}", backgroundCodes.size(), size);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pushExec.shutdownNow();
+    }
+
+    public void setMoversListener(MoversListener listener) {
+        this.listener = listener;
+    }
+
+    /** 마지막으로 push한 순위 (없으면 지금 계산) */
+    public Movers latest() {
+        Movers m = pushed;
+        return m != null ? m : snapshot(size);
+    }
+
+    /**
+     * 순위별 상위 limit개
+     */
+    public Movers snapshot(int limit) {
+        int n = Math.max(1, limit);
+        int[] out = new int[n];
+        List<Mover> g, l, v;
+        long ver;
+        synchronized (this) {
+            ver = version;
+            g = collect(gainers, n, out);
+            l = collect(losers, n, out);
+            v = collect(volumeLeaders, n, out);
+        }
+        return new Movers(ver, withNames(g), withNames(l), withNames(v));
+    }
+
+    /**
+     * kis-dispatch 스레드에서 호출
+     */
+    private void onTick(KisTick tick) {
+        String code = tick.getCode();
+        Integer id = ids.get(code);
+        if (id == null) id = register(code);
+
+        synchronized (this) {
+            int i = id;
+            long rate = tick.getChangeRateBp();
+            long acc = tick.getAccumulatedVolume();
+            if (price[i] == tick.getPrice() && rateBp[i] == rate && volume[i] == acc && gainers.contains(i)) return;
+
+            price[i] = tick.getPrice();
+            rateBp[i] = rate;
+            volume[i] = acc;
+            gainers.set(i, rate);
+            losers.set(i, -rate);
+            volumeLeaders.set(i, acc);
+            version++;
+        }
+    }
+
+    private synchronized int register(String code) {
+        Integer id = ids.get(code);
+        if (id != null) return id;
+
+        int i = ids.size();
+        if (i == codes.length) {
+            int len = i * 2;
+            codes = Arrays.copyOf(codes, len);
+            price = Arrays.copyOf(price, len);
+            rateBp = Arrays.copyOf(rateBp, len);
+            volume = Arrays.copyOf(volume, len);
+        }
+        codes[i] = code;
+        ids.put(code, i);
+        return i;
+    }
+
+    // this 락 안에서 호출
+    private List<Mover> collect(IndexedHeap heap, int n, int[] out) {
+        int count = heap.top(n, out);
+        List<Mover> list = new ArrayList<>(count);
+        for (int k = 0; k < count; k++) {
+            int i = out[k];
+            list.add(new Mover(codes[i], null, price[i], rateBp[i], volume[i]));
+        }
+        return list;
+    }
+
+    private List<Mover> withNames(List<Mover> list) {
+        List<Mover> named = new ArrayList<>(list.size());
+        for (Mover m : list) {
+            named.add(new Mover(m.code(), nameOf(m.code()), m.price(), m.changeRateBp(), m.volume()));
+        }
+        return named;
+    }
+
+    private String nameOf(String code) {
+        String name = names.get(code);
+        if (name != null) return name;
+        try {
+            StockInfo info = stockMasterService.getOrNull(code);
+            name = info != null && info.name() != null ? info.name() : code;
+        } catch (Exception e) {
+            log.warn("[MOVERS] stock master lookup failed. code={}", code, e);
+            return code;
+        }
+        names.put(code, name);
+        return name;
+    }
+
+    private void push() {
+        try {
+            long ver;
+            synchronized (this) {
+                ver = version;
+            }
+            if (ver == pushedVersion) return;
+            pushedVersion = ver;
+
+            Movers movers = snapshot(size);
+            // 틱은 들어왔어도 상위 n개가 그대로면 보내지 않음
+            if (pushed != null && sameRanking(pushed, movers)) return;
+            pushed = movers;
+            listener.onMovers(movers);
+        } catch (Exception e) {
+            // 예외가 나가면 scheduleAtFixedRate가 멈추므로 여기서 끊음
+            log.warn("[MOVERS] push error", e);
+        }
+    }
+
+    private static boolean sameRanking(Movers a, Movers b) {
+        return a.gainers().equals(b.gainers()) && a.losers().equals(b.losers()) && a.volume().equals(b.volume());
+    }
+}
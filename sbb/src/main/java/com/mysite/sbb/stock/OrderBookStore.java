@@ -0,0 +1,223 @@
+package com.mysite.sbb.stock;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.mysite.sbb.kis.KisBookQuote;
+import com.mysite.sbb.kis.KisRealtimeClient;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 실시간 호가(H0STASP0) → 종목별 10단계 호가창 상태 + 레벨 diff push.
+ * - 종목별 OrderBook은 미리 할당한 long 배열 (boxed map 없음, 호가 1건당 할당 없음)
+ * - 호가가 들어오면 바뀐 레벨만 dirty 비트로 표시하고, push-hz 주기로 바뀐 레벨만 BookListener에 전달
+ * - diff는 레벨의 절대값(가격/잔량)이라 같은 diff를 두 번 적용해도 결과가 같음
+ * - flush마다 종목별 seq 증가 → 클라이언트가 seq 누락을 보면 스냅샷(full)을 다시 요청
+ */
+@Slf4j
+@Component
+public class OrderBookStore {
+
+    static final int LEVELS = KisBookQuote.LEVELS;
+
+    // dirty 비트: 0~9 매도 레벨, 10~19 매수 레벨, 20 총잔량
+    static final int ASK_BITS = (1 << LEVELS) - 1;
+    static final int BID_BITS = ASK_BITS << LEVELS;
+    static final int TOTAL_BIT = 1 << (2 * LEVELS);
+    static final int ALL_BITS = ASK_BITS | BID_BITS | TOTAL_BIT;
+
+    @FunctionalInterface
+    public interface BookListener {
+        /** book은 flush 스레드가 재사용하는 객체이므로 호출 안에서만 사용할 것 */
+        void onBook(OrderBook book, int mask);
+    }
+
+    @Value("${stock.book.push-hz:10}")
+    private int pushHz;
+
+    private final KisRealtimeClient realtimeClient;
+
+    private final Map<String, OrderBook> books = new ConcurrentHashMap<>();
+    private final Queue<OrderBook> dirty = new ConcurrentLinkedQueue<>();
+
+    private volatile BookListener listener = (book, mask) -> {};
+
+    // 종목 관계없이 리스너 1개 (KisRealtimeClient는 종목별 Set으로 관리)
+    private final KisRealtimeClient.OrderBookListener quoteListener = this::onQuote;
+
+    // book-push 스레드 전용
+    private final OrderBook scratch = new OrderBook(null);
+
+    private final ScheduledExecutorService pushExec =
+            Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "book-push");
+                t.setDaemon(true);
+                return t;
+            });
+
+    public OrderBookStore(KisRealtimeClient realtimeClient) {
+        this.realtimeClient = realtimeClient;
+    }
+
+    @PostConstruct
+    public void init() {
+        long periodMicros = 1_000_000L / Math.max(1, pushHz);
+        pushExec.scheduleAtFixedRate(this::flush, periodMicros, periodMicros, TimeUnit.MICROSECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pushExec.shutdownNow();
+    }
+
+    public void setBookListener(BookListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 첫 구독자가 생길 때 호출. KIS에 호가 등록
+     */
+    public void watch(String code) throws Exception {
+        books.computeIfAbsent(code, OrderBook::new);
+        realtimeClient.subscribeBook(code, quoteListener);
+    }
+
+    /**
+     * 마지막 구독자가 떠날 때 호출. KIS 호가 해지 + 상태 제거
+     */
+    public void unwatch(String code) throws Exception {
+        try {
+            realtimeClient.unsubscribeBook(code, quoteListener);
+        } finally {
+            books.remove(code);
+        }
+    }
+
+    /**
+     * 현재 호가창 복사본. 아직 호가를 한 번도 못 받았으면 null
+     */
+    OrderBook snapshot(String code) {
+        OrderBook b = books.get(code);
+        if (b == null) return null;
+
+        OrderBook copy = new OrderBook(code);
+        synchronized (b) {
+            if (b.quoteTime == 0 && b.askPrice[0] == 0 && b.bidPrice[0] == 0) return null;
+            copy.copyFrom(b);
+        }
+        return copy;
+    }
+
+    /**
+     * KIS 리더 스레드(또는 클러스터 수신 스레드)에서 호출
+     */
+    private void onQuote(KisBookQuote quote) {
+        OrderBook b = books.get(quote.getCode());
+        if (b == null) return;  // unwatch 이후 늦게 도착한 호가
+
+        boolean changed;
+        synchronized (b) {
+            changed = b.apply(quote);
+        }
+
+        if (changed && b.queued.compareAndSet(false, true)) {
+            dirty.add(b);
+        }
+    }
+
+    private void flush() {
+        try {
+            OrderBook b;
+            while ((b = dirty.poll()) != null) {
+                b.queued.set(false);
+
+                int mask;
+                synchronized (b) {
+                    mask = b.dirtyMask;
+                    if (mask == 0) continue;
+                    b.dirtyMask = 0;
+                    b.seq++;
+                    scratch.copyFrom(b);
+                }
+                listener.onBook(scratch, mask);
+            }
+        } catch (Exception e) {
+            // 예외가 나가면 scheduleAtFixedRate가 멈추므로 여기서 끊음
+            log.warn("[BOOK] flush error", e);
+        }
+    }
+
+    /**
+     * 종목 1개 호가창. 필드는 this 락 안에서만 접근 (flush/snapshot 복사본은 예외)
+     */
+    static final class OrderBook {
+        String code;
+        long seq;           // 마지막으로 push한 diff 번호
+        int quoteTime;      // HHMMSS
+        long totalAskQty;
+        long totalBidQty;
+
+        final long[] askPrice = new long[LEVELS];
+        final long[] askQty = new long[LEVELS];
+        final long[] bidPrice = new long[LEVELS];
+        final long[] bidQty = new long[LEVELS];
+
+        int dirtyMask;
+        final AtomicBoolean queued = new AtomicBoolean();
+
+        OrderBook(String code) {
+            this.code = code;
+        }
+
+        /** @return 바뀐 레벨이 있으면 true */
+        boolean apply(KisBookQuote q) {
+            int mask = 0;
+            for (int i = 0; i < LEVELS; i++) {
+                long ap = q.getAskPrice(i), aq = q.getAskQty(i);
+                if (askPrice[i] != ap || askQty[i] != aq) {
+                    askPrice[i] = ap;
+                    askQty[i] = aq;
+                    mask |= 1 << i;
+                }
+                long bp = q.getBidPrice(i), bq = q.getBidQty(i);
+                if (bidPrice[i] != bp || bidQty[i] != bq) {
+                    bidPrice[i] = bp;
+                    bidQty[i] = bq;
+                    mask |= 1 << (LEVELS + i);
+                }
+            }
+            if (totalAskQty != q.getTotalAskQty() || totalBidQty != q.getTotalBidQty()) {
+                totalAskQty = q.getTotalAskQty();
+                totalBidQty = q.getTotalBidQty();
+                mask |= TOTAL_BIT;
+            }
+            quoteTime = q.getQuoteTime();
+            dirtyMask |= mask;
+            return mask != 0;
+        }
+
+        void copyFrom(OrderBook o) {
+            code = o.code;
+            seq = o.seq;
+            quoteTime = o.quoteTime;
+            totalAskQty = o.totalAskQty;
+            totalBidQty = o.totalBidQty;
+            System.arraycopy(o.askPrice, 0, askPrice, 0, LEVELS);
+            System.arraycopy(o.askQty, 0, askQty, 0, LEVELS);
+            System.arraycopy(o.bidPrice, 0, bidPrice, 0, LEVELS);
+            System.arraycopy(o.bidQty, 0, bidQty, 0, LEVELS);
+        }
+    }
+}
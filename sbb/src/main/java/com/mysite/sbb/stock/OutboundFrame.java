@@ -0,0 +1,28 @@
+package com.mysite.sbb.stock;
+
+import org.springframework.web.socket.TextMessage;
+
+import com.mysite.sbb.kis.KisTick;
+
+/**
+ * 송신 큐 항목. 시세 프레임이면 지연 측정용 원본 틱 시각을 같이 들고 감
+ * (같은 프레임을 받는 세션 전체가 인스턴스 하나를 공유)
+ *
+ * @param code               지연 집계용 종목코드 (없으면 null)
+ * @param receivedAtNanos    틱 수신 nanoTime (0이면 측정 안 함)
+ * @param exchangeTimeMillis 체결시각 epoch millis (0이면 측정 안 함)
+ */
+record OutboundFrame(TextMessage message, String code, long receivedAtNanos, long exchangeTimeMillis) {
+
+    static OutboundFrame of(TextMessage message) {
+        return new OutboundFrame(message, null, 0, 0);
+    }
+
+    static OutboundFrame of(TextMessage message, KisTick tick) {
+        return new OutboundFrame(message, tick.getCode(), tick.getReceivedAtNanos(), tick.getExchangeTimeMillis());
+    }
+
+    boolean timed() {
+        return receivedAtNanos != 0 || exchangeTimeMillis != 0;
+    }
+}
@@ -0,0 +1,202 @@
+package com.mysite.sbb.stock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 브라우저 세션 1개의 송신 큐.
+ * - KIS 스레드는 offer()로 큐에 넣기만 하고, 실제 sendMessage는 sender 풀에서 세션당 1개 스레드만 수행
+ * - 큐가 가득 차면 정책에 따라
+ *   CONFLATE: 종목별 최신 프레임만 남김 (중간 틱은 버림)
+ *   DISCONNECT: 느린 클라이언트로 보고 세션 종료
+ * - 큐 끝 몇 칸은 키 없는 제어 프레임(ALERT/SUBSCRIBED/ERROR) 몫으로 남겨 둠
+ *   → 시세가 큐를 채워 conflate 중이어도 알림 하나 때문에 세션이 끊기지 않음. 예비 칸까지 차면 정책과 무관하게 종료
+ * - batch 모드(접속 시 ?batch=1)면 첫 프레임 이후 batch-window-ms 동안 모인 프레임을 BATCH 프레임 1개로 보냄
+ *   (sendMessage/프레임 헤더/압축 flush가 틱 수가 아니라 창 수만큼만 듦)
+ */
+@Slf4j
+final class OutboundSession {
+
+    enum OverflowPolicy { CONFLATE, DISCONNECT }
+
+    // 한 번 drain에서 보낼 최대 프레임 수 (다른 세션에게 스레드 양보)
+    private static final int DRAIN_BATCH = 64;
+
+    // 제어 프레임 예비 칸 (큐 크기의 1/4 이하)
+    private static final int CONTROL_HEADROOM = 16;
+
+    private final WebSocketSession session;
+    private final StockWsOutbound owner;
+    private final ArrayBlockingQueue<OutboundFrame> queue;
+    private final int keyedLimit;   // 키 있는 프레임이 쓸 수 있는 큐 칸 수
+    private final boolean batch;
+
+    // batch 모드 drain 버퍼 (drain 스레드 전용)
+    private final List<OutboundFrame> batchFrames;
+
+    // 오버플로 이후 종목별 최신 프레임 (conflated 모드)
+    private final Map<String, OutboundFrame> conflated = new ConcurrentHashMap<>();
+
+    // drain 작업이 스케줄/실행 중인지 (세션당 송신 스레드 1개 보장)
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+    private volatile boolean closed;
+
+    OutboundSession(WebSocketSession session, StockWsOutbound owner, int capacity, boolean batch) {
+        this.session = session;
+        this.owner = owner;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.keyedLimit = capacity - Math.min(CONTROL_HEADROOM, capacity / 4);
+        this.batch = batch;
+        this.batchFrames = batch ? new ArrayList<>(DRAIN_BATCH) : null;
+    }
+
+    /**
+     * @param code 시세 프레임이면 종목코드 (conflation 키), 제어 프레임이면 null
+     */
+    void offer(String code, OutboundFrame frame) {
+        if (closed) return;
+
+        if (code == null) {
+            // 제어 프레임은 예비 칸까지 씀. 그것마저 찼으면 정말 못 따라오는 세션
+            if (!queue.offer(frame)) {
+                owner.recordDropped();
+                disconnectSlow();
+                return;
+            }
+        } else if (!conflated.isEmpty()) {
+            // 이미 conflated 모드면 순서 보장을 위해 시세 프레임은 계속 맵으로
+            conflate(code, frame);
+        } else if (queue.size() >= keyedLimit || !queue.offer(frame)) {
+            // size 확인과 offer 사이에 생산자 수만큼 넘칠 수 있으나 예비 칸 안에서 끝남
+            if (owner.overflowPolicy() == OverflowPolicy.DISCONNECT) {
+                owner.recordDropped();
+                disconnectSlow();
+                return;
+            }
+            conflate(code, frame);
+        }
+        schedule(batch);
+    }
+
+    int depth() {
+        return queue.size() + conflated.size();
+    }
+
+    WebSocketSession session() {
+        return session;
+    }
+
+    void close() {
+        closed = true;
+        queue.clear();
+        conflated.clear();
+    }
+
+    private void conflate(String code, OutboundFrame frame) {
+        if (conflated.put(code, frame) != null) {
+            owner.recordDropped();
+        }
+    }
+
+    /**
+     * @param delayed batch 창만큼 기다렸다가 drain (창이 이미 돌고 있으면 그 창에 합류)
+     */
+    private void schedule(boolean delayed) {
+        if (scheduled.compareAndSet(false, true)) {
+            if (delayed) owner.executeAfterBatchWindow(this::drain);
+            else owner.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            if (batch) {
+                drainBatch();
+                return;
+            }
+            for (int i = 0; i < DRAIN_BATCH && !closed; i++) {
+                OutboundFrame m = next();
+                if (m == null) break;
+                send(m);
+            }
+        } finally {
+            scheduled.set(false);
+            // 끝나는 사이에 들어온 프레임이 있으면 다시 스케줄 (이미 창을 기다린 뒤라 바로)
+            if (!closed && (!queue.isEmpty() || !conflated.isEmpty())) {
+                schedule(false);
+            }
+        }
+    }
+
+    private void drainBatch() {
+        batchFrames.clear();
+        while (batchFrames.size() < DRAIN_BATCH && !closed) {
+            OutboundFrame m = next();
+            if (m == null) break;
+            batchFrames.add(m);
+        }
+        if (batchFrames.isEmpty()) return;
+
+        if (batchFrames.size() == 1) {
+            send(batchFrames.get(0));
+        } else if (sendMessage(StockFrames.batch(batchFrames))) {
+            for (OutboundFrame m : batchFrames) owner.recordSent(session, m);
+            owner.recordBatch();
+        }
+        batchFrames.clear();
+    }
+
+    private OutboundFrame next() {
+        OutboundFrame m = queue.poll();
+        return m != null ? m : pollConflated();
+    }
+
+    private OutboundFrame pollConflated() {
+        for (String code : conflated.keySet()) {
+            OutboundFrame m = conflated.remove(code);
+            if (m != null) return m;
+        }
+        return null;
+    }
+
+    private void send(OutboundFrame m) {
+        if (sendMessage(m.message())) owner.recordSent(session, m);
+    }
+
+    private boolean sendMessage(TextMessage message) {
+        if (!session.isOpen()) {
+            close();
+            return false;
+        }
+        try {
+            session.sendMessage(message);
+            return true;
+        } catch (Exception e) {
+            // send timeout 포함: 더 보내봐야 밀리기만 하므로 끊음
+            log.debug("[WS] send fail session={}", session.getId(), e);
+            disconnectSlow();
+            return false;
+        }
+    }
+
+    private void disconnectSlow() {
+        if (closed) return;
+        close();
+        owner.recordSlowDisconnect();
+        log.warn("[WS] slow consumer disconnected session={}", session.getId());
+        try {
+            session.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (Exception ignore) {}
+    }
+}
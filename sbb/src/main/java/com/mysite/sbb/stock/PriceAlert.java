@@ -0,0 +1,77 @@
+package com.mysite.sbb.stock;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 사용자 시세 알림 (1회성: 조건을 처음 만족한 틱에서 firedAt 기록 후 끝)
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "price_alert", indexes = {
+        @Index(name = "idx_price_alert_username", columnList = "username"),
+        @Index(name = "idx_price_alert_fired_at", columnList = "fired_at")
+})
+public class PriceAlert {
+
+    public enum Kind {
+        PRICE_ABOVE,    // 현재가 >= threshold(원)
+        PRICE_BELOW,    // 현재가 <= threshold(원)
+        RATE_ABOVE,     // 전일 대비율 >= threshold(bp)
+        RATE_BELOW;     // 전일 대비율 <= threshold(bp)
+
+        boolean above() {
+            return this == PRICE_ABOVE || this == RATE_ABOVE;
+        }
+
+        boolean rate() {
+            return this == RATE_ABOVE || this == RATE_BELOW;
+        }
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String username;
+
+    @Column(length = 6, nullable = false)
+    private String code;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16, nullable = false)
+    private Kind kind;
+
+    // 가격 알림은 원, 등락률 알림은 bp (1% = 100)
+    @Column(nullable = false)
+    private long threshold;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    // null이면 대기 중
+    @Column(name = "fired_at")
+    private LocalDateTime firedAt;
+
+    @Column(name = "fired_price")
+    private Long firedPrice;
+
+    @PrePersist
+    public void prePersist() {
+        this.createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,116 @@
+package com.mysite.sbb.stock;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.security.Principal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * 시세 알림 API (로그인 필요). 발생한 알림은 /ws/stock 으로 ALERT 프레임이 옴
+ * - POST   /api/alerts       {"code":"005930","kind":"PRICE_ABOVE","threshold":72000}
+ *                            {"code":"005930","kind":"RATE_BELOW","threshold":-3.5}  (등락률은 %)
+ * - GET    /api/alerts       내 알림 (발생한 것 포함, 최신순)
+ * - DELETE /api/alerts/{id}
+ */
+@RestController
+@RequestMapping("/api/alerts")
+public class PriceAlertController {
+
+    public record AlertRequest(String code, String kind, BigDecimal threshold) {}
+
+    // 등락률 threshold는 % 단위로 돌려줌
+    public record AlertView(Long id, String code, String name, PriceAlert.Kind kind, BigDecimal threshold,
+                            LocalDateTime createdAt, LocalDateTime firedAt, Long firedPrice) {}
+
+    @Value("${stock.alert.max-per-user:100}")
+    private int maxPerUser;
+
+    private final PriceAlertService alertService;
+    private final StockMasterService stockMasterService;
+
+    public PriceAlertController(PriceAlertService alertService, StockMasterService stockMasterService) {
+        this.alertService = alertService;
+        this.stockMasterService = stockMasterService;
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public AlertView create(@RequestBody AlertRequest req, Principal principal) {
+        String username = usernameOf(principal);
+
+        String code = req.code() == null ? "" : req.code().trim();
+        StockInfo info = code.isEmpty() ? null : stockMasterService.getOrNull(code);
+        if (info == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown stock code: " + code);
+        }
+
+        PriceAlert.Kind kind;
+        try {
+            kind = PriceAlert.Kind.valueOf(String.valueOf(req.kind()));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "kind must be one of PRICE_ABOVE, PRICE_BELOW, RATE_ABOVE, RATE_BELOW");
+        }
+
+        if (req.threshold() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "threshold is required");
+        }
+        long threshold;
+        try {
+            threshold = kind.rate()
+                    ? req.threshold().movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact()
+                    : req.threshold().setScale(0, RoundingMode.HALF_UP).longValueExact();
+        } catch (ArithmeticException e) {
+            // long 범위를 넘는 값
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "threshold out of range");
+        }
+        if (!kind.rate() && threshold <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "price threshold must be positive");
+        }
+
+        if (alertService.countActive(username) >= maxPerUser) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "too many alerts (max " + maxPerUser + ")");
+        }
+
+        return view(alertService.create(username, info.code(), kind, threshold), info.name());
+    }
+
+    @GetMapping
+    public List<AlertView> list(Principal principal) {
+        return alertService.list(usernameOf(principal)).stream()
+                .map(a -> view(a, nameOf(a.getCode())))
+                .toList();
+    }
+
+    @DeleteMapping("/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void delete(@PathVariable("id") Long id, Principal principal) {
+        alertService.delete(usernameOf(principal), id);
+    }
+
+    private static String usernameOf(Principal principal) {
+        if (principal == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "login required");
+        }
+        return principal.getName();
+    }
+
+    private String nameOf(String code) {
+        StockInfo info = stockMasterService.getOrNull(code);
+        return info != null ? info.name() : code;
+    }
+
+    private static AlertView view(PriceAlert a, String name) {
+        BigDecimal threshold = a.getKind().rate()
+                ? BigDecimal.valueOf(a.getThreshold(), 2)
+                : BigDecimal.valueOf(a.getThreshold());
+        return new AlertView(a.getId(), a.getCode(), name, a.getKind(), threshold,
+                a.getCreatedAt(), a.getFiredAt(), a.getFiredPrice());
+    }
+}
@@ -0,0 +1,269 @@
+package com.mysite.sbb.stock;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.stereotype.Component;
+
+import com.mysite.sbb.kis.KisRealtimeClient;
+import com.mysite.sbb.kis.KisRealtimeClient.StockPriceListener;
+import com.mysite.sbb.kis.KisTick;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 시세 알림 엔진. 대기 중 알림을 메모리에 올려두고 틱마다 평가.
+ * - 종목마다 AlertBook 하나 (KIS 리스너 1개). 종류별로 threshold 정렬 집합 4개
+ *   (ABOVE는 오름차순, BELOW는 내림차순 → 맨 앞이 가장 먼저 걸릴 알림)
+ * - 각 집합의 맨 앞 threshold를 volatile 워터마크로 들고 있어서, 아무것도 안 걸리는 틱은 비교 4번으로 끝 (락/할당 없음)
+ * - 걸린 틱만 락을 잡고 맨 앞에서부터 꺼냄: O(log n + 발생 수)
+ * - DB 기록(firedAt)과 WS 전달은 alert-fire 스레드에서 (디스패처 스레드는 넘기기만)
+ */
+@Slf4j
+@Component
+public class PriceAlertEngine {
+
+    @FunctionalInterface
+    public interface AlertListener {
+        void onFired(Fired fired);
+    }
+
+    public record Fired(long id, String username, String code, PriceAlert.Kind kind, long threshold,
+                        long price, long changeRateBp, long timeMillis) {}
+
+    // 엔진에 올라간 알림 (DB 엔티티와 분리, 불변)
+    private record Armed(long id, String username, PriceAlert.Kind kind, long threshold) {}
+
+    private static final Comparator<Armed> ASCENDING =
+            Comparator.comparingLong(Armed::threshold).thenComparingLong(Armed::id);
+    private static final Comparator<Armed> DESCENDING =
+            Comparator.comparingLong(Armed::threshold).reversed().thenComparingLong(Armed::id);
+
+    private final KisRealtimeClient kisClient;
+    private final PriceAlertRepository repository;
+
+    // 종목 → 알림 묶음. 생성/제거는 compute 안에서, KIS 구독/해지는 compute 밖 syncKis에서
+    private final Map<String, AlertBook> books = new ConcurrentHashMap<>();
+    private final AtomicInteger armedCount = new AtomicInteger();
+
+    private volatile AlertListener listener = fired -> {};
+    private final Counter firedCounter;
+
+    private final ExecutorService fireExec = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "alert-fire");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public PriceAlertEngine(KisRealtimeClient kisClient, PriceAlertRepository repository, MeterRegistry meterRegistry) {
+        this.kisClient = kisClient;
+        this.repository = repository;
+        Gauge.builder("stock.alerts.armed", armedCount, AtomicInteger::get)
+                .description("대기 중인 시세 알림 수")
+                .register(meterRegistry);
+        this.firedCounter = Counter.builder("stock.alerts.fired")
+                .description("발생한 시세 알림 수")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        List<PriceAlert> pending = repository.findByFiredAtIsNull();
+        for (PriceAlert a : pending) {
+            arm(a);
+        }
+        log.info("[ALERT] loaded. armed={}, codes={}", armedCount.get(), books.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fireExec.shutdownNow();
+    }
+
+    public void setAlertListener(AlertListener listener) {
+        this.listener = listener;
+    }
+
+    public int armedCount() {
+        return armedCount.get();
+    }
+
+    /**
+     * 저장된 알림을 엔진에 올림. 종목의 첫 알림이면 KIS 구독
+     */
+    public void arm(PriceAlert alert) {
+        Armed armed = new Armed(alert.getId(), alert.getUsername(), alert.getKind(), alert.getThreshold());
+        AlertBook book = books.compute(alert.getCode(), (code, cur) -> {
+            if (cur == null) cur = new AlertBook(code);
+            if (cur.add(armed)) armedCount.incrementAndGet();
+            return cur;
+        });
+        syncKis(book);
+    }
+
+    /**
+     * 엔진에서 내림 (사용자 삭제). 종목의 마지막 알림이면 KIS 해지
+     */
+    public void disarm(String code, long id) {
+        AlertBook[] seen = {null};
+        books.computeIfPresent(code, (k, book) -> {
+            seen[0] = book;
+            if (book.remove(id)) armedCount.decrementAndGet();
+            return retain(book);
+        });
+        if (seen[0] != null) syncKis(seen[0]);
+    }
+
+    // compute 안에서 호출. 비었으면 null (맵에서 빠짐)
+    private static AlertBook retain(AlertBook book) {
+        return book.isEmpty() ? null : book;
+    }
+
+    /**
+     * 묶음이 맵에 있는지에 KIS 구독을 맞춤. 맵에서 빠진 묶음은 다시 들어가지 않으므로
+     * 구독 → 해지 한 번씩만 일어나고, 생성/제거가 겹쳐도 해지가 구독보다 먼저 나가지 않음
+     */
+    private void syncKis(AlertBook book) {
+        synchronized (book.kisLock) {
+            boolean wanted = books.get(book.code) == book;
+            if (wanted == book.subscribed) return;
+            if (wanted) {
+                kisClient.subscribe(book.code, book);
+            } else {
+                kisClient.unsubscribe(book.code, book);
+            }
+            book.subscribed = wanted;
+        }
+    }
+
+    /**
+     * alert-fire 스레드. 아직 대기 중(DB 기준)인 것만 기록 후 전달
+     */
+    private void deliver(AlertBook book, List<Armed> fired, long price, long rateBp, long timeMillis) {
+        LocalDateTime now = LocalDateTime.now();
+        for (Armed a : fired) {
+            try {
+                if (repository.markFired(a.id(), now, price) == 0) continue;
+                firedCounter.increment();
+                listener.onFired(new Fired(a.id(), a.username(), book.code, a.kind(), a.threshold(),
+                        price, rateBp, timeMillis));
+            } catch (Exception e) {
+                log.warn("[ALERT] deliver failed. id={}, code={}", a.id(), book.code, e);
+            }
+        }
+        books.computeIfPresent(book.code, (k, cur) -> cur == book ? retain(cur) : cur);
+        syncKis(book);
+    }
+
+    /**
+     * 종목 하나의 대기 알림. 집합 변경은 this 락, 워터마크는 락 없이 읽음
+     */
+    private final class AlertBook implements StockPriceListener {
+
+        final String code;
+
+        // KIS 구독 여부 (kisLock). 집합 락과 분리해서 틱 평가가 구독/해지를 기다리지 않게
+        final Object kisLock = new Object();
+        boolean subscribed;
+
+        // PriceAlert.Kind ordinal 순서
+        private final List<TreeSet<Armed>> sets = List.of(
+                new TreeSet<>(ASCENDING), new TreeSet<>(DESCENDING),
+                new TreeSet<>(ASCENDING), new TreeSet<>(DESCENDING));
+        private final Map<Long, Armed> byId = new HashMap<>();
+
+        // 각 집합 맨 앞 threshold (비었으면 절대 안 걸리는 값)
+        private volatile long priceAbove = Long.MAX_VALUE;
+        private volatile long priceBelow = Long.MIN_VALUE;
+        private volatile long rateAbove = Long.MAX_VALUE;
+        private volatile long rateBelow = Long.MIN_VALUE;
+
+        AlertBook(String code) {
+            this.code = code;
+        }
+
+        /**
+         * kis-dispatch 스레드. tick은 재사용 객체라 값만 복사해서 넘김
+         */
+        @Override
+        public void onTick(KisTick tick) {
+            long price = tick.getPrice();
+            long rate = tick.getChangeRateBp();
+            if (price <= 0) return;
+            if (price < priceAbove && price > priceBelow && rate < rateAbove && rate > rateBelow) return;
+
+            List<Armed> fired = fire(price, rate);
+            if (fired.isEmpty()) return;
+
+            long timeMillis = tick.getExchangeTimeMillis();
+            fireExec.execute(() -> deliver(this, fired, price, rate, timeMillis));
+        }
+
+        synchronized boolean add(Armed a) {
+            if (byId.putIfAbsent(a.id(), a) != null) return false;
+            sets.get(a.kind().ordinal()).add(a);
+            refreshMarks();
+            return true;
+        }
+
+        synchronized boolean remove(long id) {
+            Armed a = byId.remove(id);
+            if (a == null) return false;
+            sets.get(a.kind().ordinal()).remove(a);
+            refreshMarks();
+            return true;
+        }
+
+        synchronized boolean isEmpty() {
+            return byId.isEmpty();
+        }
+
+        private synchronized List<Armed> fire(long price, long rate) {
+            List<Armed> fired = new ArrayList<>(4);
+            for (PriceAlert.Kind kind : PriceAlert.Kind.values()) {
+                TreeSet<Armed> set = sets.get(kind.ordinal());
+                long value = kind.rate() ? rate : price;
+                while (!set.isEmpty()) {
+                    Armed head = set.first();
+                    boolean hit = kind.above() ? value >= head.threshold() : value <= head.threshold();
+                    if (!hit) break;
+                    set.pollFirst();
+                    byId.remove(head.id());
+                    fired.add(head);
+                }
+            }
+            if (!fired.isEmpty()) {
+                armedCount.addAndGet(-fired.size());
+                refreshMarks();
+            }
+            return fired;
+        }
+
+        // this 락 안에서 호출
+        private void refreshMarks() {
+            priceAbove = mark(PriceAlert.Kind.PRICE_ABOVE, Long.MAX_VALUE);
+            priceBelow = mark(PriceAlert.Kind.PRICE_BELOW, Long.MIN_VALUE);
+            rateAbove = mark(PriceAlert.Kind.RATE_ABOVE, Long.MAX_VALUE);
+            rateBelow = mark(PriceAlert.Kind.RATE_BELOW, Long.MIN_VALUE);
+        }
+
+        private long mark(PriceAlert.Kind kind, long none) {
+            TreeSet<Armed> set = sets.get(kind.ordinal());
+            return set.isEmpty() ? none : set.first().threshold();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.mysite.sbb.stock;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface PriceAlertRepository extends JpaRepository<PriceAlert, Long> {
+
+    // 기동 시 엔진에 다시 올릴 대기 중 알림
+    List<PriceAlert> findByFiredAtIsNull();
+
+    List<PriceAlert> findByUsernameOrderByIdDesc(String username);
+
+    long countByUsernameAndFiredAtIsNull(String username);
+
+    // 이미 발생했거나 삭제된 알림이면 0 (엔진과 사용자 삭제가 겹쳐도 한 번만 전달)
+    @Transactional
+    @Modifying
+    @Query("""
+        update PriceAlert a
+        set a.firedAt = :firedAt, a.firedPrice = :price
+        where a.id = :id and a.firedAt is null
+    """)
+    int markFired(@Param("id") Long id, @Param("firedAt") LocalDateTime firedAt, @Param("price") long price);
+}
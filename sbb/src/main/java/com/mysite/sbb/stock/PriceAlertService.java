@@ -0,0 +1,47 @@
+package com.mysite.sbb.stock;
+
+import java.util.List;
+
+import org.springframework.stereotype.Service;
+
+import com.mysite.sbb.DataNotFoundException;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 시세 알림 등록/조회/삭제. 저장 후 엔진에 반영 (평가는 PriceAlertEngine)
+ */
+@Service
+@RequiredArgsConstructor
+public class PriceAlertService {
+
+    private final PriceAlertRepository repository;
+    private final PriceAlertEngine engine;
+
+    public PriceAlert create(String username, String code, PriceAlert.Kind kind, long threshold) {
+        PriceAlert alert = new PriceAlert();
+        alert.setUsername(username);
+        alert.setCode(code);
+        alert.setKind(kind);
+        alert.setThreshold(threshold);
+        repository.save(alert);
+        engine.arm(alert);
+        return alert;
+    }
+
+    public List<PriceAlert> list(String username) {
+        return repository.findByUsernameOrderByIdDesc(username);
+    }
+
+    public long countActive(String username) {
+        return repository.countByUsernameAndFiredAtIsNull(username);
+    }
+
+    public void delete(String username, Long id) {
+        PriceAlert alert = repository.findById(id)
+                .filter(a -> a.getUsername().equals(username))
+                .orElseThrow(() -> new DataNotFoundException("alert not found"));
+        engine.disarm(alert.getCode(), alert.getId());
+        repository.delete(alert);
+    }
+}
@@ -1,24 +1,70 @@
 package com.mysite.sbb.stock;
 
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 
+import org.apache.catalina.connector.ClientAbortException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.AsyncRequestNotUsableException;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import com.mysite.sbb.kis.KisRestClient;
+import com.mysite.sbb.kis.KisRealtimeClient;
 import com.mysite.sbb.kis.KisRestClient.StockSummary;
+import com.mysite.sbb.kis.KisSummaryCache;
+import com.mysite.sbb.kis.KisTick;
+import com.mysite.sbb.kis.TickJournal;
+
+import jakarta.servlet.http.HttpServletRequest;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 @RestController
 @RequestMapping("/api/stocks")
 public class StockApiController {
 
-    private final KisRestClient kisRestClient;
+    // SSE 스트림 하나에 묶을 수 있는 종목 수
+    @Value("${stock.sse.max-codes:20}")
+    private int sseMaxCodes;
+
+    private final KisSummaryCache summaryCache;
+    private final KisRealtimeClient kisRealtimeClient;
+    private final TickJournal tickJournal;
+    private final CandleAggregator candleAggregator;
     private final StockMasterService stockMasterService; // ✅ 추가
+    private final StockPriceStream priceStream;
+    private final MoversBoard moversBoard;
 
-    public StockApiController(KisRestClient kisRestClient, StockMasterService stockMasterService) {
-        this.kisRestClient = kisRestClient;
+    public StockApiController(KisSummaryCache summaryCache, KisRealtimeClient kisRealtimeClient,
+                              TickJournal tickJournal, CandleAggregator candleAggregator,
+                              StockMasterService stockMasterService, StockPriceStream priceStream,
+                              MoversBoard moversBoard) {
+        this.summaryCache = summaryCache;
+        this.kisRealtimeClient = kisRealtimeClient;
+        this.tickJournal = tickJournal;
+        this.candleAggregator = candleAggregator;
         this.stockMasterService = stockMasterService;
+        this.priceStream = priceStream;
+        this.moversBoard = moversBoard;
+    }
+
+    /**
+     * 👉 상승률/하락률/거래량 상위 (실시간 틱이 들어오는 종목 기준)
+     * GET /api/stocks/movers?limit=10
+     */
+    @GetMapping("/movers")
+    public MoversBoard.Movers movers(@RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return moversBoard.snapshot(Math.min(Math.max(1, limit), 100));
     }
 
     /**
@@ -30,19 +76,117 @@ public class StockApiController {
         return stockMasterService.search(keyword, 10);
     }
 
+    /**
+     * 👉 실시간 시세 SSE (WebSocket이 막힌 프록시 환경용). 종목별 최신 값만 전달
+     * GET /api/stocks/stream?codes=005930,000660
+     * event: price / data: {"type":"SNAPSHOT"|"PRICE",...} (/ws/stock 프레임과 같은 JSON)
+     * MVC가 text/event-stream Flux를 타임아웃 없는 SseEmitter로 감싸므로 이 응답만 비동기 타임아웃이 없음
+     * (전역 spring.mvc.async.request-timeout은 그대로). 끊긴 연결은 heartbeat 쓰기 실패로 정리
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> stream(@RequestParam("codes") String codes) {
+        List<String> list = Arrays.stream(codes.split(","))
+                .map(String::trim)
+                .filter(c -> !c.isEmpty())
+                .distinct()
+                .toList();
+        if (list.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "codes is required");
+        }
+        if (list.size() > sseMaxCodes) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "too many codes (max " + sseMaxCodes + ")");
+        }
+        // ✅ 없는 종목코드가 KIS 실시간 등록 한도를 먹지 않도록 구독 전에 걸러냄 (summary와 같은 기준)
+        List<String> unknown = list.stream()
+                .filter(c -> {
+                    StockInfo info = stockMasterService.getOrNull(c);
+                    return info == null || !info.active();
+                })
+                .toList();
+        if (!unknown.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown stock code: " + String.join(",", unknown));
+        }
+        return priceStream.stream(list);
+    }
+
+    /**
+     * 스트림 응답(SSE/NDJSON) 도중 클라이언트가 끊으면 다음 쓰기에서 나는 예외 (Broken pipe 등).
+     * 정상 종료이므로 에러 디스패치에서 다시 쓰지 않고 조용히 끝냄.
+     * 스트림이 아닌 엔드포인트(요약 등)는 그대로 다시 던져 기본 처리에 맡김
+     */
+    @ExceptionHandler({ClientAbortException.class, AsyncRequestNotUsableException.class})
+    public void streamClosed(IOException e, HttpServletRequest request) throws IOException {
+        if (!isStreamResponse(request)) throw e;
+    }
+
+    // 매핑의 produces가 SSE/NDJSON인 요청
+    private static boolean isStreamResponse(HttpServletRequest request) {
+        Object producible = request.getAttribute(HandlerMapping.PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE);
+        if (!(producible instanceof Set<?> types)) return false;
+        return types.contains(MediaType.TEXT_EVENT_STREAM) || types.contains(MediaType.APPLICATION_NDJSON);
+    }
+
     /**
      * 👉 전일 종가 / 등락률 / 기준가 등 "1회 조회" 정보
      */
     @GetMapping("/{code}/summary")
-    public StockSummary getSummary(@PathVariable("code") String code) {
+    public Mono<StockSummary> getSummary(@PathVariable("code") String code) {
 
         // ✅ (추천) 종목코드 유효성 검증: DB에 존재하지 않으면 404
         // - 이걸 빼도 동작은 하는데, 운영/면접 관점에서 있으면 좋음
-        StockMaster sm = stockMasterService.getOrNull(code);
-        if (sm == null || Boolean.FALSE.equals(sm.getIsActive())) {
+        StockInfo info = stockMasterService.getOrNull(code);
+        if (info == null || !info.active()) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown stock code: " + code);
         }
 
-        return kisRestClient.getStockSummary(code);
+        // ✅ 실시간 last-value가 유효하면 KIS REST 호출 없이 응답
+        KisTick last = kisRealtimeClient.snapshot(code);
+        if (last != null) {
+            return Mono.just(new StockSummary(Long.toString(last.getPrevClose()), Long.toString(last.getPrice())));
+        }
+
+        // ✅ 같은 종목 동시 요청은 KIS 호출 1건을 공유, 몇 초간은 캐시 (KisSummaryCache)
+        // 👉 Mono 반환: KIS 응답을 기다리는 동안 Tomcat 요청 스레드는 반납 (MVC async)
+        return summaryCache.get(code);
+    }
+
+    /**
+     * 👉 실시간 틱으로 집계한 OHLCV 봉 (오래된 순)
+     * GET /api/stocks/005930/candles?interval=1m&limit=120
+     */
+    @GetMapping("/{code}/candles")
+    public List<Candle> getCandles(@PathVariable("code") String code,
+                                   @RequestParam(value = "interval", defaultValue = "1m") String interval,
+                                   @RequestParam(value = "limit", defaultValue = "200") int limit) {
+        CandleInterval ci = CandleInterval.of(interval);
+        if (ci == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "interval must be one of 1s, 1m, 5m, 1d");
+        }
+        return candleAggregator.candles(code, ci, Math.max(1, limit));
+    }
+
+    /**
+     * 👉 저널에 기록된 체결 틱 재생 (NDJSON, 체결시각 epoch millis 구간)
+     * GET /api/stocks/005930/ticks?from=1760745600000&to=1760770000000
+     */
+    @GetMapping(value = "/{code}/ticks", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody replayTicks(@PathVariable("code") String code,
+                                             @RequestParam("from") long from,
+                                             @RequestParam("to") long to) {
+        if (to < from) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "to must be >= from");
+        }
+
+        return out -> {
+            Writer w = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            tickJournal.replay(code, from, to, tick -> {
+                try {
+                    w.write(StockFrames.journalLine(tick));
+                } catch (java.io.IOException e) {
+                    throw new java.io.UncheckedIOException(e);
+                }
+            });
+            w.flush();
+        };
     }
 }
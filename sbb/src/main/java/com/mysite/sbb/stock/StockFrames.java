@@ -0,0 +1,264 @@
+package com.mysite.sbb.stock;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.web.socket.TextMessage;
+
+import com.mysite.sbb.kis.KisTick;
+
+/**
+ * /ws/stock 으로 내려가는 JSON 프레임 인코더.
+ * - 틱 1건은 여기서 한 번만 TextMessage로 만들고, 같은 종목 구독 세션 전체에 그대로 재사용
+ * - 필드가 고정이라 ObjectMapper 대신 StringBuilder로 직접 작성
+ */
+final class StockFrames {
+
+    private StockFrames() {}
+
+    /**
+     * {"type":"PRICE","code":"005930","price":71000,"change":-500,"rate":-0.70,"volume":10,"time":93015}
+     */
+    static TextMessage price(KisTick tick) {
+        StringBuilder sb = new StringBuilder(128);
+        appendPrice(sb, "PRICE", tick);
+        sb.append('}');
+        return new TextMessage(sb.toString());
+    }
+
+    /**
+     * 구독 직후 last-value 스냅샷. PRICE 필드 + 전일 종가
+     * {"type":"SNAPSHOT","code":"005930","price":71000,...,"prevClose":71500}
+     */
+    static TextMessage snapshot(KisTick tick) {
+        StringBuilder sb = new StringBuilder(144);
+        appendPrice(sb, "SNAPSHOT", tick);
+        sb.append(",\"prevClose\":").append(tick.getPrevClose());
+        sb.append('}');
+        return new TextMessage(sb.toString());
+    }
+
+    /**
+     * 봉 갱신 (진행 중인 봉은 같은 t로 여러 번 내려감)
+     * {"type":"CANDLE","code":"005930","interval":"1m","t":1760745600000,"o":..,"h":..,"l":..,"c":..,"v":..}
+     */
+    static TextMessage candle(String code, CandleInterval interval, long[] bar) {
+        StringBuilder sb = new StringBuilder(160);
+        sb.append("{\"type\":\"CANDLE\",\"code\":");
+        appendString(sb, code);
+        sb.append(",\"interval\":\"").append(interval.label()).append('"');
+        sb.append(",\"t\":").append(bar[CandleSeries.T]);
+        sb.append(",\"o\":").append(bar[CandleSeries.O]);
+        sb.append(",\"h\":").append(bar[CandleSeries.H]);
+        sb.append(",\"l\":").append(bar[CandleSeries.L]);
+        sb.append(",\"c\":").append(bar[CandleSeries.C]);
+        sb.append(",\"v\":").append(bar[CandleSeries.V]);
+        sb.append('}');
+        return new TextMessage(sb.toString());
+    }
+
+    /**
+     * 호가창 갱신. mask에 포함된 레벨만 [레벨,가격,잔량] 절대값으로 (full이면 전체 레벨)
+     * {"type":"BOOK","code":"005930","seq":42,"t":93015,"a":[[0,71100,1520]],"b":[[2,70900,800]],"ta":..,"tb":..}
+     */
+    static TextMessage book(OrderBookStore.OrderBook book, int mask, boolean full) {
+        StringBuilder sb = new StringBuilder(full ? 512 : 160);
+        sb.append("{\"type\":\"BOOK\",\"code\":");
+        appendString(sb, book.code);
+        sb.append(",\"seq\":").append(book.seq);
+        sb.append(",\"t\":").append(book.quoteTime);
+        if (full) sb.append(",\"full\":true");
+
+        sb.append(",\"a\":");
+        appendLevels(sb, book.askPrice, book.askQty, mask);
+        sb.append(",\"b\":");
+        appendLevels(sb, book.bidPrice, book.bidQty, mask >>> OrderBookStore.LEVELS);
+
+        if ((mask & OrderBookStore.TOTAL_BIT) != 0) {
+            sb.append(",\"ta\":").append(book.totalAskQty);
+            sb.append(",\"tb\":").append(book.totalBidQty);
+        }
+        sb.append('}');
+        return new TextMessage(sb.toString());
+    }
+
+    private static void appendLevels(StringBuilder sb, long[] price, long[] qty, int levelMask) {
+        sb.append('[');
+        boolean first = true;
+        for (int i = 0; i < price.length; i++) {
+            if ((levelMask & (1 << i)) == 0) continue;
+            if (!first) sb.append(',');
+            sb.append('[').append(i).append(',').append(price[i]).append(',').append(qty[i]).append(']');
+            first = false;
+        }
+        sb.append(']');
+    }
+
+    /**
+     * 저널 재생용 NDJSON 한 줄. PRICE 필드 + 체결/수신 epoch millis
+     */
+    static String journalLine(KisTick tick) {
+        StringBuilder sb = new StringBuilder(192);
+        appendPrice(sb, "TICK", tick);
+        sb.append(",\"exchangeTime\":").append(tick.getExchangeTimeMillis());
+        sb.append(",\"receivedAt\":").append(tick.getReceivedAtMillis());
+        sb.append(",\"accVolume\":").append(tick.getAccumulatedVolume());
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    private static void appendPrice(StringBuilder sb, String type, KisTick tick) {
+        appendPrice(sb, type, tick.getCode(), tick.getPrice(), tick.getChange(), tick.getChangeRateBp(),
+                tick.getVolume(), tick.getTradeTime());
+    }
+
+    static void appendPrice(StringBuilder sb, String type, String code, long price, long change, long rateBp,
+                            long volume, int time) {
+        sb.append("{\"type\":\"").append(type).append("\",\"code\":");
+        appendString(sb, code);
+        sb.append(",\"price\":").append(price);
+        sb.append(",\"change\":").append(change);
+        sb.append(",\"rate\":");
+        appendBp(sb, rateBp);
+        sb.append(",\"volume\":").append(volume);
+        sb.append(",\"time\":").append(time);
+    }
+
+    /**
+     * batch 모드 세션: 송신 창 동안 쌓인 프레임을 배열 하나로 (각 원소는 단일 프레임과 같은 JSON)
+     * {"type":"BATCH","frames":[{"type":"PRICE",...},{"type":"CANDLE",...}]}
+     */
+    static TextMessage batch(List<OutboundFrame> frames) {
+        int len = 32;
+        for (OutboundFrame f : frames) len += f.message().getPayloadLength() + 1;
+
+        StringBuilder sb = new StringBuilder(len);
+        sb.append("{\"type\":\"BATCH\",\"frames\":[");
+        for (int i = 0; i < frames.size(); i++) {
+            if (i > 0) sb.append(',');
+            sb.append(frames.get(i).message().getPayload());
+        }
+        sb.append("]}");
+        return new TextMessage(sb.toString());
+    }
+
+    /**
+     * 상승률/하락률/거래량 상위
+     * {"type":"MOVERS","v":123,"gainers":[{"code":"005930","name":"삼성전자","price":71000,"rate":1.20,"volume":123456}],
+     *  "losers":[...],"volume":[...]}
+     */
+    static TextMessage movers(MoversBoard.Movers movers) {
+        StringBuilder sb = new StringBuilder(256 + 96 * (movers.gainers().size() * 3));
+        sb.append("{\"type\":\"MOVERS\",\"v\":").append(movers.version());
+        appendMovers(sb, "gainers", movers.gainers());
+        appendMovers(sb, "losers", movers.losers());
+        appendMovers(sb, "volume", movers.volume());
+        sb.append('}');
+        return new TextMessage(sb.toString());
+    }
+
+    private static void appendMovers(StringBuilder sb, String name, List<MoversBoard.Mover> list) {
+        sb.append(",\"").append(name).append("\":[");
+        for (int i = 0; i < list.size(); i++) {
+            MoversBoard.Mover m = list.get(i);
+            if (i > 0) sb.append(',');
+            sb.append("{\"code\":");
+            appendString(sb, m.code());
+            sb.append(",\"name\":");
+            appendString(sb, m.name() == null ? m.code() : m.name());
+            sb.append(",\"price\":").append(m.price());
+            sb.append(",\"rate\":");
+            appendBp(sb, m.changeRateBp());
+            sb.append(",\"volume\":").append(m.volume());
+            sb.append('}');
+        }
+        sb.append(']');
+    }
+
+    /**
+     * 시세 알림 발생 (등락률 알림은 threshold가 %)
+     * {"type":"ALERT","id":12,"code":"005930","kind":"PRICE_ABOVE","threshold":72000,"price":72100,"rate":1.20,"ts":1760745600000}
+     */
+    static TextMessage alert(PriceAlertEngine.Fired fired) {
+        StringBuilder sb = new StringBuilder(160);
+        sb.append("{\"type\":\"ALERT\",\"id\":").append(fired.id());
+        sb.append(",\"code\":");
+        appendString(sb, fired.code());
+        sb.append(",\"kind\":\"").append(fired.kind().name()).append('"');
+        sb.append(",\"threshold\":");
+        if (fired.kind().rate()) appendBp(sb, fired.threshold());
+        else sb.append(fired.threshold());
+        sb.append(",\"price\":").append(fired.price());
+        sb.append(",\"rate\":");
+        appendBp(sb, fired.changeRateBp());
+        sb.append(",\"ts\":").append(fired.timeMillis());
+        sb.append('}');
+        return new TextMessage(sb.toString());
+    }
+
+    /**
+     * {"type":"SUBSCRIBED","codes":["005930","000660"]}
+     */
+    static TextMessage subscribed(Collection<String> codes) {
+        return codeList("SUBSCRIBED", codes);
+    }
+
+    /**
+     * {"type":"BOOK_SUBSCRIBED","codes":["005930"]}
+     */
+    static TextMessage bookSubscribed(Collection<String> codes) {
+        return codeList("BOOK_SUBSCRIBED", codes);
+    }
+
+    private static TextMessage codeList(String type, Collection<String> codes) {
+        StringBuilder sb = new StringBuilder(40 + codes.size() * 10);
+        sb.append("{\"type\":\"").append(type).append("\",\"codes\":[");
+        boolean first = true;
+        for (String code : codes) {
+            if (!first) sb.append(',');
+            appendString(sb, code);
+            first = false;
+        }
+        sb.append("]}");
+        return new TextMessage(sb.toString());
+    }
+
+    static TextMessage error(String message) {
+        StringBuilder sb = new StringBuilder(64);
+        sb.append("{\"type\":\"ERROR\",\"message\":");
+        appendString(sb, message == null ? "" : message);
+        sb.append('}');
+        return new TextMessage(sb.toString());
+    }
+
+    /** bp(0.01%) 정수를 "-0.70" 형태 소수로 */
+    static void appendBp(StringBuilder sb, long bp) {
+        if (bp < 0) {
+            sb.append('-');
+            bp = -bp;
+        }
+        long frac = bp % 100;
+        sb.append(bp / 100).append('.');
+        if (frac < 10) sb.append('0');
+        sb.append(frac);
+    }
+
+    static void appendString(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+                }
+            }
+        }
+        sb.append('"');
+    }
+}
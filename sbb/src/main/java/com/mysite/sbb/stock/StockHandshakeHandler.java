@@ -0,0 +1,97 @@
+package com.mysite.sbb.stock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.server.standard.StandardWebSocketUpgradeStrategy;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.websocket.server.ServerEndpointConfig;
+
+/**
+ * /ws/stock 핸드셰이크. permessage-deflate 협상 범위를 정함
+ * - ALL: 클라이언트가 제안하면 항상 (Tomcat 기본 동작)
+ * - BATCH: ?batch=1 세션만. 단일 PRICE 프레임도 컨텍스트 유지 덕에 잘 줄지만 메시지마다 flush 비용이 붙어
+ *   틱당 CPU가 BATCH의 2배 가까이 듦 (src/test WsFrameBenchmark) → 세션이 많아 CPU가 먼저 차면 이쪽
+ * - OFF: 안 함
+ *
+ * Tomcat은 내장 확장을 요청 헤더로 직접 협상하므로(filterRequestedExtensions로 빼도 다시 붙음)
+ * 압축을 안 할 세션은 업그레이드 직전에 Sec-WebSocket-Extensions에서 permessage-deflate를 지운 요청으로 넘김.
+ * 압축 레벨/창 크기는 Tomcat 구현이 고정(기본 레벨, 32KB 창)이라 협상 여부만 조절
+ */
+@Component
+public class StockHandshakeHandler extends DefaultHandshakeHandler {
+
+    enum DeflateMode { ALL, BATCH, OFF }
+
+    private static final String EXTENSIONS_HEADER = "Sec-WebSocket-Extensions";
+    private static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+
+    public StockHandshakeHandler(@Value("${stock.ws.permessage-deflate:ALL}") DeflateMode deflateMode) {
+        super(new DeflateAwareUpgradeStrategy(deflateMode));
+    }
+
+    private static final class DeflateAwareUpgradeStrategy extends StandardWebSocketUpgradeStrategy {
+
+        private final DeflateMode deflateMode;
+
+        DeflateAwareUpgradeStrategy(DeflateMode deflateMode) {
+            this.deflateMode = deflateMode;
+        }
+
+        @Override
+        protected void upgradeHttpToWebSocket(HttpServletRequest request, HttpServletResponse response,
+                                              ServerEndpointConfig endpointConfig, Map<String, String> pathParams)
+                throws Exception {
+            if (!deflateAllowed(request)) request = new WithoutDeflate(request);
+            super.upgradeHttpToWebSocket(request, response, endpointConfig, pathParams);
+        }
+
+        private boolean deflateAllowed(HttpServletRequest request) {
+            if (deflateMode == DeflateMode.ALL) return true;
+            if (deflateMode == DeflateMode.OFF) return false;
+            String batch = request.getParameter("batch");
+            return "1".equals(batch) || "true".equalsIgnoreCase(batch);
+        }
+    }
+
+    /** Sec-WebSocket-Extensions 제안 중 permessage-deflate만 뺀 요청 */
+    private static final class WithoutDeflate extends HttpServletRequestWrapper {
+
+        WithoutDeflate(HttpServletRequest request) {
+            super(request);
+        }
+
+        @Override
+        public String getHeader(String name) {
+            if (!EXTENSIONS_HEADER.equalsIgnoreCase(name)) return super.getHeader(name);
+            List<String> offers = offers(super.getHeaders(name));
+            return offers.isEmpty() ? null : String.join(", ", offers);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            if (!EXTENSIONS_HEADER.equalsIgnoreCase(name)) return super.getHeaders(name);
+            return Collections.enumeration(offers(super.getHeaders(name)));
+        }
+
+        private static List<String> offers(Enumeration<String> values) {
+            List<String> offers = new ArrayList<>();
+            while (values != null && values.hasMoreElements()) {
+                for (String offer : values.nextElement().split(",")) {
+                    String name = offer.split(";", 2)[0].trim();
+                    if (!name.isEmpty() && !PERMESSAGE_DEFLATE.equalsIgnoreCase(name)) offers.add(offer.trim());
+                }
+            }
+            return offers;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.mysite.sbb.stock;
+
+/**
+ * StockMasterService.getOrNull 캐시 값. 영속성 컨텍스트와 무관한 읽기 전용 복사본
+ */
+public record StockInfo(
+        String code,
+        String name,
+        String market,
+        boolean active
+) {
+    static StockInfo of(StockMaster sm) {
+        return new StockInfo(sm.getCode(), sm.getName(), sm.getMarket(), !Boolean.FALSE.equals(sm.getIsActive()));
+    }
+}
@@ -6,12 +6,17 @@ import java.io.InputStreamReader;
 import java.nio.charset.Charset;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -24,6 +29,17 @@ import java.nio.charset.StandardCharsets;
 public class StockMasterService {
 
     private final StockMasterRepository repo;
+
+    // ✅ getOrNull 조회 캐시 (요약 폴링/알림/순위가 요청마다 DB를 치지 않게). 없는 코드도 null로 캐시
+    @Value("${stock.master.cache-ttl-sec:300}")
+    private long cacheTtlSec;
+
+    private final Map<String, Cached> cache = new ConcurrentHashMap<>();
+
+    // 임의 코드로 캐시가 무한히 커지지 않게 (종목 수보다 넉넉히)
+    private static final int MAX_CACHED = 10_000;
+
+    private record Cached(StockInfo info, long expiresAtMillis) {}
     
     public long count() {
         return repo.count();
@@ -36,6 +52,7 @@ public class StockMasterService {
     
     private static final Pattern ISIN_PATTERN = Pattern.compile("KR[0-9A-Z]{10}");
     private static final Pattern NAME_END_PATTERN = Pattern.compile("\\s{2,}[A-Z]{2}");
+    private static final Pattern CODE_PATTERN = Pattern.compile("[0-9A-Z]{6}");
 
     @Transactional
     public int loadFromMst(Resource resource, Charset charset) throws Exception {
@@ -124,6 +141,7 @@ public class StockMasterService {
             }
         }
 
+        afterCommit(cache::clear);
         log.info("[MST] load done. inserted={}, skipped={}", inserted, skipped);
         return inserted;
     }
@@ -152,14 +170,35 @@ public class StockMasterService {
                 .toList();
     }
 
-    @Transactional(readOnly = true)
-    public StockMaster getOrNull(String code) {
+    /**
+     * 형식(단축코드 6자리)이 맞고 stock_master에 있는 종목인지.
+     * 임의 문자열은 DB/캐시까지 가지 않음 (구독 요청이 KIS 등록 슬롯을 쓰레기 코드로 채우지 못하게)
+     */
+    public boolean isKnownCode(String code) {
+        return code != null && CODE_PATTERN.matcher(code).matches() && getOrNull(code) != null;
+    }
+
+    /**
+     * 캐시 적중이면 DB/트랜잭션 없이 리턴 (그래서 @Transactional 안 붙임).
+     * 엔티티 대신 읽기 전용 StockInfo를 캐시해서 호출자 간에 관리 엔티티/지연 로딩이 새지 않게 함
+     */
+    public StockInfo getOrNull(String code) {
         if (code == null) return null;
-        return repo.findById(code).orElse(null);
+
+        long now = System.currentTimeMillis();
+        Cached c = cache.get(code);
+        if (c != null && c.expiresAtMillis() > now) return c.info();
+
+        StockInfo info = repo.findById(code).map(StockInfo::of).orElse(null);
+        if (cache.size() >= MAX_CACHED) cache.clear();
+        cache.put(code, new Cached(info, now + cacheTtlSec * 1000));
+        return info;
     }
 
     @Transactional
     public StockMaster upsert(String code, String name, String isin, String market) {
+        // 커밋 전에 지우면 그 사이 조회가 옛 값을 다시 캐시함 → 커밋 후 무효화
+        afterCommit(() -> cache.remove(code));
         StockMaster existing = repo.findById(code).orElse(null);
         if (existing == null) {
             StockMaster created = new StockMaster(code, name, isin, market);
@@ -172,4 +211,20 @@ public class StockMasterService {
         existing.setIsActive(true);
         return repo.save(existing);
     }
+
+    /**
+     * 트랜잭션 안이면 커밋 후(롤백이면 실행 안 함), 밖이면 바로 실행
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
 }
@@ -0,0 +1,133 @@
+package com.mysite.sbb.stock;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+
+import com.mysite.sbb.kis.KisRealtimeClient;
+import com.mysite.sbb.kis.KisRealtimeClient.StockPriceListener;
+import com.mysite.sbb.kis.KisTick;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * SSE 시세 스트림 (/api/stocks/stream). WebSocket이 막힌 프록시 뒤 사용자용.
+ * - 종목마다 multicast Sinks.Many 하나. 첫 구독자가 붙으면 KIS 리스너 등록, 마지막 구독자가 떠나면 해지
+ *   (KIS 해지 유예/묶음 반영은 KisRealtimeClient 쪽)
+ * - 디스패처 스레드는 PRICE JSON을 한 번 만들어 tryEmitNext만 하고 바로 리턴
+ * - 구독자별 onBackpressureLatest + publishOn(prefetch 1): 느린 구독자는 중간 틱을 건너뛰고 최신 값만 받음
+ * - 연결 직후 last-value 스냅샷, heartbeat-sec마다 주석 이벤트 (프록시 idle timeout 방지 + 끊긴 연결 감지)
+ */
+@Slf4j
+@Component
+public class StockPriceStream {
+
+    // 구독자 쓰기 전용 스케줄러 (servlet 응답 쓰기는 블로킹이라 디스패처 스레드에서 하지 않음)
+    private final Scheduler sendScheduler = Schedulers.newBoundedElastic(
+            Schedulers.DEFAULT_BOUNDED_ELASTIC_SIZE, Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE, "sse-send", 60, true);
+
+    @Value("${stock.sse.heartbeat-sec:15}")
+    private long heartbeatSec;
+
+    private final KisRealtimeClient kisClient;
+
+    private final Map<String, CodeStream> streams = new ConcurrentHashMap<>();
+    private final AtomicInteger subscribers = new AtomicInteger();
+
+    public StockPriceStream(KisRealtimeClient kisClient, MeterRegistry meterRegistry) {
+        this.kisClient = kisClient;
+        Gauge.builder("stock.sse.subscribers", subscribers, AtomicInteger::get)
+                .description("SSE 시세 스트림 구독자 수")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sendScheduler.dispose();
+    }
+
+    /**
+     * 종목들의 PRICE 이벤트 스트림 (종목별 최신 값 의미, 구독 직후 SNAPSHOT)
+     */
+    public Flux<ServerSentEvent<String>> stream(List<String> codes) {
+        Flux<ServerSentEvent<String>> prices = Flux.merge(codes.stream().map(this::codeEvents).toList());
+
+        Flux<ServerSentEvent<String>> heartbeat = Flux.interval(Duration.ofSeconds(heartbeatSec))
+                .map(i -> ServerSentEvent.<String>builder().comment("hb").build())
+                .onBackpressureDrop();
+
+        return Flux.merge(prices, heartbeat)
+                .doOnSubscribe(s -> subscribers.incrementAndGet())
+                .doFinally(signal -> subscribers.decrementAndGet());
+    }
+
+    private Flux<ServerSentEvent<String>> codeEvents(String code) {
+        return Flux.defer(() -> {
+                    CodeStream cs = acquire(code);
+                    KisTick last = kisClient.snapshot(code);
+
+                    Flux<String> live = cs.sink.asFlux()
+                            .onBackpressureLatest()
+                            .publishOn(sendScheduler, 1);
+                    Flux<String> events = last == null ? live
+                            : Flux.concat(Flux.just(StockFrames.snapshot(last).getPayload()), live);
+
+                    return events.doFinally(signal -> release(code, cs));
+                })
+                .map(json -> ServerSentEvent.builder(json).event("price").build());
+    }
+
+    private CodeStream acquire(String code) {
+        boolean[] first = {false};
+        CodeStream cs = streams.compute(code, (k, cur) -> {
+            if (cur == null) {
+                cur = new CodeStream();
+                first[0] = true;
+            }
+            cur.refs++;
+            return cur;
+        });
+        if (first[0]) kisClient.subscribe(code, cs.listener);
+        return cs;
+    }
+
+    private void release(String code, CodeStream cs) {
+        boolean[] last = {false};
+        streams.computeIfPresent(code, (k, cur) -> {
+            if (cur != cs) return cur;
+            if (--cur.refs > 0) return cur;
+            last[0] = true;
+            return null;
+        });
+        if (last[0]) {
+            kisClient.unsubscribe(code, cs.listener);
+            cs.sink.tryEmitComplete();
+        }
+    }
+
+    /** refs는 streams.compute 안에서만 변경 */
+    private static final class CodeStream {
+        final Sinks.Many<String> sink = Sinks.many().multicast().directBestEffort();
+        int refs;
+
+        // 같은 종목은 항상 같은 디스패처 샤드 스레드에서 호출되므로 emit이 겹치지 않음
+        final StockPriceListener listener = tick -> {
+            if (sink.currentSubscriberCount() > 0) {
+                sink.tryEmitNext(StockFrames.price(tick).getPayload());
+            }
+        };
+    }
+}
@@ -1,50 +1,156 @@
 package com.mysite.sbb.stock;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.*;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mysite.sbb.kis.KisRealtimeClient;
+import com.mysite.sbb.kis.KisTick;
 
 @Component
 @Slf4j
 public class StockWebSocketHandler extends TextWebSocketHandler {
 
     private final KisRealtimeClient kisClient;
+    private final StockWsOutbound outbound;
+    private final TickConflator conflator;
+    private final CandleAggregator candleAggregator;
+    private final OrderBookStore orderBookStore;
+    private final MoversBoard moversBoard;
+    private final StockMasterService stockMasterService;
     private final ObjectMapper om = new ObjectMapper();
-    private final Map<WebSocketSession, KisRealtimeClient.StockPriceListener> sessionToListener = new ConcurrentHashMap<>();
 
-    // ✅ 세션별 구독 종목
-    private final Map<WebSocketSession, String> sessionToCode = new ConcurrentHashMap<>();
+    @Value("${stock.ws.max-codes-per-session:50}")
+    private int maxCodesPerSession;
 
-    public StockWebSocketHandler(KisRealtimeClient kisClient) {
+    // 호가창은 종목당 KIS 등록 1건을 더 쓰므로 따로 제한
+    @Value("${stock.ws.max-books-per-session:5}")
+    private int maxBooksPerSession;
+
+    // ✅ 세션별 conflation 티어 (접속 시 ?tier= 로 지정, 없으면 기본 티어)
+    private final Map<WebSocketSession, Integer> sessionToTier = new ConcurrentHashMap<>();
+
+    // ✅ 세션별 구독 종목 (한 연결에서 여러 종목 멀티플렉싱)
+    private final Map<WebSocketSession, Set<String>> sessionToCodes = new ConcurrentHashMap<>();
+
+    // ✅ 종목별 구독 세션 (틱 1건을 한 번만 인코딩해서 여기 전체에 전송)
+    private final Map<String, Set<WebSocketSession>> codeToSessions = new ConcurrentHashMap<>();
+
+    // ✅ 종목별 KIS 리스너 (세션 수와 무관하게 종목당 1개)
+    private final Map<String, KisRealtimeClient.StockPriceListener> codeToListener = new ConcurrentHashMap<>();
+
+    // KIS에 리스너를 등록해 둔 종목 (kisSyncLock). 그룹 compute 밖에서 등록/해지하므로 여기 기준으로 맞춤
+    private final Object kisSyncLock = new Object();
+    private final Set<String> kisCodes = new HashSet<>();
+
+    // ✅ 세션별 CANDLE 수신 봉 단위 (CandleInterval ordinal 비트마스크, 없으면 안 보냄)
+    private final Map<WebSocketSession, Integer> sessionToCandles = new ConcurrentHashMap<>();
+
+    // 송신 큐 conflation 키 (종목:봉단위) — PRICE(키=종목)와 덮어쓰지 않도록 분리
+    private final Map<String, String[]> candleKeys = new ConcurrentHashMap<>();
+
+    // ✅ 호가창 구독 (체결 구독과 별개)
+    private final Map<WebSocketSession, Set<String>> sessionToBooks = new ConcurrentHashMap<>();
+    private final Map<String, Set<WebSocketSession>> bookToSessions = new ConcurrentHashMap<>();
+
+    // KIS에 호가를 등록해 둔 종목 (kisSyncLock)
+    private final Set<String> bookCodes = new HashSet<>();
+
+    // 송신 큐 conflation 키 (종목:book)
+    private final Map<String, String> bookKeys = new ConcurrentHashMap<>();
+
+    // ✅ 상승/하락/거래량 상위(MOVERS) 구독 세션
+    private final Set<WebSocketSession> moversSessions = ConcurrentHashMap.newKeySet();
+
+    // 송신 큐 conflation 키 (최신 순위만 있으면 됨)
+    private static final String MOVERS_KEY = "movers";
+
+    // ✅ 로그인 사용자 → 세션 (시세 알림은 구독 없이 본인 세션 전체로)
+    private final Map<String, Set<WebSocketSession>> userSessions = new ConcurrentHashMap<>();
+
+    public StockWebSocketHandler(KisRealtimeClient kisClient, StockWsOutbound outbound, TickConflator conflator,
+                                 CandleAggregator candleAggregator, OrderBookStore orderBookStore,
+                                 MoversBoard moversBoard, PriceAlertEngine alertEngine,
+                                 StockMasterService stockMasterService) {
         this.kisClient = kisClient;
+        this.outbound = outbound;
+        this.conflator = conflator;
+        this.candleAggregator = candleAggregator;
+        this.orderBookStore = orderBookStore;
+        this.moversBoard = moversBoard;
+        this.stockMasterService = stockMasterService;
+        this.conflator.setFlushListener(this::broadcast);
+        this.candleAggregator.setBarListener(this::broadcastBar);
+        this.orderBookStore.setBookListener(this::broadcastBook);
+        this.moversBoard.setMoversListener(this::broadcastMovers);
+        alertEngine.setAlertListener(this::deliverAlert);
     }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) {
-        log.info("[WS] connected session={}", session.getId());
+        int tier = conflator.tierOf(queryParam(session, "tier"));
+        sessionToTier.put(session, tier);
+        // ✅ ?batch=1 이면 송신 창 동안 모인 프레임을 BATCH 하나로 (다종목 화면용)
+        boolean batch = isTrue(queryParam(session, "batch"));
+        outbound.register(session, batch);
+        String username = usernameOf(session);
+        if (username != null) {
+            userSessions.computeIfAbsent(username, u -> ConcurrentHashMap.newKeySet()).add(session);
+        }
+        log.info("[WS] connected session={} tier={} batch={}", session.getId(), tier, batch);
     }
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
-        String oldCode = sessionToCode.remove(session);
-        KisRealtimeClient.StockPriceListener listener = sessionToListener.remove(session);
-
-        if (oldCode != null && listener != null) {
-            try {
-                kisClient.unsubscribe(oldCode, listener);
-            } catch (Exception e) {
-                log.warn("[WS] unsubscribe fail session={} code={}", session.getId(), oldCode, e);
+        Set<String> codes = sessionToCodes.remove(session);
+        if (codes != null) {
+            for (String code : codes) {
+                leave(session, code);
             }
         }
+        Set<String> books = sessionToBooks.remove(session);
+        if (books != null) {
+            for (String code : books) {
+                leaveBook(session, code);
+            }
+        }
+        moversSessions.remove(session);
+        String username = usernameOf(session);
+        if (username != null) {
+            userSessions.computeIfPresent(username, (u, set) -> {
+                set.remove(session);
+                return set.isEmpty() ? null : set;
+            });
+        }
+        outbound.unregister(session);
+        sessionToTier.remove(session);
+        sessionToCandles.remove(session);
     }
 
+    /**
+     * 요청 형식
+     * - {"type":"SUBSCRIBE","codes":["005930","000660"]} : 구독 목록에 추가
+     * - {"type":"SUBSCRIBE","code":"005930"}             : 기존 구독을 이 종목 하나로 교체 (단일 종목 화면 호환)
+     * - {"type":"SUBSCRIBE",...,"candles":["1m","5m"]}  : 구독 종목의 CANDLE 갱신도 받음 (빈 목록이면 끔)
+     * - {"type":"UNSUBSCRIBE","codes":[...]} / {"code":...} : 해당 종목만 해지, 둘 다 없으면 전체 해지
+     * - {"type":"SUBSCRIBE_BOOK","codes":[...]} / {"code":...} : 10단계 호가창 (전체 스냅샷 1회 후 레벨 diff)
+     * - {"type":"UNSUBSCRIBE_BOOK",...}                    : 호가창 해지, 종목이 없으면 전체 해지
+     * - {"type":"BOOK_SNAPSHOT","code":"005930"}           : seq 누락 시 전체 스냅샷 재요청
+     * - {"type":"SUBSCRIBE_MOVERS"} / {"type":"UNSUBSCRIBE_MOVERS"} : 상승/하락/거래량 상위 (현재 순위 1회 후 바뀔 때마다)
+     * ※ ALERT(시세 알림 발생)는 요청 없이 로그인 사용자의 세션 전체로 옴 (등록은 /api/alerts)
+     * ※ 접속 시 ?batch=1 이면 batch-window-ms 동안 모인 프레임이 {"type":"BATCH","frames":[...]} 하나로 옴 (1건이면 그대로)
+     */
     @Override
     @SuppressWarnings("unchecked")
     protected void handleTextMessage(WebSocketSession session, TextMessage message) {
@@ -52,51 +158,390 @@ public class StockWebSocketHandler extends TextWebSocketHandler {
             Map<String, Object> req = om.readValue(message.getPayload(), Map.class);
             String type = (String) req.get("type");
 
+            Set<String> current = sessionToCodes.computeIfAbsent(session, s -> ConcurrentHashMap.newKeySet());
+
             if ("SUBSCRIBE".equals(type)) {
-                String code = (String) req.get("code");
-                if (code == null || code.isBlank()) {
-                    session.sendMessage(new TextMessage("{\"type\":\"ERROR\",\"message\":\"code is required\"}"));
+                List<String> codes = codesOf(req);
+                if (codes.isEmpty()) {
+                    outbound.send(session, null, StockFrames.error("code is required"));
+                    return;
+                }
+                codes = knownCodes(session, codes);
+                if (codes.isEmpty()) return;
+
+                if (req.containsKey("candles")) {
+                    sessionToCandles.put(session, candleMaskOf(req.get("candles")));
+                }
+
+                // 단일 code 요청은 기존 구독 교체
+                if (!req.containsKey("codes")) {
+                    for (String old : current) {
+                        if (!codes.contains(old)) unsubscribe(session, current, old);
+                    }
+                }
+
+                for (String code : codes) {
+                    if (current.contains(code)) continue;
+                    if (current.size() >= maxCodesPerSession) {
+                        outbound.send(session, null, StockFrames.error("too many codes (max " + maxCodesPerSession + ")"));
+                        break;
+                    }
+                    current.add(code);
+                    join(session, code);
+                    sendSnapshot(session, code);
+                }
+                outbound.send(session, null, StockFrames.subscribed(current));
+
+            } else if ("UNSUBSCRIBE".equals(type)) {
+                List<String> codes = codesOf(req);
+                for (String code : (codes.isEmpty() ? List.copyOf(current) : codes)) {
+                    unsubscribe(session, current, code);
+                }
+                outbound.send(session, null, StockFrames.subscribed(current));
+
+            } else if ("SUBSCRIBE_BOOK".equals(type)) {
+                List<String> codes = codesOf(req);
+                if (codes.isEmpty()) {
+                    outbound.send(session, null, StockFrames.error("code is required"));
                     return;
                 }
+                // 호가 등록도 같은 KIS 등록 한도를 씀
+                codes = knownCodes(session, codes);
+                if (codes.isEmpty()) return;
+
+                Set<String> books = sessionToBooks.computeIfAbsent(session, s -> ConcurrentHashMap.newKeySet());
+                for (String code : codes) {
+                    if (books.contains(code)) continue;
+                    if (books.size() >= maxBooksPerSession) {
+                        outbound.send(session, null, StockFrames.error("too many books (max " + maxBooksPerSession + ")"));
+                        break;
+                    }
+                    books.add(code);
+                    joinBook(session, code);
+                    sendBookSnapshot(session, code);
+                }
+                outbound.send(session, null, StockFrames.bookSubscribed(books));
 
-                String oldCode = sessionToCode.get(session);
-                KisRealtimeClient.StockPriceListener oldListener = sessionToListener.get(session);
+            } else if ("UNSUBSCRIBE_BOOK".equals(type)) {
+                Set<String> books = sessionToBooks.computeIfAbsent(session, s -> ConcurrentHashMap.newKeySet());
+                List<String> codes = codesOf(req);
+                for (String code : (codes.isEmpty() ? List.copyOf(books) : codes)) {
+                    if (books.remove(code)) leaveBook(session, code);
+                }
+                outbound.send(session, null, StockFrames.bookSubscribed(books));
 
-                if (oldCode != null && oldListener != null && !oldCode.equals(code)) {
-                    kisClient.unsubscribe(oldCode, oldListener);
+            } else if ("SUBSCRIBE_MOVERS".equals(type)) {
+                if (moversSessions.add(session)) {
+                    outbound.send(session, MOVERS_KEY, StockFrames.movers(moversBoard.latest()));
                 }
 
-                // 새 listener 생성해서 저장
-                KisRealtimeClient.StockPriceListener newListener = price -> sendPriceToSession(session, code, price);
-                sessionToCode.put(session, code);
-                sessionToListener.put(session, newListener);
+            } else if ("UNSUBSCRIBE_MOVERS".equals(type)) {
+                moversSessions.remove(session);
 
-                kisClient.subscribe(code, newListener);
-  
-               
+            } else if ("BOOK_SNAPSHOT".equals(type)) {
+                Set<String> books = sessionToBooks.get(session);
+                for (String code : codesOf(req)) {
+                    if (books != null && books.contains(code)) sendBookSnapshot(session, code);
+                }
             }
         } catch (Exception e) {
             log.error("[WS] handleTextMessage error", e);
-            try {
-                session.sendMessage(new TextMessage("{\"type\":\"ERROR\",\"message\":\"" + e.getMessage() + "\"}"));
-            } catch (Exception ignore) {}
+            outbound.send(session, null, StockFrames.error(e.getMessage()));
         }
     }
 
-    private void sendPriceToSession(WebSocketSession session, String code, String price) {
-        try {
-            // ✅ 세션이 중간에 다른 종목으로 바뀌었으면 무시
-            String currentCode = sessionToCode.get(session);
-            if (currentCode == null || !currentCode.equals(code)) return;
-
-            if (!session.isOpen()) return;
-
-            String json = om.writeValueAsString(Map.of(
-                    "type", "PRICE",
-                    "code", code,
-                    "price", price
-            ));
-            session.sendMessage(new TextMessage(json));
-        } catch (Exception ignored) {}
+    /**
+     * 다음 틱을 기다리지 않도록 last-value가 있으면 바로 내려줌
+     */
+    private void sendSnapshot(WebSocketSession session, String code) {
+        KisTick last = kisClient.snapshot(code);
+        if (last != null) {
+            outbound.send(session, code, StockFrames.snapshot(last));
+        }
+    }
+
+    /**
+     * 호가창 전체 스냅샷. diff와 같은 conflation 키를 써서 순서가 뒤집히지 않게 함
+     */
+    private void sendBookSnapshot(WebSocketSession session, String code) {
+        OrderBookStore.OrderBook book = orderBookStore.snapshot(code);
+        if (book != null) {
+            outbound.send(session, bookKey(code), StockFrames.book(book, OrderBookStore.ALL_BITS, true));
+        }
+    }
+
+    private void unsubscribe(WebSocketSession session, Set<String> current, String code) {
+        if (current.remove(code)) {
+            leave(session, code);
+        }
+    }
+
+    private static int candleMaskOf(Object value) {
+        int mask = 0;
+        if (value instanceof List<?> list) {
+            for (Object o : list) {
+                CandleInterval interval = o instanceof String s ? CandleInterval.of(s) : null;
+                if (interval != null) mask |= 1 << interval.ordinal();
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * stock_master에 있는 종목만 남김. 모르는 종목은 ERROR 프레임으로 알려 주고 KIS에는 등록하지 않음
+     */
+    private List<String> knownCodes(WebSocketSession session, List<String> codes) {
+        List<String> known = new ArrayList<>(codes.size());
+        List<String> unknown = new ArrayList<>();
+        for (String code : codes) {
+            if (stockMasterService.isKnownCode(code)) known.add(code);
+            else unknown.add(code);
+        }
+        if (!unknown.isEmpty()) {
+            outbound.send(session, null, StockFrames.error("unknown code: " + String.join(",", unknown)));
+        }
+        return known;
+    }
+
+    private static List<String> codesOf(Map<String, Object> req) {
+        List<String> codes = new ArrayList<>();
+        Object many = req.get("codes");
+        if (many instanceof List<?> list) {
+            for (Object o : list) {
+                if (o instanceof String c && !c.isBlank()) codes.add(c.trim());
+            }
+        }
+        Object one = req.get("code");
+        if (one instanceof String c && !c.isBlank() && !codes.contains(c.trim())) {
+            codes.add(c.trim());
+        }
+        return codes;
+    }
+
+    /**
+     * 세션을 종목 그룹에 추가. 그룹의 첫 세션이면 KIS에 종목 리스너 등록 (compute 밖에서)
+     */
+    private void join(WebSocketSession session, String code) {
+        boolean[] first = {false};
+        codeToSessions.compute(code, (k, sessions) -> {
+            if (sessions == null) {
+                sessions = ConcurrentHashMap.newKeySet();
+                first[0] = true;
+            }
+            sessions.add(session);
+            return sessions;
+        });
+        if (first[0]) syncKis(code);
+    }
+
+    /**
+     * 세션을 종목 그룹에서 제거. 마지막 세션이면 KIS 리스너 해지 + conflation 슬롯 정리 (compute 밖에서)
+     */
+    private void leave(WebSocketSession session, String code) {
+        boolean[] last = {false};
+        codeToSessions.computeIfPresent(code, (k, sessions) -> {
+            sessions.remove(session);
+            if (!sessions.isEmpty()) return sessions;
+            last[0] = true;
+            return null;
+        });
+        if (last[0]) syncKis(code);
+    }
+
+    /**
+     * 종목 그룹 유무에 KIS 리스너 등록을 맞춤.
+     * 0→1 / 1→0 전환이 겹쳐 등록과 해지가 뒤바뀌어 도착해도 최종 상태 기준으로 한 번만 반영
+     */
+    private void syncKis(String code) {
+        synchronized (kisSyncLock) {
+            boolean wanted = codeToSessions.containsKey(code);
+            if (wanted == kisCodes.contains(code)) return;
+
+            if (wanted) {
+                kisCodes.add(code);
+                try {
+                    kisClient.subscribe(code, listenerFor(code));
+                } catch (Exception e) {
+                    // KIS 쪽은 subscribed 목록에 남아 재연결 시 재구독됨
+                    log.warn("[WS] kis subscribe fail code={}", code, e);
+                }
+            } else {
+                kisCodes.remove(code);
+                try {
+                    kisClient.unsubscribe(code, listenerFor(code));
+                } catch (Exception e) {
+                    log.warn("[WS] unsubscribe fail code={}", code, e);
+                }
+                conflator.remove(code);
+            }
+        }
+    }
+
+    /**
+     * 세션을 호가창 그룹에 추가. 그룹의 첫 세션이면 KIS에 호가 등록 (compute 밖에서)
+     */
+    private void joinBook(WebSocketSession session, String code) {
+        boolean[] first = {false};
+        bookToSessions.compute(code, (k, sessions) -> {
+            if (sessions == null) {
+                sessions = ConcurrentHashMap.newKeySet();
+                first[0] = true;
+            }
+            sessions.add(session);
+            return sessions;
+        });
+        if (first[0]) syncBook(code);
+    }
+
+    private void leaveBook(WebSocketSession session, String code) {
+        boolean[] last = {false};
+        bookToSessions.computeIfPresent(code, (k, sessions) -> {
+            sessions.remove(session);
+            if (!sessions.isEmpty()) return sessions;
+            last[0] = true;
+            return null;
+        });
+        if (last[0]) syncBook(code);
+    }
+
+    /**
+     * 호가창 그룹 유무에 KIS 호가 등록을 맞춤 (syncKis와 같은 방식)
+     */
+    private void syncBook(String code) {
+        synchronized (kisSyncLock) {
+            boolean wanted = bookToSessions.containsKey(code);
+            if (wanted == bookCodes.contains(code)) return;
+
+            if (wanted) {
+                bookCodes.add(code);
+                try {
+                    orderBookStore.watch(code);
+                } catch (Exception e) {
+                    log.warn("[WS] kis book subscribe fail code={}", code, e);
+                }
+            } else {
+                bookCodes.remove(code);
+                try {
+                    orderBookStore.unwatch(code);
+                } catch (Exception e) {
+                    log.warn("[WS] book unsubscribe fail code={}", code, e);
+                }
+            }
+        }
+    }
+
+    private KisRealtimeClient.StockPriceListener listenerFor(String code) {
+        // KIS 틱은 바로 보내지 않고 conflation 단계로
+        return codeToListener.computeIfAbsent(code, c -> conflator::offer);
+    }
+
+    /**
+     * conflation flush 시 호출. 해당 티어 세션에게만 전송
+     */
+    private void broadcast(int tier, KisTick tick) {
+        String code = tick.getCode();
+        Set<WebSocketSession> sessions = codeToSessions.get(code);
+        if (sessions == null || sessions.isEmpty()) return;
+
+        // ✅ 구독자 수와 무관하게 flush당 1회만 인코딩 (수신/체결 시각을 같이 실어 송신 시 지연 기록)
+        OutboundFrame frame = null;
+
+        // ✅ 세션 송신 큐에 넣기만 함 (실제 전송은 ws-sender 스레드)
+        for (WebSocketSession session : sessions) {
+            Integer sessionTier = sessionToTier.get(session);
+            if (sessionTier == null || sessionTier != tier) continue;
+
+            if (frame == null) frame = OutboundFrame.of(StockFrames.price(tick), tick);
+            outbound.send(session, code, frame);
+        }
+    }
+
+    /**
+     * 봉 갱신 push 시 호출. CANDLE을 요청한 세션에게만 전송 (티어 무관)
+     */
+    private void broadcastBar(String code, CandleInterval interval, long[] bar) {
+        Set<WebSocketSession> sessions = codeToSessions.get(code);
+        if (sessions == null || sessions.isEmpty()) return;
+
+        int bit = 1 << interval.ordinal();
+        OutboundFrame frame = null;
+        String key = null;
+
+        for (WebSocketSession session : sessions) {
+            Integer mask = sessionToCandles.get(session);
+            if (mask == null || (mask & bit) == 0) continue;
+
+            if (frame == null) {
+                frame = OutboundFrame.of(StockFrames.candle(code, interval, bar));
+                key = candleKey(code, interval);
+            }
+            outbound.send(session, key, frame);
+        }
+    }
+
+    /**
+     * 호가 push 시 호출. 바뀐 레벨만 담은 BOOK 프레임을 종목당 1회 인코딩 (티어 무관)
+     */
+    private void broadcastBook(OrderBookStore.OrderBook book, int mask) {
+        Set<WebSocketSession> sessions = bookToSessions.get(book.code);
+        if (sessions == null || sessions.isEmpty()) return;
+
+        OutboundFrame frame = OutboundFrame.of(StockFrames.book(book, mask, false));
+        String key = bookKey(book.code);
+        for (WebSocketSession session : sessions) {
+            outbound.send(session, key, frame);
+        }
+    }
+
+    /**
+     * 순위가 바뀌었을 때 movers-push 스레드에서 호출. 1회 인코딩 후 구독 세션 전체에
+     */
+    private void broadcastMovers(MoversBoard.Movers movers) {
+        if (moversSessions.isEmpty()) return;
+
+        OutboundFrame frame = OutboundFrame.of(StockFrames.movers(movers));
+        for (WebSocketSession session : moversSessions) {
+            outbound.send(session, MOVERS_KEY, frame);
+        }
+    }
+
+    /**
+     * alert-fire 스레드에서 호출. 접속 중이 아니면 버림 (발생 기록은 DB에 남아 /api/alerts 로 조회)
+     */
+    private void deliverAlert(PriceAlertEngine.Fired fired) {
+        Set<WebSocketSession> sessions = userSessions.get(fired.username());
+        if (sessions == null) return;
+
+        OutboundFrame frame = OutboundFrame.of(StockFrames.alert(fired));
+        for (WebSocketSession session : sessions) {
+            outbound.send(session, null, frame);
+        }
+    }
+
+    private static boolean isTrue(String value) {
+        return "1".equals(value) || "true".equalsIgnoreCase(value);
+    }
+
+    private static String usernameOf(WebSocketSession session) {
+        return session.getPrincipal() != null ? session.getPrincipal().getName() : null;
+    }
+
+    private String bookKey(String code) {
+        return bookKeys.computeIfAbsent(code, c -> c + ":book");
+    }
+
+    private String candleKey(String code, CandleInterval interval) {
+        String[] keys = candleKeys.computeIfAbsent(code, c -> {
+            CandleInterval[] all = CandleInterval.values();
+            String[] k = new String[all.length];
+            for (CandleInterval i : all) k[i.ordinal()] = c + ":" + i.label();
+            return k;
+        });
+        return keys[interval.ordinal()];
+    }
+
+    private static String queryParam(WebSocketSession session, String name) {
+        if (session.getUri() == null) return null;
+        return UriComponentsBuilder.fromUri(session.getUri()).build().getQueryParams().getFirst(name);
     }
 }
@@ -0,0 +1,192 @@
+package com.mysite.sbb.stock;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+
+import com.mysite.sbb.kis.TickLatencyRecorder;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * /ws/stock 세션별 송신 큐 관리.
+ * - KIS 리더 스레드는 큐에 넣기만 하고 바로 리턴 → 느린 브라우저 하나가 전체 틱 전달을 막지 않음
+ * - 실제 전송은 ws-sender 풀에서 수행
+ * - batch 모드 세션은 ws-batch-timer가 batch-window-ms 뒤에 drain을 sender 풀로 넘김
+ */
+@Slf4j
+@Component
+public class StockWsOutbound {
+
+    // Tomcat JSR-356 blocking send 타임아웃 (세션 user property)
+    private static final String TOMCAT_BLOCKING_SEND_TIMEOUT = "org.apache.tomcat.websocket.BLOCKING_SEND_TIMEOUT";
+
+    @Value("${stock.ws.queue-capacity:256}")
+    private int queueCapacity;
+
+    @Value("${stock.ws.overflow-policy:CONFLATE}")
+    private OutboundSession.OverflowPolicy overflowPolicy;
+
+    @Value("${stock.ws.sender-threads:4}")
+    private int senderThreads;
+
+    @Value("${stock.ws.send-timeout-ms:5000}")
+    private long sendTimeoutMs;
+
+    // batch 모드 세션의 프레임 모으는 창
+    @Value("${stock.ws.batch-window-ms:20}")
+    private long batchWindowMs;
+
+    private final MeterRegistry meterRegistry;
+    private final TickLatencyRecorder latencyRecorder;
+    private final Map<WebSocketSession, OutboundSession> sessions = new ConcurrentHashMap<>();
+
+    private ExecutorService senderExec;
+    private ScheduledExecutorService batchTimer;
+
+    private Counter sentCounter;
+    private Counter droppedCounter;
+    private Counter slowDisconnectCounter;
+    private Counter batchCounter;
+
+    public StockWsOutbound(MeterRegistry meterRegistry, TickLatencyRecorder latencyRecorder) {
+        this.meterRegistry = meterRegistry;
+        this.latencyRecorder = latencyRecorder;
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger seq = new AtomicInteger();
+        senderExec = Executors.newFixedThreadPool(Math.max(1, senderThreads), r -> {
+            Thread t = new Thread(r, "ws-sender-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        batchTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ws-batch-timer");
+            t.setDaemon(true);
+            return t;
+        });
+
+        sentCounter = Counter.builder("stock.ws.frames.sent")
+                .description("/ws/stock 로 전송된 프레임 수")
+                .register(meterRegistry);
+        droppedCounter = Counter.builder("stock.ws.frames.dropped")
+                .description("송신 큐 초과로 버려진 프레임 수")
+                .tag("policy", overflowPolicy.name())
+                .register(meterRegistry);
+        slowDisconnectCounter = Counter.builder("stock.ws.sessions.slow.disconnected")
+                .description("느린 소비자로 판단되어 끊긴 세션 수")
+                .register(meterRegistry);
+        batchCounter = Counter.builder("stock.ws.batches.sent")
+                .description("batch 모드로 묶어 보낸 BATCH 프레임 수 (안의 프레임은 frames.sent에 포함)")
+                .register(meterRegistry);
+
+        Gauge.builder("stock.ws.sessions", sessions, Map::size)
+                .description("송신 큐가 있는 세션 수")
+                .register(meterRegistry);
+        Gauge.builder("stock.ws.queue.depth", this, StockWsOutbound::totalDepth)
+                .description("전체 세션 송신 큐 적재량 합계")
+                .register(meterRegistry);
+        Gauge.builder("stock.ws.queue.depth.max", this, StockWsOutbound::maxDepth)
+                .description("세션 송신 큐 적재량 최대값")
+                .register(meterRegistry);
+
+        log.info("[WS] outbound ready. capacity={}, policy={}, threads={}, batchWindowMs={}",
+                queueCapacity, overflowPolicy, senderThreads, batchWindowMs);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        batchTimer.shutdownNow();
+        senderExec.shutdownNow();
+    }
+
+    /**
+     * @param batch true면 batch-window-ms 동안 모은 프레임을 BATCH 프레임 하나로 전송
+     */
+    public void register(WebSocketSession session, boolean batch) {
+        applySendTimeout(session);
+        sessions.put(session, new OutboundSession(session, this, Math.max(1, queueCapacity), batch));
+    }
+
+    public void unregister(WebSocketSession session) {
+        OutboundSession out = sessions.remove(session);
+        if (out != null) out.close();
+        latencyRecorder.removeSession(session.getId());
+    }
+
+    /**
+     * @param code 시세 프레임이면 종목코드, 제어 프레임이면 null
+     */
+    public void send(WebSocketSession session, String code, TextMessage frame) {
+        OutboundSession out = sessions.get(session);
+        if (out != null) out.offer(code, OutboundFrame.of(frame));
+    }
+
+    /**
+     * 여러 세션에 같은 프레임을 보낼 때 (지연 측정 시각 포함 프레임은 한 번만 만들어 공유)
+     */
+    void send(WebSocketSession session, String code, OutboundFrame frame) {
+        OutboundSession out = sessions.get(session);
+        if (out != null) out.offer(code, frame);
+    }
+
+    OutboundSession.OverflowPolicy overflowPolicy() {
+        return overflowPolicy;
+    }
+
+    void execute(Runnable task) {
+        senderExec.execute(task);
+    }
+
+    void executeAfterBatchWindow(Runnable task) {
+        batchTimer.schedule(() -> senderExec.execute(task), batchWindowMs, TimeUnit.MILLISECONDS);
+    }
+
+    void recordSent(WebSocketSession session, OutboundFrame frame) {
+        sentCounter.increment();
+        if (frame.timed()) {
+            latencyRecorder.recordSend(frame.code(), session.getId(), frame.receivedAtNanos(), frame.exchangeTimeMillis());
+        }
+    }
+
+    void recordDropped() { droppedCounter.increment(); }
+    void recordBatch() { batchCounter.increment(); }
+    void recordSlowDisconnect() { slowDisconnectCounter.increment(); }
+
+    private double totalDepth() {
+        long sum = 0;
+        for (OutboundSession out : sessions.values()) sum += out.depth();
+        return sum;
+    }
+
+    private double maxDepth() {
+        int max = 0;
+        for (OutboundSession out : sessions.values()) max = Math.max(max, out.depth());
+        return max;
+    }
+
+    private void applySendTimeout(WebSocketSession session) {
+        if (!(session instanceof NativeWebSocketSession nativeSession)) return;
+        jakarta.websocket.Session s = nativeSession.getNativeSession(jakarta.websocket.Session.class);
+        if (s != null) {
+            s.getUserProperties().put(TOMCAT_BLOCKING_SEND_TIMEOUT, sendTimeoutMs);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.mysite.sbb.stock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.mysite.sbb.kis.KisTick;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * KisRealtimeClient → StockWebSocketHandler 사이의 종목별 틱 conflation.
+ * - 종목별 최신 틱만 슬롯에 덮어쓰고, 티어별 주기(Hz)마다 변경된 종목만 내보냄
+ * - 변경된 종목은 티어별 dirty 큐에 한 번만 들어가므로 틱이 없는 종목은 비용 0
+ * - 티어 설정 예: stock.conflation.tiers=standard:4,realtime:10 (0 Hz면 conflation 없이 바로 전달)
+ */
+@Slf4j
+@Component
+public class TickConflator {
+
+    @FunctionalInterface
+    public interface FlushListener {
+        /** tick은 flush 스레드가 재사용하는 객체이므로 호출 안에서만 사용할 것 */
+        void onFlush(int tier, KisTick tick);
+    }
+
+    @Value("${stock.conflation.tiers:standard:4,realtime:10}")
+    private String tiersSpec;
+
+    @Value("${stock.conflation.default-tier:standard}")
+    private String defaultTierName;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Slot> slots = new ConcurrentHashMap<>();
+
+    private final List<Tier> tiers = new ArrayList<>();
+    private int defaultTier;
+
+    private volatile FlushListener listener = (tier, tick) -> {};
+
+    private Counter ticksIn;
+
+    private final ScheduledExecutorService flushExec =
+            Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "tick-conflator");
+                t.setDaemon(true);
+                return t;
+            });
+
+    public TickConflator(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        for (String part : tiersSpec.split(",")) {
+            String[] kv = part.trim().split(":");
+            if (kv.length != 2) continue;
+            tiers.add(new Tier(tiers.size(), kv[0].trim(), Integer.parseInt(kv[1].trim())));
+        }
+        if (tiers.isEmpty()) {
+            tiers.add(new Tier(0, "standard", 4));
+        }
+
+        int idx = indexOf(defaultTierName);
+        defaultTier = idx < 0 ? 0 : idx;
+
+        ticksIn = Counter.builder("stock.conflation.ticks.in")
+                .description("conflation 단계로 들어온 틱 수")
+                .register(meterRegistry);
+
+        for (Tier tier : tiers) {
+            tier.framesOut = Counter.builder("stock.conflation.ticks.out")
+                    .description("conflation 이후 내보낸 틱 수")
+                    .tag("tier", tier.name)
+                    .register(meterRegistry);
+
+            if (tier.hz > 0) {
+                long periodMicros = 1_000_000L / tier.hz;
+                flushExec.scheduleAtFixedRate(() -> flush(tier), periodMicros, periodMicros, TimeUnit.MICROSECONDS);
+            }
+            log.info("[CONFLATE] tier={} hz={}", tier.name, tier.hz);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushExec.shutdownNow();
+    }
+
+    public void setFlushListener(FlushListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 티어 이름 → 인덱스 (모르는 이름/null이면 기본 티어)
+     */
+    public int tierOf(String name) {
+        if (name == null) return defaultTier;
+        int idx = indexOf(name);
+        return idx < 0 ? defaultTier : idx;
+    }
+
+    /**
+     * KIS 리더 스레드에서 호출. 틱을 종목 슬롯에 덮어쓰고 티어별로 dirty 표시
+     */
+    public void offer(KisTick tick) {
+        ticksIn.increment();
+
+        String code = tick.getCode();
+        Slot slot = slots.get(code);
+        if (slot == null) {
+            slot = slots.computeIfAbsent(code, c -> new Slot(tiers.size()));
+        }
+
+        synchronized (slot) {
+            slot.latest.copyFrom(tick);
+        }
+
+        for (int i = 0; i < tiers.size(); i++) {
+            Tier tier = tiers.get(i);
+            if (tier.hz <= 0) {
+                // conflation 없는 티어는 바로 전달
+                tier.framesOut.increment();
+                listener.onFlush(i, tick);
+            } else if (slot.dirty.compareAndSet(i, 0, 1)) {
+                tier.dirty.add(slot);
+            }
+        }
+    }
+
+    /**
+     * 종목 구독이 모두 사라졌을 때 슬롯 정리
+     */
+    public void remove(String code) {
+        slots.remove(code);
+    }
+
+    private void flush(Tier tier) {
+        try {
+            Slot slot;
+            while ((slot = tier.dirty.poll()) != null) {
+                slot.dirty.set(tier.index, 0);
+                synchronized (slot) {
+                    tier.scratch.copyFrom(slot.latest);
+                }
+                tier.framesOut.increment();
+                listener.onFlush(tier.index, tier.scratch);
+            }
+        } catch (Exception e) {
+            // 예외가 나가면 scheduleAtFixedRate가 멈추므로 여기서 끊음
+            log.warn("[CONFLATE] flush error tier={}", tier.name, e);
+        }
+    }
+
+    private int indexOf(String name) {
+        for (Tier tier : tiers) {
+            if (tier.name.equalsIgnoreCase(name)) return tier.index;
+        }
+        return -1;
+    }
+
+    private static final class Tier {
+        final int index;
+        final String name;
+        final int hz;
+        final Queue<Slot> dirty = new ConcurrentLinkedQueue<>();
+        final KisTick scratch = new KisTick();
+        Counter framesOut;
+
+        Tier(int index, String name, int hz) {
+            this.index = index;
+            this.name = name;
+            this.hz = hz;
+        }
+    }
+
+    private static final class Slot {
+        final KisTick latest = new KisTick();
+        final AtomicIntegerArray dirty;
+
+        Slot(int tierCount) {
+            this.dirty = new AtomicIntegerArray(tierCount);
+        }
+    }
+}
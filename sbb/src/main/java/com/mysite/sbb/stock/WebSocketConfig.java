@@ -8,14 +8,17 @@ import org.springframework.web.socket.config.annotation.*;
 public class WebSocketConfig implements WebSocketConfigurer {
 
     private final StockWebSocketHandler handler;
+    private final StockHandshakeHandler handshakeHandler;
 
-    public WebSocketConfig(StockWebSocketHandler handler) {
+    public WebSocketConfig(StockWebSocketHandler handler, StockHandshakeHandler handshakeHandler) {
         this.handler = handler;
+        this.handshakeHandler = handshakeHandler;
     }
 
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
         registry.addHandler(handler, "/ws/stock")
+                .setHandshakeHandler(handshakeHandler)
                 .setAllowedOrigins("*"); // 운영에서는 도메인 지정 권장
     }
 }
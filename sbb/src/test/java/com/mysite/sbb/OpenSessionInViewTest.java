@@ -0,0 +1,120 @@
+package com.mysite.sbb;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.security.web.csrf.DefaultCsrfToken;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.handler.WebRequestHandlerInterceptorAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.ServletRequestPathUtils;
+
+import com.mysite.sbb.answer.Answer;
+import com.mysite.sbb.answer.AnswerRepository;
+import com.mysite.sbb.question.Question;
+import com.mysite.sbb.question.QuestionRepository;
+import com.mysite.sbb.user.SiteUser;
+import com.mysite.sbb.user.UserRepository;
+
+/**
+ * spring.jpa.open-in-view=false + WebConfig 경로별 OSIV:
+ * 화면은 지연 로딩(answerList)이 그대로 되고, /api/stocks/** 에는 OSIV가 안 걸려야 함
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class OpenSessionInViewTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private AnswerRepository answerRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    @Qualifier("requestMappingHandlerMapping")
+    private RequestMappingHandlerMapping handlerMapping;
+
+    @Test
+    void questionDetailStillLazyLoadsAnswers() throws Exception {
+        SiteUser user = new SiteUser();
+        user.setUsername("osiv-" + System.nanoTime());
+        user.setPassword("x");
+        user.setEmail(user.getUsername() + "@test");
+        userRepository.save(user);
+
+        Question q = new Question();
+        q.setAuthor(user);
+        q.setSubject("osiv");
+        q.setContent("osiv");
+        q.setCreateDate(LocalDateTime.now());
+        questionRepository.save(q);
+
+        Answer a = new Answer();
+        a.setContent("lazy answer");
+        a.setCreateDate(LocalDateTime.now());
+        a.setQuestion(q);
+        a.setAuthor(user);
+        answerRepository.save(a);
+
+        try {
+            // 상세 화면은 로그인 사용자 기준으로 그림 (추천 여부/수정 버튼)
+            User principal = new User(user.getUsername(), "x", List.of());
+            MockHttpSession session = new MockHttpSession();
+            session.setAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY,
+                    new SecurityContextImpl(new UsernamePasswordAuthenticationToken(principal, null, List.of())));
+
+            // local 프로필은 CSRF가 꺼져 있어 layout의 _csrf 메타 태그용 값을 직접 넣음
+            mockMvc.perform(get("/question/detail/" + q.getId())
+                            .session(session)
+                            .requestAttr("_csrf", new DefaultCsrfToken("X-CSRF-TOKEN", "_csrf", "t")))
+                    .andExpect(status().isOk())
+                    .andExpect(content().string(containsString("1개의 답변이 있습니다.")))
+                    .andExpect(content().string(containsString("lazy answer")));
+        } finally {
+            answerRepository.delete(a);
+            questionRepository.delete(q);
+            userRepository.delete(user);
+        }
+    }
+
+    @Test
+    void osivIsOnlyRegisteredOutsideStockApi() throws Exception {
+        assertThat(osivInterceptors("/question/detail/1")).isEqualTo(1);
+        assertThat(osivInterceptors("/api/stocks/005930/summary")).isZero();
+        assertThat(osivInterceptors("/api/stocks/stream")).isZero();
+    }
+
+    private long osivInterceptors(String path) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        ServletRequestPathUtils.parseAndCache(request);
+        HandlerExecutionChain chain = handlerMapping.getHandler(request);
+        assertThat(chain).isNotNull();
+        return chain.getInterceptorList().stream()
+                .filter(i -> i instanceof WebRequestHandlerInterceptorAdapter)
+                .count();
+    }
+}
@@ -0,0 +1,81 @@
+package com.mysite.sbb;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * prod 체인에서 /kis-sim/** 은 kis.simulator.enabled=true 일 때만 공개 + CSRF 제외
+ */
+class SecurityConfigTest {
+
+    @RestController
+    static class PingController {
+        @GetMapping("/kis-sim/ping")
+        String get() {
+            return "pong";
+        }
+
+        @PostMapping("/kis-sim/ping")
+        String post() {
+            return "pong";
+        }
+    }
+
+    @Nested
+    @WebMvcTest(controllers = PingController.class,
+            excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = WebConfig.class))
+    @Import({SecurityConfig.class, PingController.class})
+    @ActiveProfiles("prod")
+    @TestPropertySource(properties = {"kis.simulator.enabled=false",
+            "GOOGLE_CLIENT_ID=x", "GOOGLE_CLIENT_SECRET=x"})
+    class SimulatorDisabled {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Test
+        void simulatorPathsNeedLoginAndCsrf() throws Exception {
+            mockMvc.perform(get("/kis-sim/ping")).andExpect(status().is3xxRedirection());
+            mockMvc.perform(post("/kis-sim/ping")).andExpect(status().isForbidden());
+        }
+    }
+
+    @Nested
+    @WebMvcTest(controllers = PingController.class,
+            excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = WebConfig.class))
+    @Import({SecurityConfig.class, PingController.class})
+    @ActiveProfiles("prod")
+    @TestPropertySource(properties = {"kis.simulator.enabled=true",
+            "GOOGLE_CLIENT_ID=x", "GOOGLE_CLIENT_SECRET=x"})
+    class SimulatorEnabled {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Test
+        void simulatorPathsAreOpen() throws Exception {
+            mockMvc.perform(get("/kis-sim/ping")).andExpect(status().isOk());
+            mockMvc.perform(post("/kis-sim/ping")).andExpect(status().isOk());
+        }
+
+        @Test
+        void otherPathsStillNeedLogin() throws Exception {
+            mockMvc.perform(get("/question/create")).andExpect(status().is3xxRedirection());
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.mysite.sbb.kis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+class KisApprovalServiceTest {
+
+    private final AtomicInteger approvalCalls = new AtomicInteger();
+    private final Set<Integer> failingCalls = new HashSet<>();
+    private volatile long issueDelayMs;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private WebClient.Builder builder;
+    private KisApprovalService service;
+
+    @BeforeEach
+    void setUp() {
+        // /oauth2/Approval 호출마다 key-1, key-2 ... (failingCalls 번째는 500)
+        builder = WebClient.builder().exchangeFunction(request -> {
+            int n = approvalCalls.incrementAndGet();
+            ClientResponse res = failingCalls.contains(n)
+                    ? ClientResponse.create(HttpStatus.INTERNAL_SERVER_ERROR).build()
+                    : ClientResponse.create(HttpStatus.OK)
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .body("{\"approval_key\":\"key-" + n + "\"}")
+                            .build();
+            return Mono.just(res).delayElement(Duration.ofMillis(issueDelayMs));
+        });
+
+        service = service(null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private KisApprovalService service(KisCredentialStore store) {
+        ObjectProvider<KisCredentialStore> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(store);
+        KisApprovalService service = new KisApprovalService(builder, registry, provider);
+        ReflectionTestUtils.setField(service, "appKey", "app");
+        ReflectionTestUtils.setField(service, "appSecret", "secret");
+        ReflectionTestUtils.setField(service, "approvalBaseUrl", "http://kis.test");
+        ReflectionTestUtils.setField(service, "approvalTtlSec", 3600L);
+        ReflectionTestUtils.setField(service, "refreshAheadSec", 1800L);
+        ReflectionTestUtils.setField(service, "refreshJitterSec", 0L);
+        ReflectionTestUtils.setField(service, "retrySec", 60L);
+        ReflectionTestUtils.setField(service, "waitMs", 5000L);
+        return service;
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    private double refreshCount(String result) {
+        return registry.get("kis.token.refresh").tag("kind", "approval").tag("result", result).counter().count();
+    }
+
+    // 발급 응답이 처리되어 결과 카운터가 n이 될 때까지
+    private void awaitRefresh(String result, int n, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (refreshCount(result) < n && System.currentTimeMillis() < deadline) Thread.sleep(10);
+        assertEquals(n, refreshCount(result));
+    }
+
+    @Test
+    void concurrentCallersShareOneIssue() throws Exception {
+        issueDelayMs = 300;
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            Callable<String> get = service::getApprovalKey;
+            List<Future<String>> results = pool.invokeAll(Collections.nCopies(8, get));
+            for (Future<String> f : results) assertEquals("key-1", f.get());
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, approvalCalls.get());
+
+        // 만료 전이면 캐시된 값
+        assertEquals("key-1", service.getApprovalKey());
+        assertEquals(1, approvalCalls.get());
+        assertEquals(1.0, refreshCount("success"));
+    }
+
+    @Test
+    void refreshesAheadOfExpiryWithoutCaller() throws Exception {
+        // 수명 4초 → 절반(2초) 시점에 미리 재발급
+        ReflectionTestUtils.setField(service, "approvalTtlSec", 4L);
+        assertEquals("key-1", service.getApprovalKey());
+
+        Thread.sleep(1000);
+        assertEquals(1, approvalCalls.get());
+
+        awaitRefresh("success", 2, 3000);
+        assertEquals("key-2", service.getApprovalKey());
+        assertEquals(2, approvalCalls.get());
+    }
+
+    @Test
+    void failedRefreshKeepsCurrentValueAndRetries() throws Exception {
+        ReflectionTestUtils.setField(service, "approvalTtlSec", 4L);
+        ReflectionTestUtils.setField(service, "retrySec", 1L);
+        failingCalls.add(2);
+        assertEquals("key-1", service.getApprovalKey());
+
+        // 2초 시점 재발급 실패 → 아직 만료 전이라 기존 값 그대로
+        awaitRefresh("failure", 1, 3000);
+        assertEquals("key-1", service.getApprovalKey());
+        assertEquals(2, approvalCalls.get());
+
+        // retry-sec 뒤 재시도
+        awaitRefresh("success", 2, 2500);
+        assertEquals("key-3", service.getApprovalKey());
+    }
+
+    @Test
+    void callerWithoutValueSeesIssueFailure() {
+        failingCalls.add(1);
+        assertThrows(RuntimeException.class, service::getApprovalKey);
+        assertEquals(1.0, refreshCount("failure"));
+
+        // 다음 호출은 새로 발급 (실패한 future를 계속 물고 있지 않음)
+        assertEquals("key-2", service.getApprovalKey());
+    }
+
+    @Test
+    void sharedStoreWaitsOutOtherNodesLockInsteadOfGivingUp() {
+        service.shutdown();
+
+        // 다른 노드가 잠금을 쥐고 1.5초 뒤에 저장 (wait-ms 500보다 김, lock-ms 3000 안)
+        KisCredentialStore store = mock(KisCredentialStore.class);
+        long savedAt = System.currentTimeMillis() + 1500;
+        long expiresAt = System.currentTimeMillis() + 3_600_000;
+        when(store.lockMs()).thenReturn(3000L);
+        when(store.tryLock("approval")).thenReturn(false);
+        when(store.load("approval")).thenAnswer(inv -> System.currentTimeMillis() < savedAt
+                ? null : new KisCredentialStore.Shared("shared-key", expiresAt));
+
+        service = service(store);
+        ReflectionTestUtils.setField(service, "waitMs", 500L);
+
+        assertEquals("shared-key", service.getApprovalKey());
+        assertEquals(0, approvalCalls.get());
+        assertEquals(1.0, refreshCount("shared"));
+    }
+
+    @Test
+    void lockHolderIssuesSavesThenReleasesLock() {
+        service.shutdown();
+        KisCredentialStore store = mock(KisCredentialStore.class);
+        when(store.lockMs()).thenReturn(3000L);
+        when(store.tryLock("approval")).thenReturn(true);
+
+        service = service(store);
+        assertEquals("key-1", service.getApprovalKey());
+
+        // 저장이 끝난 뒤에 잠금을 놓아야 기다리던 노드가 새 값을 읽음 (unlock은 호출자에게 값이 넘어간 뒤 finally에서)
+        verify(store, timeout(1000)).unlock("approval");
+        InOrder order = inOrder(store);
+        order.verify(store).tryLock("approval");
+        order.verify(store).save(eq("approval"), any());
+        order.verify(store).unlock("approval");
+        assertEquals(1.0, refreshCount("success"));
+    }
+
+    @Test
+    void failedIssueStillReleasesLock() {
+        service.shutdown();
+        failingCalls.add(1);
+        KisCredentialStore store = mock(KisCredentialStore.class);
+        when(store.lockMs()).thenReturn(3000L);
+        when(store.tryLock("approval")).thenReturn(true);
+
+        service = service(store);
+        assertThrows(RuntimeException.class, service::getApprovalKey);
+        verify(store, timeout(1000)).unlock("approval");
+        verify(store, never()).save(anyString(), any());
+    }
+
+    @Test
+    void sharedStoreFailureFallsBackToLocalIssue() {
+        service.shutdown();
+        KisCredentialStore store = mock(KisCredentialStore.class);
+        when(store.lockMs()).thenReturn(3000L);
+        when(store.load("approval")).thenThrow(new IllegalStateException("redis down"));
+
+        service = service(store);
+        assertEquals("key-1", service.getApprovalKey());
+        verify(store, never()).tryLock(anyString());
+        verify(store, never()).unlock(anyString());
+    }
+}
@@ -0,0 +1,90 @@
+package com.mysite.sbb.kis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.WebSocketSession;
+
+class KisConnectionTest {
+
+    private ScheduledExecutorService reconnectExec;
+    private KisConnection conn;
+
+    @BeforeEach
+    void setUp() {
+        reconnectExec = mock(ScheduledExecutorService.class);
+        conn = new KisConnection(0, "ws://localhost", mock(KisApprovalService.class), reconnectExec,
+                t -> {}, q -> {}, (codes, since) -> {});
+    }
+
+    private static WebSocketSession session(String id) {
+        WebSocketSession s = mock(WebSocketSession.class);
+        when(s.getId()).thenReturn(id);
+        when(s.isOpen()).thenReturn(true);
+        return s;
+    }
+
+    private long disconnectedAt() {
+        return (long) ReflectionTestUtils.getField(conn, "disconnectedAtMillis");
+    }
+
+    @Test
+    void staleSessionCallbackKeepsCurrentSession() throws Exception {
+        WebSocketSession old = session("old");
+        WebSocketSession current = session("current");
+        ReflectionTestUtils.setField(conn, "kisSession", current);
+
+        // 재연결로 교체된 옛 세션의 close/transport error가 늦게 도착
+        conn.sessionClosed(old);
+
+        verify(old).close();
+        assertSame(current, ReflectionTestUtils.getField(conn, "kisSession"));
+        assertTrue(conn.isConnected());
+        assertEquals(0, disconnectedAt());
+        verify(reconnectExec, never()).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+    }
+
+    @Test
+    void currentSessionCloseMarksDisconnectedAndReconnects() {
+        WebSocketSession current = session("current");
+        ReflectionTestUtils.setField(conn, "kisSession", current);
+
+        conn.sessionClosed(current);
+
+        assertNull(ReflectionTestUtils.getField(conn, "kisSession"));
+        assertFalse(conn.isConnected());
+        assertTrue(disconnectedAt() > 0);
+        verify(reconnectExec).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+
+        // 같은 세션의 두 번째 콜백(close 뒤 transport error 등)은 재연결을 또 예약하지 않음
+        conn.sessionClosed(current);
+        verify(reconnectExec).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+    }
+
+    @Test
+    void closeAfterDisconnectDoesNotReconnect() {
+        WebSocketSession current = session("current");
+        ReflectionTestUtils.setField(conn, "kisSession", current);
+
+        conn.disconnect();
+        conn.sessionClosed(current);
+
+        assertEquals(0, disconnectedAt());
+        verify(reconnectExec, never()).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+    }
+}
@@ -0,0 +1,183 @@
+package com.mysite.sbb.kis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class KisCredentialStoreTest {
+
+    private static final long LOCK_MS = 15_000;
+
+    // 노드들이 같이 쓰는 Redis (키 → 값, 만료 시각). 만료는 가짜 시계 기준
+    private record Entry(String value, long expiresAt) {}
+    private final Map<String, Entry> redis = new ConcurrentHashMap<>();
+    private long now = 1_000_000;
+    private volatile boolean redisDown;
+
+    private String get(String key) {
+        Entry e = redis.get(key);
+        if (e == null || e.expiresAt() <= now) {
+            redis.remove(key);
+            return null;
+        }
+        return e.value();
+    }
+
+    @SuppressWarnings("unchecked")
+    private KisCredentialStore node(String appKey) throws Exception {
+        StringRedisTemplate template = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> ops = mock(ValueOperations.class);
+        when(template.opsForValue()).thenReturn(ops);
+
+        when(ops.get(anyString())).thenAnswer(inv -> get(inv.getArgument(0)));
+        doAnswer(inv -> {
+            Duration ttl = inv.getArgument(2);
+            redis.put(inv.getArgument(0), new Entry(inv.getArgument(1), now + ttl.toMillis()));
+            return null;
+        }).when(ops).set(anyString(), anyString(), any(Duration.class));
+        when(ops.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenAnswer(inv -> {
+            if (get(inv.getArgument(0)) != null) return false;
+            Duration ttl = inv.getArgument(2);
+            redis.put(inv.getArgument(0), new Entry(inv.getArgument(1), now + ttl.toMillis()));
+            return true;
+        });
+        // RELEASE 스크립트: 값이 자기 owner일 때만 DEL
+        when(template.execute(any(RedisScript.class), anyList(), any())).thenAnswer(inv -> {
+            if (redisDown) throw new IllegalStateException("redis down");
+            String key = ((List<String>) inv.getArgument(1)).get(0);
+            if (!inv.getArgument(2).equals(get(key))) return 0L;
+            redis.remove(key);
+            return 1L;
+        });
+
+        KisCredentialStore store = new KisCredentialStore(template, appKey);
+        ReflectionTestUtils.setField(store, "lockMs", LOCK_MS);
+        return store;
+    }
+
+    @Test
+    void savedCredentialLoadsBackUntilItExpires() throws Exception {
+        KisCredentialStore a = node("app");
+        long expiresAt = System.currentTimeMillis() + 60_000;
+        a.save("approval", new KisCredentialStore.Shared("key-1", expiresAt));
+
+        // 다른 노드(같은 앱키)가 그대로 읽음
+        assertEquals(new KisCredentialStore.Shared("key-1", expiresAt), node("app").load("approval"));
+        assertNull(a.load("access_token"));
+
+        String key = redis.keySet().iterator().next();
+        assertTrue(key.matches("kis:cred:[0-9a-f]{16}:approval"), key);
+        // PX는 만료 시각까지
+        long ttl = redis.get(key).expiresAt() - now;
+        assertTrue(ttl > 55_000 && ttl <= 60_000, "ttl=" + ttl);
+
+        now += ttl;
+        assertNull(a.load("approval"));
+    }
+
+    @Test
+    void alreadyExpiredCredentialIsNotSaved() throws Exception {
+        KisCredentialStore a = node("app");
+        a.save("approval", new KisCredentialStore.Shared("old", System.currentTimeMillis() - 1));
+        assertTrue(redis.isEmpty());
+    }
+
+    @Test
+    void malformedValueLoadsAsNull() throws Exception {
+        KisCredentialStore a = node("app");
+        a.save("approval", new KisCredentialStore.Shared("key-1", System.currentTimeMillis() + 60_000));
+        String key = redis.keySet().iterator().next();
+
+        redis.put(key, new Entry("no-separator", Long.MAX_VALUE));
+        assertNull(a.load("approval"));
+        redis.put(key, new Entry("soon|key-1", Long.MAX_VALUE));
+        assertNull(a.load("approval"));
+    }
+
+    @Test
+    void appKeysDoNotShareCredentialsOrLocks() throws Exception {
+        KisCredentialStore a = node("app-a");
+        KisCredentialStore b = node("app-b");
+        a.save("approval", new KisCredentialStore.Shared("key-a", System.currentTimeMillis() + 60_000));
+
+        assertNull(b.load("approval"));
+        assertTrue(a.tryLock("approval"));
+        assertTrue(b.tryLock("approval"));
+        // 앱키 자체는 Redis에 남지 않음
+        redis.forEach((k, v) -> assertFalse(k.contains("app-a") || v.value().contains("app-a"), k));
+    }
+
+    @Test
+    void onlyOneNodeHoldsTheLockUntilItsLeaseExpires() throws Exception {
+        KisCredentialStore a = node("app");
+        KisCredentialStore b = node("app");
+        assertEquals(LOCK_MS, a.lockMs());
+
+        assertTrue(a.tryLock("approval"));
+        assertFalse(b.tryLock("approval"));
+        // 같은 노드도 다시 잡지 못함 (재진입 아님)
+        assertFalse(a.tryLock("approval"));
+        // 종류별로 따로
+        assertTrue(b.tryLock("access_token"));
+
+        // 잡은 노드가 죽어도 lock-ms 뒤엔 다른 노드가 발급
+        now += LOCK_MS - 1;
+        assertFalse(b.tryLock("approval"));
+        now += 1;
+        assertTrue(b.tryLock("approval"));
+    }
+
+    @Test
+    void unlockReleasesOnlyOwnLease() throws Exception {
+        KisCredentialStore a = node("app");
+        KisCredentialStore b = node("app");
+
+        assertTrue(a.tryLock("approval"));
+        b.unlock("approval");
+        assertFalse(b.tryLock("approval"));
+
+        a.unlock("approval");
+        assertTrue(b.tryLock("approval"));
+
+        // a의 잠금이 만료된 뒤 b가 잡았으면, 늦게 끝난 a의 unlock은 b의 잠금을 지우지 않음
+        now += LOCK_MS;
+        assertTrue(a.tryLock("approval"));
+        now += LOCK_MS;
+        assertTrue(b.tryLock("approval"));
+        a.unlock("approval");
+        assertFalse(a.tryLock("approval"));
+    }
+
+    @Test
+    void unlockFailureIsSwallowedAndLeaseStillExpires() throws Exception {
+        KisCredentialStore a = node("app");
+        KisCredentialStore b = node("app");
+        assertTrue(a.tryLock("approval"));
+
+        redisDown = true;
+        a.unlock("approval");
+        redisDown = false;
+        assertFalse(b.tryLock("approval"));
+
+        now += LOCK_MS;
+        assertTrue(b.tryLock("approval"));
+    }
+}
@@ -0,0 +1,228 @@
+package com.mysite.sbb.kis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * init()(리스너 컨테이너/스케줄)은 건너뛰고 Redis 템플릿만 목으로 두고 heartbeat/publish/flush/onTicks를 직접 호출
+ */
+class KisFeedClusterTest {
+
+    private final List<byte[]> published = new CopyOnWriteArrayList<>();
+    private final List<KisTick> dispatched = new ArrayList<>();
+
+    private StringRedisTemplate redis;
+    private ValueOperations<String, String> values;
+    private ZSetOperations<String, String> zset;
+    private KisRealtimeClient realtimeClient;
+    private KisFeedCluster cluster;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        RedisConnection connection = mock(RedisConnection.class);
+        when(connection.publish(any(byte[].class), any(byte[].class))).thenAnswer(inv -> {
+            published.add(inv.getArgument(1));
+            return 1L;
+        });
+        redis = mock(StringRedisTemplate.class);
+        when(redis.execute(any(RedisCallback.class)))
+                .thenAnswer(inv -> inv.<RedisCallback<?>>getArgument(0).doInRedis(connection));
+        values = mock(ValueOperations.class);
+        zset = mock(ZSetOperations.class);
+        when(redis.opsForValue()).thenReturn(values);
+        when(redis.opsForZSet()).thenReturn(zset);
+
+        realtimeClient = mock(KisRealtimeClient.class);
+        when(realtimeClient.localSubscriptions()).thenReturn(Set.of(KisSubscription.trade("005930")));
+        doAnswer(inv -> {
+            KisTick copy = new KisTick();
+            copy.copyFrom(inv.getArgument(0));
+            dispatched.add(copy);
+            return null;
+        }).when(realtimeClient).dispatchRemote(any());
+
+        cluster = cluster("node-a");
+    }
+
+    @AfterEach
+    void tearDown() {
+        cluster.shutdown();
+    }
+
+    private KisFeedCluster cluster(String nodeId) {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        KisFeedCluster c = new KisFeedCluster(redis, mock(RedisConnectionFactory.class), realtimeClient, registry);
+        ReflectionTestUtils.setField(c, "nodeId", nodeId);
+        ReflectionTestUtils.setField(c, "leaseMs", 10_000L);
+        ReflectionTestUtils.setField(c, "container", new RedisMessageListenerContainer());
+        ReflectionTestUtils.setField(c, "publishedCounter", registry.counter("published"));
+        ReflectionTestUtils.setField(c, "receivedCounter", registry.counter("received"));
+        return c;
+    }
+
+    private void becomeLeader(KisFeedCluster c, String nodeId) {
+        when(values.setIfAbsent(eq(KisFeedCluster.LEADER_KEY), eq(nodeId), any(Duration.class))).thenReturn(true);
+        ReflectionTestUtils.invokeMethod(c, "heartbeat");
+        assertTrue(c.isLeader());
+    }
+
+    private static KisTick tick(String code, long seq) {
+        KisTick t = TestTicks.trade(code, 70_000 + seq, 10, seq, 0);
+        t.setReceivedAtMillis(1000 + seq);
+        return t;
+    }
+
+    private void publish(KisFeedCluster c, KisTick t) {
+        ReflectionTestUtils.invokeMethod(c, "publish", t);
+    }
+
+    // kis-cluster-publish 스레드에서 flush 한 번 (init의 주기 flush와 같은 경로)
+    private void flushOnPublishThread(KisFeedCluster c) throws Exception {
+        ScheduledExecutorService exec = (ScheduledExecutorService) ReflectionTestUtils.getField(c, "publishExec");
+        exec.submit(() -> ReflectionTestUtils.invokeMethod(c, "flush")).get(5, TimeUnit.SECONDS);
+    }
+
+    private static List<Long> volumesOf(List<byte[]> messages) {
+        List<Long> out = new ArrayList<>();
+        for (byte[] m : messages) {
+            ByteBuffer in = ByteBuffer.wrap(m).order(ByteOrder.LITTLE_ENDIAN);
+            int count = in.getInt(8);
+            for (int i = 0; i < count; i++) {
+                out.add(in.getLong(16 + i * KisTickCodec.RECORD_SIZE + 88));
+            }
+        }
+        return out;
+    }
+
+    @Test
+    void leaderReconcilesUnionOfNodeInterest() {
+        when(zset.range(KisFeedCluster.NODES_KEY, 0, -1)).thenReturn(Set.of("node-a", "node-b"));
+        when(values.multiGet(anyList())).thenReturn(List.of("005930", "000660,H0STASP0:000660"));
+
+        becomeLeader(cluster, "node-a");
+
+        verify(values).set(eq(KisFeedCluster.INTEREST_PREFIX + "node-a"), eq("005930"), any(Duration.class));
+        verify(zset).removeRangeByScore(eq(KisFeedCluster.NODES_KEY), anyDouble(), anyDouble());
+        verify(realtimeClient).reconcile(Set.of(
+                KisSubscription.trade("005930"), KisSubscription.trade("000660"), KisSubscription.book("000660")));
+    }
+
+    @Test
+    void followerDoesNotPublishOrReconcile() throws Exception {
+        when(values.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(false);
+        ReflectionTestUtils.invokeMethod(cluster, "heartbeat");
+
+        assertFalse(cluster.isLeader());
+        verify(realtimeClient, never()).reconcile(any());
+
+        publish(cluster, tick("005930", 1));
+        flushOnPublishThread(cluster);
+        assertTrue(published.isEmpty());
+    }
+
+    @Test
+    void followerReceivesLeaderTicksInOrderAndLeaderIgnoresItsOwn() throws Exception {
+        becomeLeader(cluster, "node-a");
+        KisFeedCluster follower = cluster("node-b");
+        try {
+            publish(cluster, tick("005930", 1));
+            publish(cluster, tick("000660", 2));
+            publish(cluster, tick("005930", 3));
+            flushOnPublishThread(cluster);
+            assertEquals(1, published.size());
+
+            byte[] channel = KisFeedCluster.TICK_CHANNEL.getBytes(StandardCharsets.UTF_8);
+            DefaultMessage message = new DefaultMessage(channel, published.get(0));
+
+            ReflectionTestUtils.invokeMethod(cluster, "onTicks", message, channel);
+            assertTrue(dispatched.isEmpty(), "leader must skip its own message");
+
+            ReflectionTestUtils.invokeMethod(follower, "onTicks", message, channel);
+            assertEquals(List.of("005930", "000660", "005930"), dispatched.stream().map(KisTick::getCode).toList());
+            assertEquals(List.of(1L, 2L, 3L), dispatched.stream().map(KisTick::getVolume).toList());
+            assertEquals(70_002, dispatched.get(1).getPrice());
+            assertEquals(1002, dispatched.get(1).getReceivedAtMillis());
+        } finally {
+            follower.shutdown();
+        }
+    }
+
+    @Test
+    void fullBatchesAndPeriodicFlushKeepOrder() throws Exception {
+        becomeLeader(cluster, "node-a");
+        ScheduledExecutorService exec = (ScheduledExecutorService) ReflectionTestUtils.getField(cluster, "publishExec");
+        exec.scheduleAtFixedRate(() -> ReflectionTestUtils.invokeMethod(cluster, "flush"), 0, 200, TimeUnit.MICROSECONDS);
+
+        int total = 20_000;   // 512건 묶음이 여러 번 차면서 주기 flush와 겹침
+        KisTick t = tick("005930", 0);
+        for (long i = 1; i <= total; i++) {
+            t.setVolume(i);
+            publish(cluster, t);
+        }
+        flushOnPublishThread(cluster);
+
+        List<Long> seen = volumesOf(published);
+        assertEquals(total, seen.size());
+        for (int i = 0; i < total; i++) {
+            assertEquals(i + 1, seen.get(i), "out of order at " + i);
+        }
+    }
+
+    @Test
+    void publishDoesNotBlockOnRedis() throws Exception {
+        becomeLeader(cluster, "node-a");
+        // 첫 PUBLISH가 느린 Redis
+        when(redis.execute(any(RedisCallback.class))).thenAnswer(inv -> {
+            Thread.sleep(500);
+            published.add(new byte[0]);
+            return 1L;
+        });
+
+        long start = System.nanoTime();
+        KisTick t = tick("005930", 0);
+        for (long i = 1; i <= 3 * 512; i++) {
+            t.setVolume(i);
+            publish(cluster, t);
+        }
+        long tookMs = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(tookMs < 400, "reader thread blocked " + tookMs + "ms");
+    }
+}
@@ -0,0 +1,190 @@
+package com.mysite.sbb.kis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class KisGapBackfillerTest {
+
+    private static final ZoneId KST = ZoneId.of("Asia/Seoul");
+    private static final long MINUTE = 60_000;
+
+    private KisRealtimeClient realtimeClient;
+    private KisRestClient restClient;
+    private KisGapBackfiller backfiller;
+    private KisRealtimeClient.GapListener gaps;
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    // REST 분봉 요청의 to 시각 (호출 순)
+    private final List<LocalTime> requested = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        realtimeClient = mock(KisRealtimeClient.class);
+        restClient = mock(KisRestClient.class);
+        backfiller = new KisGapBackfiller(realtimeClient, restClient, registry);
+        ReflectionTestUtils.setField(backfiller, "enabled", true);
+        // 주기 step이 끼어들지 않게 아주 느리게 (테스트가 직접 step)
+        ReflectionTestUtils.setField(backfiller, "ratePerSec", 0.01);
+        ReflectionTestUtils.setField(backfiller, "maxPages", 8);
+        ReflectionTestUtils.setField(backfiller, "minGapMs", 1000L);
+        backfiller.init();
+
+        ArgumentCaptor<KisRealtimeClient.GapListener> captor = ArgumentCaptor.forClass(KisRealtimeClient.GapListener.class);
+        verify(realtimeClient).setGapListener(captor.capture());
+        gaps = captor.getValue();
+    }
+
+    @AfterEach
+    void tearDown() {
+        backfiller.shutdown();
+    }
+
+    private static long at(int hh, int mm) {
+        return LocalDate.of(2026, 10, 16).atTime(hh, mm).atZone(KST).toInstant().toEpochMilli();
+    }
+
+    private static KisMinuteBar bar(long startMillis) {
+        return new KisMinuteBar(startMillis, 100, 101, 99, 100, 10);
+    }
+
+    /** 요청 시각(to) 이하 분봉을 오래된 순으로 최대 30개 (KIS 당일 분봉 페이지) */
+    private void restServesMinutes(long firstMinute, long lastMinute) {
+        when(restClient.getMinuteBars(anyString(), any(LocalTime.class), any())).thenAnswer(inv -> {
+            LocalTime to = inv.getArgument(1);
+            requested.add(to);
+            long toMillis = LocalDate.of(2026, 10, 16).atTime(to).atZone(KST).toInstant().toEpochMilli();
+            List<KisMinuteBar> page = new ArrayList<>();
+            for (long m = Math.min(lastMinute, toMillis - toMillis % MINUTE); m >= firstMinute && page.size() < 30; m -= MINUTE) {
+                page.add(0, bar(m));
+            }
+            return page;
+        });
+    }
+
+    private void step() {
+        ReflectionTestUtils.invokeMethod(backfiller, "step");
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<KisMinuteBar>> applied() {
+        ArgumentCaptor<List<KisMinuteBar>> captor = ArgumentCaptor.forClass(List.class);
+        verify(realtimeClient, atLeast(0)).applyBackfill(eq("005930"), captor.capture());
+        return captor.getAllValues();
+    }
+
+    @Test
+    void shortGapIsIgnored() {
+        gaps.onGap("005930", at(10, 0), at(10, 0) + 500);
+        assertEquals(0, backfiller.pendingCount());
+    }
+
+    @Test
+    void gapsOfOneCodeMergeIntoOneJob() {
+        restServesMinutes(at(9, 0), at(10, 30));
+        gaps.onGap("005930", at(10, 10), at(10, 20));
+        gaps.onGap("000660", at(10, 10), at(10, 20));
+        // 같은 종목 두 번째 재연결: 구간이 앞뒤로 넓어짐
+        gaps.onGap("005930", at(10, 5), at(10, 15));
+        gaps.onGap("005930", at(10, 12), at(10, 25));
+        assertEquals(2, backfiller.pendingCount());
+
+        step();
+        assertEquals(List.of(LocalTime.of(10, 25)), requested);
+        List<KisMinuteBar> bars = applied().get(0);
+        // [10:05 분 시작, 10:25] 분봉만, 오래된 순, 중복 없음
+        assertEquals(at(10, 5), bars.get(0).startMillis());
+        assertEquals(at(10, 25), bars.get(bars.size() - 1).startMillis());
+        assertEquals(21, bars.size());
+        assertEquals(1, backfiller.pendingCount());
+    }
+
+    @Test
+    void pagesBackwardsUntilGapStart() {
+        restServesMinutes(at(9, 0), at(11, 0));
+        gaps.onGap("005930", at(9, 40) + 30_000, at(10, 50));
+
+        // 10:50부터 30분씩: 10:21~10:50, 09:51~10:20, 09:40(분 시작)~09:50
+        step();
+        step();
+        step();
+        assertEquals(List.of(LocalTime.of(10, 50), LocalTime.of(10, 20, 59, 999_000_000),
+                LocalTime.of(9, 50, 59, 999_000_000)), requested);
+        assertEquals(0, backfiller.pendingCount());
+
+        List<Long> starts = new ArrayList<>();
+        for (List<KisMinuteBar> page : applied()) page.forEach(b -> starts.add(b.startMillis()));
+        assertEquals(71, starts.size());
+        assertEquals(71, starts.stream().distinct().count());
+        assertEquals(at(9, 40), starts.stream().mapToLong(Long::longValue).min().getAsLong());
+        assertEquals(at(10, 50), starts.stream().mapToLong(Long::longValue).max().getAsLong());
+        assertEquals(71, registry.get("kis.backfill.bars").counter().count());
+    }
+
+    @Test
+    void newGapDuringJobRestartsFromNewEnd() {
+        restServesMinutes(at(9, 0), at(11, 0));
+        gaps.onGap("005930", at(9, 0), at(10, 0));
+        step();
+
+        gaps.onGap("005930", at(10, 30), at(10, 40));
+        step();
+        assertEquals(LocalTime.of(10, 40), requested.get(1));
+        assertEquals(1, backfiller.pendingCount());
+    }
+
+    @Test
+    void maxPagesEndsTheJob() {
+        ReflectionTestUtils.setField(backfiller, "maxPages", 2);
+        restServesMinutes(at(9, 0), at(15, 0));
+        gaps.onGap("005930", at(9, 0), at(15, 0));
+        step();
+        step();
+        assertEquals(0, backfiller.pendingCount());
+        step();
+        assertEquals(2, requested.size());
+    }
+
+    @Test
+    void failuresRetryThenGiveUpButRateLimitIsNotAFailure() {
+        when(restClient.getMinuteBars(anyString(), any(LocalTime.class), any()))
+                .thenThrow(new KisRateLimitedException("busy"))
+                .thenThrow(new RuntimeException("KIS 500"))
+                .thenThrow(new RuntimeException("KIS 500"))
+                .thenThrow(new RuntimeException("KIS 500"));
+        gaps.onGap("005930", at(10, 0), at(10, 10));
+
+        step();
+        assertEquals(1, backfiller.pendingCount());
+        assertEquals(0, registry.get("kis.backfill.requests").tag("result", "error").counter().count());
+
+        step();
+        step();
+        assertEquals(1, backfiller.pendingCount());
+        step();
+        assertEquals(0, backfiller.pendingCount());
+        assertEquals(3, registry.get("kis.backfill.requests").tag("result", "error").counter().count());
+        verify(realtimeClient, never()).applyBackfill(anyString(), anyList());
+    }
+}
@@ -0,0 +1,93 @@
+package com.mysite.sbb.kis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.WebSocketSession;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class KisRealtimeClientTest {
+
+    private KisRealtimeClient client;
+
+    @BeforeEach
+    void setUp() {
+        client = new KisRealtimeClient(mock(KisApprovalService.class), new SimpleMeterRegistry(),
+                mock(TickLatencyRecorder.class));
+        ReflectionTestUtils.setField(client, "lvcMaxAgeMs", 60_000L);
+    }
+
+    private void dispatch(KisTick tick) {
+        ReflectionTestUtils.invokeMethod(client, "dispatch", tick);
+    }
+
+    private static KisTick tick(String code, long price, long receivedAtMillis) {
+        KisTick t = TestTicks.trade(code, price, 0);
+        t.setReceivedAtMillis(receivedAtMillis);
+        return t;
+    }
+
+    /** 체결 등록을 살아 있는 연결에 배치 */
+    @SuppressWarnings("unchecked")
+    private void placeOnLiveConnection(String code) {
+        KisConnection conn = new KisConnection(0, "ws://localhost", mock(KisApprovalService.class),
+                mock(ScheduledExecutorService.class), t -> {}, q -> {}, (codes, since) -> {});
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.isOpen()).thenReturn(true);
+        ReflectionTestUtils.setField(conn, "kisSession", session);
+        ((Map<KisSubscription, KisConnection>) ReflectionTestUtils.getField(client, "placement"))
+                .put(KisSubscription.trade(code), conn);
+    }
+
+    @Test
+    void noTickYetMeansNoSnapshot() {
+        assertNull(client.snapshot("005930"));
+    }
+
+    @Test
+    void snapshotIsACopyOfTheLatestTick() {
+        long now = System.currentTimeMillis();
+        KisTick decoded = tick("005930", 71000, now);
+        dispatch(decoded);
+        // 디코더/링 슬롯은 같은 인스턴스를 재사용
+        decoded.copyFrom(tick("005930", 71100, now));
+        dispatch(decoded);
+
+        KisTick snap = client.snapshot("005930");
+        assertEquals(71100, snap.getPrice());
+        assertNotSame(decoded, snap);
+
+        // 재사용 인스턴스나 받은 복사본을 고쳐도 캐시는 그대로
+        decoded.copyFrom(tick("005930", 1, now));
+        snap.setPrice(2);
+        assertEquals(71100, client.snapshot("005930").getPrice());
+        assertNull(client.snapshot("000660"));
+    }
+
+    @Test
+    void oldLastValueExpiresWhenNotLive() {
+        dispatch(tick("005930", 71000, System.currentTimeMillis() - 120_000));
+        assertNull(client.snapshot("005930"));
+
+        dispatch(tick("005930", 71100, System.currentTimeMillis() - 30_000));
+        assertEquals(71100, client.snapshot("005930").getPrice());
+    }
+
+    @Test
+    void liveSubscriptionKeepsOldLastValue() {
+        // 장 마감 후처럼 틱이 뜸해도 등록이 살아 있으면 마지막 틱이 현재가
+        dispatch(tick("005930", 71000, System.currentTimeMillis() - 3_600_000));
+        placeOnLiveConnection("005930");
+        assertEquals(71000, client.snapshot("005930").getPrice());
+    }
+}
@@ -0,0 +1,271 @@
+package com.mysite.sbb.kis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+class KisRestClientTest {
+
+    private static final ZoneId KST = ZoneId.of("Asia/Seoul");
+    private static final String SUMMARY_PATH = "/uapi/domestic-stock/v1/quotations/inquire-price";
+    private static final String MINUTES_PATH = "/uapi/domestic-stock/v1/quotations/inquire-time-itemchartprice";
+
+    @FunctionalInterface
+    private interface Reply {
+        void send(HttpExchange ex) throws IOException;
+    }
+
+    private HttpServer server;
+    private ExecutorService serverExec;
+    private final Map<String, Reply> replies = new ConcurrentHashMap<>();
+    private final AtomicInteger hits = new AtomicInteger();
+    // 응답을 붙잡고 있는 핸들러를 tearDown에서 풀어줌
+    private final CountDownLatch release = new CountDownLatch(1);
+    private volatile HttpExchange lastRequest;
+
+    private KisRestLimiter limiter;
+    private final List<KisRestClient> clients = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", ex -> {
+            hits.incrementAndGet();
+            lastRequest = ex;
+            Reply reply = replies.get(ex.getRequestURI().getPath());
+            if (reply == null) reply = e -> respond(e, 404, "");
+            reply.send(ex);
+        });
+        serverExec = Executors.newCachedThreadPool();
+        server.setExecutor(serverExec);
+        server.start();
+
+        limiter = mock(KisRestLimiter.class);
+        when(limiter.acquireAsync(any())).thenReturn(Mono.empty());
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        clients.forEach(KisRestClient::shutdown);
+        server.stop(0);
+        serverExec.shutdownNow();
+    }
+
+    private KisRestClient client(String baseUrl, int maxConnections, long pendingAcquireTimeoutMs, long readTimeoutMs) {
+        KisApprovalService approval = mock(KisApprovalService.class);
+        when(approval.getAccessToken()).thenReturn("tok");
+        KisRestClient c = new KisRestClient(approval, limiter, WebClient.builder(),
+                maxConnections, pendingAcquireTimeoutMs, 30_000, 500, readTimeoutMs);
+        ReflectionTestUtils.setField(c, "baseUrl", baseUrl);
+        ReflectionTestUtils.setField(c, "appKey", "key");
+        ReflectionTestUtils.setField(c, "appSecret", "secret");
+        clients.add(c);
+        return c;
+    }
+
+    private KisRestClient client() {
+        return client(baseUrl(), 4, 2_000, 2_000);
+    }
+
+    private String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private static void respond(HttpExchange ex, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json");
+        ex.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            try (OutputStream os = ex.getResponseBody()) {
+                os.write(bytes);
+            }
+        }
+        ex.close();
+    }
+
+    private void serve(String path, int status, String body) {
+        replies.put(path, ex -> respond(ex, status, body));
+    }
+
+    /** 응답 헤더를 보내지 않고 붙잡고 있음 (응답 타임아웃/풀 고갈용) */
+    private void hang(String path) {
+        replies.put(path, ex -> {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            ex.close();
+        });
+    }
+
+    private static RuntimeException summaryError(KisRestClient c) {
+        return assertThrows(RuntimeException.class, () -> c.stockSummary("005930").block());
+    }
+
+    @Test
+    void summaryIsParsedAndRequestCarriesKisHeaders() {
+        serve(SUMMARY_PATH, 200, "{\"rt_cd\":\"0\",\"output\":{\"stck_prpr\":\"71000\",\"stck_sdpr\":\"70000\"}}");
+
+        KisRestClient.StockSummary s = client().stockSummary("005930").block();
+        assertEquals(new KisRestClient.StockSummary("70000", "71000"), s);
+
+        assertEquals("FHKST01010100", lastRequest.getRequestHeaders().getFirst("tr_id"));
+        assertEquals("Bearer tok", lastRequest.getRequestHeaders().getFirst("authorization"));
+        assertEquals("key", lastRequest.getRequestHeaders().getFirst("appkey"));
+        assertTrue(lastRequest.getRequestURI().getQuery().contains("fid_input_iscd=005930"));
+    }
+
+    @Test
+    void httpErrorStatusIsMappedWithStatusCode() {
+        serve(SUMMARY_PATH, 500, "{\"msg1\":\"internal\"}");
+        RuntimeException e = summaryError(client());
+        assertEquals("KIS REST HTTP error: 500", e.getMessage());
+        assertInstanceOf(WebClientResponseException.class, e.getCause());
+
+        serve(SUMMARY_PATH, 403, "{\"msg1\":\"token expired\"}");
+        assertEquals("KIS REST HTTP error: 403", summaryError(client()).getMessage());
+    }
+
+    @Test
+    void emptyBodyAndMissingOutputAreErrors() {
+        serve(SUMMARY_PATH, 200, "");
+        assertEquals("KIS REST empty body", summaryError(client()).getMessage());
+
+        serve(SUMMARY_PATH, 200, "{\"rt_cd\":\"1\",\"msg1\":\"rate exceeded\"}");
+        assertEquals("KIS REST missing output. msg=rate exceeded", summaryError(client()).getMessage());
+
+        serve(SUMMARY_PATH, 200, "not json");
+        assertEquals("KIS summary parse failed", summaryError(client()).getMessage());
+    }
+
+    @Test
+    void responseTimeoutIsMappedToIoError() {
+        hang(SUMMARY_PATH);
+        KisRestClient c = client(baseUrl(), 4, 2_000, 200);
+
+        long start = System.currentTimeMillis();
+        RuntimeException e = summaryError(c);
+        assertEquals("KIS REST I/O error", e.getMessage());
+        assertInstanceOf(WebClientRequestException.class, e.getCause());
+        assertTrue(System.currentTimeMillis() - start < 5_000, "read timeout not applied");
+    }
+
+    @Test
+    void connectionRefusedIsMappedToIoError() throws IOException {
+        int closedPort;
+        try (ServerSocket s = new ServerSocket(0)) {
+            closedPort = s.getLocalPort();
+        }
+        RuntimeException e = summaryError(client("http://127.0.0.1:" + closedPort, 4, 2_000, 2_000));
+        assertEquals("KIS REST I/O error", e.getMessage());
+        assertInstanceOf(WebClientRequestException.class, e.getCause());
+    }
+
+    @Test
+    void exhaustedPoolFailsAfterPendingAcquireTimeout() throws InterruptedException {
+        hang(SUMMARY_PATH);
+        KisRestClient c = client(baseUrl(), 1, 100, 10_000);
+
+        // 커넥션 1개를 붙잡아 둠
+        Disposable first = c.stockSummary("005930").subscribe(s -> {}, e -> {});
+        try {
+            long deadline = System.currentTimeMillis() + 2_000;
+            while (hits.get() == 0 && System.currentTimeMillis() < deadline) Thread.sleep(5);
+            assertEquals(1, hits.get());
+
+            long start = System.currentTimeMillis();
+            RuntimeException e = summaryError(c);
+            assertEquals("KIS REST I/O error", e.getMessage());
+            assertTrue(System.currentTimeMillis() - start < 5_000, "pending acquire timeout not applied");
+            assertEquals(1, hits.get());
+        } finally {
+            first.dispose();
+        }
+    }
+
+    @Test
+    void rateLimitedCallNeverReachesKis() {
+        when(limiter.acquireAsync(KisRestLimiter.Priority.INTERACTIVE))
+                .thenReturn(Mono.error(new KisRateLimitedException("queue full")));
+        serve(SUMMARY_PATH, 200, "{\"output\":{\"stck_prpr\":\"1\",\"stck_sdpr\":\"1\"}}");
+
+        assertThrows(KisRateLimitedException.class, () -> client().stockSummary("005930").block());
+        assertEquals(0, hits.get());
+    }
+
+    @Test
+    void minuteBarsAreOldestFirstAndTodayOnly() {
+        String today = LocalDate.now(KST).format(DateTimeFormatter.BASIC_ISO_DATE);
+        // output2는 최신 분봉부터
+        serve(MINUTES_PATH, 200, "{\"rt_cd\":\"0\",\"output2\":["
+                + row(today, "100200", 70_200, 15)
+                + "," + row(today, "100100", 70_100, 12)
+                + "," + row("20000101", "100000", 1, 1)
+                + "]}");
+
+        List<KisMinuteBar> bars = client().getMinuteBars("005930", LocalTime.of(10, 2, 30), KisRestLimiter.Priority.BACKFILL);
+
+        long at1001 = LocalDateTime.of(LocalDate.now(KST), LocalTime.of(10, 1)).atZone(KST).toInstant().toEpochMilli();
+        assertEquals(List.of(
+                new KisMinuteBar(at1001, 70_100, 70_150, 70_050, 70_120, 12),
+                new KisMinuteBar(at1001 + 60_000, 70_200, 70_250, 70_150, 70_220, 15)), bars);
+        assertEquals("FHKST03010200", lastRequest.getRequestHeaders().getFirst("tr_id"));
+        assertTrue(lastRequest.getRequestURI().getQuery().contains("FID_INPUT_HOUR_1=100230"));
+    }
+
+    @Test
+    void minuteBarsErrorCodeIsAnError() {
+        serve(MINUTES_PATH, 200, "{\"rt_cd\":\"1\",\"msg1\":\"invalid code\"}");
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> client().getMinuteBars("005930", LocalTime.NOON, KisRestLimiter.Priority.BACKFILL));
+        assertEquals("KIS REST error. msg=invalid code", e.getMessage());
+    }
+
+    /** 시가=price, 고가 +50, 저가 -50, 현재가(종가) +20 */
+    private static String row(String date, String hour, long price, long volume) {
+        return "{\"stck_bsop_date\":\"" + date + "\",\"stck_cntg_hour\":\"" + hour + "\""
+                + ",\"stck_oprc\":\"" + price + "\",\"stck_hgpr\":\"" + (price + 50) + "\""
+                + ",\"stck_lwpr\":\"" + (price - 50) + "\",\"stck_prpr\":\"" + (price + 20) + "\""
+                + ",\"cntg_vol\":\"" + volume + "\"}";
+    }
+}
@@ -0,0 +1,118 @@
+package com.mysite.sbb.kis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.mysite.sbb.kis.KisRestLimiter.Priority;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.Disposable;
+
+class KisRestLimiterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private KisRestLimiter limiter;
+
+    @SuppressWarnings("unchecked")
+    private KisRestLimiter limiter(double ratePerSec, String classes) {
+        limiter = new KisRestLimiter(mock(ObjectProvider.class), registry);
+        ReflectionTestUtils.setField(limiter, "ratePerSec", ratePerSec);
+        ReflectionTestUtils.setField(limiter, "burst", 1);
+        ReflectionTestUtils.setField(limiter, "classesSpec", classes);
+        ReflectionTestUtils.setField(limiter, "cluster", false);
+        limiter.init();
+        return limiter;
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (limiter != null) limiter.shutdown();
+    }
+
+    private double rejected(Priority p, String reason) {
+        return registry.get("kis.rest.limiter.rejected")
+                .tag("priority", p.name().toLowerCase()).tag("reason", reason).counter().count();
+    }
+
+    private void awaitQueued(Priority p, int n) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (limiter.queued(p) != n && System.currentTimeMillis() < deadline) Thread.sleep(5);
+        assertEquals(n, limiter.queued(p));
+    }
+
+    @Test
+    void higherPriorityIsGrantedFirstAndSameClassIsFifo() throws Exception {
+        // 초당 4건 → 허가 간격 250ms. 버스트 1건은 먼저 써 버림
+        limiter(4, "INTERACTIVE:10:5000,BACKFILL:10:5000,BATCH:10:5000");
+        limiter.acquire(Priority.BATCH);
+
+        List<String> granted = new CopyOnWriteArrayList<>();
+        limiter.acquireAsync(Priority.BATCH).subscribe(null, null, () -> granted.add("batch-1"));
+        limiter.acquireAsync(Priority.BATCH).subscribe(null, null, () -> granted.add("batch-2"));
+        limiter.acquireAsync(Priority.BACKFILL).subscribe(null, null, () -> granted.add("backfill"));
+        limiter.acquireAsync(Priority.INTERACTIVE).subscribe(null, null, () -> granted.add("interactive"));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (granted.size() < 4 && System.currentTimeMillis() < deadline) Thread.sleep(10);
+
+        // 첫 토큰이 채워지기 전에 넷 다 줄을 섰으므로 우선순위 순
+        assertEquals(List.of("interactive", "backfill", "batch-1", "batch-2"), granted);
+        assertEquals(0, limiter.queued(Priority.BATCH));
+    }
+
+    @Test
+    void waitLongerThanMaxWaitIsRejected() {
+        // 2초에 1건 → max-wait 100ms 안에는 허가가 안 남
+        limiter(0.5, "INTERACTIVE:10:100,BACKFILL:10:5000,BATCH:10:5000");
+        limiter.acquire(Priority.INTERACTIVE);
+
+        long start = System.nanoTime();
+        assertThrows(KisRateLimitedException.class, () -> limiter.acquire(Priority.INTERACTIVE));
+        long tookMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(tookMs >= 90 && tookMs < 1500, "rejected after " + tookMs + "ms");
+        assertEquals(0, limiter.queued(Priority.INTERACTIVE));
+        assertEquals(1.0, rejected(Priority.INTERACTIVE, "timeout"));
+    }
+
+    @Test
+    void fullQueueRejectsWithoutWaiting() throws Exception {
+        limiter(0.5, "INTERACTIVE:10:5000,BACKFILL:10:5000,BATCH:1:5000");
+        limiter.acquire(Priority.BATCH);
+
+        Disposable first = limiter.acquireAsync(Priority.BATCH).subscribe();
+        awaitQueued(Priority.BATCH, 1);
+
+        assertThrows(KisRateLimitedException.class, () -> limiter.acquire(Priority.BATCH));
+        assertEquals(1.0, rejected(Priority.BATCH, "queue_full"));
+        // 다른 등급은 자기 대기열 크기만 봄
+        Disposable other = limiter.acquireAsync(Priority.BACKFILL).subscribe();
+        awaitQueued(Priority.BACKFILL, 1);
+
+        first.dispose();
+        other.dispose();
+    }
+
+    @Test
+    void cancelledAsyncWaiterLeavesQueue() throws Exception {
+        limiter(0.5, "INTERACTIVE:10:5000,BACKFILL:10:5000,BATCH:10:5000");
+        limiter.acquire(Priority.BATCH);
+
+        Disposable d = limiter.acquireAsync(Priority.BACKFILL).subscribe();
+        awaitQueued(Priority.BACKFILL, 1);
+
+        d.dispose();
+        awaitQueued(Priority.BACKFILL, 0);
+    }
+}
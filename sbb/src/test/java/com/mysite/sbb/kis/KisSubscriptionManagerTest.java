@@ -0,0 +1,140 @@
+package com.mysite.sbb.kis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class KisSubscriptionManagerTest {
+
+    private static final KisSubscription A = KisSubscription.trade("005930");
+    private static final KisSubscription B = KisSubscription.trade("000660");
+
+    private record Call(List<KisSubscription> place, List<KisSubscription> release) {}
+
+    private ScheduledExecutorService exec;
+    private final BlockingQueue<Call> calls = new LinkedBlockingQueue<>();
+
+    @BeforeEach
+    void setUp() {
+        exec = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        exec.shutdownNow();
+    }
+
+    private KisSubscriptionManager manager(long graceMs, long batchMs) {
+        return new KisSubscriptionManager(exec, graceMs, batchMs, (place, release) -> {
+            calls.add(new Call(List.copyOf(place), List.copyOf(release)));
+            return Set.of();
+        });
+    }
+
+    private Call next(long timeoutMs) throws InterruptedException {
+        return calls.poll(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    void secondAcquireAndFirstReleaseSendNothing() throws Exception {
+        KisSubscriptionManager m = manager(100, 20);
+        m.acquire(A);
+        m.acquire(A);
+        assertEquals(new Call(List.of(A), List.of()), next(1000));
+
+        m.release(A);
+        assertNull(next(300), "1 → still referenced, no release");
+
+        m.release(A);
+        Call c = next(1000);
+        assertEquals(new Call(List.of(), List.of(A)), c);
+        assertTrue(m.wanted().isEmpty());
+    }
+
+    @Test
+    void reacquireWithinGraceCancelsRelease() throws Exception {
+        KisSubscriptionManager m = manager(200, 10);
+        m.acquire(A);
+        assertEquals(new Call(List.of(A), List.of()), next(1000));
+
+        m.release(A);
+        Thread.sleep(50);
+        m.acquire(A);
+
+        // 유예 중 재등록: 해지가 나가지 않고, 이미 배치된 등록을 다시 넘겨도 applier가 무시
+        Call c = next(1000);
+        if (c != null) assertTrue(c.release().isEmpty());
+        assertNull(next(400));
+        assertEquals(Set.of(A), m.wanted());
+    }
+
+    @Test
+    void acquireReleaseAcquireInOneBatchIsSingleFlush() throws Exception {
+        KisSubscriptionManager m = manager(500, 50);
+        m.acquire(A);
+        m.release(A);
+        m.acquire(A);
+
+        assertEquals(new Call(List.of(A), List.of()), next(1000));
+        assertNull(next(700));
+    }
+
+    @Test
+    void newPlacementIsNotHeldBehindGraceTimer() throws Exception {
+        KisSubscriptionManager m = manager(3000, 20);
+        m.acquire(A);
+        assertEquals(new Call(List.of(A), List.of()), next(1000));
+
+        // A는 3초 유예 → 유예 끝 시각으로 타이머가 걸림
+        m.release(A);
+        Thread.sleep(100);
+
+        long start = System.nanoTime();
+        m.acquire(B);
+        Call c = next(1000);
+        long tookMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertNotNull(c);
+        assertEquals(List.of(B), c.place());
+        assertTrue(tookMs < 500, "placed after " + tookMs + "ms");
+    }
+
+    @Test
+    void failedApplyIsRetriedAndReleaseIsNotLost() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        KisSubscriptionManager m = new KisSubscriptionManager(exec, 0, 10, (place, release) -> {
+            if (attempts.incrementAndGet() == 2) throw new IllegalStateException("KIS down");
+            calls.add(new Call(List.copyOf(place), List.copyOf(release)));
+            return Set.of();
+        });
+
+        m.acquire(A);
+        assertEquals(new Call(List.of(A), List.of()), next(1000));
+
+        // 두 번째 apply(해지 A + 배치 B)가 실패 → 재시도에서 둘 다 다시 나가야 함
+        m.release(A);
+        m.acquire(B);
+        assertTrue(m.wanted().contains(B));
+
+        Call retried = next(8000);
+        assertNotNull(retried, "retry after failure");
+        assertEquals(List.of(B), retried.place());
+        assertEquals(List.of(A), retried.release());
+        assertEquals(3, attempts.get());
+        assertEquals(Set.of(B), m.wanted());
+    }
+}
@@ -0,0 +1,170 @@
+package com.mysite.sbb.kis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.mysite.sbb.kis.KisRestClient.StockSummary;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class KisSummaryCacheTest {
+
+    private static final Duration WAIT = Duration.ofSeconds(2);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    // stockSummary 호출마다 응답을 직접 완료시키는 sink
+    private final List<Sinks.One<StockSummary>> upstream = new ArrayList<>();
+    private KisSummaryCache cache;
+
+    @BeforeEach
+    void setUp() {
+        KisRestClient restClient = mock(KisRestClient.class);
+        when(restClient.stockSummary(anyString())).thenAnswer(inv -> {
+            Sinks.One<StockSummary> sink = Sinks.one();
+            synchronized (upstream) {
+                upstream.add(sink);
+            }
+            return sink.asMono();
+        });
+
+        cache = new KisSummaryCache(restClient, registry);
+        ReflectionTestUtils.setField(cache, "ttlMs", 60_000L);
+        ReflectionTestUtils.setField(cache, "staleMs", 60_000L);
+        ReflectionTestUtils.setField(cache, "waitMs", 2_000L);
+    }
+
+    private static StockSummary summary(String current) {
+        return new StockSummary("71000", current);
+    }
+
+    private void reply(int call, StockSummary s) {
+        upstream.get(call).tryEmitValue(s).orThrow();
+    }
+
+    private double lookups(String result) {
+        return registry.get("kis.summary.lookups").tag("result", result).counter().count();
+    }
+
+    private double upstreamCalls() {
+        return registry.get("kis.summary.upstream").counter().count();
+    }
+
+    /** 첫 조회로 캐시를 채움 */
+    private void prime(String current) {
+        CompletableFuture<StockSummary> first = cache.get("005930").toFuture();
+        reply(upstream.size() - 1, summary(current));
+        assertEquals(current, first.join().current());
+    }
+
+    @Test
+    void freshEntryIsServedWithoutUpstreamCall() {
+        prime("71500");
+
+        assertEquals("71500", cache.get("005930").block(WAIT).current());
+        assertEquals("71500", cache.get("005930").block(WAIT).current());
+
+        assertEquals(1, upstreamCalls());
+        assertEquals(1, lookups("miss"));
+        assertEquals(2, lookups("hit"));
+    }
+
+    @Test
+    void concurrentMissesShareOneUpstreamCall() {
+        List<CompletableFuture<StockSummary>> waiters = new ArrayList<>();
+        for (int i = 0; i < 5; i++) waiters.add(cache.get("005930").toFuture());
+
+        assertEquals(1, upstream.size());
+        assertEquals(1, upstreamCalls());
+        assertEquals(4, lookups("coalesced"));
+
+        reply(0, summary("71500"));
+        for (CompletableFuture<StockSummary> w : waiters) assertEquals("71500", w.join().current());
+
+        // 끝난 호출은 inFlight에서 빠져서 다음 갱신은 새 호출
+        ReflectionTestUtils.setField(cache, "ttlMs", 0L);
+        ReflectionTestUtils.setField(cache, "staleMs", 0L);
+        cache.get("005930").subscribe();
+        assertEquals(2, upstream.size());
+    }
+
+    @Test
+    void cancelledWaiterDoesNotCancelSharedCall() {
+        Disposable gone = cache.get("005930").subscribe();
+        CompletableFuture<StockSummary> other = cache.get("005930").toFuture();
+        gone.dispose();
+
+        reply(0, summary("71500"));
+        assertEquals("71500", other.join().current());
+        assertEquals("71500", cache.get("005930").block(WAIT).current());
+        assertEquals(1, upstreamCalls());
+    }
+
+    @Test
+    void staleEntryIsServedWhileOneRefreshRuns() {
+        prime("71500");
+        ReflectionTestUtils.setField(cache, "ttlMs", 0L);
+
+        // 갱신이 끝나기 전까지는 바로 옛 값, 갱신 호출은 1건만
+        assertEquals("71500", cache.get("005930").block(WAIT).current());
+        assertEquals("71500", cache.get("005930").block(WAIT).current());
+        assertEquals(2, upstream.size());
+        assertEquals(2, lookups("stale"));
+        assertEquals(1, lookups("coalesced"));
+
+        reply(1, summary("72000"));
+        assertEquals("72000", cache.get("005930").block(WAIT).current());
+    }
+
+    @Test
+    void failedRefreshKeepsStaleValueAndRetriesNextTime() {
+        prime("71500");
+        ReflectionTestUtils.setField(cache, "ttlMs", 0L);
+
+        assertEquals("71500", cache.get("005930").block(WAIT).current());
+        upstream.get(1).tryEmitError(new RuntimeException("KIS 500")).orThrow();
+
+        assertEquals("71500", cache.get("005930").block(WAIT).current());
+        assertEquals(3, upstream.size());
+    }
+
+    @Test
+    void expiredEntryWaitsForUpstream() {
+        prime("71500");
+        ReflectionTestUtils.setField(cache, "ttlMs", 0L);
+        ReflectionTestUtils.setField(cache, "staleMs", 0L);
+
+        CompletableFuture<StockSummary> next = cache.get("005930").toFuture();
+        assertFalse(next.isDone());
+        assertEquals(2, lookups("miss"));
+
+        reply(1, summary("72000"));
+        assertEquals("72000", next.join().current());
+    }
+
+    @Test
+    void missFailsWhenUpstreamFails() {
+        CompletableFuture<StockSummary> first = cache.get("005930").toFuture();
+        upstream.get(0).tryEmitError(new RuntimeException("KIS 500")).orThrow();
+
+        assertThrows(Exception.class, first::join);
+        // 실패는 캐시하지 않음
+        cache.get("005930").subscribe();
+        assertEquals(2, upstream.size());
+    }
+}
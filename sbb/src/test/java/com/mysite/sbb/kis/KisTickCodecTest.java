@@ -0,0 +1,92 @@
+package com.mysite.sbb.kis;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.junit.jupiter.api.Test;
+
+class KisTickCodecTest {
+
+    @Test
+    void tradeRoundTrip() {
+        KisTick t = TestTicks.trade("005930", 71500, -124, 12, 1_715_650_215_000L);
+        t.setChange(-900);
+        t.setChangeSign('5');
+        t.setOpen(72000);
+        t.setHigh(72500);
+        t.setLow(71000);
+        t.setAskPrice(71600);
+        t.setBidPrice(71500);
+        t.setAccumulatedVolume(345_678);
+        t.setTradeTime(93015);
+
+        ByteBuffer buf = ByteBuffer.allocate(KisTickCodec.RECORD_SIZE * 2).order(ByteOrder.LITTLE_ENDIAN);
+        int off = KisTickCodec.RECORD_SIZE;
+        KisTickCodec.writeBody(buf, off, t);
+
+        String code = KisTickCodec.unpackCode(buf.getLong(off + KisTickCodec.OFF_CODE));
+        KisTick back = new KisTick();
+        back.reset();
+        KisTickCodec.readBody(buf, off, code, back);
+
+        assertEquals("005930", back.getCode());
+        assertEquals(t.getExchangeTimeMillis(), back.getExchangeTimeMillis());
+        assertEquals(71500, back.getPrice());
+        assertEquals(-900, back.getChange());
+        assertEquals(-124, back.getChangeRateBp());
+        assertEquals('5', back.getChangeSign());
+        assertEquals(72000, back.getOpen());
+        assertEquals(72500, back.getHigh());
+        assertEquals(71000, back.getLow());
+        assertEquals(71600, back.getAskPrice());
+        assertEquals(71500, back.getBidPrice());
+        assertEquals(12, back.getVolume());
+        assertEquals(345_678, back.getAccumulatedVolume());
+        assertEquals(93015, back.getTradeTime());
+    }
+
+    @Test
+    void bookRoundTrip() {
+        KisBookQuote q = new KisBookQuote();
+        q.reset();
+        q.setCode("000660");
+        q.setQuoteTime(100001);
+        q.setReceivedAtMillis(1_715_650_000_123L);
+        q.setTotalAskQty(10_045);
+        q.setTotalBidQty(20_045);
+        for (int i = 0; i < KisBookQuote.LEVELS; i++) {
+            q.askPrice[i] = 120_500 + i * 500L;
+            q.bidPrice[i] = 120_000 - i * 500L;
+            q.askQty[i] = 1000 + i;
+            q.bidQty[i] = 2000 + i;
+        }
+
+        ByteBuffer buf = ByteBuffer.allocate(KisTickCodec.BOOK_RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        KisTickCodec.writeBook(buf, 0, q);
+
+        KisBookQuote back = new KisBookQuote();
+        back.reset();
+        KisTickCodec.readBook(buf, 0, KisTickCodec.unpackCode(KisTickCodec.bookCodeAt(buf, 0)), back);
+
+        assertEquals("000660", back.getCode());
+        assertEquals(100001, back.getQuoteTime());
+        assertEquals(q.getReceivedAtMillis(), back.getReceivedAtMillis());
+        assertEquals(10_045, back.getTotalAskQty());
+        assertEquals(20_045, back.getTotalBidQty());
+        assertArrayEquals(q.askPrice, back.askPrice);
+        assertArrayEquals(q.bidPrice, back.bidPrice);
+        assertArrayEquals(q.askQty, back.askQty);
+        assertArrayEquals(q.bidQty, back.bidQty);
+    }
+
+    @Test
+    void packCodeKeepsUpToEightAsciiChars() {
+        assertEquals("005930", KisTickCodec.unpackCode(KisTickCodec.packCode("005930")));
+        assertEquals("Q500001", KisTickCodec.unpackCode(KisTickCodec.packCode("Q500001")));
+        assertEquals("12345678", KisTickCodec.unpackCode(KisTickCodec.packCode("123456789")));
+        assertEquals("", KisTickCodec.unpackCode(KisTickCodec.packCode(null)));
+    }
+}
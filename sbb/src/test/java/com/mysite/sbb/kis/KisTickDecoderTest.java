@@ -0,0 +1,196 @@
+package com.mysite.sbb.kis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class KisTickDecoderTest {
+
+    private final KisTickDecoder decoder = new KisTickDecoder();
+    private final List<KisTick> ticks = new ArrayList<>();
+    private final List<KisBookQuote> books = new ArrayList<>();
+
+    /** H0STCNT0 레코드 1건 (46필드, 안 쓰는 필드는 "0") */
+    private static String trade(String code, String time, String price, String sign, String change,
+                                String rate, String ask1, String bid1, String volume, String accVolume) {
+        String[] f = new String[KisTickDecoder.FIELD_COUNT];
+        Arrays.fill(f, "0");
+        f[0] = code;
+        f[1] = time;
+        f[2] = price;
+        f[3] = sign;
+        f[4] = change;
+        f[5] = rate;
+        f[7] = "71000";
+        f[8] = "72500";
+        f[9] = "70800";
+        f[10] = ask1;
+        f[11] = bid1;
+        f[12] = volume;
+        f[13] = accVolume;
+        return String.join("^", f);
+    }
+
+    /**
+     * H0STASP0 레코드 1건 (59필드).
+     * 매도호가 i단계 = base + i*100, 매수호가 i단계 = base - (i+1)*100, 매도잔량 = 1000+i, 매수잔량 = 2000+i
+     */
+    private static String book(String code, String time, long base) {
+        String[] f = new String[KisTickDecoder.BOOK_FIELD_COUNT];
+        Arrays.fill(f, "0");
+        f[0] = code;
+        f[1] = time;
+        for (int i = 0; i < KisBookQuote.LEVELS; i++) {
+            f[3 + i] = String.valueOf(base + i * 100L);
+            f[13 + i] = String.valueOf(base - (i + 1) * 100L);
+            f[23 + i] = String.valueOf(1000 + i);
+            f[33 + i] = String.valueOf(2000 + i);
+        }
+        f[43] = "10045";
+        f[44] = "20045";
+        return String.join("^", f);
+    }
+
+    private int decodeBooks(String payload) {
+        return decoder.decode(payload, t -> { throw new AssertionError("unexpected tick " + t); }, b -> {
+            KisBookQuote copy = new KisBookQuote();
+            copy.copyFrom(b);
+            books.add(copy);
+        });
+    }
+
+    private int decode(String payload) {
+        return decoder.decode(payload, t -> {
+            // 디코더는 같은 인스턴스를 재사용하므로 복사해서 보관
+            KisTick copy = new KisTick();
+            copy.copyFrom(t);
+            ticks.add(copy);
+        }, b -> { throw new AssertionError("unexpected book " + b); });
+    }
+
+    @Test
+    void decodesFieldsByIndex() {
+        String rec = trade("005930", "093015", "71500", "2", "500", "0.70", "71600", "71500", "12", "345678");
+        assertEquals(1, decode("0|H0STCNT0|001|" + rec));
+
+        KisTick t = ticks.get(0);
+        assertEquals("005930", t.getCode());
+        assertEquals(93015, t.getTradeTime());
+        assertEquals(71500, t.getPrice());
+        assertEquals('2', t.getChangeSign());
+        assertEquals(500, t.getChange());
+        assertEquals(70, t.getChangeRateBp());
+        assertEquals(71000, t.getOpen());
+        assertEquals(72500, t.getHigh());
+        assertEquals(70800, t.getLow());
+        assertEquals(71600, t.getAskPrice());
+        assertEquals(71500, t.getBidPrice());
+        assertEquals(12, t.getVolume());
+        assertEquals(345678, t.getAccumulatedVolume());
+        assertEquals(71000, t.getPrevClose());
+
+        // HHMMSS → 오늘(KST) 해당 시각의 epoch millis
+        LocalTime kst = Instant.ofEpochMilli(t.getExchangeTimeMillis()).atZone(ZoneId.of("Asia/Seoul")).toLocalTime();
+        assertEquals(LocalTime.of(9, 30, 15), kst);
+        assertTrue(t.getReceivedAtMillis() > 0);
+    }
+
+    @Test
+    void negativeChangeAndRate() {
+        String rec = trade("000660", "150000", "120000", "5", "-1500", "-1.24", "0", "0", "1", "1");
+        decode("0|H0STCNT0|001|" + rec);
+
+        KisTick t = ticks.get(0);
+        assertEquals('5', t.getChangeSign());
+        assertEquals(-1500, t.getChange());
+        assertEquals(-124, t.getChangeRateBp());
+        assertEquals(121500, t.getPrevClose());
+    }
+
+    @Test
+    void multiRecordFrameEmitsEachRecordInOrder() {
+        String payload = "0|H0STCNT0|003|"
+                + trade("005930", "090001", "71000", "2", "100", "0.14", "0", "0", "1", "1") + "^"
+                + trade("000660", "090002", "120000", "5", "-500", "-0.41", "0", "0", "2", "2") + "^"
+                + trade("005930", "090003", "71100", "2", "200", "0.28", "0", "0", "3", "4");
+        assertEquals(3, decode(payload));
+
+        assertEquals(List.of("005930", "000660", "005930"), ticks.stream().map(KisTick::getCode).toList());
+        assertEquals(List.of(71000L, 120000L, 71100L), ticks.stream().map(KisTick::getPrice).toList());
+        assertEquals(List.of(1L, 2L, 3L), ticks.stream().map(KisTick::getVolume).toList());
+        // 같은 종목코드는 인턴된 같은 String
+        assertSame(ticks.get(0).getCode(), ticks.get(2).getCode());
+    }
+
+    @Test
+    void truncatedTrailingRecordIsDropped() {
+        String payload = "0|H0STCNT0|002|"
+                + trade("005930", "090001", "71000", "2", "100", "0.14", "0", "0", "1", "1") + "^"
+                + "000660^090002";
+        assertEquals(1, decode(payload));
+        assertEquals("005930", ticks.get(0).getCode());
+    }
+
+    @Test
+    void unknownTrIdOrBrokenHeaderIsIgnored() {
+        String rec = trade("005930", "090001", "71000", "2", "100", "0.14", "0", "0", "1", "1");
+        assertEquals(0, decode("0|H0STCNI0|001|" + rec));
+        assertEquals(0, decode("0|H0STCNT0"));
+        assertEquals(0, decode("{\"header\":{\"tr_id\":\"PINGPONG\"}}"));
+        assertTrue(ticks.isEmpty());
+    }
+
+    @Test
+    void parseFixed2() {
+        assertEquals(70, KisTickDecoder.parseFixed2("0.70", 0, 4));
+        assertEquals(-124, KisTickDecoder.parseFixed2("-1.24", 0, 5));
+        assertEquals(300, KisTickDecoder.parseFixed2("3", 0, 1));
+        assertEquals(150, KisTickDecoder.parseFixed2("+1.5", 0, 4));
+        assertEquals(29, KisTickDecoder.parseFixed2("0.299", 0, 5));
+        assertEquals(0, KisTickDecoder.parseFixed2("", 0, 0));
+    }
+
+    @Test
+    void decodesOrderBookLayout() {
+        assertEquals(1, decodeBooks("0|H0STASP0|001|" + book("005930", "093015", 71100)));
+
+        KisBookQuote b = books.get(0);
+        assertEquals("005930", b.getCode());
+        assertEquals(93015, b.getQuoteTime());
+        for (int i = 0; i < KisBookQuote.LEVELS; i++) {
+            assertEquals(71100 + i * 100L, b.getAskPrice(i), "ask price " + i);
+            assertEquals(71000 - i * 100L, b.getBidPrice(i), "bid price " + i);
+            assertEquals(1000 + i, b.getAskQty(i), "ask qty " + i);
+            assertEquals(2000 + i, b.getBidQty(i), "bid qty " + i);
+        }
+        assertEquals(10045, b.getTotalAskQty());
+        assertEquals(20045, b.getTotalBidQty());
+    }
+
+    @Test
+    void multiRecordOrderBookFrame() {
+        String payload = "0|H0STASP0|002|" + book("005930", "090001", 71100) + "^" + book("000660", "090002", 120500);
+        assertEquals(2, decodeBooks(payload));
+        assertEquals(List.of("005930", "000660"), books.stream().map(KisBookQuote::getCode).toList());
+        assertEquals(120500, books.get(1).getAskPrice(0));
+        assertEquals(120400, books.get(1).getBidPrice(0));
+    }
+
+    @Test
+    void orderBookWithoutAllQuantityLevelsIsDropped() {
+        String full = book("005930", "090001", 71100);
+        // 매수잔량 10단계 중간에서 잘린 레코드
+        String cut = String.join("^", Arrays.copyOf(full.split("\\^"), 40));
+        assertEquals(0, decodeBooks("0|H0STASP0|001|" + cut));
+        assertTrue(books.isEmpty());
+    }
+}
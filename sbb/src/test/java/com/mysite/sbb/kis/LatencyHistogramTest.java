@@ -0,0 +1,91 @@
+package com.mysite.sbb.kis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+    @Test
+    void smallValuesHaveTheirOwnBucket() {
+        for (int v = 0; v < 32; v++) {
+            assertEquals(v, LatencyHistogram.bucketOf(v));
+            assertEquals(v, LatencyHistogram.upperBound(v));
+        }
+        assertEquals(0, LatencyHistogram.bucketOf(-5));
+    }
+
+    @Test
+    void everyValueFallsInsideItsBucketWithinSixPercent() {
+        int prev = -1;
+        for (long v = 0; v < 5_000_000; v = v < 4096 ? v + 1 : v + 997) {
+            int b = LatencyHistogram.bucketOf(v);
+            assertTrue(b >= prev, "bucket must not go down at " + v);
+            prev = b;
+
+            long hi = LatencyHistogram.upperBound(b);
+            long lo = b == 0 ? 0 : LatencyHistogram.upperBound(b - 1) + 1;
+            assertTrue(lo <= v && v <= hi, v + " not in [" + lo + "," + hi + "]");
+            assertTrue(hi - lo <= Math.max(0, v / 16), "bucket too wide at " + v + ": " + lo + ".." + hi);
+        }
+    }
+
+    @Test
+    void bucketsAreContiguous() {
+        // 마지막(overflow) 버킷 전까지 upperBound(b) + 1이 다음 버킷의 첫 값
+        for (int b = 0; b < LatencyHistogram.BUCKETS - 2; b++) {
+            long next = LatencyHistogram.upperBound(b) + 1;
+            assertEquals(b + 1, LatencyHistogram.bucketOf(next), "after bucket " + b);
+        }
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucketOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    void percentilesAreBucketUpperBoundsCappedAtMax() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (int us = 1; us <= 1000; us++) h.record(us);
+
+        LatencyHistogram.Snapshot s = h.snapshot();
+        assertEquals(1000, s.count());
+        assertEquals(1.0, s.maxMs());
+        assertBetween(0.500, 0.500 * 17 / 16, s.percentileMs(0.50));
+        assertBetween(0.990, 1.0, s.percentileMs(0.99));
+        // 상한값이 max보다 크면 max
+        assertEquals(1.0, s.percentileMs(1.0));
+        assertEquals(0.001, s.percentileMs(0.0));
+    }
+
+    @Test
+    void emptyHistogramReportsZero() {
+        LatencyHistogram.Snapshot s = new LatencyHistogram().snapshot();
+        assertEquals(0, s.count());
+        assertEquals(0.0, s.percentileMs(0.99));
+        assertEquals(0.0, s.maxMs());
+    }
+
+    @Test
+    void rotateKeepsOneWindowOfHistory() {
+        LatencyHistogram h = new LatencyHistogram();
+        h.record(5_000);
+
+        h.rotate();
+        h.record(100);
+        LatencyHistogram.Snapshot s = h.snapshot();
+        assertEquals(2, s.count());
+        assertEquals(5.0, s.maxMs());
+
+        // 두 번 돌면 첫 창은 비워짐
+        h.rotate();
+        s = h.snapshot();
+        assertEquals(1, s.count());
+        assertEquals(0.1, s.maxMs());
+
+        h.rotate();
+        assertEquals(0, h.snapshot().count());
+    }
+
+    private static void assertBetween(double lo, double hi, double actual) {
+        assertTrue(actual >= lo && actual <= hi, actual + " not in [" + lo + "," + hi + "]");
+    }
+}
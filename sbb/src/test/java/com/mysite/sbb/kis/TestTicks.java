@@ -0,0 +1,66 @@
+package com.mysite.sbb.kis;
+
+/**
+ * 다른 패키지 테스트에서 KisTick/KisBookQuote를 만들기 위한 헬퍼 (setter가 패키지 전용이라)
+ */
+public final class TestTicks {
+
+    private TestTicks() {}
+
+    public static KisTick trade(String code, long price, long changeRateBp) {
+        return trade(code, price, changeRateBp, 1, 0);
+    }
+
+    public static KisTick trade(String code, long price, long changeRateBp, long volume, long exchangeTimeMillis) {
+        KisTick t = new KisTick();
+        t.reset();
+        t.setCode(code);
+        t.setPrice(price);
+        t.setChangeRateBp(changeRateBp);
+        t.setVolume(volume);
+        t.setExchangeTimeMillis(exchangeTimeMillis);
+        return t;
+    }
+
+    public static void setAccumulatedVolume(KisTick t, long accumulatedVolume) {
+        t.setAccumulatedVolume(accumulatedVolume);
+    }
+
+    public static void setTradeTime(KisTick t, int hhmmss) {
+        t.setTradeTime(hhmmss);
+    }
+
+    /**
+     * 10단계 호가 1건. 매도 i단계 = base + i*100, 매수 i단계 = base - (i+1)*100, 매도잔량 = 1000+i, 매수잔량 = 2000+i
+     */
+    public static KisBookQuote book(String code, int quoteTime, long base) {
+        KisBookQuote q = new KisBookQuote();
+        q.reset();
+        q.setCode(code);
+        q.setQuoteTime(quoteTime);
+        for (int i = 0; i < KisBookQuote.LEVELS; i++) {
+            q.askPrice[i] = base + i * 100L;
+            q.bidPrice[i] = base - (i + 1) * 100L;
+            q.askQty[i] = 1000 + i;
+            q.bidQty[i] = 2000 + i;
+        }
+        q.setTotalAskQty(10045);
+        q.setTotalBidQty(20045);
+        return q;
+    }
+
+    public static void setAsk(KisBookQuote q, int level, long price, long qty) {
+        q.askPrice[level] = price;
+        q.askQty[level] = qty;
+    }
+
+    public static void setBid(KisBookQuote q, int level, long price, long qty) {
+        q.bidPrice[level] = price;
+        q.bidQty[level] = qty;
+    }
+
+    public static void setTotals(KisBookQuote q, long totalAskQty, long totalBidQty) {
+        q.setTotalAskQty(totalAskQty);
+        q.setTotalBidQty(totalBidQty);
+    }
+}
@@ -0,0 +1,119 @@
+package com.mysite.sbb.kis;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * TickDispatcher 처리량 측정 (shards=0 인라인 전달 vs 샤드 링).
+ * - producers개 스레드가 KIS 연결처럼 종목을 나눠 갖고 틱을 발행
+ * - 핸들러는 workNanos만큼 바쁜 대기 (리스너 fan-out: LVC/봉/저널/conflation 비용 흉내)
+ * - 종목별 일련번호(volume)가 역전되면 orderViolations 증가 → 샤딩이 종목 순서를 지키는지 확인
+ *
+ * 테스트 클래스패스에서 직접 실행:
+ *   java -cp build/classes/java/main:build/classes/java/test:... com.mysite.sbb.kis.TickDispatcherBenchmark 3 300 2000000 0,1,2,4 1000
+ */
+public final class TickDispatcherBenchmark {
+
+    private TickDispatcherBenchmark() {}
+
+    /** args: producers codes ticks shards(콤마 구분) workNanos */
+    public static void main(String[] args) throws InterruptedException {
+        int producers = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int codes = args.length > 1 ? Integer.parseInt(args[1]) : 300;
+        long ticks = args.length > 2 ? Long.parseLong(args[2]) : 2_000_000;
+        String shards = args.length > 3 ? args[3] : "0,1,2,4";
+        long workNanos = args.length > 4 ? Long.parseLong(args[4]) : 1000;
+
+        for (String s : shards.split(",")) {
+            if (s.isBlank()) continue;
+            System.out.println(run(producers, codes, ticks, Integer.parseInt(s.trim()), workNanos));
+        }
+    }
+
+    public static Map<String, Object> run(int producerCount, int codeCount, long ticks, int shards, long workNanos)
+            throws InterruptedException {
+        int producers = Math.max(1, producerCount);
+        int codes = Math.max(producers, codeCount);
+
+        String[] codeNames = new String[codes];
+        Map<String, Integer> codeIndex = new HashMap<>();
+        for (int i = 0; i < codes; i++) {
+            codeNames[i] = String.format("%06d", i).intern();
+            codeIndex.put(codeNames[i], i);
+        }
+
+        // 종목별 마지막 일련번호 (한 종목은 항상 같은 스레드가 처리)
+        long[] lastSeq = new long[codes];
+        LongAdder processed = new LongAdder();
+        LongAdder violations = new LongAdder();
+
+        TickDispatcher dispatcher = new TickDispatcher("bench-dispatch", shards, 8192, tick -> {
+            long until = System.nanoTime() + workNanos;
+            while (System.nanoTime() < until) {
+                Thread.onSpinWait();
+            }
+            int idx = codeIndex.get(tick.getCode());
+            if (tick.getVolume() <= lastSeq[idx]) violations.increment();
+            lastSeq[idx] = tick.getVolume();
+            processed.increment();
+        });
+        dispatcher.start();
+
+        long perProducer = ticks / producers;
+        long total = perProducer * producers;
+        CountDownLatch ready = new CountDownLatch(producers);
+        CountDownLatch go = new CountDownLatch(1);
+        Thread[] threads = new Thread[producers];
+
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            threads[p] = new Thread(() -> {
+                // 이 생산자(=KIS 연결)에 배치된 종목들
+                int owned = (codes - producer + producers - 1) / producers;
+                long[] seq = new long[owned];
+                KisTick tick = new KisTick();
+                tick.reset();
+                ready.countDown();
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (long i = 0; i < perProducer; i++) {
+                    int k = (int) (i % owned);
+                    tick.setCode(codeNames[producer + k * producers]);
+                    tick.setPrice(10_000 + (i & 0xff));
+                    tick.setVolume(++seq[k]);
+                    dispatcher.publish(tick);
+                }
+            }, "bench-producer-" + p);
+            threads[p].start();
+        }
+
+        ready.await();
+        long start = System.nanoTime();
+        go.countDown();
+        for (Thread t : threads) t.join();
+        while (processed.sum() < total) {
+            Thread.onSpinWait();
+        }
+        long elapsed = System.nanoTime() - start;
+        dispatcher.stop(1000);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("shards", shards);
+        result.put("producers", producers);
+        result.put("codes", codes);
+        result.put("ticks", total);
+        result.put("workNanos", workNanos);
+        result.put("elapsedMs", elapsed / 1_000_000);
+        result.put("ticksPerSec", (long) (total * 1e9 / Math.max(1, elapsed)));
+        result.put("producerWaits", dispatcher.producerWaits());
+        result.put("orderViolations", violations.sum());
+        return result;
+    }
+}
@@ -0,0 +1,150 @@
+package com.mysite.sbb.kis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.junit.jupiter.api.Test;
+
+class TickDispatcherTest {
+
+    private static KisTick tick(String code, long seq) {
+        KisTick t = new KisTick();
+        t.reset();
+        t.setCode(code);
+        t.setVolume(seq);
+        return t;
+    }
+
+    @Test
+    void inlineWhenNoShards() {
+        List<Long> seen = new ArrayList<>();
+        TickDispatcher d = new TickDispatcher("t", 0, 8, t -> seen.add(t.getVolume()));
+        d.start();
+        d.publish(tick("005930", 1));
+        d.publish(tick("005930", 2));
+        assertEquals(List.of(1L, 2L), seen);
+        assertEquals(0, d.backlog());
+    }
+
+    @Test
+    void singleProducerKeepsOrderAcrossWraparound() {
+        int total = 10_000;
+        List<Long> seen = new ArrayList<>();
+        // 링 4칸 → 수천 바퀴 돌면서 가득 찬 링 대기도 거침
+        TickDispatcher d = new TickDispatcher("t", 1, 4, t -> {
+            seen.add(t.getVolume());
+            for (int i = 0; i < 200; i++) Thread.onSpinWait();
+        });
+        d.start();
+
+        KisTick t = tick("005930", 0);
+        for (long i = 1; i <= total; i++) {
+            t.setVolume(i);
+            d.publish(t);
+        }
+        d.stop(5000);
+
+        assertEquals(total, seen.size());
+        for (int i = 0; i < total; i++) {
+            assertEquals(i + 1, seen.get(i));
+        }
+        assertEquals(0, d.backlog());
+        assertTrue(d.producerWaits() > 0, "ring never wrapped");
+    }
+
+    @Test
+    void perCodeOrderWithManyProducersAndShards() throws Exception {
+        int producers = 4;
+        int codesPerProducer = 5;
+        int perProducer = 20_000;
+
+        Map<String, AtomicLong> last = new ConcurrentHashMap<>();
+        LongAdder processed = new LongAdder();
+        LongAdder violations = new LongAdder();
+        TickDispatcher d = new TickDispatcher("t", 3, 8, t -> {
+            AtomicLong prev = last.computeIfAbsent(t.getCode(), k -> new AtomicLong());
+            if (t.getVolume() <= prev.get()) violations.increment();
+            prev.set(t.getVolume());
+            processed.increment();
+        });
+        d.start();
+
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            threads[p] = new Thread(() -> {
+                long[] seq = new long[codesPerProducer];
+                KisTick t = tick("", 0);
+                for (int i = 0; i < perProducer; i++) {
+                    int k = i % codesPerProducer;
+                    t.setCode(String.format("%03d%03d", producer, k));
+                    t.setVolume(++seq[k]);
+                    d.publish(t);
+                }
+            });
+            threads[p].start();
+        }
+        for (Thread t : threads) t.join();
+        d.stop(5000);
+
+        assertEquals((long) producers * perProducer, processed.sum());
+        assertEquals(0, violations.sum());
+        assertEquals(producers * codesPerProducer, last.size());
+        for (AtomicLong v : last.values()) {
+            assertEquals(perProducer / codesPerProducer, v.get());
+        }
+    }
+
+    @Test
+    void stopWhilePublishingNeitherStrandsProducersNorDropsTicks() throws Exception {
+        int producers = 3;
+        int perProducer = 50_000;
+        LongAdder processed = new LongAdder();
+        TickDispatcher d = new TickDispatcher("t", 2, 4, t -> {
+            for (int i = 0; i < 50; i++) Thread.onSpinWait();
+            processed.increment();
+        });
+        d.start();
+
+        CountDownLatch started = new CountDownLatch(producers);
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            threads[p] = new Thread(() -> {
+                KisTick t = tick("00000" + producer, 0);
+                started.countDown();
+                for (int i = 1; i <= perProducer; i++) {
+                    t.setVolume(i);
+                    d.publish(t);
+                }
+            });
+            threads[p].start();
+        }
+
+        // 링이 가득 찬 상태에서 종료
+        started.await();
+        Thread.sleep(20);
+        d.stop(0);
+
+        for (Thread t : threads) {
+            t.join(10_000);
+            assertFalse(t.isAlive(), "producer stuck at wrap point after stop");
+        }
+        // 소비 스레드가 남은 슬롯을 비울 시간
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (processed.sum() < (long) producers * perProducer && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals((long) producers * perProducer, processed.sum());
+        assertEquals(0, d.backlog());
+    }
+}
@@ -0,0 +1,142 @@
+package com.mysite.sbb.kis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class TickJournalTest {
+
+    private static final int SEGMENT_RECORDS = 100;
+
+    @TempDir
+    Path dir;
+
+    private final List<TickJournal> journals = new ArrayList<>();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private KisRealtimeClient.StockPriceListener sink;
+
+    // 오늘(KST) 세그먼트에 들어가도록 현재 시각 근처 체결시각
+    private final long base = System.currentTimeMillis() - 60_000;
+
+    @AfterEach
+    void tearDown() {
+        journals.forEach(TickJournal::shutdown);
+    }
+
+    private TickJournal journal(boolean enabled) throws IOException {
+        KisRealtimeClient client = mock(KisRealtimeClient.class);
+        TickJournal j = new TickJournal(registry, client);
+        ReflectionTestUtils.setField(j, "enabled", enabled);
+        ReflectionTestUtils.setField(j, "dir", dir.toString());
+        ReflectionTestUtils.setField(j, "segmentRecords", SEGMENT_RECORDS);
+        j.init();
+        journals.add(j);
+
+        ArgumentCaptor<KisRealtimeClient.StockPriceListener> captor =
+                ArgumentCaptor.forClass(KisRealtimeClient.StockPriceListener.class);
+        verify(client).addTickSink(captor.capture());
+        sink = captor.getValue();
+        return j;
+    }
+
+    /** 롤링은 예비 세그먼트로만 하므로 세그먼트가 찰 때마다 tick-journal 스레드가 예비를 만들 때까지 기다림 */
+    @SuppressWarnings("unchecked")
+    private void awaitSpare(TickJournal j) throws InterruptedException {
+        AtomicReference<Object> spare = (AtomicReference<Object>) ReflectionTestUtils.getField(j, "spare");
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (spare.get() == null && System.currentTimeMillis() < deadline) Thread.sleep(5);
+        assertTrue(spare.get() != null, "spare segment not ready");
+    }
+
+    /** i번째 틱: 짝수는 005930, 홀수는 000660. 체결시각 base + i초, 가격 70000 + i */
+    private void appendTicks(TickJournal j, int n) throws InterruptedException {
+        for (int i = 0; i < n; i++) {
+            if (i > 0 && i % SEGMENT_RECORDS == 0) awaitSpare(j);
+            String code = i % 2 == 0 ? "005930" : "000660";
+            sink.onTick(TestTicks.trade(code, 70_000 + i, 0, 1, base + i * 1000L));
+        }
+    }
+
+    private static List<Long> replayPrices(TickJournal j, String code, long from, long to) throws IOException {
+        List<Long> prices = new ArrayList<>();
+        j.replay(code, from, to, t -> {
+            assertEquals(code, t.getCode());
+            prices.add(t.getPrice());
+        });
+        return prices;
+    }
+
+    private long segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().matches("ticks-\\d{8}-\\d{5}\\.dat")).count();
+        }
+    }
+
+    private static List<Long> prices(long firstIndex, long lastIndex) {
+        return LongStream.rangeClosed(firstIndex, lastIndex).filter(i -> i % 2 == 0).map(i -> 70_000 + i).boxed().toList();
+    }
+
+    @Test
+    void replayReturnsTicksInOrderAcrossSegmentRoll() throws Exception {
+        TickJournal j = journal(true);
+        appendTicks(j, 250);
+
+        // 100건짜리 세그먼트 3개 + 예비
+        assertTrue(segmentFiles() >= 3, "segments=" + segmentFiles());
+        assertEquals(250, registry.get("kis.journal.records").counter().count());
+        assertEquals(0, registry.get("kis.journal.dropped").counter().count());
+
+        assertEquals(prices(0, 249), replayPrices(j, "005930", base, base + 250_000));
+
+        // 세그먼트 경계(100, 200)를 걸친 구간만
+        long from = base + 61_000, to = base + 212_000;
+        assertEquals(prices(61, 212), replayPrices(j, "005930", from, to));
+        assertEquals(76, j.replay("000660", from, to, t -> {}));
+
+        // 범위 밖/모르는 종목
+        assertEquals(0, j.replay("005930", base + 300_000, base + 400_000, t -> {}));
+        assertEquals(0, j.replay("035720", base, base + 250_000, t -> {}));
+    }
+
+    @Test
+    void segmentsAreReadBackAfterRestart() throws Exception {
+        TickJournal first = journal(true);
+        appendTicks(first, 150);
+        first.shutdown();
+        long before = segmentFiles();
+
+        // 새 인스턴스는 디스크 세그먼트로 sparse index를 다시 만들고, 새 세그먼트는 다음 번호로
+        TickJournal second = journal(true);
+        assertEquals(prices(0, 149), replayPrices(second, "005930", base, base + 150_000));
+        assertEquals(75, second.replay("000660", base, base + 150_000, t -> {}));
+        assertTrue(segmentFiles() > before);
+    }
+
+    @Test
+    void disabledJournalRecordsAndReplaysNothing() throws Exception {
+        TickJournal j = journal(false);
+        sink.onTick(TestTicks.trade("005930", 71000, 0, 1, base));
+
+        assertEquals(0, j.replay("005930", base - 1000, base + 1000, t -> {}));
+        assertEquals(0, registry.get("kis.journal.records").counter().count());
+        assertEquals(0, segmentFiles());
+    }
+}
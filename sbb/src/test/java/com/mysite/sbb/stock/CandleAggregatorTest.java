@@ -0,0 +1,131 @@
+package com.mysite.sbb.stock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.mysite.sbb.kis.KisMinuteBar;
+import com.mysite.sbb.kis.KisRealtimeClient;
+import com.mysite.sbb.kis.TestTicks;
+
+class CandleAggregatorTest {
+
+    private static final String CODE = "005930";
+
+    private CandleAggregator aggregator;
+    private KisRealtimeClient.StockPriceListener ticks;
+    private KisRealtimeClient.BackfillListener backfill;
+
+    @BeforeEach
+    void setUp() {
+        KisRealtimeClient client = mock(KisRealtimeClient.class);
+        aggregator = new CandleAggregator(client);
+
+        ArgumentCaptor<KisRealtimeClient.StockPriceListener> tickCaptor =
+                ArgumentCaptor.forClass(KisRealtimeClient.StockPriceListener.class);
+        verify(client).addTickSink(tickCaptor.capture());
+        ticks = tickCaptor.getValue();
+
+        ArgumentCaptor<KisRealtimeClient.BackfillListener> backfillCaptor =
+                ArgumentCaptor.forClass(KisRealtimeClient.BackfillListener.class);
+        verify(client).addBackfillSink(backfillCaptor.capture());
+        backfill = backfillCaptor.getValue();
+    }
+
+    @AfterEach
+    void tearDown() {
+        aggregator.shutdown();
+    }
+
+    /** 지난 거래일 10:mm:ss KST (백필 분봉은 모두 끝난 분) */
+    private static long at(int mm, int ss) {
+        return LocalDate.of(2026, 10, 16).atTime(10, mm, ss).atZone(ZoneId.of("Asia/Seoul")).toInstant().toEpochMilli();
+    }
+
+    /** 10:m 분봉: 시가 70000 + 100m, 고가 +50, 저가 -50, 종가 +20, 거래량 10 */
+    private static List<KisMinuteBar> restBars(int fromMinute, int toMinute) {
+        List<KisMinuteBar> bars = new ArrayList<>();
+        for (int m = fromMinute; m <= toMinute; m++) {
+            long open = 70_000 + 100L * m;
+            bars.add(new KisMinuteBar(at(m, 0), open, open + 50, open - 50, open + 20, 10));
+        }
+        return bars;
+    }
+
+    private void liveTick(long price, long volume, long exchangeTimeMillis) {
+        ticks.onTick(TestTicks.trade(CODE, price, 0, volume, exchangeTimeMillis));
+    }
+
+    private List<Candle> candles(CandleInterval interval) {
+        return aggregator.candles(CODE, interval, 100);
+    }
+
+    @Test
+    void backfillWithoutLiveTicksBuildsEveryInterval() {
+        backfill.onBackfill(CODE, restBars(0, 9));
+
+        List<Candle> m1 = candles(CandleInterval.M1);
+        assertEquals(10, m1.size());
+        assertEquals(new Candle(at(0, 0), 70_000, 70_050, 69_950, 70_020, 10), m1.get(0));
+        assertEquals(at(9, 0), m1.get(9).t());
+
+        List<Candle> m5 = candles(CandleInterval.M5);
+        assertEquals(List.of(
+                new Candle(at(0, 0), 70_000, 70_450, 69_950, 70_420, 50),
+                new Candle(at(5, 0), 70_500, 70_950, 70_450, 70_920, 50)), m5);
+        assertEquals(100, candles(CandleInterval.D1).get(0).v());
+        // 1s 봉은 분봉으로 메울 수 없음
+        assertEquals(List.of(), candles(CandleInterval.S1));
+    }
+
+    @Test
+    void sameBarsAppliedTwiceChangeNothing() {
+        liveTick(70_500, 3, at(2, 10));
+        backfill.onBackfill(CODE, restBars(0, 4));
+        List<Candle> m1 = candles(CandleInterval.M1);
+        List<Candle> m5 = candles(CandleInterval.M5);
+        List<Candle> d1 = candles(CandleInterval.D1);
+
+        // 재연결이 겹쳐 같은 구간이 또 오거나, 더 넓은 구간으로 다시 와도 겹친 분봉은 그대로
+        backfill.onBackfill(CODE, restBars(0, 4));
+        backfill.onBackfill(CODE, restBars(2, 3));
+        assertEquals(m1, candles(CandleInterval.M1));
+        assertEquals(m5, candles(CandleInterval.M5));
+        assertEquals(d1, candles(CandleInterval.D1));
+    }
+
+    @Test
+    void backfillOnlyTopsUpLiveVolume() {
+        liveTick(70_500, 3, at(2, 10));
+        liveTick(70_600, 15, at(3, 5));
+        backfill.onBackfill(CODE, restBars(0, 4));
+
+        // 10:02는 실시간 3 → REST 10, 10:03은 실시간 15 > REST 10 이라 그대로
+        List<Candle> m1 = candles(CandleInterval.M1);
+        assertEquals(List.of(10L, 10L, 10L, 15L, 10L), m1.stream().map(Candle::v).toList());
+        // 끝난 분봉은 REST 시가/종가로 확정, 고가/저가는 넓히기만
+        assertEquals(new Candle(at(2, 0), 70_200, 70_500, 70_150, 70_220, 10), m1.get(2));
+
+        // 큰 봉에는 1분봉에 더한 양만큼만: 실시간 18 + 백필 10 + 10 + 7 + 0 + 10
+        Candle m5 = candles(CandleInterval.M5).get(0);
+        assertEquals(55, m5.v());
+        assertEquals(70_000, m5.o());
+        // 실시간 최신 분봉(10:03) 이후까지 메웠으므로 종가는 10:04 분봉 종가
+        assertEquals(70_420, m5.c());
+
+        Candle d1 = candles(CandleInterval.D1).get(0);
+        assertEquals(55, d1.v());
+        // 일봉 첫 분이 백필에 없으므로 시가는 실시간 값 유지
+        assertEquals(70_500, d1.o());
+    }
+}
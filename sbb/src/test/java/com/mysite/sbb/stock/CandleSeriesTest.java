@@ -0,0 +1,118 @@
+package com.mysite.sbb.stock;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class CandleSeriesTest {
+
+    private static final ZoneId KST = ZoneId.of("Asia/Seoul");
+
+    private static long kst(int hour, int minute, int second) {
+        return ZonedDateTime.of(2024, 5, 14, hour, minute, second, 0, KST).toInstant().toEpochMilli();
+    }
+
+    @Test
+    void bucketStartAlignsToKst() {
+        long t = kst(9, 31, 42) + 123;
+        assertEquals(kst(9, 31, 42), CandleInterval.S1.bucketStart(t));
+        assertEquals(kst(9, 31, 0), CandleInterval.M1.bucketStart(t));
+        assertEquals(kst(9, 30, 0), CandleInterval.M5.bucketStart(t));
+        // 일봉은 UTC 자정이 아니라 KST 자정
+        assertEquals(kst(0, 0, 0), CandleInterval.D1.bucketStart(t));
+        assertEquals(kst(0, 0, 0), CandleInterval.D1.bucketStart(kst(23, 59, 59)));
+    }
+
+    @Test
+    void ticksInSameBucketBuildOhlcv() {
+        CandleSeries s = new CandleSeries(CandleInterval.M1);
+        assertTrue(s.update(kst(9, 0, 1), 100, 10));
+        assertTrue(s.update(kst(9, 0, 20), 105, 5));
+        assertTrue(s.update(kst(9, 0, 40), 98, 7));
+        assertTrue(s.update(kst(9, 0, 59), 101, 3));
+
+        long[] bar = new long[CandleSeries.BAR_FIELDS];
+        assertTrue(s.latest(bar));
+        assertArrayEquals(new long[] {kst(9, 0, 0), 100, 105, 98, 101, 25}, bar);
+        assertEquals(List.of(new Candle(kst(9, 0, 0), 100, 105, 98, 101, 25)), s.recent(10));
+    }
+
+    @Test
+    void nextBucketOpensNewCandle() {
+        CandleSeries s = new CandleSeries(CandleInterval.M1);
+        s.update(kst(9, 0, 10), 100, 1);
+        s.update(kst(9, 1, 0), 102, 2);
+        // 틱이 없던 분은 봉도 없음
+        s.update(kst(9, 3, 5), 99, 4);
+
+        assertEquals(List.of(
+                new Candle(kst(9, 0, 0), 100, 100, 100, 100, 1),
+                new Candle(kst(9, 1, 0), 102, 102, 102, 102, 2),
+                new Candle(kst(9, 3, 0), 99, 99, 99, 99, 4)), s.recent(10));
+        assertEquals(List.of(new Candle(kst(9, 3, 0), 99, 99, 99, 99, 4)), s.recent(1));
+        assertEquals(kst(9, 3, 0), s.latestStart());
+        assertEquals(2, s.volumeAt(kst(9, 1, 0)));
+        assertEquals(-1, s.volumeAt(kst(9, 2, 0)));
+    }
+
+    @Test
+    void lateTickUpdatesOlderCandleButNotItsClose() {
+        CandleSeries s = new CandleSeries(CandleInterval.M1);
+        s.update(kst(9, 0, 10), 100, 1);
+        s.update(kst(9, 1, 10), 102, 1);
+
+        assertTrue(s.update(kst(9, 0, 50), 110, 3));
+        assertTrue(s.update(kst(9, 0, 55), 90, 1));
+
+        List<Candle> bars = s.recent(2);
+        assertEquals(new Candle(kst(9, 0, 0), 100, 110, 90, 100, 5), bars.get(0));
+        assertEquals(new Candle(kst(9, 1, 0), 102, 102, 102, 102, 1), bars.get(1));
+    }
+
+    @Test
+    void lateTickForMissingOrEvictedBucketIsIgnored() {
+        CandleSeries s = new CandleSeries(CandleInterval.M1);
+        s.update(kst(9, 0, 10), 100, 1);
+        s.update(kst(9, 2, 10), 101, 1);
+
+        // 9:01 봉은 없었음 → 중간에 만들지 않음
+        assertFalse(s.update(kst(9, 1, 30), 120, 1));
+        // 링의 가장 오래된 봉보다 이전
+        assertFalse(s.update(kst(8, 59, 30), 120, 1));
+        assertEquals(2, s.recent(10).size());
+    }
+
+    @Test
+    void ringOverwritesOldestCandle() {
+        CandleSeries s = new CandleSeries(CandleInterval.S1);
+        int capacity = CandleInterval.S1.capacity();
+        long t0 = kst(9, 0, 0);
+        for (int i = 0; i < capacity + 5; i++) {
+            s.update(t0 + i * 1000L, 1000 + i, 1);
+        }
+
+        List<Candle> bars = s.recent(Integer.MAX_VALUE);
+        assertEquals(capacity, bars.size());
+        assertEquals(t0 + 5_000L, bars.get(0).t());
+        assertEquals(1005, bars.get(0).o());
+        assertEquals(t0 + (capacity + 4) * 1000L, bars.get(capacity - 1).t());
+        assertEquals(-1, s.volumeAt(t0));
+        // 밀려난 구간의 늦은 틱
+        assertFalse(s.update(t0 + 4_500L, 1, 1));
+    }
+
+    @Test
+    void emptySeries() {
+        CandleSeries s = new CandleSeries(CandleInterval.M5);
+        assertFalse(s.latest(new long[CandleSeries.BAR_FIELDS]));
+        assertEquals(-1, s.latestStart());
+        assertTrue(s.recent(10).isEmpty());
+    }
+}
@@ -0,0 +1,117 @@
+package com.mysite.sbb.stock;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class IndexedHeapTest {
+
+    private static int[] top(IndexedHeap h, int n) {
+        int[] out = new int[n];
+        return Arrays.copyOf(out, h.top(n, out));
+    }
+
+    @Test
+    void topReturnsLargestKeysFirst() {
+        IndexedHeap h = new IndexedHeap();
+        h.set(0, 10);
+        h.set(1, 30);
+        h.set(2, 20);
+        h.set(3, -5);
+
+        assertArrayEquals(new int[] {1, 2, 0}, top(h, 3));
+        assertArrayEquals(new int[] {1, 2, 0, 3}, top(h, 10));
+        assertEquals(4, h.size());
+    }
+
+    @Test
+    void equalKeysKeepSmallerIdFirst() {
+        IndexedHeap h = new IndexedHeap();
+        h.set(3, 7);
+        h.set(1, 7);
+        h.set(2, 7);
+        h.set(0, 1);
+        assertArrayEquals(new int[] {1, 2, 3, 0}, top(h, 4));
+    }
+
+    @Test
+    void updateMovesEntryUpAndDown() {
+        IndexedHeap h = new IndexedHeap();
+        for (int i = 0; i < 5; i++) h.set(i, i * 10);
+        assertArrayEquals(new int[] {4, 3, 2}, top(h, 3));
+
+        h.set(0, 100);
+        h.set(4, -1);
+        assertArrayEquals(new int[] {0, 3, 2, 1, 4}, top(h, 5));
+        assertEquals(100, h.keyOf(0));
+        assertEquals(5, h.size());
+    }
+
+    @Test
+    void removeAndReinsert() {
+        IndexedHeap h = new IndexedHeap();
+        for (int i = 0; i < 6; i++) h.set(i, i);
+
+        h.remove(5);
+        h.remove(0);
+        h.remove(42);   // 없는 id는 무시
+        assertFalse(h.contains(5));
+        assertFalse(h.contains(0));
+        assertEquals(4, h.size());
+        assertArrayEquals(new int[] {4, 3, 2, 1}, top(h, 10));
+
+        h.set(5, 2);
+        assertTrue(h.contains(5));
+        assertArrayEquals(new int[] {4, 3, 2, 5, 1}, top(h, 10));
+    }
+
+    @Test
+    void emptyOrZeroLimit() {
+        IndexedHeap h = new IndexedHeap();
+        assertEquals(0, top(h, 5).length);
+        h.set(0, 1);
+        assertEquals(0, top(h, 0).length);
+    }
+
+    @Test
+    void matchesSortedReferenceUnderRandomUpdates() {
+        Random rnd = new Random(42);
+        IndexedHeap h = new IndexedHeap();
+        Map<Integer, Long> ref = new HashMap<>();
+        // id가 초기 배열(64)보다 커지도록
+        int ids = 500;
+
+        for (int step = 0; step < 20_000; step++) {
+            int id = rnd.nextInt(ids);
+            if (rnd.nextInt(10) == 0) {
+                h.remove(id);
+                ref.remove(id);
+            } else {
+                long k = rnd.nextInt(200) - 100;   // 동점이 자주 나오게
+                h.set(id, k);
+                ref.put(id, k);
+            }
+
+            if (step % 500 == 0) {
+                int n = 1 + rnd.nextInt(30);
+                int[] expected = ref.entrySet().stream()
+                        .sorted(Map.Entry.<Integer, Long>comparingByValue().reversed()
+                                .thenComparing(Map.Entry.comparingByKey(Comparator.naturalOrder())))
+                        .limit(n)
+                        .mapToInt(Map.Entry::getKey)
+                        .toArray();
+                assertArrayEquals(expected, top(h, n), "step " + step);
+                assertEquals(ref.size(), h.size());
+            }
+        }
+    }
+}
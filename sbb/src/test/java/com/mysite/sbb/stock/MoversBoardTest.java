@@ -0,0 +1,104 @@
+package com.mysite.sbb.stock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.mysite.sbb.kis.KisRealtimeClient;
+import com.mysite.sbb.kis.KisRealtimeClient.StockPriceListener;
+import com.mysite.sbb.kis.KisTick;
+import com.mysite.sbb.kis.TestTicks;
+
+class MoversBoardTest {
+
+    private MoversBoard board;
+    private StockPriceListener sink;
+
+    @BeforeEach
+    void setUp() {
+        KisRealtimeClient kisClient = mock(KisRealtimeClient.class);
+        StockMasterService stockMasterService = mock(StockMasterService.class);
+        when(stockMasterService.getOrNull("005930")).thenReturn(new StockInfo("005930", "삼성전자", "KOSPI", true));
+
+        board = new MoversBoard(kisClient, stockMasterService);
+        ArgumentCaptor<StockPriceListener> captor = ArgumentCaptor.forClass(StockPriceListener.class);
+        verify(kisClient).addTickSink(captor.capture());
+        sink = captor.getValue();
+    }
+
+    private void tick(String code, long price, long rateBp, long accVolume) {
+        KisTick t = TestTicks.trade(code, price, rateBp);
+        TestTicks.setAccumulatedVolume(t, accVolume);
+        sink.onTick(t);
+    }
+
+    private static List<String> codes(List<MoversBoard.Mover> movers) {
+        return movers.stream().map(MoversBoard.Mover::code).toList();
+    }
+
+    @Test
+    void ranksGainersLosersAndVolume() {
+        tick("005930", 71000, 150, 1_000);
+        tick("000660", 120000, -230, 5_000);
+        tick("035420", 200000, 410, 300);
+        tick("051910", 400000, -20, 2_000);
+
+        MoversBoard.Movers m = board.snapshot(3);
+        assertEquals(List.of("035420", "005930", "051910"), codes(m.gainers()));
+        assertEquals(List.of("000660", "051910", "005930"), codes(m.losers()));
+        assertEquals(List.of("000660", "051910", "005930"), codes(m.volume()));
+    }
+
+    @Test
+    void laterTickMovesCodeInRanking() {
+        tick("005930", 71000, 150, 1_000);
+        tick("000660", 120000, 100, 2_000);
+        assertEquals(List.of("005930", "000660"), codes(board.snapshot(2).gainers()));
+
+        tick("000660", 125000, 520, 2_500);
+        MoversBoard.Movers m = board.snapshot(2);
+        assertEquals(List.of("000660", "005930"), codes(m.gainers()));
+        assertEquals(new MoversBoard.Mover("000660", "000660", 125000, 520, 2_500), m.gainers().get(0));
+    }
+
+    @Test
+    void namesComeFromStockMaster() {
+        tick("005930", 71000, 150, 1_000);
+        tick("000660", 120000, 100, 2_000);
+
+        List<MoversBoard.Mover> g = board.snapshot(2).gainers();
+        assertEquals("삼성전자", g.get(0).name());
+        // 마스터에 없으면 코드 그대로
+        assertEquals("000660", g.get(1).name());
+    }
+
+    @Test
+    void versionOnlyMovesWhenTickChangesSomething() {
+        tick("005930", 71000, 150, 1_000);
+        long v1 = board.snapshot(1).version();
+
+        tick("005930", 71000, 150, 1_000);
+        assertEquals(v1, board.snapshot(1).version());
+
+        tick("005930", 71000, 150, 1_001);
+        assertEquals(v1 + 1, board.snapshot(1).version());
+    }
+
+    @Test
+    void registersMoreCodesThanInitialCapacity() {
+        for (int i = 0; i < 200; i++) {
+            tick(String.format("%06d", i), 1000, i, i);
+        }
+        MoversBoard.Movers m = board.snapshot(3);
+        assertEquals(List.of("000199", "000198", "000197"), codes(m.gainers()));
+        assertEquals(List.of("000000", "000001", "000002"), codes(m.losers()));
+        assertEquals(List.of("000199", "000198", "000197"), codes(m.volume()));
+    }
+}
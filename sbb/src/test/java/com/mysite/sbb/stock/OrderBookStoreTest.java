@@ -0,0 +1,233 @@
+package com.mysite.sbb.stock;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mysite.sbb.kis.KisBookQuote;
+import com.mysite.sbb.kis.KisRealtimeClient;
+import com.mysite.sbb.kis.TestTicks;
+
+class OrderBookStoreTest {
+
+    private static final int LEVELS = OrderBookStore.LEVELS;
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private OrderBookStore store;
+    private KisRealtimeClient.OrderBookListener quotes;
+
+    // flush 스레드가 OrderBook을 재사용하므로 push마다 프레임으로 인코딩해 보관
+    private final List<String> pushed = new ArrayList<>();
+    private final List<Integer> masks = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        KisRealtimeClient realtimeClient = mock(KisRealtimeClient.class);
+        store = new OrderBookStore(realtimeClient);
+        store.setBookListener((book, mask) -> {
+            masks.add(mask);
+            pushed.add(StockFrames.book(book, mask, false).getPayload());
+        });
+
+        store.watch("005930");
+        ArgumentCaptor<KisRealtimeClient.OrderBookListener> captor =
+                ArgumentCaptor.forClass(KisRealtimeClient.OrderBookListener.class);
+        verify(realtimeClient).subscribeBook(eq("005930"), captor.capture());
+        quotes = captor.getValue();
+    }
+
+    private void flush() {
+        ReflectionTestUtils.invokeMethod(store, "flush");
+    }
+
+    private JsonNode lastFrame() throws Exception {
+        return JSON.readTree(pushed.get(pushed.size() - 1));
+    }
+
+    @Test
+    void firstQuotePushesEveryLevelWithSeqOne() throws Exception {
+        quotes.onQuote(TestTicks.book("005930", 90001, 71100));
+        flush();
+
+        assertEquals(List.of(OrderBookStore.ALL_BITS), masks);
+        JsonNode f = lastFrame();
+        assertEquals(1, f.get("seq").asLong());
+        assertEquals(LEVELS, f.get("a").size());
+        assertEquals(LEVELS, f.get("b").size());
+        assertEquals(10045, f.get("ta").asLong());
+        assertEquals(20045, f.get("tb").asLong());
+    }
+
+    @Test
+    void diffCarriesOnlyChangedLevels() throws Exception {
+        KisBookQuote q = TestTicks.book("005930", 90001, 71100);
+        quotes.onQuote(q);
+        flush();
+
+        TestTicks.setAsk(q, 3, 71400, 555);
+        TestTicks.setBid(q, 0, 71000, 7);
+        quotes.onQuote(q);
+        flush();
+
+        assertEquals((1 << 3) | (1 << LEVELS), masks.get(1));
+        JsonNode f = lastFrame();
+        assertEquals(2, f.get("seq").asLong());
+        assertFalse(f.has("full"));
+        assertEquals("[[3,71400,555]]", f.get("a").toString());
+        assertEquals("[[0,71000,7]]", f.get("b").toString());
+        // 총잔량이 그대로면 ta/tb 없음
+        assertFalse(f.has("ta"));
+
+        TestTicks.setTotals(q, 1, 2);
+        quotes.onQuote(q);
+        flush();
+        assertEquals(OrderBookStore.TOTAL_BIT, masks.get(2));
+        f = lastFrame();
+        assertEquals(3, f.get("seq").asLong());
+        assertEquals(0, f.get("a").size());
+        assertEquals(1, f.get("ta").asLong());
+        assertEquals(2, f.get("tb").asLong());
+    }
+
+    @Test
+    void unchangedQuoteDoesNotConsumeSeq() throws Exception {
+        KisBookQuote q = TestTicks.book("005930", 90001, 71100);
+        quotes.onQuote(q);
+        flush();
+
+        // 같은 호가가 다시 와도 push/seq 증가 없음
+        quotes.onQuote(TestTicks.book("005930", 90002, 71100));
+        flush();
+        flush();
+        assertEquals(1, pushed.size());
+
+        TestTicks.setAsk(q, 9, 72000, 1);
+        quotes.onQuote(q);
+        flush();
+        assertEquals(2, lastFrame().get("seq").asLong());
+    }
+
+    @Test
+    void quotesBetweenFlushesMergeIntoOneDiff() throws Exception {
+        KisBookQuote q = TestTicks.book("005930", 90001, 71100);
+        quotes.onQuote(q);
+        flush();
+
+        TestTicks.setAsk(q, 1, 71200, 10);
+        quotes.onQuote(q);
+        TestTicks.setAsk(q, 1, 71200, 20);
+        TestTicks.setBid(q, 4, 70500, 30);
+        quotes.onQuote(q);
+        flush();
+
+        assertEquals(2, pushed.size());
+        assertEquals((1 << 1) | (1 << (LEVELS + 4)), masks.get(1));
+        JsonNode f = lastFrame();
+        assertEquals(2, f.get("seq").asLong());
+        // 레벨 절대값이라 마지막 값만 남음
+        assertEquals("[[1,71200,20]]", f.get("a").toString());
+        assertEquals("[[4,70500,30]]", f.get("b").toString());
+    }
+
+    @Test
+    void snapshotResyncsClientThatMissedADiff() throws Exception {
+        ClientBook client = new ClientBook();
+        KisBookQuote q = TestTicks.book("005930", 90001, 71100);
+        quotes.onQuote(q);
+        flush();
+        client.apply(lastFrame());
+
+        // seq 2 유실
+        TestTicks.setAsk(q, 0, 71150, 1);
+        quotes.onQuote(q);
+        flush();
+
+        TestTicks.setBid(q, 2, 70750, 2);
+        quotes.onQuote(q);
+        flush();
+        assertFalse(client.apply(lastFrame()), "seq 3 after 1 must ask for a snapshot");
+        assertTrue(client.resync);
+
+        // BOOK_SNAPSHOT 응답 = 현재 상태 전체 + 마지막 push seq
+        OrderBookStore.OrderBook snap = store.snapshot("005930");
+        assertNotNull(snap);
+        assertEquals(3, snap.seq);
+        JsonNode full = JSON.readTree(StockFrames.book(snap, OrderBookStore.ALL_BITS, true).getPayload());
+        assertTrue(full.get("full").asBoolean());
+        assertTrue(client.apply(full));
+        assertFalse(client.resync);
+
+        // 스냅샷 seq 다음 번호부터 diff가 그대로 이어짐
+        TestTicks.setAsk(q, 5, 71700, 3);
+        quotes.onQuote(q);
+        flush();
+        assertTrue(client.apply(lastFrame()));
+        assertEquals(4, client.seq);
+
+        for (int i = 0; i < LEVELS; i++) {
+            assertArrayEquals(new long[] {q.getAskPrice(i), q.getAskQty(i)}, client.a[i], "ask " + i);
+            assertArrayEquals(new long[] {q.getBidPrice(i), q.getBidQty(i)}, client.b[i], "bid " + i);
+        }
+    }
+
+    @Test
+    void snapshotBeforeFirstQuoteAndAfterUnwatchIsNull() throws Exception {
+        assertNull(store.snapshot("005930"));
+
+        quotes.onQuote(TestTicks.book("005930", 90001, 71100));
+        assertNotNull(store.snapshot("005930"));
+        flush();
+        pushed.clear();
+
+        store.unwatch("005930");
+        assertNull(store.snapshot("005930"));
+
+        // 해지 후 늦게 도착한 호가는 무시
+        quotes.onQuote(TestTicks.book("005930", 90002, 71200));
+        flush();
+        assertTrue(pushed.isEmpty());
+        assertNull(store.snapshot("005930"));
+    }
+
+    /** stock.html applyBook과 같은 규칙의 클라이언트 호가창 */
+    private static final class ClientBook {
+        long seq = -1;
+        boolean resync;
+        final long[][] a = new long[LEVELS][2];
+        final long[][] b = new long[LEVELS][2];
+
+        /** @return 반영했으면 true */
+        boolean apply(JsonNode msg) {
+            long s = msg.get("seq").asLong();
+            if (!msg.path("full").asBoolean()) {
+                if (resync) return false;
+                if (seq >= 0 && s <= seq) return false;
+                if (seq >= 0 && s != seq + 1) {
+                    resync = true;
+                    return false;
+                }
+            }
+            resync = false;
+            for (JsonNode l : msg.get("a")) a[l.get(0).asInt()] = new long[] {l.get(1).asLong(), l.get(2).asLong()};
+            for (JsonNode l : msg.get("b")) b[l.get(0).asInt()] = new long[] {l.get(1).asLong(), l.get(2).asLong()};
+            seq = s;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.mysite.sbb.stock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+class OutboundSessionTest {
+
+    private WebSocketSession session;
+    private StockWsOutbound owner;
+    private final List<String> sent = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        session = mock(WebSocketSession.class);
+        when(session.isOpen()).thenReturn(true);
+        when(session.getId()).thenReturn("s1");
+        doAnswer(inv -> {
+            sent.add(inv.<TextMessage>getArgument(0).getPayload());
+            return null;
+        }).when(session).sendMessage(any());
+
+        owner = mock(StockWsOutbound.class);
+        when(owner.overflowPolicy()).thenReturn(OutboundSession.OverflowPolicy.CONFLATE);
+    }
+
+    private static OutboundFrame frame(String payload) {
+        return OutboundFrame.of(new TextMessage(payload));
+    }
+
+    // execute로 넘어간 drain을 직접 돌림 (송신 스레드 대신)
+    private void drainAll() {
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(owner, atLeastOnce()).execute(task.capture());
+        for (int i = 0; i < 10; i++) task.getValue().run();
+    }
+
+    @Test
+    void controlFrameUsesHeadroomWhileConflating() throws Exception {
+        // 용량 8 → 시세 6칸 + 제어 예비 2칸
+        OutboundSession out = new OutboundSession(session, owner, 8, false);
+        for (int i = 0; i < 6; i++) out.offer("c" + i, frame("price-c" + i));
+        // 큐의 시세 몫이 찼으므로 conflate
+        out.offer("c0", frame("price-c0-2"));
+        out.offer("c0", frame("price-c0-3"));
+
+        out.offer(null, frame("alert"));
+        out.offer(null, frame("subscribed"));
+
+        verify(session, never()).close(any(CloseStatus.class));
+        verify(owner, never()).recordSlowDisconnect();
+        assertEquals(6 + 2 + 1, out.depth());
+
+        drainAll();
+        assertEquals(List.of("price-c0", "price-c1", "price-c2", "price-c3", "price-c4", "price-c5",
+                "alert", "subscribed", "price-c0-3"), sent);
+    }
+
+    @Test
+    void fullHeadroomStillDisconnects() throws Exception {
+        OutboundSession out = new OutboundSession(session, owner, 8, false);
+        for (int i = 0; i < 6; i++) out.offer("c" + i, frame("price"));
+        out.offer(null, frame("alert-1"));
+        out.offer(null, frame("alert-2"));
+        verify(session, never()).close(any(CloseStatus.class));
+
+        out.offer(null, frame("alert-3"));
+        verify(session).close(CloseStatus.SESSION_NOT_RELIABLE);
+        verify(owner).recordSlowDisconnect();
+        assertEquals(0, out.depth());
+    }
+
+    @Test
+    void disconnectPolicyClosesWhenMarketShareIsFull() throws Exception {
+        when(owner.overflowPolicy()).thenReturn(OutboundSession.OverflowPolicy.DISCONNECT);
+        OutboundSession out = new OutboundSession(session, owner, 8, false);
+        for (int i = 0; i < 6; i++) out.offer("c" + i, frame("price"));
+        verify(session, never()).close(any(CloseStatus.class));
+
+        out.offer("c6", frame("price"));
+        verify(session).close(CloseStatus.SESSION_NOT_RELIABLE);
+    }
+
+    @Test
+    void tinyQueueHasNoHeadroom() throws Exception {
+        OutboundSession out = new OutboundSession(session, owner, 2, false);
+        out.offer("c0", frame("price-c0"));
+        out.offer(null, frame("alert"));
+        out.offer("c1", frame("price-c1"));
+        verify(session, never()).close(any(CloseStatus.class));
+        assertEquals(3, out.depth());
+    }
+
+    // batch 창이 끝났을 때 도는 drain을 직접 실행
+    private void endBatchWindow() {
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(owner).executeAfterBatchWindow(task.capture());
+        task.getValue().run();
+    }
+
+    @Test
+    void batchSessionSendsFramesOfOneWindowAsOneBatch() throws Exception {
+        OutboundSession out = new OutboundSession(session, owner, 64, true);
+        out.offer("005930", frame("{\"n\":1}"));
+        out.offer("000660", frame("{\"n\":2}"));
+        out.offer(null, frame("{\"n\":3}"));
+        verify(session, never()).sendMessage(any());
+        verify(owner, never()).execute(any());
+
+        endBatchWindow();
+        assertEquals(List.of("{\"type\":\"BATCH\",\"frames\":[{\"n\":1},{\"n\":2},{\"n\":3}]}"), sent);
+        verify(owner, times(3)).recordSent(eq(session), any());
+        verify(owner).recordBatch();
+    }
+
+    @Test
+    void singleFrameInBatchWindowIsSentUnwrapped() throws Exception {
+        OutboundSession out = new OutboundSession(session, owner, 64, true);
+        out.offer("005930", frame("{\"n\":1}"));
+
+        endBatchWindow();
+        assertEquals(List.of("{\"n\":1}"), sent);
+        verify(owner, never()).recordBatch();
+    }
+
+    @Test
+    void plainSessionDoesNotWaitForBatchWindow() {
+        OutboundSession out = new OutboundSession(session, owner, 64, false);
+        out.offer("005930", frame("{\"n\":1}"));
+        verify(owner).execute(any());
+        verify(owner, never()).executeAfterBatchWindow(any());
+    }
+}
@@ -0,0 +1,79 @@
+package com.mysite.sbb.stock;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.security.Principal;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+class PriceAlertControllerTest {
+
+    private static final Principal USER = () -> "user1";
+
+    private PriceAlertService alertService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        alertService = mock(PriceAlertService.class);
+        StockMasterService masterService = mock(StockMasterService.class);
+        when(masterService.getOrNull("005930")).thenReturn(new StockInfo("005930", "삼성전자", "KOSPI", true));
+
+        PriceAlertController controller = new PriceAlertController(alertService, masterService);
+        ReflectionTestUtils.setField(controller, "maxPerUser", 100);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    private ResultActions create(String kind, String threshold) throws Exception {
+        return mockMvc.perform(post("/api/alerts").principal(USER)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"code\":\"005930\",\"kind\":\"" + kind + "\",\"threshold\":" + threshold + "}"));
+    }
+
+    @Test
+    void thresholdBeyondLongIsBadRequest() throws Exception {
+        create("PRICE_ABOVE", "99999999999999999999999").andExpect(status().isBadRequest());
+        // 등락률은 100배 하면서 넘침
+        create("RATE_ABOVE", "92233720368547758.08").andExpect(status().isBadRequest());
+        create("RATE_BELOW", "-1e30").andExpect(status().isBadRequest());
+        verify(alertService, never()).create(anyString(), anyString(), any(), anyLong());
+    }
+
+    @Test
+    void nonPositivePriceIsBadRequest() throws Exception {
+        create("PRICE_BELOW", "0").andExpect(status().isBadRequest());
+        create("PRICE_BELOW", "-100").andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void rateThresholdIsStoredInBasisPoints() throws Exception {
+        PriceAlert saved = new PriceAlert();
+        saved.setId(1L);
+        saved.setCode("005930");
+        saved.setKind(PriceAlert.Kind.RATE_BELOW);
+        saved.setThreshold(-350);
+        when(alertService.create("user1", "005930", PriceAlert.Kind.RATE_BELOW, -350)).thenReturn(saved);
+
+        create("RATE_BELOW", "-3.5")
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.threshold").value(-3.5))
+                .andExpect(jsonPath("$.name").value("삼성전자"));
+        verify(alertService).create(eq("user1"), eq("005930"), eq(PriceAlert.Kind.RATE_BELOW), eq(-350L));
+    }
+}
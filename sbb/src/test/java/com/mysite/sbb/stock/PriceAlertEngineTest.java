@@ -0,0 +1,185 @@
+package com.mysite.sbb.stock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.mysite.sbb.kis.KisRealtimeClient;
+import com.mysite.sbb.kis.KisRealtimeClient.StockPriceListener;
+import com.mysite.sbb.kis.TestTicks;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class PriceAlertEngineTest {
+
+    private static final String CODE = "005930";
+
+    private KisRealtimeClient kisClient;
+    private PriceAlertRepository repository;
+    private PriceAlertEngine engine;
+    private final BlockingQueue<PriceAlertEngine.Fired> fired = new LinkedBlockingQueue<>();
+    private final AtomicLong ids = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        kisClient = mock(KisRealtimeClient.class);
+        repository = mock(PriceAlertRepository.class);
+        when(repository.markFired(anyLong(), any(), anyLong())).thenReturn(1);
+        engine = new PriceAlertEngine(kisClient, repository, new SimpleMeterRegistry());
+        engine.setAlertListener(fired::add);
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.shutdown();
+    }
+
+    private PriceAlert alert(String code, PriceAlert.Kind kind, long threshold) {
+        PriceAlert a = new PriceAlert();
+        a.setId(ids.incrementAndGet());
+        a.setUsername("user");
+        a.setCode(code);
+        a.setKind(kind);
+        a.setThreshold(threshold);
+        engine.arm(a);
+        return a;
+    }
+
+    private StockPriceListener listener(String code) {
+        ArgumentCaptor<StockPriceListener> captor = ArgumentCaptor.forClass(StockPriceListener.class);
+        verify(kisClient).subscribe(eq(code), captor.capture());
+        return captor.getValue();
+    }
+
+    private List<Long> drainThresholds(int expected) throws InterruptedException {
+        List<Long> out = new ArrayList<>();
+        for (int i = 0; i < expected; i++) {
+            PriceAlertEngine.Fired f = fired.poll(2, TimeUnit.SECONDS);
+            if (f == null) break;
+            out.add(f.threshold());
+        }
+        return out;
+    }
+
+    @Test
+    void firesCrossedThresholdsInOrderAndKeepsTheRest() throws Exception {
+        alert(CODE, PriceAlert.Kind.PRICE_ABOVE, 120);
+        alert(CODE, PriceAlert.Kind.PRICE_ABOVE, 100);
+        alert(CODE, PriceAlert.Kind.PRICE_ABOVE, 110);
+        alert(CODE, PriceAlert.Kind.PRICE_BELOW, 80);
+        alert(CODE, PriceAlert.Kind.PRICE_BELOW, 90);
+        StockPriceListener l = listener(CODE);
+        assertEquals(5, engine.armedCount());
+
+        // 아무것도 안 걸리는 구간
+        l.onTick(TestTicks.trade(CODE, 95, 0));
+        assertNull(fired.poll(100, TimeUnit.MILLISECONDS));
+
+        // ABOVE는 낮은 threshold부터
+        l.onTick(TestTicks.trade(CODE, 115, 0));
+        assertEquals(List.of(100L, 110L), drainThresholds(2));
+        assertEquals(3, engine.armedCount());
+
+        // BELOW는 높은 threshold부터, 한 번 걸린 건 다시 안 걸림
+        l.onTick(TestTicks.trade(CODE, 70, 0));
+        assertEquals(List.of(90L, 80L), drainThresholds(2));
+        l.onTick(TestTicks.trade(CODE, 70, 0));
+        assertNull(fired.poll(100, TimeUnit.MILLISECONDS));
+        assertEquals(1, engine.armedCount());
+    }
+
+    @Test
+    void rateAlertsUseChangeRateNotPrice() throws Exception {
+        alert(CODE, PriceAlert.Kind.RATE_ABOVE, 300);
+        alert(CODE, PriceAlert.Kind.RATE_BELOW, -300);
+        StockPriceListener l = listener(CODE);
+
+        l.onTick(TestTicks.trade(CODE, 1_000_000, 299));
+        assertNull(fired.poll(100, TimeUnit.MILLISECONDS));
+
+        l.onTick(TestTicks.trade(CODE, 10, 300));
+        assertEquals(List.of(300L), drainThresholds(1));
+
+        l.onTick(TestTicks.trade(CODE, 10, -301));
+        assertEquals(List.of(-300L), drainThresholds(1));
+    }
+
+    @Test
+    void lastFiredAlertUnsubscribes() throws Exception {
+        alert(CODE, PriceAlert.Kind.PRICE_ABOVE, 100);
+        StockPriceListener l = listener(CODE);
+
+        l.onTick(TestTicks.trade(CODE, 100, 0));
+        assertEquals(List.of(100L), drainThresholds(1));
+        verify(kisClient, timeout(2000)).unsubscribe(CODE, l);
+        assertEquals(0, engine.armedCount());
+    }
+
+    @Test
+    void disarmLastAlertUnsubscribesOnce() {
+        PriceAlert a = alert(CODE, PriceAlert.Kind.PRICE_ABOVE, 100);
+        PriceAlert b = alert(CODE, PriceAlert.Kind.PRICE_BELOW, 50);
+        StockPriceListener l = listener(CODE);
+
+        engine.disarm(CODE, a.getId());
+        verify(kisClient, times(0)).unsubscribe(any(), any());
+        engine.disarm(CODE, b.getId());
+        engine.disarm(CODE, b.getId());
+        verify(kisClient, times(1)).unsubscribe(CODE, l);
+    }
+
+    @Test
+    void racingArmAndDisarmLeaveSubscriptionsBalanced() throws Exception {
+        int threads = 4, rounds = 2_000;
+        CountDownLatch go = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread w = new Thread(() -> {
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < rounds; i++) {
+                    PriceAlert a = alert(CODE, PriceAlert.Kind.PRICE_ABOVE, 1_000 + i);
+                    engine.disarm(CODE, a.getId());
+                }
+            });
+            w.start();
+            workers.add(w);
+        }
+        go.countDown();
+        for (Thread w : workers) w.join();
+
+        assertEquals(0, engine.armedCount());
+        ArgumentCaptor<StockPriceListener> subs = ArgumentCaptor.forClass(StockPriceListener.class);
+        ArgumentCaptor<StockPriceListener> unsubs = ArgumentCaptor.forClass(StockPriceListener.class);
+        verify(kisClient, atLeast(0)).subscribe(eq(CODE), subs.capture());
+        verify(kisClient, atLeast(0)).unsubscribe(eq(CODE), unsubs.capture());
+        // 모든 알림이 내려갔으니 구독한 리스너는 전부 정확히 한 번씩 해지됐어야 함
+        assertEquals(subs.getAllValues().size(), unsubs.getAllValues().size());
+        assertEquals(new HashSet<>(subs.getAllValues()), new HashSet<>(unsubs.getAllValues()));
+    }
+}
@@ -0,0 +1,105 @@
+package com.mysite.sbb.stock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.catalina.connector.ClientAbortException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.mysite.sbb.kis.KisRealtimeClient;
+import com.mysite.sbb.kis.KisSummaryCache;
+import com.mysite.sbb.kis.TickJournal;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class StockApiControllerTest {
+
+    private KisSummaryCache summaryCache;
+    private StockMasterService masterService;
+    private StockPriceStream priceStream;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        summaryCache = mock(KisSummaryCache.class);
+        masterService = mock(StockMasterService.class);
+        priceStream = mock(StockPriceStream.class);
+        StockApiController controller = new StockApiController(summaryCache, mock(KisRealtimeClient.class),
+                mock(TickJournal.class), mock(CandleAggregator.class), masterService, priceStream,
+                mock(MoversBoard.class));
+        ReflectionTestUtils.setField(controller, "sseMaxCodes", 20);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+        when(masterService.getOrNull("005930")).thenReturn(new StockInfo("005930", "삼성전자", "KOSPI", true));
+    }
+
+    @Test
+    void streamHasNoAsyncTimeoutButSummaryKeepsDefault() throws Exception {
+        when(priceStream.stream(anyList())).thenReturn(Flux.never());
+        MvcResult stream = mockMvc.perform(get("/api/stocks/stream").param("codes", "005930"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertEquals(-1, stream.getRequest().getAsyncContext().getTimeout());
+
+        when(summaryCache.get("005930")).thenReturn(Mono.never());
+        MvcResult summary = mockMvc.perform(get("/api/stocks/005930/summary"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // 전역 spring.mvc.async.request-timeout을 건드리지 않음 → 컨테이너 기본값
+        assertEquals(new MockAsyncContext(null, null).getTimeout(), summary.getRequest().getAsyncContext().getTimeout());
+    }
+
+    @Test
+    void clientAbortOnStreamIsSwallowed() throws Exception {
+        when(priceStream.stream(anyList())).thenReturn(Flux.error(new ClientAbortException("Broken pipe")));
+        MvcResult result = mockMvc.perform(get("/api/stocks/stream").param("codes", "005930"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+    }
+
+    @Test
+    void otherIoErrorsAreNotSwallowed() throws Exception {
+        when(summaryCache.get("005930")).thenReturn(Mono.error(new IOException("KIS read failed")));
+        MvcResult result = mockMvc.perform(get("/api/stocks/005930/summary"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        IOException e = assertThrows(IOException.class, () -> mockMvc.perform(asyncDispatch(result)));
+        assertEquals("KIS read failed", e.getMessage());
+    }
+
+    @Test
+    void streamRejectsUnknownCodesBeforeSubscribing() throws Exception {
+        when(priceStream.stream(anyList())).thenReturn(Flux.never());
+        when(masterService.getOrNull("000020")).thenReturn(new StockInfo("000020", "상장폐지", "KOSPI", false));
+
+        mockMvc.perform(get("/api/stocks/stream").param("codes", "005930, 999999"))
+                .andExpect(status().isBadRequest())
+                .andExpect(status().reason("Unknown stock code: 999999"));
+        mockMvc.perform(get("/api/stocks/stream").param("codes", "000020"))
+                .andExpect(status().isBadRequest());
+        verify(priceStream, never()).stream(anyList());
+
+        mockMvc.perform(get("/api/stocks/stream").param("codes", "005930,005930"))
+                .andExpect(request().asyncStarted());
+        verify(priceStream).stream(List.of("005930"));
+    }
+}
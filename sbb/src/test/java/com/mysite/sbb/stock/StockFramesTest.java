@@ -0,0 +1,75 @@
+package com.mysite.sbb.stock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mysite.sbb.kis.KisTick;
+import com.mysite.sbb.kis.TestTicks;
+
+class StockFramesTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private static String bp(long v) {
+        StringBuilder sb = new StringBuilder();
+        StockFrames.appendBp(sb, v);
+        return sb.toString();
+    }
+
+    @Test
+    void priceFrameLayout() {
+        KisTick t = TestTicks.trade("005930", 71500, -70, 12, 0);
+        TestTicks.setTradeTime(t, 93015);
+
+        assertEquals("{\"type\":\"PRICE\",\"code\":\"005930\",\"price\":71500,\"change\":0,\"rate\":-0.70,"
+                + "\"volume\":12,\"time\":93015}", StockFrames.price(t).getPayload());
+    }
+
+    @Test
+    void snapshotIsPriceFieldsPlusPrevClose() throws Exception {
+        KisTick t = TestTicks.trade("000660", 120000, 124, 3, 0);
+
+        JsonNode price = JSON.readTree(StockFrames.price(t).getPayload());
+        JsonNode snap = JSON.readTree(StockFrames.snapshot(t).getPayload());
+        assertEquals("SNAPSHOT", snap.get("type").asText());
+        assertEquals(t.getPrevClose(), snap.get("prevClose").asLong());
+        for (String f : new String[] {"code", "price", "change", "rate", "volume", "time"}) {
+            assertEquals(price.get(f), snap.get(f), f);
+        }
+    }
+
+    @Test
+    void rateIsFixedTwoDecimals() {
+        assertEquals("0.00", bp(0));
+        assertEquals("0.05", bp(5));
+        assertEquals("-0.05", bp(-5));
+        assertEquals("1.20", bp(120));
+        assertEquals("-29.99", bp(-2999));
+        assertEquals("300.00", bp(30000));
+    }
+
+    @Test
+    void errorMessageIsEscaped() throws Exception {
+        String msg = "bad \"code\"\\ \n\t\u0001";
+        String json = StockFrames.error(msg).getPayload();
+        assertEquals(msg, JSON.readTree(json).get("message").asText());
+        assertEquals("{\"type\":\"ERROR\",\"message\":\"\"}", StockFrames.error(null).getPayload());
+    }
+
+    @Test
+    void batchEmbedsEachFrameVerbatim() throws Exception {
+        KisTick t = TestTicks.trade("005930", 71500, 70);
+        OutboundFrame price = OutboundFrame.of(StockFrames.price(t), t);
+        OutboundFrame error = OutboundFrame.of(StockFrames.error("x"));
+
+        String json = StockFrames.batch(List.of(price, error)).getPayload();
+        assertEquals("{\"type\":\"BATCH\",\"frames\":[" + price.message().getPayload() + ","
+                + error.message().getPayload() + "]}", json);
+        assertEquals(2, JSON.readTree(json).get("frames").size());
+    }
+}
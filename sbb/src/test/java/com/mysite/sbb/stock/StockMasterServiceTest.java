@@ -0,0 +1,138 @@
+package com.mysite.sbb.stock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class StockMasterServiceTest {
+
+    private StockMasterRepository repo;
+    private StockMasterService service;
+    private StockMaster samsung;
+
+    @BeforeEach
+    void setUp() {
+        repo = mock(StockMasterRepository.class);
+        service = new StockMasterService(repo);
+        ReflectionTestUtils.setField(service, "cacheTtlSec", 300L);
+
+        samsung = new StockMaster("005930", "삼성전자", "KR7005930003", "KOSPI");
+        when(repo.findById(anyString())).thenReturn(Optional.empty());
+        when(repo.findById("005930")).thenReturn(Optional.of(samsung));
+        when(repo.save(any(StockMaster.class))).thenAnswer(inv -> inv.getArgument(0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    /** 트랜잭션 매니저 대신 커밋/롤백 콜백만 흉내 */
+    private static void complete(boolean commit) {
+        for (TransactionSynchronization s : TransactionSynchronizationManager.getSynchronizations()) {
+            if (commit) s.afterCommit();
+            s.afterCompletion(commit ? TransactionSynchronization.STATUS_COMMITTED
+                    : TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void hitsAndMissesAreCachedAsDetachedView() {
+        StockInfo info = service.getOrNull("005930");
+        assertEquals(new StockInfo("005930", "삼성전자", "KOSPI", true), info);
+        assertNull(service.getOrNull("999999"));
+
+        service.getOrNull("005930");
+        service.getOrNull("999999");
+        verify(repo, times(1)).findById("005930");
+        verify(repo, times(1)).findById("999999");
+
+        // 엔티티를 고쳐도 캐시된 값은 그대로 (관리 엔티티를 공유하지 않음)
+        samsung.setName("바뀐 이름");
+        assertEquals("삼성전자", service.getOrNull("005930").name());
+    }
+
+    @Test
+    void expiredEntryIsReloaded() {
+        ReflectionTestUtils.setField(service, "cacheTtlSec", 0L);
+        service.getOrNull("005930");
+        service.getOrNull("005930");
+        verify(repo, times(2)).findById("005930");
+    }
+
+    @Test
+    void inactiveStockIsCachedAsInactive() {
+        samsung.setIsActive(false);
+        assertFalse(service.getOrNull("005930").active());
+    }
+
+    @Test
+    void upsertEvictsOnlyAfterCommit() {
+        service.getOrNull("005930");
+
+        TransactionSynchronizationManager.initSynchronization();
+        service.upsert("005930", "삼성전자우", "KR7005930003", "KOSPI");
+
+        // 커밋 전 조회는 아직 옛 캐시 (DB에도 아직 옛 값)
+        assertEquals("삼성전자", service.getOrNull("005930").name());
+        verify(repo, times(2)).findById("005930");  // getOrNull 1 + upsert 1
+
+        complete(true);
+        assertEquals("삼성전자우", service.getOrNull("005930").name());
+        verify(repo, times(3)).findById("005930");
+    }
+
+    @Test
+    void rolledBackUpsertKeepsCache() {
+        service.getOrNull("005930");
+
+        TransactionSynchronizationManager.initSynchronization();
+        service.upsert("005930", "삼성전자우", "KR7005930003", "KOSPI");
+        complete(false);
+
+        service.getOrNull("005930");
+        verify(repo, times(2)).findById("005930");  // getOrNull 1 + upsert 1, 캐시 재조회 없음
+    }
+
+    @Test
+    void upsertWithoutTransactionEvictsImmediately() {
+        assertNull(service.getOrNull("000660"));
+
+        when(repo.findById("000660")).thenReturn(Optional.of(new StockMaster("000660", "SK하이닉스", null, "KOSPI")));
+        service.upsert("000660", "SK하이닉스", null, "KOSPI");
+
+        assertEquals("SK하이닉스", service.getOrNull("000660").name());
+    }
+
+    @Test
+    void malformedCodesNeverReachRepository() {
+        assertFalse(service.isKnownCode(null));
+        assertFalse(service.isKnownCode("5930"));
+        assertFalse(service.isKnownCode("005930 "));
+        assertFalse(service.isKnownCode("00593a"));
+        verify(repo, never()).findById(any());
+
+        assertTrue(service.isKnownCode("005930"));
+        assertFalse(service.isKnownCode("999999"));
+    }
+}
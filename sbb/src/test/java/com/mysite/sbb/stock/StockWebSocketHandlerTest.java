@@ -0,0 +1,183 @@
+package com.mysite.sbb.stock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import com.mysite.sbb.kis.KisRealtimeClient;
+import com.mysite.sbb.kis.KisTick;
+import com.mysite.sbb.kis.TestTicks;
+
+class StockWebSocketHandlerTest {
+
+    private KisRealtimeClient kisClient;
+    private StockWsOutbound outbound;
+    private OrderBookStore orderBookStore;
+    private TickConflator conflator;
+    private StockWebSocketHandler handler;
+    private WebSocketSession session;
+
+    @BeforeEach
+    void setUp() {
+        kisClient = mock(KisRealtimeClient.class);
+        outbound = mock(StockWsOutbound.class);
+        orderBookStore = mock(OrderBookStore.class);
+        conflator = mock(TickConflator.class);
+        StockMasterService masterService = mock(StockMasterService.class);
+        when(masterService.isKnownCode(anyString())).thenReturn(false);
+        when(masterService.isKnownCode("005930")).thenReturn(true);
+        when(masterService.isKnownCode("000660")).thenReturn(true);
+
+        handler = new StockWebSocketHandler(kisClient, outbound, conflator,
+                mock(CandleAggregator.class), orderBookStore, mock(MoversBoard.class),
+                mock(PriceAlertEngine.class), masterService);
+        ReflectionTestUtils.setField(handler, "maxCodesPerSession", 50);
+        ReflectionTestUtils.setField(handler, "maxBooksPerSession", 5);
+        session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("s1");
+    }
+
+    private void send(String json) {
+        handler.handleTextMessage(session, new TextMessage(json));
+    }
+
+    private List<String> controlFrames() {
+        ArgumentCaptor<TextMessage> frames = ArgumentCaptor.forClass(TextMessage.class);
+        verify(outbound, atLeastOnce()).send(eq(session), isNull(), frames.capture());
+        return frames.getAllValues().stream().map(TextMessage::getPayload).toList();
+    }
+
+    @Test
+    void unknownCodesAreRejectedBeforeKisRegistration() {
+        send("{\"type\":\"SUBSCRIBE\",\"codes\":[\"005930\",\"junk-1\",\"999999\",\"000660\"]}");
+
+        verify(kisClient).subscribe(eq("005930"), any());
+        verify(kisClient).subscribe(eq("000660"), any());
+        verify(kisClient, never()).subscribe(eq("junk-1"), any());
+        verify(kisClient, never()).subscribe(eq("999999"), any());
+
+        List<String> frames = controlFrames();
+        assertTrue(frames.contains("{\"type\":\"ERROR\",\"message\":\"unknown code: junk-1,999999\"}"), frames.toString());
+        assertTrue(frames.stream().anyMatch(f -> f.contains("SUBSCRIBED") && f.contains("005930")
+                && f.contains("000660") && !f.contains("junk")), frames.toString());
+    }
+
+    @Test
+    void unknownSingleCodeKeepsCurrentSubscription() {
+        send("{\"type\":\"SUBSCRIBE\",\"code\":\"005930\"}");
+        send("{\"type\":\"SUBSCRIBE\",\"code\":\"ZZZZZZ\"}");
+
+        verify(kisClient, never()).subscribe(eq("ZZZZZZ"), any());
+        verify(kisClient, never()).unsubscribe(eq("005930"), any());
+    }
+
+    @Test
+    void unknownBookCodesAreNotWatched() throws Exception {
+        send("{\"type\":\"SUBSCRIBE_BOOK\",\"codes\":[\"000660\",\"not a code\"]}");
+
+        verify(orderBookStore).watch("000660");
+        verify(orderBookStore, never()).watch("not a code");
+        List<String> frames = controlFrames();
+        assertTrue(frames.contains("{\"type\":\"ERROR\",\"message\":\"unknown code: not a code\"}"), frames.toString());
+
+        send("{\"type\":\"SUBSCRIBE_BOOK\",\"code\":\"AAAAAA\"}");
+        verify(orderBookStore, never()).watch("AAAAAA");
+    }
+
+    @Test
+    void bookSnapshotRequestSendsFullBookForWatchedCodeOnly() throws Exception {
+        OrderBookStore.OrderBook book = new OrderBookStore.OrderBook("000660");
+        book.seq = 7;
+        book.askPrice[0] = 120500;
+        book.bidPrice[0] = 120400;
+        when(orderBookStore.snapshot("000660")).thenReturn(book);
+        when(orderBookStore.snapshot("005930")).thenReturn(book);
+
+        send("{\"type\":\"SUBSCRIBE_BOOK\",\"code\":\"000660\"}");
+        send("{\"type\":\"BOOK_SNAPSHOT\",\"codes\":[\"000660\",\"005930\"]}");
+
+        // SUBSCRIBE_BOOK 직후 1회 + BOOK_SNAPSHOT 1회. 구독 안 한 005930은 보내지 않음
+        ArgumentCaptor<TextMessage> frames = ArgumentCaptor.forClass(TextMessage.class);
+        verify(outbound, times(2)).send(eq(session), anyString(), frames.capture());
+        for (TextMessage f : frames.getAllValues()) {
+            String json = f.getPayload();
+            assertTrue(json.startsWith("{\"type\":\"BOOK\",\"code\":\"000660\",\"seq\":7,") && json.contains("\"full\":true"), json);
+        }
+    }
+
+    private WebSocketSession connect(String id, String query) {
+        WebSocketSession s = mock(WebSocketSession.class);
+        when(s.getId()).thenReturn(id);
+        when(s.getUri()).thenReturn(URI.create("ws://localhost/ws/stock" + query));
+        handler.afterConnectionEstablished(s);
+        handler.handleTextMessage(s, new TextMessage("{\"type\":\"SUBSCRIBE\",\"code\":\"005930\"}"));
+        return s;
+    }
+
+    @Test
+    void tickIsEncodedOnceAndSharedByEverySessionOfItsTier() {
+        when(conflator.tierOf(any())).thenAnswer(inv -> "slow".equals(inv.getArgument(0)) ? 1 : 0);
+        ArgumentCaptor<TickConflator.FlushListener> flush = ArgumentCaptor.forClass(TickConflator.FlushListener.class);
+        verify(conflator).setFlushListener(flush.capture());
+
+        WebSocketSession a = connect("a", "");
+        WebSocketSession b = connect("b", "?tier=fast");
+        WebSocketSession slow = connect("slow", "?tier=slow");
+
+        flush.getValue().onFlush(0, TestTicks.trade("005930", 71500, 70));
+
+        ArgumentCaptor<OutboundFrame> toA = ArgumentCaptor.forClass(OutboundFrame.class);
+        ArgumentCaptor<OutboundFrame> toB = ArgumentCaptor.forClass(OutboundFrame.class);
+        verify(outbound).send(eq(a), eq("005930"), toA.capture());
+        verify(outbound).send(eq(b), eq("005930"), toB.capture());
+        verify(outbound, never()).send(eq(slow), anyString(), any(OutboundFrame.class));
+
+        // 같은 인스턴스(= 같은 TextMessage) 공유
+        assertSame(toA.getValue(), toB.getValue());
+        assertTrue(toA.getValue().message().getPayload().startsWith("{\"type\":\"PRICE\",\"code\":\"005930\",\"price\":71500,"));
+
+        flush.getValue().onFlush(1, TestTicks.trade("005930", 71600, 84));
+        verify(outbound).send(eq(slow), eq("005930"), any(OutboundFrame.class));
+        verify(outbound).send(eq(a), eq("005930"), any(OutboundFrame.class));
+    }
+
+    @Test
+    void subscribeSendsLastValueSnapshotToEachNewSubscriber() {
+        KisTick last = TestTicks.trade("005930", 71500, 70);
+        when(kisClient.snapshot("005930")).thenReturn(last);
+
+        send("{\"type\":\"SUBSCRIBE\",\"codes\":[\"005930\",\"000660\"]}");
+
+        // 종목 키로 보내서 뒤따르는 PRICE와 같은 conflation 슬롯을 씀
+        ArgumentCaptor<TextMessage> snap = ArgumentCaptor.forClass(TextMessage.class);
+        verify(outbound).send(eq(session), eq("005930"), snap.capture());
+        assertEquals(StockFrames.snapshot(last).getPayload(), snap.getValue().getPayload());
+        // last-value가 없는 종목은 다음 틱까지 기다림
+        verify(outbound, never()).send(eq(session), eq("000660"), any(TextMessage.class));
+
+        WebSocketSession late = connect("late", "");
+        verify(outbound).send(eq(late), eq("005930"), any(TextMessage.class));
+        // 이미 구독 중인 종목이라 KIS 등록은 한 번만
+        verify(kisClient).subscribe(eq("005930"), any());
+    }
+}
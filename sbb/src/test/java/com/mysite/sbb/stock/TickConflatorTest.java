@@ -0,0 +1,152 @@
+package com.mysite.sbb.stock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.mysite.sbb.kis.KisTick;
+import com.mysite.sbb.kis.TestTicks;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class TickConflatorTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    // flush 스레드가 tick을 재사용하므로 "티어:종목:가격"으로 보관
+    private final List<String> out = new ArrayList<>();
+    private TickConflator conflator;
+
+    private TickConflator conflator(String tiers, String defaultTier) {
+        TickConflator c = new TickConflator(registry);
+        ReflectionTestUtils.setField(c, "tiersSpec", tiers);
+        ReflectionTestUtils.setField(c, "defaultTierName", defaultTier);
+        c.setFlushListener((tier, tick) -> {
+            synchronized (out) {
+                out.add(tier + ":" + tick.getCode() + ":" + tick.getPrice());
+            }
+        });
+        c.init();
+        return c;
+    }
+
+    /** 주기 flush를 멈추고 테스트가 직접 flush */
+    private TickConflator manual(String tiers) {
+        conflator = conflator(tiers, "standard");
+        conflator.shutdown();
+        return conflator;
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (conflator != null) conflator.shutdown();
+    }
+
+    private void flush(int tier) {
+        List<?> tiers = (List<?>) ReflectionTestUtils.getField(conflator, "tiers");
+        ReflectionTestUtils.invokeMethod(conflator, "flush", tiers.get(tier));
+    }
+
+    private void offer(String code, long price) {
+        conflator.offer(TestTicks.trade(code, price, 0));
+    }
+
+    private double ticksOut(String tier) {
+        return registry.get("stock.conflation.ticks.out").tag("tier", tier).counter().count();
+    }
+
+    @Test
+    void tierNamesResolveToIndexOrDefault() {
+        manual("standard:4,realtime:10");
+        assertEquals(0, conflator.tierOf(null));
+        assertEquals(1, conflator.tierOf("realtime"));
+        assertEquals(1, conflator.tierOf("REALTIME"));
+        assertEquals(0, conflator.tierOf("nope"));
+
+        TickConflator other = conflator("standard:4,realtime:10", "realtime");
+        other.shutdown();
+        assertEquals(1, other.tierOf(null));
+        assertEquals(1, other.tierOf("nope"));
+    }
+
+    @Test
+    void eachTierFlushesOnlyTheLatestTickPerCode() {
+        manual("standard:4,realtime:10");
+        offer("005930", 71000);
+        offer("005930", 71100);
+        offer("000660", 120000);
+        offer("005930", 71200);
+
+        flush(1);
+        assertEquals(List.of("1:005930:71200", "1:000660:120000"), out);
+
+        // 다른 티어는 자기 주기에 따로 (같은 최신 값)
+        out.clear();
+        flush(0);
+        assertEquals(List.of("0:005930:71200", "0:000660:120000"), out);
+
+        // 새 틱이 없으면 다음 flush는 비어 있음
+        out.clear();
+        flush(0);
+        flush(1);
+        assertTrue(out.isEmpty());
+
+        // flush 후 들어온 틱은 해당 종목만 다시 나감
+        offer("000660", 120500);
+        flush(0);
+        assertEquals(List.of("0:000660:120500"), out);
+
+        assertEquals(5, registry.get("stock.conflation.ticks.in").counter().count());
+        assertEquals(3, ticksOut("standard"));
+        assertEquals(2, ticksOut("realtime"));
+    }
+
+    @Test
+    void zeroHzTierGetsEveryTickImmediately() {
+        manual("standard:4,raw:0");
+        offer("005930", 71000);
+        offer("005930", 71100);
+        assertEquals(List.of("1:005930:71000", "1:005930:71100"), out);
+
+        out.clear();
+        flush(0);
+        assertEquals(List.of("0:005930:71100"), out);
+    }
+
+    @Test
+    void flushedTickIsACopyOfTheSlot() {
+        manual("standard:4");
+        KisTick tick = TestTicks.trade("005930", 71000, 0);
+        conflator.offer(tick);
+        // 디코더가 같은 인스턴스를 재사용해 다음 틱을 써도 슬롯 값은 그대로
+        tick.copyFrom(TestTicks.trade("005930", 1, 0));
+
+        flush(0);
+        assertEquals(List.of("0:005930:71000"), out);
+    }
+
+    @Test
+    void scheduledFlushRunsAtTierRate() throws Exception {
+        conflator = conflator("fast:100", "fast");
+        offer("005930", 71000);
+        offer("005930", 71100);
+
+        long deadline = System.currentTimeMillis() + 2_000;
+        while (System.currentTimeMillis() < deadline) {
+            synchronized (out) {
+                if (out.contains("0:005930:71100")) break;
+            }
+            Thread.sleep(5);
+        }
+        synchronized (out) {
+            // 두 offer 사이에 flush가 끼면 71000도 나갈 수 있음. 마지막은 항상 최신 값
+            assertEquals("0:005930:71100", out.get(out.size() - 1));
+            assertTrue(out.size() <= 2, out.toString());
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.mysite.sbb.stock;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import org.springframework.web.socket.TextMessage;
+
+/**
+ * /ws/stock 세션 1개 기준 송신 비용 비교 (틱당 프레임 vs BATCH, permessage-deflate 유무).
+ * - 다종목 화면: codes개 종목을 구독, conflation flush마다 종목당 PRICE 1건 → flushes번 반복
+ * - batch는 flush 하나를 BATCH 프레임 하나로 (실제로는 batch-window-ms 동안 모인 것)
+ * - deflate는 Tomcat permessage-deflate와 같은 방식 (raw deflate, 컨텍스트 유지, 메시지마다 SYNC_FLUSH 후 끝 4바이트 제거)
+ * - wireBytes = 페이로드 + WS 프레임 헤더(서버→클라이언트, 마스크 없음). messages = sendMessage 호출(=write syscall) 수
+ * - cpuNanosPerTick = 세션별로 드는 비용만 (BATCH 조립 + 압축). PRICE 인코딩은 세션 간 공유라 제외
+ *
+ * 테스트 클래스패스에서 직접 실행: ... com.mysite.sbb.stock.WsFrameBenchmark 20 20000 6
+ */
+public final class WsFrameBenchmark {
+
+    private WsFrameBenchmark() {}
+
+    /** args: codes flushes deflateLevel(-1 = 기본) */
+    public static void main(String[] args) {
+        int codes = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int flushes = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        int level = args.length > 2 ? Integer.parseInt(args[2]) : -1;
+        run(codes, flushes, level).forEach(System.out::println);
+    }
+
+    public static List<Map<String, Object>> run(int codeCount, int flushes, int level) {
+        int codes = Math.max(1, Math.min(codeCount, 64));
+        List<List<OutboundFrame>> stream = generate(codes, Math.max(1, flushes));
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (boolean batch : new boolean[] {false, true}) {
+            for (boolean deflate : new boolean[] {false, true}) {
+                measure(stream, batch, deflate, level);   // 워밍업
+                results.add(measure(stream, batch, deflate, level));
+            }
+        }
+        return results;
+    }
+
+    // 종목별 랜덤워크 PRICE 프레임 (KIS 체결 필드 범위와 비슷하게)
+    private static List<List<OutboundFrame>> generate(int codes, int flushes) {
+        Random rnd = new Random(42);
+        String[] names = new String[codes];
+        long[] price = new long[codes];
+        long[] prevClose = new long[codes];
+        long[] volume = new long[codes];
+        for (int c = 0; c < codes; c++) {
+            names[c] = String.format("%06d", 5930 + c * 137);
+            prevClose[c] = 5_000 + rnd.nextInt(300_000) / 100 * 100;
+            price[c] = prevClose[c];
+        }
+
+        List<List<OutboundFrame>> stream = new ArrayList<>(flushes);
+        int time = 90_000;
+        StringBuilder sb = new StringBuilder(128);
+        for (int f = 0; f < flushes; f++) {
+            if (f % 4 == 0) time = nextSecond(time);
+            List<OutboundFrame> flush = new ArrayList<>(codes);
+            for (int c = 0; c < codes; c++) {
+                long tickSize = price[c] >= 50_000 ? 100 : 10;
+                price[c] = Math.max(tickSize, price[c] + (rnd.nextInt(3) - 1) * tickSize);
+                volume[c] = 1 + rnd.nextInt(500);
+                long change = price[c] - prevClose[c];
+
+                sb.setLength(0);
+                StockFrames.appendPrice(sb, "PRICE", names[c], price[c], change, change * 10_000 / prevClose[c],
+                        volume[c], time);
+                sb.append('}');
+                flush.add(OutboundFrame.of(new TextMessage(sb.toString())));
+            }
+            stream.add(flush);
+        }
+        return stream;
+    }
+
+    private static Map<String, Object> measure(List<List<OutboundFrame>> stream, boolean batch, boolean deflate, int level) {
+        ThreadMXBean mx = ManagementFactory.getThreadMXBean();
+        Deflater deflater = deflate ? new Deflater(level, true) : null;
+        byte[] out = new byte[64 * 1024];
+
+        long ticks = 0, messages = 0, payloadBytes = 0, wireBytes = 0;
+        long cpuStart = mx.getCurrentThreadCpuTime();
+        long start = System.nanoTime();
+
+        for (List<OutboundFrame> flush : stream) {
+            ticks += flush.size();
+            if (batch && flush.size() > 1) {
+                int n = send(StockFrames.batch(flush), deflater, out);
+                messages++;
+                payloadBytes += n;
+                wireBytes += n + header(n);
+            } else {
+                for (OutboundFrame frame : flush) {
+                    int n = send(frame.message(), deflater, out);
+                    messages++;
+                    payloadBytes += n;
+                    wireBytes += n + header(n);
+                }
+            }
+        }
+
+        long cpu = mx.getCurrentThreadCpuTime() - cpuStart;
+        long elapsed = System.nanoTime() - start;
+        if (deflater != null) deflater.end();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("mode", batch ? "batch" : "perTick");
+        result.put("deflate", deflate);
+        result.put("ticks", ticks);
+        result.put("messages", messages);
+        result.put("payloadBytes", payloadBytes);
+        result.put("wireBytes", wireBytes);
+        result.put("wireBytesPerTick", Math.round(wireBytes * 10.0 / ticks) / 10.0);
+        result.put("cpuNanosPerTick", (cpu > 0 ? cpu : elapsed) / ticks);
+        return result;
+    }
+
+    // 보낼 페이로드 바이트 수 (압축이면 압축 후)
+    private static int send(TextMessage message, Deflater deflater, byte[] out) {
+        byte[] payload = message.getPayload().getBytes(StandardCharsets.UTF_8);
+        if (deflater == null) return payload.length;
+
+        deflater.setInput(payload);
+        int n = 0;
+        while (true) {
+            n += deflater.deflate(out, n, out.length - n, Deflater.SYNC_FLUSH);
+            if (n < out.length) break;
+            out = new byte[out.length * 2];
+        }
+        // 메시지 끝 00 00 FF FF는 보내지 않음 (RFC 7692)
+        return n - 4;
+    }
+
+    private static int header(int payloadLength) {
+        if (payloadLength < 126) return 2;
+        if (payloadLength < 65_536) return 4;
+        return 10;
+    }
+
+    private static int nextSecond(int hhmmss) {
+        int h = hhmmss / 10_000, m = hhmmss / 100 % 100, s = hhmmss % 100;
+        if (++s == 60) { s = 0; m++; }
+        if (m == 60) { m = 0; h++; }
+        return h * 10_000 + m * 100 + s;
+    }
+}
@@ -0,0 +1,40 @@
+package com.mysite.sbb.stock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * 벤치마크 하네스가 깨지지 않았는지만 작은 입력으로 확인 (수치 비교는 main으로 직접 실행)
+ */
+class WsFrameBenchmarkTest {
+
+    private static Map<String, Object> find(List<Map<String, Object>> results, String mode, boolean deflate) {
+        return results.stream()
+                .filter(r -> mode.equals(r.get("mode")) && deflate == (Boolean) r.get("deflate"))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Test
+    void batchSendsOneMessagePerFlushAndDeflateShrinksWire() {
+        int codes = 10, flushes = 200;
+        List<Map<String, Object>> results = WsFrameBenchmark.run(codes, flushes, -1);
+        assertEquals(4, results.size());
+
+        Map<String, Object> perTick = find(results, "perTick", false);
+        Map<String, Object> perTickDeflate = find(results, "perTick", true);
+        Map<String, Object> batch = find(results, "batch", false);
+        Map<String, Object> batchDeflate = find(results, "batch", true);
+
+        assertEquals((long) codes * flushes, perTick.get("ticks"));
+        assertEquals((long) codes * flushes, perTick.get("messages"));
+        assertEquals((long) flushes, batch.get("messages"));
+        assertTrue((long) perTickDeflate.get("payloadBytes") < (long) perTick.get("payloadBytes"));
+        assertTrue((long) batchDeflate.get("wireBytes") < (long) perTickDeflate.get("wireBytes"));
+    }
+}